@@ -464,11 +464,14 @@ public class Block extends net.minecraftforge.registries.IForgeRegistryEntry.Imp
     {
         if (blockBox != NULL_AABB)
         {
-            AxisAlignedBB axisalignedbb = blockBox.offset(pos);
+            // Forge: only create the offset box if it intersects, most of the boxes checked do not
+            double x = (double)pos.getX();
+            double y = (double)pos.getY();
+            double z = (double)pos.getZ();
 
-            if (entityBox.intersects(axisalignedbb))
+            if (entityBox.intersects(blockBox.minX + x, blockBox.minY + y, blockBox.minZ + z, blockBox.maxX + x, blockBox.maxY + y, blockBox.maxZ + z))
             {
-                collidingBoxes.add(axisalignedbb);
+                collidingBoxes.add(blockBox.offset(pos));
             }
         }
     }
@@ -16,6 +16,15 @@ public class BlockFalling extends Block
 {
     public static boolean fallInstantly;
 
+    /**
+     * Forge: {@link #fallInstantly} is set while a chunk is populated. Worlds ticked in parallel generate one at a time,
+     * so only honour it on the thread that is generating.
+     */
+    public static boolean isFallingInstantly()
+    {
+        return fallInstantly && net.minecraftforge.common.ParallelWorldTicker.isWorldGenThread();
+    }
+
     public BlockFalling()
     {
         super(Material.SAND);
@@ -51,7 +60,7 @@ public class BlockFalling extends Block
         {
             int i = 32;
 
-            if (!fallInstantly && worldIn.isAreaLoaded(pos.add(-32, -32, -32), pos.add(32, 32, 32)))
+            if (!isFallingInstantly() && worldIn.isAreaLoaded(pos.add(-32, -32, -32), pos.add(32, 32, 32)))
             {
                 if (!worldIn.isRemote)
                 {
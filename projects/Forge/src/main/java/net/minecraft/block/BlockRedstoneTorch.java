@@ -23,7 +23,7 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 
 public class BlockRedstoneTorch extends BlockTorch
 {
-    private static final Map<World, List<BlockRedstoneTorch.Toggle>> toggles = new java.util.WeakHashMap<World, List<Toggle>>(); // FORGE - fix vanilla MC-101233
+    private static final Map<World, List<BlockRedstoneTorch.Toggle>> toggles = java.util.Collections.synchronizedMap(new java.util.WeakHashMap<World, List<Toggle>>()); // FORGE - fix vanilla MC-101233, synchronized as dimensions may be ticked in parallel
     private final boolean isOn;
 
     private boolean isBurnedOut(World worldIn, BlockPos pos, boolean turnOff)
@@ -40,8 +40,9 @@ public class BlockRedstoneWire extends Block
     public static final PropertyEnum<BlockRedstoneWire.EnumAttachPosition> WEST = PropertyEnum.<BlockRedstoneWire.EnumAttachPosition>create("west", BlockRedstoneWire.EnumAttachPosition.class);
     public static final PropertyInteger POWER = PropertyInteger.create("power", 0, 15);
     protected static final AxisAlignedBB[] REDSTONE_WIRE_AABB = new AxisAlignedBB[] {new AxisAlignedBB(0.1875D, 0.0D, 0.1875D, 0.8125D, 0.0625D, 0.8125D), new AxisAlignedBB(0.1875D, 0.0D, 0.1875D, 0.8125D, 0.0625D, 1.0D), new AxisAlignedBB(0.0D, 0.0D, 0.1875D, 0.8125D, 0.0625D, 0.8125D), new AxisAlignedBB(0.0D, 0.0D, 0.1875D, 0.8125D, 0.0625D, 1.0D), new AxisAlignedBB(0.1875D, 0.0D, 0.0D, 0.8125D, 0.0625D, 0.8125D), new AxisAlignedBB(0.1875D, 0.0D, 0.0D, 0.8125D, 0.0625D, 1.0D), new AxisAlignedBB(0.0D, 0.0D, 0.0D, 0.8125D, 0.0625D, 0.8125D), new AxisAlignedBB(0.0D, 0.0D, 0.0D, 0.8125D, 0.0625D, 1.0D), new AxisAlignedBB(0.1875D, 0.0D, 0.1875D, 1.0D, 0.0625D, 0.8125D), new AxisAlignedBB(0.1875D, 0.0D, 0.1875D, 1.0D, 0.0625D, 1.0D), new AxisAlignedBB(0.0D, 0.0D, 0.1875D, 1.0D, 0.0625D, 0.8125D), new AxisAlignedBB(0.0D, 0.0D, 0.1875D, 1.0D, 0.0625D, 1.0D), new AxisAlignedBB(0.1875D, 0.0D, 0.0D, 1.0D, 0.0625D, 0.8125D), new AxisAlignedBB(0.1875D, 0.0D, 0.0D, 1.0D, 0.0625D, 1.0D), new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 0.0625D, 0.8125D), new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 0.0625D, 1.0D)};
-    private boolean canProvidePower = true;
-    private final Set<BlockPos> blocksNeedingUpdate = Sets.<BlockPos>newHashSet();
+    // Forge: kept per thread, so dimensions ticked in parallel don't switch off or flush each other's wires
+    private final ThreadLocal<Boolean> canProvidePower = ThreadLocal.withInitial(() -> Boolean.TRUE);
+    private final ThreadLocal<Set<BlockPos>> blocksNeedingUpdate = ThreadLocal.withInitial(Sets::<BlockPos>newHashSet);
 
     public BlockRedstoneWire()
     {
@@ -150,8 +151,9 @@ public class BlockRedstoneWire extends Block
     private IBlockState updateSurroundingRedstone(World worldIn, BlockPos pos, IBlockState state)
     {
         state = this.calculateCurrentChanges(worldIn, pos, pos, state);
-        List<BlockPos> list = Lists.newArrayList(this.blocksNeedingUpdate);
-        this.blocksNeedingUpdate.clear();
+        Set<BlockPos> blocksNeedingUpdate = this.blocksNeedingUpdate.get();
+        List<BlockPos> list = Lists.newArrayList(blocksNeedingUpdate);
+        blocksNeedingUpdate.clear();
 
         for (BlockPos blockpos : list)
         {
@@ -167,9 +169,9 @@ public class BlockRedstoneWire extends Block
         int i = ((Integer)state.getValue(POWER)).intValue();
         int j = 0;
         j = this.getMaxCurrentStrength(worldIn, pos2, j);
-        this.canProvidePower = false;
+        this.canProvidePower.set(Boolean.FALSE);
         int k = worldIn.isBlockIndirectlyGettingPowered(pos1);
-        this.canProvidePower = true;
+        this.canProvidePower.set(Boolean.TRUE);
 
         if (k > 0 && k > j - 1)
         {
@@ -235,11 +237,12 @@ public class BlockRedstoneWire extends Block
                 worldIn.setBlockState(pos1, state, 2);
             }
 
-            this.blocksNeedingUpdate.add(pos1);
+            Set<BlockPos> blocksNeedingUpdate = this.blocksNeedingUpdate.get();
+            blocksNeedingUpdate.add(pos1);
 
             for (EnumFacing enumfacing1 : EnumFacing.values())
             {
-                this.blocksNeedingUpdate.add(pos1.offset(enumfacing1));
+                blocksNeedingUpdate.add(pos1.offset(enumfacing1));
             }
         }
 
@@ -361,12 +364,12 @@ public class BlockRedstoneWire extends Block
 
     public int getStrongPower(IBlockState blockState, IBlockAccess blockAccess, BlockPos pos, EnumFacing side)
     {
-        return !this.canProvidePower ? 0 : blockState.getWeakPower(blockAccess, pos, side);
+        return !this.canProvidePower.get().booleanValue() ? 0 : blockState.getWeakPower(blockAccess, pos, side);
     }
 
     public int getWeakPower(IBlockState blockState, IBlockAccess blockAccess, BlockPos pos, EnumFacing side)
     {
-        if (!this.canProvidePower)
+        if (!this.canProvidePower.get().booleanValue())
         {
             return 0;
         }
@@ -465,7 +468,7 @@ public class BlockRedstoneWire extends Block
 
     public boolean canProvidePower(IBlockState state)
     {
-        return this.canProvidePower;
+        return this.canProvidePower.get().booleanValue();
     }
 
     @SideOnly(Side.CLIENT)
@@ -108,8 +108,9 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
     private static final List<ItemStack> EMPTY_EQUIPMENT = Collections.<ItemStack>emptyList();
     private static final AxisAlignedBB ZERO_AABB = new AxisAlignedBB(0.0D, 0.0D, 0.0D, 0.0D, 0.0D, 0.0D);
     private static double renderDistanceWeight = 1.0D;
-    private static int nextEntityID;
+    private static final java.util.concurrent.atomic.AtomicInteger nextEntityID = new java.util.concurrent.atomic.AtomicInteger(); // Forge: worlds may be ticked in parallel
     private int entityId;
+    public long creatureTypeMask; // Forge: the creature types this entity is counted as by its world, see CreatureTypeCounter
     public boolean preventEntitySpawning;
     public final List<Entity> riddenByEntities; // Akarin Forge - public
     protected int rideCooldown;
@@ -201,7 +202,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
 
     public Entity(World worldIn)
     {
-        this.entityId = nextEntityID++;
+        this.entityId = nextEntityID.getAndIncrement();
         this.riddenByEntities = Lists.<Entity>newArrayList();
         this.boundingBox = ZERO_AABB;
         this.width = 0.6F;
@@ -313,7 +314,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
             {
                 this.setPosition(this.posX, this.posY, this.posZ);
 
-                if (this.world.getCollisionBoxes(this, this.getEntityBoundingBox()).isEmpty())
+                if (this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox()).isEmpty())
                 {
                     break;
                 }
@@ -640,7 +641,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
 
     private boolean isLiquidPresentInAABB(AxisAlignedBB bb)
     {
-        return this.world.getCollisionBoxes(this, bb).isEmpty() && !this.world.containsAnyLiquid(bb);
+        return this.world.getCollisionBoxesShared(this, bb).isEmpty() && !this.world.containsAnyLiquid(bb);
     }
 
     public void move(MoverType type, double x, double y, double z)
@@ -738,7 +739,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
 
             if ((type == MoverType.SELF || type == MoverType.PLAYER) && this.onGround && this.isSneaking() && this instanceof EntityPlayer)
             {
-                for (double d5 = 0.05D; x != 0.0D && this.world.getCollisionBoxes(this, this.getEntityBoundingBox().offset(x, (double)(-this.stepHeight), 0.0D)).isEmpty(); d2 = x)
+                for (double d5 = 0.05D; x != 0.0D && this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox().offset(x, (double)(-this.stepHeight), 0.0D)).isEmpty(); d2 = x)
                 {
                     if (x < 0.05D && x >= -0.05D)
                     {
@@ -754,7 +755,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
                     }
                 }
 
-                for (; z != 0.0D && this.world.getCollisionBoxes(this, this.getEntityBoundingBox().offset(0.0D, (double)(-this.stepHeight), z)).isEmpty(); d4 = z)
+                for (; z != 0.0D && this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox().offset(0.0D, (double)(-this.stepHeight), z)).isEmpty(); d4 = z)
                 {
                     if (z < 0.05D && z >= -0.05D)
                     {
@@ -770,7 +771,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
                     }
                 }
 
-                for (; x != 0.0D && z != 0.0D && this.world.getCollisionBoxes(this, this.getEntityBoundingBox().offset(x, (double)(-this.stepHeight), z)).isEmpty(); d4 = z)
+                for (; x != 0.0D && z != 0.0D && this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox().offset(x, (double)(-this.stepHeight), z)).isEmpty(); d4 = z)
                 {
                     if (x < 0.05D && x >= -0.05D)
                     {
@@ -802,7 +803,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
                 }
             }
 
-            List<AxisAlignedBB> list1 = this.world.getCollisionBoxes(this, this.getEntityBoundingBox().expand(x, y, z));
+            List<AxisAlignedBB> list1 = this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox().expand(x, y, z));
             AxisAlignedBB axisalignedbb = this.getEntityBoundingBox();
 
             if (y != 0.0D)
@@ -857,7 +858,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
                 AxisAlignedBB axisalignedbb1 = this.getEntityBoundingBox();
                 this.setEntityBoundingBox(axisalignedbb);
                 y = (double)this.stepHeight;
-                List<AxisAlignedBB> list = this.world.getCollisionBoxes(this, this.getEntityBoundingBox().expand(d2, y, d4));
+                List<AxisAlignedBB> list = this.world.getCollisionBoxesShared(this, this.getEntityBoundingBox().expand(d2, y, d4));
                 AxisAlignedBB axisalignedbb2 = this.getEntityBoundingBox();
                 AxisAlignedBB axisalignedbb3 = axisalignedbb2.expand(d2, 0.0D, d4);
                 double d8 = y;
@@ -2756,6 +2757,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
     public Entity changeDimension(int dimensionIn)
     {
         if (this.world.isRemote || this.isDead) return null;
+        if (net.minecraftforge.common.ParallelWorldTicker.deferIfTicking(() -> this.changeDimension(dimensionIn))) return null; // Forge: wait until no other world is ticking
         return changeDimension(dimensionIn, this.getServer().getWorld(dimensionIn).getDefaultTeleporter());
     }
 
@@ -2764,6 +2766,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
     {
         if (!this.world.isRemote && !this.isDead)
         {
+            if (net.minecraftforge.common.ParallelWorldTicker.deferIfTicking(() -> this.changeDimension(dimensionIn, teleporter))) return null; // Forge: wait until no other world is ticking
             if (!net.minecraftforge.common.ForgeHooks.onTravelToDimension(this, dimensionIn)) return null;
             this.world.profiler.startSection("changeDimension");
             MinecraftServer minecraftserver = this.getServer();
@@ -3318,7 +3321,7 @@ public abstract class Entity implements ICommandSender, net.minecraftforge.commo
     @Deprecated // TODO: remove (1.13?)
     public final void resetEntityId()
     {
-        this.entityId = nextEntityID++;
+        this.entityId = nextEntityID.getAndIncrement();
     }
 
     public boolean shouldRenderInPass(int pass)
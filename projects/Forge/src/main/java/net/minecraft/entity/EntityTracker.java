@@ -24,6 +24,7 @@ import net.minecraft.entity.item.EntityXPOrb;
 import net.minecraft.entity.passive.EntityBat;
 import net.minecraft.entity.passive.EntitySquid;
 import net.minecraft.entity.passive.IAnimals;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.projectile.EntityArrow;
 import net.minecraft.entity.projectile.EntityEgg;
@@ -55,6 +56,17 @@ public class EntityTracker
     private final Set<EntityTrackerEntry> entries = Sets.<EntityTrackerEntry>newHashSet();
     private final IntHashMap<EntityTrackerEntry> trackedEntityHashTable = new IntHashMap<EntityTrackerEntry>();
     private int maxTrackingDistanceThreshold;
+    /** Forge: All entries by the chunk their entity was in when its visibility was last checked */
+    private final net.minecraftforge.common.util.ChunkGrid<EntityTrackerEntry> entryGrid = new net.minecraftforge.common.util.ChunkGrid<EntityTrackerEntry>();
+    /** Forge: The entries of players only, so the players near an entity are found without looking at other entities */
+    private final net.minecraftforge.common.util.ChunkGrid<EntityTrackerEntry> playerGrid = new net.minecraftforge.common.util.ChunkGrid<EntityTrackerEntry>();
+    /**
+     * Forge: How far, in blocks, an entity or player may be from the chunk it is filed under by the time visibility is
+     * checked. Both are filed again once they moved four blocks, the rest covers the lag of the sent entity position.
+     */
+    private static final int INDEX_MARGIN = 16;
+    /** Forge: Collects the packets of the entries while this tracker ticks, see {@link net.minecraftforge.common.ForgeModContainer#parallelTrackerPackets} */
+    private final net.minecraftforge.common.TrackerPacketQueue packetQueue = new net.minecraftforge.common.TrackerPacketQueue();
 
     public EntityTracker(WorldServer theWorldIn)
     {
@@ -225,8 +237,10 @@ public class EntityTracker
             }
 
             EntityTrackerEntry entitytrackerentry = new EntityTrackerEntry(entityIn, trackingRange, this.maxTrackingDistanceThreshold, updateFrequency, sendVelocityUpdates);
+            entitytrackerentry.packetQueue = this.packetQueue;
             this.entries.add(entitytrackerentry);
             this.trackedEntityHashTable.addKey(entityIn.getEntityId(), entitytrackerentry);
+            this.addToIndex(entitytrackerentry);
             entitytrackerentry.updatePlayerEntities(this.world.playerEntities);
         }
         catch (Throwable throwable)
@@ -279,17 +293,49 @@ public class EntityTracker
         if (entitytrackerentry1 != null)
         {
             this.entries.remove(entitytrackerentry1);
+            this.removeFromIndex(entitytrackerentry1);
             entitytrackerentry1.sendDestroyEntityPacketToTrackedPlayers();
         }
     }
 
+    /**
+     * Forge: Entities and players are filed in a grid of chunks, so when either moved only the other side within tracking
+     * range is checked instead of every entity against every player.
+     */
     public void tick()
+    {
+        this.packetQueue.begin();
+
+        try
+        {
+            this.tickEntries();
+        }
+        finally
+        {
+            this.packetQueue.end();
+        }
+    }
+
+    private void tickEntries()
     {
         List<EntityPlayerMP> list = Lists.<EntityPlayerMP>newArrayList();
+        it.unimi.dsi.fastutil.longs.LongList previousChunks = new it.unimi.dsi.fastutil.longs.LongArrayList();
+        List<EntityPlayer> candidates = Lists.<EntityPlayer>newArrayList();
 
         for (EntityTrackerEntry entitytrackerentry : this.entries)
         {
-            entitytrackerentry.updatePlayerList(this.world.playerEntities);
+            List<EntityPlayer> players = this.world.playerEntities;
+            long i = entitytrackerentry.indexedChunk;
+
+            if (entitytrackerentry.isPlayerVisibilityOutdated())
+            {
+                this.updateIndex(entitytrackerentry);
+                candidates.clear();
+                this.collectPlayersInRange(entitytrackerentry, candidates);
+                players = candidates;
+            }
+
+            entitytrackerentry.updatePlayerList(players);
 
             if (entitytrackerentry.playerEntitiesUpdated)
             {
@@ -298,15 +344,20 @@ public class EntityTracker
                 if (entity instanceof EntityPlayerMP)
                 {
                     list.add((EntityPlayerMP)entity);
+                    previousChunks.add(i);
                 }
             }
         }
 
+        List<EntityTrackerEntry> nearby = Lists.<EntityTrackerEntry>newArrayList();
+
         for (int i = 0; i < list.size(); ++i)
         {
             EntityPlayerMP entityplayermp = list.get(i);
+            nearby.clear();
+            this.collectEntriesInRange(entityplayermp.posX, entityplayermp.posZ, previousChunks.getLong(i), nearby);
 
-            for (EntityTrackerEntry entitytrackerentry1 : this.entries)
+            for (EntityTrackerEntry entitytrackerentry1 : nearby)
             {
                 if (entitytrackerentry1.getTrackedEntity() != entityplayermp)
                 {
@@ -316,8 +367,102 @@ public class EntityTracker
         }
     }
 
+    private void addToIndex(EntityTrackerEntry entry)
+    {
+        Entity entity = entry.getTrackedEntity();
+        entry.indexedChunk = net.minecraftforge.common.util.ChunkGrid.key(MathHelper.floor(entity.posX) >> 4, MathHelper.floor(entity.posZ) >> 4);
+        this.entryGrid.add(entry, entry.indexedChunk);
+
+        if (entity instanceof EntityPlayerMP)
+        {
+            this.playerGrid.add(entry, entry.indexedChunk);
+        }
+    }
+
+    private void removeFromIndex(EntityTrackerEntry entry)
+    {
+        this.entryGrid.remove(entry, entry.indexedChunk);
+
+        if (entry.getTrackedEntity() instanceof EntityPlayerMP)
+        {
+            this.playerGrid.remove(entry, entry.indexedChunk);
+        }
+    }
+
+    private void updateIndex(EntityTrackerEntry entry)
+    {
+        Entity entity = entry.getTrackedEntity();
+        long i = net.minecraftforge.common.util.ChunkGrid.key(MathHelper.floor(entity.posX) >> 4, MathHelper.floor(entity.posZ) >> 4);
+
+        if (i != entry.indexedChunk)
+        {
+            this.entryGrid.move(entry, entry.indexedChunk, i);
+
+            if (entity instanceof EntityPlayerMP)
+            {
+                this.playerGrid.move(entry, entry.indexedChunk, i);
+            }
+
+            entry.indexedChunk = i;
+        }
+    }
+
+    /**
+     * Forge: Adds the players that may be able to see the entity of the entry: those within its tracking range and those
+     * already tracking it, which have to be removed if they moved out of range.
+     */
+    private void collectPlayersInRange(EntityTrackerEntry entry, List<EntityPlayer> out)
+    {
+        Entity entity = entry.getTrackedEntity();
+        int i = entry.getTrackingRange() + INDEX_MARGIN;
+        int minX = MathHelper.floor(entity.posX - i) >> 4;
+        int minZ = MathHelper.floor(entity.posZ - i) >> 4;
+        int maxX = MathHelper.floor(entity.posX + i) >> 4;
+        int maxZ = MathHelper.floor(entity.posZ + i) >> 4;
+        List<EntityTrackerEntry> list = Lists.<EntityTrackerEntry>newArrayList();
+        this.playerGrid.collect(minX, minZ, maxX, maxZ, list);
+
+        for (int j = 0; j < list.size(); ++j)
+        {
+            out.add((EntityPlayerMP)list.get(j).getTrackedEntity());
+        }
+
+        for (EntityPlayerMP entityplayermp : entry.trackingPlayers)
+        {
+            EntityTrackerEntry entitytrackerentry = this.trackedEntityHashTable.lookup(entityplayermp.getEntityId());
+
+            if (entitytrackerentry == null || !isInRange(entitytrackerentry.indexedChunk, minX, minZ, maxX, maxZ))
+            {
+                out.add(entityplayermp);
+            }
+        }
+    }
+
+    /**
+     * Forge: Adds every entry whose entity may be within tracking range of the given position, or of the chunk a player
+     * was in when last checked, since the entities around there may have to be hidden now. Adds each entry only once.
+     */
+    private void collectEntriesInRange(double x, double z, long previousChunk, List<EntityTrackerEntry> out)
+    {
+        this.entryGrid.collectAround(x, z, this.maxTrackingDistanceThreshold + INDEX_MARGIN, previousChunk, out);
+    }
+
+    private static boolean isInRange(long chunk, int minX, int minZ, int maxX, int maxZ)
+    {
+        int i = net.minecraftforge.common.util.ChunkGrid.getX(chunk);
+        int j = net.minecraftforge.common.util.ChunkGrid.getZ(chunk);
+        return i >= minX && i <= maxX && j >= minZ && j <= maxZ;
+    }
+
     public void updateVisibility(EntityPlayerMP player)
     {
+        EntityTrackerEntry entry = this.trackedEntityHashTable.lookup(player.getEntityId());
+
+        if (entry != null)
+        {
+            this.updateIndex(entry);
+        }
+
         for (EntityTrackerEntry entitytrackerentry : this.entries)
         {
             if (entitytrackerentry.getTrackedEntity() == player)
@@ -382,8 +527,11 @@ public class EntityTracker
     {
         List<Entity> list = Lists.<Entity>newArrayList();
         List<Entity> list1 = Lists.<Entity>newArrayList();
+        List<EntityTrackerEntry> nearby = Lists.<EntityTrackerEntry>newArrayList();
+        // Forge: Entities are filed by where they were when last checked, which is at most a few blocks from their chunk
+        this.entryGrid.collect(chunkIn.x - 1, chunkIn.z - 1, chunkIn.x + 1, chunkIn.z + 1, nearby);
 
-        for (EntityTrackerEntry entitytrackerentry : this.entries)
+        for (EntityTrackerEntry entitytrackerentry : nearby)
         {
             Entity entity = entitytrackerentry.getTrackedEntity();
 
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import net.minecraft.block.Block;
 import net.minecraft.entity.ai.attributes.AttributeMap;
 import net.minecraft.entity.ai.attributes.IAttributeInstance;
@@ -95,6 +96,14 @@ public class EntityTrackerEntry
     private boolean onGround;
     public boolean playerEntitiesUpdated;
     public final Set<EntityPlayerMP> trackingPlayers = Sets.<EntityPlayerMP>newHashSet();
+    /** Forge: The chunk this entry is filed under in the spatial index of its {@link EntityTracker} */
+    long indexedChunk;
+    /** Forge: The packet queue of the {@link EntityTracker} this entry belongs to, null for entries created elsewhere */
+    @Nullable
+    net.minecraftforge.common.TrackerPacketQueue packetQueue;
+    /** Forge: The queued packets' copy of {@link #trackingPlayers}, dropped whenever the set may have changed */
+    @Nullable
+    private EntityPlayerMP[] queuedRecipients;
 
     public EntityTrackerEntry(Entity entityIn, int rangeIn, int maxRangeIn, int updateFrequencyIn, boolean sendVelocityUpdatesIn)
     {
@@ -132,8 +141,9 @@ public class EntityTrackerEntry
     public void updatePlayerList(List<EntityPlayer> players)
     {
         this.playerEntitiesUpdated = false;
+        this.queuedRecipients = null;
 
-        if (!this.updatedPlayerVisibility || this.trackedEntity.getDistanceSq(this.lastTrackedEntityPosX, this.lastTrackedEntityPosY, this.lastTrackedEntityPosZ) > 16.0D)
+        if (this.isPlayerVisibilityOutdated())
         {
             this.lastTrackedEntityPosX = this.trackedEntity.posX;
             this.lastTrackedEntityPosY = this.trackedEntity.posY;
@@ -168,7 +178,7 @@ public class EntityTrackerEntry
 
                     if (packet != null)
                     {
-                        entityplayermp.connection.sendPacket(packet);
+                        this.sendPacket(entityplayermp, packet);
                     }
                 }
             }
@@ -319,6 +329,7 @@ public class EntityTrackerEntry
             // CraftBukkit start - Create PlayerVelocity event
             boolean cancelled = false;
             if (this.trackedEntity instanceof EntityPlayerMP) {
+                boolean queueing = this.pauseQueue(); // Forge: plugins may send packets of their own
                 org.bukkit.entity.Player player = (org.bukkit.entity.Player) this.trackedEntity.getBukkitEntity();
                 org.bukkit.util.Vector velocity = player.getVelocity();
                 org.bukkit.event.player.PlayerVelocityEvent event = new org.bukkit.event.player.PlayerVelocityEvent(player, velocity.clone());
@@ -328,6 +339,7 @@ public class EntityTrackerEntry
                 } else if (!velocity.equals(event.getVelocity())) {
                     player.setVelocity(event.getVelocity());
                 }
+                this.resumeQueue(queueing);
             }
             if (!cancelled)
             // CraftBukkit end
@@ -362,6 +374,16 @@ public class EntityTrackerEntry
 
     public void sendPacketToTrackedPlayers(Packet<?> packetIn)
     {
+        if (this.packetQueue != null && this.packetQueue.isQueueing())
+        {
+            if (!this.trackingPlayers.isEmpty())
+            {
+                this.packetQueue.add(packetIn, this.getQueuedRecipients(), null);
+            }
+
+            return;
+        }
+
         for (EntityPlayerMP entityplayermp : this.trackingPlayers)
         {
             entityplayermp.connection.sendPacket(packetIn);
@@ -370,6 +392,12 @@ public class EntityTrackerEntry
 
     public void sendToTrackingAndSelf(Packet<?> packetIn)
     {
+        if (this.packetQueue != null && this.packetQueue.isQueueing())
+        {
+            this.packetQueue.add(packetIn, this.getQueuedRecipients(), this.trackedEntity instanceof EntityPlayerMP ? (EntityPlayerMP)this.trackedEntity : null);
+            return;
+        }
+
         this.sendPacketToTrackedPlayers(packetIn);
 
         if (this.trackedEntity instanceof EntityPlayerMP)
@@ -378,6 +406,50 @@ public class EntityTrackerEntry
         }
     }
 
+    /**
+     * Forge: Sends a packet to a single player, or queues it behind the packets already queued this tick.
+     */
+    private void sendPacket(EntityPlayerMP playerMP, Packet<?> packetIn)
+    {
+        if (this.packetQueue != null && this.packetQueue.isQueueing())
+        {
+            this.packetQueue.add(packetIn, playerMP);
+        }
+        else
+        {
+            playerMP.connection.sendPacket(packetIn);
+        }
+    }
+
+    private EntityPlayerMP[] getQueuedRecipients()
+    {
+        if (this.queuedRecipients == null)
+        {
+            this.queuedRecipients = this.trackingPlayers.toArray(new EntityPlayerMP[this.trackingPlayers.size()]);
+        }
+
+        return this.queuedRecipients;
+    }
+
+    /**
+     * Forge: Sends the queued packets before code that may send packets directly runs, see
+     * {@link net.minecraftforge.common.TrackerPacketQueue#pause()}.
+     */
+    private boolean pauseQueue()
+    {
+        return this.packetQueue != null && this.packetQueue.pause();
+    }
+
+    private void resumeQueue(boolean queueing)
+    {
+        this.queuedRecipients = null;
+
+        if (this.packetQueue != null)
+        {
+            this.packetQueue.resume(queueing);
+        }
+    }
+
     public void sendDestroyEntityPacketToTrackedPlayers()
     {
         for (EntityPlayerMP entityplayermp : this.trackingPlayers)
@@ -394,6 +466,7 @@ public class EntityTrackerEntry
             this.trackedEntity.removeTrackingPlayer(playerMP);
             playerMP.removeEntity(this.trackedEntity);
             this.trackingPlayers.remove(playerMP);
+            this.queuedRecipients = null;
         }
     }
 
@@ -413,12 +486,13 @@ public class EntityTrackerEntry
                     playerMP.entityRemoveQueue.remove(Integer.valueOf(this.trackedEntity.getEntityId()));
                     // CraftBukkit end
                     this.trackingPlayers.add(playerMP);
+                    this.queuedRecipients = null;
                     Packet<?> packet = this.createSpawnPacket();
-                    playerMP.connection.sendPacket(packet);
+                    this.sendPacket(playerMP, packet);
 
                     if (!this.trackedEntity.getDataManager().isEmpty())
                     {
-                        playerMP.connection.sendPacket(new SPacketEntityMetadata(this.trackedEntity.getEntityId(), this.trackedEntity.getDataManager(), true));
+                        this.sendPacket(playerMP, new SPacketEntityMetadata(this.trackedEntity.getEntityId(), this.trackedEntity.getDataManager(), true));
                     }
 
                     boolean flag = this.sendVelocityUpdates;
@@ -431,7 +505,7 @@ public class EntityTrackerEntry
 
                         if (!collection.isEmpty())
                         {
-                            playerMP.connection.sendPacket(new SPacketEntityProperties(this.trackedEntity.getEntityId(), collection));
+                            this.sendPacket(playerMP, new SPacketEntityProperties(this.trackedEntity.getEntityId(), collection));
                         }
 
                         if (((EntityLivingBase)this.trackedEntity).isElytraFlying())
@@ -446,7 +520,7 @@ public class EntityTrackerEntry
 
                     if (flag && !(packet instanceof SPacketSpawnMob))
                     {
-                        playerMP.connection.sendPacket(new SPacketEntityVelocity(this.trackedEntity.getEntityId(), this.trackedEntity.motionX, this.trackedEntity.motionY, this.trackedEntity.motionZ));
+                        this.sendPacket(playerMP, new SPacketEntityVelocity(this.trackedEntity.getEntityId(), this.trackedEntity.motionX, this.trackedEntity.motionY, this.trackedEntity.motionZ));
                     }
 
                     if (this.trackedEntity instanceof EntityLivingBase)
@@ -457,7 +531,7 @@ public class EntityTrackerEntry
 
                             if (!itemstack.isEmpty())
                             {
-                                playerMP.connection.sendPacket(new SPacketEntityEquipment(this.trackedEntity.getEntityId(), entityequipmentslot, itemstack));
+                                this.sendPacket(playerMP, new SPacketEntityEquipment(this.trackedEntity.getEntityId(), entityequipmentslot, itemstack));
                             }
                         }
                     }
@@ -468,7 +542,7 @@ public class EntityTrackerEntry
 
                         if (entityplayer.isPlayerSleeping())
                         {
-                            playerMP.connection.sendPacket(new SPacketUseBed(entityplayer, new BlockPos(this.trackedEntity)));
+                            this.sendPacket(playerMP, new SPacketUseBed(entityplayer, new BlockPos(this.trackedEntity)));
                         }
                     }
                     // CraftBukkit start - Fix for nonsensical head yaw
@@ -482,31 +556,35 @@ public class EntityTrackerEntry
 
                         for (PotionEffect potioneffect : entitylivingbase.getActivePotionEffects())
                         {
-                            playerMP.connection.sendPacket(new SPacketEntityEffect(this.trackedEntity.getEntityId(), potioneffect));
+                            this.sendPacket(playerMP, new SPacketEntityEffect(this.trackedEntity.getEntityId(), potioneffect));
                         }
                     }
 
                     if (!this.trackedEntity.getPassengers().isEmpty())
                     {
-                        playerMP.connection.sendPacket(new SPacketSetPassengers(this.trackedEntity));
+                        this.sendPacket(playerMP, new SPacketSetPassengers(this.trackedEntity));
                     }
 
                     if (this.trackedEntity.isRiding())
                     {
-                        playerMP.connection.sendPacket(new SPacketSetPassengers(this.trackedEntity.getRidingEntity()));
+                        this.sendPacket(playerMP, new SPacketSetPassengers(this.trackedEntity.getRidingEntity()));
                     }
 
+                    boolean queueing = this.pauseQueue(); // Forge: entities and event handlers may send packets of their own
                     this.trackedEntity.addTrackingPlayer(playerMP);
                     playerMP.addEntity(this.trackedEntity);
                     net.minecraftforge.event.ForgeEventFactory.onStartEntityTracking(trackedEntity, playerMP);
+                    this.resumeQueue(queueing);
                 }
             }
             else if (this.trackingPlayers.contains(playerMP))
             {
                 this.trackingPlayers.remove(playerMP);
+                boolean queueing = this.pauseQueue();
                 this.trackedEntity.removeTrackingPlayer(playerMP);
                 playerMP.removeEntity(this.trackedEntity);
                 net.minecraftforge.event.ForgeEventFactory.onStopEntityTracking(trackedEntity, playerMP);
+                this.resumeQueue(queueing);
             }
         }
     }
@@ -515,7 +593,7 @@ public class EntityTrackerEntry
     {
         double d0 = playerMP.posX - (double)this.encodedPosX / 4096.0D;
         double d1 = playerMP.posZ - (double)this.encodedPosZ / 4096.0D;
-        int i = Math.min(this.range, this.maxRange);
+        int i = this.getTrackingRange();
         return d0 >= (double)(-i) && d0 <= (double)i && d1 >= (double)(-i) && d1 <= (double)i && this.trackedEntity.isSpectatedByPlayer(playerMP);
     }
 
@@ -706,6 +784,7 @@ public class EntityTrackerEntry
         if (this.trackingPlayers.contains(playerMP))
         {
             this.trackingPlayers.remove(playerMP);
+            this.queuedRecipients = null;
             this.trackedEntity.removeTrackingPlayer(playerMP);
             playerMP.removeEntity(this.trackedEntity);
         }
@@ -716,6 +795,23 @@ public class EntityTrackerEntry
         return this.trackedEntity;
     }
 
+    /**
+     * Forge: Whether the next {@link #updatePlayerList} checks again which players can see the entity, which happens
+     * once it moved more than four blocks since the last check.
+     */
+    public boolean isPlayerVisibilityOutdated()
+    {
+        return !this.updatedPlayerVisibility || this.trackedEntity.getDistanceSq(this.lastTrackedEntityPosX, this.lastTrackedEntityPosY, this.lastTrackedEntityPosZ) > 16.0D;
+    }
+
+    /**
+     * Forge: The distance in blocks, along each axis, up to which players can see the entity.
+     */
+    public int getTrackingRange()
+    {
+        return Math.min(this.range, this.maxRange);
+    }
+
     public void setMaxRange(int maxRangeIn)
     {
         this.maxRange = maxRangeIn;
@@ -168,6 +168,7 @@ public abstract class EntityMinecartContainer extends EntityMinecart implements
     @Nullable
     public Entity changeDimension(int dimensionIn, net.minecraftforge.common.util.ITeleporter teleporter)
     {
+        if (net.minecraftforge.common.ParallelWorldTicker.deferIfTicking(() -> this.changeDimension(dimensionIn, teleporter))) return null; // Forge: keep dropping the contents until the move actually happens
         this.dropContentsWhenDead = false;
         return super.changeDimension(dimensionIn, teleporter);
     }
@@ -754,6 +754,8 @@ public class EntityPlayerMP extends EntityPlayer implements IContainerListener
     @Nullable
     public Entity changeDimension(int dimensionIn, net.minecraftforge.common.util.ITeleporter teleporter)
     {
+        final int targetDimension = dimensionIn;
+        if (net.minecraftforge.common.ParallelWorldTicker.deferIfTicking(() -> this.changeDimension(targetDimension, teleporter))) return this; // Forge: wait until no other world is ticking
         if (!net.minecraftforge.common.ForgeHooks.onTravelToDimension(this, dimensionIn)) return this;
         if (this.isPlayerSleeping()) return this; // CraftBukkit - SPIGOT-3154
 
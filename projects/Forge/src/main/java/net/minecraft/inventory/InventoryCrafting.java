@@ -14,6 +14,9 @@ public class InventoryCrafting implements IInventory
     private final int inventoryWidth;
     private final int inventoryHeight;
     public final Container eventHandler; // Akarin Forge - public
+    /** Forge: The last grid and its recipe, see {@link net.minecraftforge.common.crafting.CraftingRecipeIndex} */
+    @javax.annotation.Nullable
+    public net.minecraftforge.common.crafting.CraftingRecipeIndex.LastMatch lastRecipeMatch;
     // CraftBukkit start - add fields
     public java.util.List<org.bukkit.entity.HumanEntity> transaction = new java.util.ArrayList<org.bukkit.entity.HumanEntity>();
     public net.minecraft.item.crafting.IRecipe currentRecipe;
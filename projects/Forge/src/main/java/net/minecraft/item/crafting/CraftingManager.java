@@ -196,13 +196,12 @@ public class CraftingManager
 
     public static ItemStack findMatchingResult(InventoryCrafting craftMatrix, World worldIn)
     {
-        for (IRecipe irecipe : REGISTRY)
+        IRecipe irecipe = findMatchingRecipe(craftMatrix, worldIn); // Forge: Use the recipe index
+
+        if (irecipe != null)
         {
-            if (irecipe.matches(craftMatrix, worldIn))
-            {
-                craftMatrix.currentRecipe = irecipe; // CraftBukkit
-                return irecipe.getCraftingResult(craftMatrix);
-            }
+            craftMatrix.currentRecipe = irecipe; // CraftBukkit
+            return irecipe.getCraftingResult(craftMatrix);
         }
 
         craftMatrix.currentRecipe = null; // CraftBukkit - Clear recipe when no recipe is found
@@ -212,25 +211,16 @@ public class CraftingManager
     @Nullable
     public static IRecipe findMatchingRecipe(InventoryCrafting craftMatrix, World worldIn)
     {
-        for (IRecipe irecipe : REGISTRY)
-        {
-            if (irecipe.matches(craftMatrix, worldIn))
-            {
-                return irecipe;
-            }
-        }
-
-        return null;
+        return net.minecraftforge.common.crafting.CraftingRecipeIndex.get().findMatchingRecipe(craftMatrix, worldIn); // Forge: Only check the recipes that can match
     }
 
     public static NonNullList<ItemStack> getRemainingItems(InventoryCrafting craftMatrix, World worldIn)
     {
-        for (IRecipe irecipe : REGISTRY)
+        IRecipe irecipe = findMatchingRecipe(craftMatrix, worldIn); // Forge: Use the recipe index
+
+        if (irecipe != null)
         {
-            if (irecipe.matches(craftMatrix, worldIn))
-            {
-                return irecipe.getRemainingItems(craftMatrix);
-            }
+            return irecipe.getRemainingItems(craftMatrix);
         }
 
         NonNullList<ItemStack> nonnulllist = NonNullList.<ItemStack>withSize(craftMatrix.getSizeInventory(), ItemStack.EMPTY);
@@ -1,6 +1,5 @@
 package net.minecraft.item.crafting;
 
-import com.google.common.collect.Maps;
 import java.util.Map;
 import java.util.Map.Entry;
 import net.minecraft.block.Block;
@@ -15,11 +14,12 @@ import net.minecraft.item.ItemStack;
 public class FurnaceRecipes
 {
     private static final FurnaceRecipes SMELTING_BASE = new FurnaceRecipes();
-    public final Map<ItemStack, ItemStack> smeltingList = Maps.<ItemStack, ItemStack>newHashMap(); // Akarin Forge - public
-    private final Map<ItemStack, Float> experienceList = Maps.<ItemStack, Float>newHashMap();
+    // Forge: indexed by item and metadata, see FurnaceRecipeMap
+    public final Map<ItemStack, ItemStack> smeltingList = new net.minecraftforge.common.crafting.FurnaceRecipeMap<ItemStack>(); // Akarin Forge - public
+    private final Map<ItemStack, Float> experienceList = new net.minecraftforge.common.crafting.FurnaceRecipeMap<Float>();
     // CraftBukkit start - add method
-    public Map<ItemStack,ItemStack> customRecipes = Maps.newHashMap();
-    public Map<ItemStack,Float> customExperience = Maps.newHashMap();
+    public Map<ItemStack,ItemStack> customRecipes = new net.minecraftforge.common.crafting.FurnaceRecipeMap<ItemStack>();
+    public Map<ItemStack,Float> customExperience = new net.minecraftforge.common.crafting.FurnaceRecipeMap<Float>();
     public void registerRecipe(ItemStack itemstack, ItemStack itemstack1, float f) {
         this.customRecipes.put(itemstack, itemstack1);
         this.customExperience.put(itemstack, f);
@@ -128,10 +128,25 @@ public class FurnaceRecipes
     public ItemStack getSmeltingResult(ItemStack stack)
     {
         // CraftBukkit start
-        for (Entry<ItemStack, ItemStack> entry : this.customRecipes.entrySet()) {
-            if (this.compareItemStacks(stack, entry.getKey())) return entry.getValue();
-        } // CraftBukkit end
-        for (Entry<ItemStack, ItemStack> entry : this.smeltingList.entrySet())
+        ItemStack result = this.findMatch(this.customRecipes, stack);
+        if (result != null) return result;
+        // CraftBukkit end
+        result = this.findMatch(this.smeltingList, stack);
+        return result == null ? ItemStack.EMPTY : result;
+    }
+
+    /**
+     * Forge: looks the stack up in the index of the map, falling back to checking every key if the map was replaced.
+     */
+    @javax.annotation.Nullable
+    private <V> V findMatch(Map<ItemStack, V> map, ItemStack stack)
+    {
+        if (map instanceof net.minecraftforge.common.crafting.FurnaceRecipeMap)
+        {
+            return ((net.minecraftforge.common.crafting.FurnaceRecipeMap<V>)map).findMatch(stack);
+        }
+
+        for (Entry<ItemStack, V> entry : map.entrySet())
         {
             if (this.compareItemStacks(stack, entry.getKey()))
             {
@@ -139,7 +154,7 @@ public class FurnaceRecipes
             }
         }
 
-        return ItemStack.EMPTY;
+        return null;
     }
 
     private boolean compareItemStacks(ItemStack stack1, ItemStack stack2)
@@ -158,17 +173,10 @@ public class FurnaceRecipes
         if (ret != -1) return ret;
 
         // CraftBukkit start
-        for (Entry<ItemStack, Float> entry : this.customExperience.entrySet()) {
-            if (this.compareItemStacks(stack, entry.getKey())) return entry.getValue().floatValue();
-        } // CraftBukkit end
-        for (Entry<ItemStack, Float> entry : this.experienceList.entrySet())
-        {
-            if (this.compareItemStacks(stack, entry.getKey()))
-            {
-                return ((Float)entry.getValue()).floatValue();
-            }
-        }
-
-        return 0.0F;
+        Float experience = this.findMatch(this.customExperience, stack);
+        if (experience != null) return experience.floatValue();
+        // CraftBukkit end
+        experience = this.findMatch(this.experienceList, stack);
+        return experience == null ? 0.0F : experience.floatValue();
     }
 }
\ No newline at end of file
@@ -34,6 +34,20 @@ default String getGroup()
     {
         return "";
     }
+
+    /**
+     * Forge: Whether {@link #matches} only accepts grids in which every ingredient of {@link #getIngredients()} is
+     * matched by a stack, so the recipe can be skipped for grids that hold none of the items of one of them, see
+     * {@link net.minecraftforge.common.crafting.CraftingRecipeIndex}. Recipes that match any other way must return
+     * false, they are then checked against every grid. Only the plain shaped and shapeless classes are indexable by
+     * default, subclasses that override {@link #matches} have to opt in.
+     */
+    default boolean isIndexable()
+    {
+        Class<?> type = this.getClass();
+        return type == ShapedRecipes.class || type == ShapelessRecipes.class || type == net.minecraftforge.oredict.ShapedOreRecipe.class
+                || type == net.minecraftforge.oredict.ShapelessOreRecipe.class;
+    }
     org.bukkit.inventory.Recipe toBukkitRecipe(); // CraftBukkit
     void setKey(net.minecraft.util.ResourceLocation key); // CraftBukkit
 }
\ No newline at end of file
@@ -56,6 +56,15 @@ public class Ingredient implements Predicate<ItemStack>
         return this.matchingStacksExploded;
     }
 
+    /**
+     * Forge: The stacks this ingredient was created from, with wildcard metadata not expanded into sub items. Must not
+     * be modified.
+     */
+    public ItemStack[] getUnexpandedStacks()
+    {
+        return this.matchingStacks;
+    }
+
     public boolean apply(@Nullable ItemStack p_apply_1_)
     {
         if (p_apply_1_ == null)
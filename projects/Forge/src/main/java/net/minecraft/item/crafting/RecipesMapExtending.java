@@ -16,6 +16,12 @@ public class RecipesMapExtending extends ShapedRecipes
         super("", 3, 3, NonNullList.from(Ingredient.EMPTY, Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER), Ingredient.fromItem(Items.FILLED_MAP), Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER), Ingredient.fromItems(Items.PAPER)), new ItemStack(Items.MAP));
     }
 
+    @Override
+    public boolean isIndexable()
+    {
+        return true; // Forge: matches requires the shaped ingredients before looking at the map
+    }
+
     public boolean matches(InventoryCrafting inv, World worldIn)
     {
         if (!super.matches(inv, worldIn))
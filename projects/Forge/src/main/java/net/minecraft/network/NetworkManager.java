@@ -82,6 +82,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
     private ITextComponent terminationReason;
     private boolean isEncrypted;
     private boolean disconnected;
+    private final net.minecraftforge.common.network.OutboundTrafficCounter trafficCounter = new net.minecraftforge.common.network.OutboundTrafficCounter();
 
     public NetworkManager(EnumPacketDirection packetDirection)
     {
@@ -98,6 +99,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
         super.channelActive(p_channelActive_1_);
         this.channel = p_channelActive_1_.channel();
         this.socketAddress = this.channel.remoteAddress();
+        this.channel.pipeline().addFirst("forge:traffic_counter", this.trafficCounter); // Forge
 
         try
         {
@@ -208,6 +210,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
     {
         final EnumConnectionState enumconnectionstate = EnumConnectionState.getFromPacket(inPacket);
         final EnumConnectionState enumconnectionstate1 = (EnumConnectionState)this.channel.attr(PROTOCOL_ATTRIBUTE_KEY).get();
+        final boolean insideTick = net.minecraftforge.common.ForgeModContainer.networkFlushConsolidation && this.isInsideServerTick(); // Forge: decided on the sending thread
 
         if (enumconnectionstate1 != enumconnectionstate && !( inPacket instanceof net.minecraftforge.fml.common.network.internal.FMLProxyPacket))
         {
@@ -222,7 +225,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
                 this.setConnectionState(enumconnectionstate);
             }
 
-            ChannelFuture channelfuture = this.channel.writeAndFlush(inPacket);
+            ChannelFuture channelfuture = this.writePacket(inPacket, enumconnectionstate, insideTick, futureListeners);
 
             if (futureListeners != null)
             {
@@ -242,7 +245,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
                         NetworkManager.this.setConnectionState(enumconnectionstate);
                     }
 
-                    ChannelFuture channelfuture1 = NetworkManager.this.channel.writeAndFlush(inPacket);
+                    ChannelFuture channelfuture1 = NetworkManager.this.writePacket(inPacket, enumconnectionstate, insideTick, futureListeners);
 
                     if (futureListeners != null)
                     {
@@ -255,6 +258,61 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
         }
     }
 
+    /**
+     * Forge: Writes the packet on the event loop. On the server, play packets sent during the server tick are only
+     * flushed once the tick is done or {@link net.minecraftforge.common.ForgeModContainer#networkFlushThreshold} bytes
+     * are waiting, instead of costing a system call each. Keep alive and disconnect packets, packets whose future is
+     * listened for and packets sent from outside the tick are flushed right away, together with any written before.
+     */
+    private ChannelFuture writePacket(Packet<?> inPacket, EnumConnectionState state, boolean insideTick, @Nullable GenericFutureListener <? extends Future <? super Void >> [] futureListeners)
+    {
+        if (!insideTick || this.direction != EnumPacketDirection.SERVERBOUND || state != EnumConnectionState.PLAY
+                || this.isLocalChannel() || futureListeners != null && futureListeners.length > 0
+                || inPacket instanceof net.minecraft.network.play.server.SPacketKeepAlive || inPacket instanceof net.minecraft.network.play.server.SPacketDisconnect)
+        {
+            return this.channel.writeAndFlush(inPacket);
+        }
+
+        ChannelFuture channelfuture = this.channel.write(inPacket);
+
+        if (this.trafficCounter.getPendingBytes() >= net.minecraftforge.common.ForgeModContainer.networkFlushThreshold)
+        {
+            this.channel.flush();
+        }
+
+        return channelfuture;
+    }
+
+    /**
+     * Forge: Whether the calling thread works on the current server tick, which flushes every connection at its end,
+     * see {@link net.minecraft.server.MinecraftServer#isInsideTick()}. Packets sent from anywhere else, like plugin
+     * async tasks or the network threads, have nothing to flush them later.
+     */
+    protected boolean isInsideServerTick()
+    {
+        net.minecraft.server.MinecraftServer server = net.minecraftforge.fml.common.FMLCommonHandler.instance().getMinecraftServerInstance();
+        return server != null && server.isInsideTick();
+    }
+
+    /**
+     * Forge: Sends the packets that were written but not flushed yet, from any thread.
+     */
+    public void flushPackets()
+    {
+        if (this.channel != null)
+        {
+            this.channel.flush();
+        }
+    }
+
+    /**
+     * Forge: The number of packets, bytes and flushes sent on this connection.
+     */
+    public net.minecraftforge.common.network.OutboundTrafficCounter getTrafficCounter()
+    {
+        return this.trafficCounter;
+    }
+
     private void flushOutboundQueue()
     {
         if (this.channel != null && this.channel.isOpen())
@@ -285,10 +343,7 @@ public class NetworkManager extends SimpleChannelInboundHandler < Packet<? >>
             ((ITickable)this.packetListener).update();
         }
 
-        if (this.channel != null)
-        {
-            this.channel.flush();
-        }
+        this.flushPackets();
     }
 
     public SocketAddress getRemoteAddress()
@@ -161,6 +161,29 @@ public class NetworkSystem
         }
     }
 
+    /**
+     * Forge: Flushes the packets every connection wrote during the tick, see
+     * {@link net.minecraftforge.common.ForgeModContainer#networkFlushConsolidation}.
+     */
+    public void flushConnections()
+    {
+        if (!net.minecraftforge.common.ForgeModContainer.networkFlushConsolidation)
+        {
+            return;
+        }
+
+        synchronized (this.networkManagers)
+        {
+            for (NetworkManager networkmanager : this.networkManagers)
+            {
+                if (networkmanager.isChannelOpen())
+                {
+                    networkmanager.flushPackets();
+                }
+            }
+        }
+    }
+
     public void networkTick()
     {
         synchronized (this.networkManagers)
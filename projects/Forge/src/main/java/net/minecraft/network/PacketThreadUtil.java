@@ -12,7 +12,10 @@ public class PacketThreadUtil
             {
                 public void run()
                 {
+                    net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.PACKET, packetIn.getClass());
+                    long timingsStart = timings.start();
                     packetIn.processPacket(processor);
+                    timings.stop(timingsStart);
                 }
             });
             throw ThreadQuickExitException.INSTANCE;
@@ -38,6 +38,51 @@ public class SPacketChunkData implements Packet<INetHandlerPlayClient>
         boolean flag = chunkIn.getWorld().provider.hasSkyLight();
         this.buffer = new byte[this.calculateChunkSize(chunkIn, flag, changedSectionFilter)];
         this.availableSections = this.extractChunkData(new PacketBuffer(this.getWriteBuffer()), chunkIn, flag, changedSectionFilter);
+        this.addTileEntityTags(chunkIn, changedSectionFilter);
+    }
+
+    /**
+     * Forge: Creates a full chunk packet from sections that were encoded ahead of time, see
+     * {@link net.minecraftforge.common.network.ChunkPayloadCache}.
+     *
+     * @param sections the block and light data of every section to send, as written by {@link #extractChunkData}, by
+     *     the y of the section, null for sections that are not sent
+     */
+    public SPacketChunkData(Chunk chunkIn, byte[][] sections)
+    {
+        this.chunkX = chunkIn.x;
+        this.chunkZ = chunkIn.z;
+        this.fullChunk = true;
+        byte[] abyte = chunkIn.getBiomeArray();
+        int i = abyte.length;
+
+        for (byte[] abyte1 : sections)
+        {
+            if (abyte1 != null)
+            {
+                i += abyte1.length;
+            }
+        }
+
+        this.buffer = new byte[i];
+        int j = 0;
+
+        for (int k = 0; k < sections.length; ++k)
+        {
+            if (sections[k] != null)
+            {
+                this.availableSections |= 1 << k;
+                System.arraycopy(sections[k], 0, this.buffer, j, sections[k].length);
+                j += sections[k].length;
+            }
+        }
+
+        System.arraycopy(abyte, 0, this.buffer, j, abyte.length);
+        this.addTileEntityTags(chunkIn, 65535);
+    }
+
+    private void addTileEntityTags(Chunk chunkIn, int changedSectionFilter)
+    {
         this.tileEntityTags = Lists.<NBTTagCompound>newArrayList();
 
         for (Entry<BlockPos, TileEntity> entry : chunkIn.getTileEntityMap().entrySet())
@@ -101,6 +146,14 @@ public class SPacketChunkData implements Packet<INetHandlerPlayClient>
         handler.handleChunkData(this);
     }
 
+    /**
+     * Forge: The size of the encoded sections and biomes, which make up most of the packet.
+     */
+    public int getDataSize()
+    {
+        return this.buffer.length;
+    }
+
     @SideOnly(Side.CLIENT)
     public PacketBuffer getReadBuffer()
     {
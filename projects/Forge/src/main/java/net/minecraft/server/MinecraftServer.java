@@ -135,6 +135,8 @@ public abstract class MinecraftServer implements ICommandSender, Runnable, IThre
     private String resourcePackUrl = "";
     private String resourcePackHash = "";
     private boolean serverIsRunning;
+    /** Forge: Set while the server thread runs {@link #tick()}, see {@link #isInsideTick()} */
+    private boolean inTick;
     private long timeOfLastWarning;
     private String userMessage;
     private boolean startProfiling;
@@ -644,6 +646,7 @@ public abstract class MinecraftServer implements ICommandSender, Runnable, IThre
         }
         finally
         {
+            this.inTick = false; // Forge: a tick that threw never reached its flush
             try
             {
                 this.stopServer();
@@ -729,6 +732,7 @@ public abstract class MinecraftServer implements ICommandSender, Runnable, IThre
     public void tick() throws MinecraftException // CraftBukkit - added throws
     {
         long i = System.nanoTime();
+        this.inTick = true; // Forge
         net.minecraftforge.fml.common.FMLCommonHandler.instance().onPreServerTick();
         ++this.tickCounter;
 
@@ -785,6 +789,17 @@ public abstract class MinecraftServer implements ICommandSender, Runnable, IThre
         this.profiler.endSection();
         this.profiler.endSection();
         net.minecraftforge.fml.common.FMLCommonHandler.instance().onPostServerTick();
+        this.inTick = false; // Forge
+        this.getNetworkSystem().flushConnections(); // Forge: Send the packets of this tick that were not flushed yet
+    }
+
+    /**
+     * Forge: Whether the calling thread works on the current tick, whose packets are flushed at its end: the server
+     * thread while it runs {@link #tick()}, or a world tick thread.
+     */
+    public boolean isInsideTick()
+    {
+        return this.isCallingFromMinecraftThread() ? this.inTick : net.minecraftforge.common.ParallelWorldTicker.isWorldTickThread();
     }
 
     public void updateTimeLightAndEntities()
@@ -813,6 +828,7 @@ public abstract class MinecraftServer implements ICommandSender, Runnable, IThre
         } // CraftBukkit end
 
         Integer[] ids = net.minecraftforge.common.DimensionManager.getIDs(this.tickCounter % 200 == 0);
+        if (net.minecraftforge.common.ParallelWorldTicker.isEnabled(this)) net.minecraftforge.common.ParallelWorldTicker.tickWorlds(this, ids); else // Forge: tick independent dimensions on a pool
         for (int x = 0; x < ids.length; x++)
         {
             int id = ids[x];
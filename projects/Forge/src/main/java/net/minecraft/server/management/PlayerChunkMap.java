@@ -2,8 +2,8 @@ package net.minecraft.server.management;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -41,13 +42,23 @@ public class PlayerChunkMap
     private final List<EntityPlayerMP> players = Lists.<EntityPlayerMP>newArrayList();
     private final Long2ObjectMap<PlayerChunkMapEntry> entryMap = new Long2ObjectOpenHashMap<PlayerChunkMapEntry>(4096);
     private final Set<PlayerChunkMapEntry> dirtyEntries = Sets.<PlayerChunkMapEntry>newHashSet();
-    private final List<PlayerChunkMapEntry> pendingSendToPlayers = Lists.<PlayerChunkMapEntry>newLinkedList();
-    private final List<PlayerChunkMapEntry> entriesWithoutChunks = Lists.<PlayerChunkMapEntry>newLinkedList();
+    // Forge: a set, the order is up to the send queues of the players
+    private final Set<PlayerChunkMapEntry> pendingSendToPlayers = Sets.<PlayerChunkMapEntry>newLinkedHashSet();
+    private final List<PlayerChunkMapEntry> entriesWithoutChunks = Lists.<PlayerChunkMapEntry>newArrayList();
     private final List<PlayerChunkMapEntry> entries = Lists.<PlayerChunkMapEntry>newArrayList();
     private int playerViewRadius;
+    /** Forge: The chunk offsets within the view radius, nearest first, as x and z pairs */
+    private int[] viewOffsets = new int[0];
     private long previousTotalWorldTime;
     private boolean sortMissingChunks = true;
-    private boolean sortSendToPlayers = true;
+    /** Forge: The chunks every player is still waiting for, see {@link PlayerChunkMapEntry#sendQueuedChunk} */
+    private final Map<EntityPlayerMP, net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry>> sendQueues = Maps.<EntityPlayerMP, net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry>>newHashMap();
+    private int chunksSentLastTick;
+    private long bytesSentLastTick;
+    private long chunksSentTotal;
+    private long budgetLimitedTicks;
+    /** Forge: Chunks taken from a send queue that are still being encoded, they are put back after each player */
+    private final List<PlayerChunkMapEntry> encodingChunks = Lists.<PlayerChunkMapEntry>newArrayList();
     private boolean wasNotEmpty; // CraftBukkit - add field
     // CraftBukkit start - add method
     public final boolean isChunkInUse(int x, int z) {
@@ -113,6 +124,7 @@ public class PlayerChunkMap
 
     public void tick()
     {
+        this.world.processLightUpdates(); // Forge: send the block changes and chunks with up to date light
         long i = this.world.getTotalWorldTime();
 
         if (i - this.previousTotalWorldTime > 8000L)
@@ -140,23 +152,19 @@ public class PlayerChunkMap
         if (this.sortMissingChunks && i % 4L == 0L)
         {
             this.sortMissingChunks = false;
-            Collections.sort(this.entriesWithoutChunks, new Comparator<PlayerChunkMapEntry>()
+
+            // Forge: compute the distances once instead of in every comparison
+            for (int i1 = 0; i1 < this.entriesWithoutChunks.size(); ++i1)
             {
-                public int compare(PlayerChunkMapEntry p_compare_1_, PlayerChunkMapEntry p_compare_2_)
-                {
-                    return ComparisonChain.start().compare(p_compare_1_.getClosestPlayerDistance(), p_compare_2_.getClosestPlayerDistance()).result();
-                }
-            });
-        }
+                PlayerChunkMapEntry playerchunkmapentry4 = this.entriesWithoutChunks.get(i1);
+                playerchunkmapentry4.closestPlayerDistance = playerchunkmapentry4.getClosestPlayerDistance();
+            }
 
-        if (this.sortSendToPlayers && i % 4L == 2L)
-        {
-            this.sortSendToPlayers = false;
-            Collections.sort(this.pendingSendToPlayers, new Comparator<PlayerChunkMapEntry>()
+            Collections.sort(this.entriesWithoutChunks, new Comparator<PlayerChunkMapEntry>()
             {
                 public int compare(PlayerChunkMapEntry p_compare_1_, PlayerChunkMapEntry p_compare_2_)
                 {
-                    return ComparisonChain.start().compare(p_compare_1_.getClosestPlayerDistance(), p_compare_2_.getClosestPlayerDistance()).result();
+                    return Double.compare(p_compare_1_.closestPlayerDistance, p_compare_2_.closestPlayerDistance);
                 }
             });
         }
@@ -165,11 +173,14 @@ public class PlayerChunkMap
         {
             long l = System.nanoTime() + 50000000L;
             int k = 49;
-            Iterator<PlayerChunkMapEntry> iterator = this.entriesWithoutChunks.iterator();
+            int j1 = 0;
+            int k1 = 0;
+            int l1 = this.entriesWithoutChunks.size();
 
-            while (iterator.hasNext())
+            // Forge: compact the list in place instead of removing entries one by one
+            while (k1 < l1)
             {
-                PlayerChunkMapEntry playerchunkmapentry1 = iterator.next();
+                PlayerChunkMapEntry playerchunkmapentry1 = this.entriesWithoutChunks.get(k1++);
 
                 if (playerchunkmapentry1.getChunk() == null)
                 {
@@ -177,8 +188,6 @@ public class PlayerChunkMap
 
                     if (playerchunkmapentry1.providePlayerChunk(flag))
                     {
-                        iterator.remove();
-
                         if (playerchunkmapentry1.sendToPlayers())
                         {
                             this.pendingSendToPlayers.remove(playerchunkmapentry1);
@@ -191,32 +200,39 @@ public class PlayerChunkMap
                             break;
                         }
                     }
-                } else iterator.remove(); // CraftBukkit start - SPIGOT-2891: remove once chunk has been provided
+                    else
+                    {
+                        this.entriesWithoutChunks.set(j1++, playerchunkmapentry1);
+                    }
+                } // CraftBukkit - SPIGOT-2891: remove once chunk has been provided
             }
+
+            while (k1 < l1)
+            {
+                this.entriesWithoutChunks.set(j1++, this.entriesWithoutChunks.get(k1++));
+            }
+
+            this.entriesWithoutChunks.subList(j1, l1).clear();
         }
 
         if (!this.pendingSendToPlayers.isEmpty())
         {
-            int i1 = 81;
             Iterator<PlayerChunkMapEntry> iterator1 = this.pendingSendToPlayers.iterator();
 
             while (iterator1.hasNext())
             {
                 PlayerChunkMapEntry playerchunkmapentry3 = iterator1.next();
 
+                // Forge: this only queues the chunk for its players, so there is no limit per tick
                 if (playerchunkmapentry3.sendToPlayers())
                 {
                     iterator1.remove();
-                    --i1;
-
-                    if (i1 < 0)
-                    {
-                        break;
-                    }
                 }
             }
         }
 
+        this.sendQueuedChunks();
+
         if (this.players.isEmpty())
         {
             WorldProvider worldprovider = this.world.provider;
@@ -284,18 +300,14 @@ public class PlayerChunkMap
         player.managedPosX = player.posX;
         player.managedPosZ = player.posZ;
 
-        List<ChunkPos> chunkList = new java.util.LinkedList<ChunkPos>(); // CraftBukkit - Load nearby chunks first
-        for (int k = i - this.playerViewRadius; k <= i + this.playerViewRadius; ++k)
+        this.getSendQueue(player);
+
+        // CraftBukkit - Load nearby chunks first
+        // Forge: walk the offsets presorted by distance instead of sorting the chunks of every player
+        for (int k = 0; k < this.viewOffsets.length; k += 2)
         {
-            for (int l = j - this.playerViewRadius; l <= j + this.playerViewRadius; ++l)
-            {
-                chunkList.add(new ChunkPos(k, l)); // CraftBukkit
-            }
+            this.getOrCreateEntry(i + this.viewOffsets[k], j + this.viewOffsets[k + 1]).addPlayer(player);
         }
-        // CraftBukkit start
-        Collections.sort(chunkList, new net.minecraftforge.common.util.ChunkCoordComparator(player));
-        for (ChunkPos pair : chunkList) this.getOrCreateEntry(pair.x, pair.z).addPlayer(player);
-        // CraftBukkit end
 
         this.players.add(player);
         this.markSortPending();
@@ -320,6 +332,7 @@ public class PlayerChunkMap
         }
 
         this.players.remove(player);
+        this.sendQueues.remove(player);
         this.markSortPending();
     }
 
@@ -354,18 +367,12 @@ public class PlayerChunkMap
             int j1 = i - k;
             int k1 = j - l;
 
-            List<ChunkPos> chunksToLoad = new java.util.LinkedList<ChunkPos>(); // CraftBukkit
             if (j1 != 0 || k1 != 0)
             {
                 for (int l1 = i - i1; l1 <= i + i1; ++l1)
                 {
                     for (int i2 = j - i1; i2 <= j + i1; ++i2)
                     {
-                        if (!this.overlaps(l1, i2, k, l, i1))
-                        {
-                            chunksToLoad.add(new ChunkPos(l1, i2)); // CraftBukkit
-                        }
-
                         if (!this.overlaps(l1 - j1, i2 - k1, i, j, i1))
                         {
                             PlayerChunkMapEntry playerchunkmapentry = this.getEntry(l1 - j1, i2 - k1);
@@ -381,9 +388,18 @@ public class PlayerChunkMap
                 player.managedPosX = player.posX;
                 player.managedPosZ = player.posZ;
                 this.markSortPending();
-                // CraftBukkit start - send nearest chunks first
-                Collections.sort(chunksToLoad, new net.minecraftforge.common.util.ChunkCoordComparator(player));
-                for (ChunkPos pair : chunksToLoad) this.getOrCreateEntry(pair.x, pair.z).addPlayer(player); // CraftBukkit end
+
+                // CraftBukkit - send nearest chunks first
+                for (int j2 = 0; j2 < this.viewOffsets.length; j2 += 2)
+                {
+                    int k2 = i + this.viewOffsets[j2];
+                    int l2 = j + this.viewOffsets[j2 + 1];
+
+                    if (!this.overlaps(k2, l2, k, l, i1))
+                    {
+                        this.getOrCreateEntry(k2, l2).addPlayer(player);
+                    }
+                }
             }
         }
     }
@@ -391,7 +407,7 @@ public class PlayerChunkMap
     public boolean isPlayerWatchingChunk(EntityPlayerMP player, int chunkX, int chunkZ)
     {
         PlayerChunkMapEntry playerchunkmapentry = this.getEntry(chunkX, chunkZ);
-        return playerchunkmapentry != null && playerchunkmapentry.containsPlayer(player) && playerchunkmapentry.isSentToPlayers();
+        return playerchunkmapentry != null && playerchunkmapentry.isSentToPlayer(player);
     }
 
     public void setPlayerViewRadius(int radius)
@@ -438,6 +454,7 @@ public class PlayerChunkMap
             }
 
             this.playerViewRadius = radius;
+            this.viewOffsets = getViewOffsets(radius);
             this.markSortPending();
         }
     }
@@ -445,7 +462,213 @@ public class PlayerChunkMap
     private void markSortPending()
     {
         this.sortMissingChunks = true;
-        this.sortSendToPlayers = true;
+    }
+
+    /**
+     * Forge: The chunk offsets within a view radius ordered like {@link net.minecraftforge.common.util.ChunkCoordComparator},
+     * as pairs of x and z.
+     */
+    private static int[] getViewOffsets(int radius)
+    {
+        List<ChunkPos> list = Lists.<ChunkPos>newArrayList();
+
+        for (int i = -radius; i <= radius; ++i)
+        {
+            for (int j = -radius; j <= radius; ++j)
+            {
+                list.add(new ChunkPos(i, j));
+            }
+        }
+
+        Collections.sort(list, new net.minecraftforge.common.util.ChunkCoordComparator(0, 0));
+        int[] aint = new int[list.size() * 2];
+
+        for (int k = 0; k < list.size(); ++k)
+        {
+            aint[k * 2] = list.get(k).x;
+            aint[k * 2 + 1] = list.get(k).z;
+        }
+
+        return aint;
+    }
+
+    private net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> getSendQueue(EntityPlayerMP player)
+    {
+        net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> chunkpriorityqueue = this.sendQueues.get(player);
+
+        if (chunkpriorityqueue == null)
+        {
+            chunkpriorityqueue = new net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry>();
+            chunkpriorityqueue.setView(MathHelper.floor(player.posX) >> 4, MathHelper.floor(player.posZ) >> 4, player.rotationYaw);
+            this.sendQueues.put(player, chunkpriorityqueue);
+        }
+
+        return chunkpriorityqueue;
+    }
+
+    /**
+     * Forge: Queues a chunk that is ready to be sent to a player, it is sent by {@link #sendQueuedChunks()}.
+     */
+    void queueChunkSend(EntityPlayerMP player, PlayerChunkMapEntry entry)
+    {
+        this.getSendQueue(player).add(entry, entry.getPos().x, entry.getPos().z);
+    }
+
+    /**
+     * Forge: Takes a chunk out of a player's send queue, for chunks that are sent to the player directly.
+     */
+    void dequeueChunkSend(EntityPlayerMP player, PlayerChunkMapEntry entry)
+    {
+        net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> chunkpriorityqueue = this.sendQueues.get(player);
+
+        if (chunkpriorityqueue != null)
+        {
+            chunkpriorityqueue.removeIf(queued -> queued == entry);
+        }
+    }
+
+    /**
+     * Forge: Sends every player the chunks it is waiting for, nearest and ahead first, until the player's budget of
+     * {@link net.minecraftforge.common.ForgeModContainer#chunkSendsPerTick} chunks and
+     * {@link net.minecraftforge.common.ForgeModContainer#chunkSendBytesPerTick} bytes is used up. Chunks that are still
+     * being encoded stay queued, at most as many as the player may be sent per tick are encoded ahead.
+     */
+    private void sendQueuedChunks()
+    {
+        int i = net.minecraftforge.common.ForgeModContainer.chunkSendsPerTick;
+        int j = net.minecraftforge.common.ForgeModContainer.chunkSendBytesPerTick;
+        this.chunksSentLastTick = 0;
+        this.bytesSentLastTick = 0L;
+
+        // Indexed, watch event handlers may add or remove players
+        for (int k = 0; k < this.players.size(); ++k)
+        {
+            final EntityPlayerMP entityplayermp = this.players.get(k);
+            net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> chunkpriorityqueue = this.sendQueues.get(entityplayermp);
+
+            if (chunkpriorityqueue == null || chunkpriorityqueue.isEmpty())
+            {
+                continue;
+            }
+
+            if (chunkpriorityqueue.setView(MathHelper.floor(entityplayermp.posX) >> 4, MathHelper.floor(entityplayermp.posZ) >> 4, entityplayermp.rotationYaw))
+            {
+                // Drop the chunks that went out of view since they were queued
+                chunkpriorityqueue.removeIf(entry -> !entry.isQueuedFor(entityplayermp));
+            }
+
+            int l = 0;
+            long i1 = 0L;
+
+            while (l < i && (j <= 0 || i1 < j) && this.encodingChunks.size() < i)
+            {
+                PlayerChunkMapEntry playerchunkmapentry = chunkpriorityqueue.poll();
+
+                if (playerchunkmapentry == null)
+                {
+                    break;
+                }
+
+                if (!playerchunkmapentry.isQueuedFor(entityplayermp))
+                {
+                    continue;
+                }
+
+                if (!playerchunkmapentry.prepareQueuedChunk())
+                {
+                    this.encodingChunks.add(playerchunkmapentry);
+                    continue;
+                }
+
+                int j1 = playerchunkmapentry.sendQueuedChunk(entityplayermp);
+
+                if (j1 >= 0)
+                {
+                    ++l;
+                    i1 += j1;
+                }
+            }
+
+            if (l >= i || j > 0 && i1 >= j)
+            {
+                ++this.budgetLimitedTicks;
+            }
+
+            for (int k1 = 0; k1 < this.encodingChunks.size(); ++k1)
+            {
+                PlayerChunkMapEntry playerchunkmapentry1 = this.encodingChunks.get(k1);
+                chunkpriorityqueue.add(playerchunkmapentry1, playerchunkmapentry1.getPos().x, playerchunkmapentry1.getPos().z);
+            }
+
+            this.encodingChunks.clear();
+
+            this.chunksSentLastTick += l;
+            this.bytesSentLastTick += i1;
+        }
+
+        this.chunksSentTotal += this.chunksSentLastTick;
+    }
+
+    /**
+     * Forge: The number of chunks queued to be sent to players. Chunks that went out of view since they were queued
+     * count until their player enters another chunk or turns around.
+     */
+    public int getQueuedChunkSends()
+    {
+        int i = 0;
+
+        for (net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> chunkpriorityqueue : this.sendQueues.values())
+        {
+            i += chunkpriorityqueue.size();
+        }
+
+        return i;
+    }
+
+    public int getDeepestChunkSendQueue()
+    {
+        int i = 0;
+
+        for (net.minecraftforge.common.util.ChunkPriorityQueue<PlayerChunkMapEntry> chunkpriorityqueue : this.sendQueues.values())
+        {
+            i = Math.max(i, chunkpriorityqueue.size());
+        }
+
+        return i;
+    }
+
+    public int getChunkSendQueueCount()
+    {
+        return this.sendQueues.size();
+    }
+
+    public int getChunksSentLastTick()
+    {
+        return this.chunksSentLastTick;
+    }
+
+    public long getBytesSentLastTick()
+    {
+        return this.bytesSentLastTick;
+    }
+
+    public long getChunksSentTotal()
+    {
+        return this.chunksSentTotal;
+    }
+
+    /**
+     * Forge: The number of times a player still had chunks queued after using up its send budget for the tick.
+     */
+    public long getBudgetLimitedTicks()
+    {
+        return this.budgetLimitedTicks;
+    }
+
+    public void resetChunkSendCounters()
+    {
+        this.chunksSentTotal = 0L;
+        this.budgetLimitedTicks = 0L;
     }
 
     public static int getFurthestViewableBlock(int distance)
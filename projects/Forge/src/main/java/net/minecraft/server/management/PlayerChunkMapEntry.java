@@ -41,6 +41,13 @@ public class PlayerChunkMapEntry
         }
     };
     private boolean loading = true;
+    /** Forge: Players in {@link #players} waiting in their send queue for this chunk, which was already sent to others */
+    private final List<EntityPlayerMP> unsentPlayers = Lists.<EntityPlayerMP>newArrayList();
+    /** Forge: {@link #getClosestPlayerDistance()}, computed once before the entries are sorted by it */
+    double closestPlayerDistance;
+    /** Forge: The encoded sections of the chunk, kept while {@link #unsentPlayers} is not empty */
+    @Nullable
+    private net.minecraftforge.common.network.ChunkPayloadCache payloadCache;
 
     public PlayerChunkMapEntry(PlayerChunkMap mapIn, int chunkX, int chunkZ)
     {
@@ -71,9 +78,8 @@ public class PlayerChunkMapEntry
 
             if (this.sentToPlayers)
             {
-                this.sendToPlayer(player);
-                // chunk watch event - the chunk is ready
-                net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkWatchEvent.Watch(this.chunk, player));
+                // Forge: the chunk is ready, it is sent once its turn comes in the player's send queue
+                this.queueSendToPlayer(player);
             }
         }
     }
@@ -96,11 +102,17 @@ public class PlayerChunkMapEntry
                 return;
             }
 
-            if (this.sentToPlayers)
+            // Forge: players still waiting for the chunk never got it
+            if (this.sentToPlayers && !this.unsentPlayers.remove(player))
             {
                 player.connection.sendPacket(new SPacketUnloadChunk(this.pos.x, this.pos.z));
             }
 
+            if (this.unsentPlayers.isEmpty())
+            {
+                this.payloadCache = null;
+            }
+
             this.players.remove(player);
 
             net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkWatchEvent.UnWatch(this.chunk, player));
@@ -154,26 +166,102 @@ public class PlayerChunkMapEntry
             this.changedSectionFilter = 0;
             this.sentToPlayers = true;
             if (this.players.isEmpty()) return true; // Forge: fix MC-120780
-            Packet<?> packet = new SPacketChunkData(this.chunk, 65535);
 
+            // Forge: the packet is built when the chunk's turn comes in each player's send queue
             for (EntityPlayerMP entityplayermp : this.players)
             {
-                entityplayermp.connection.sendPacket(packet);
-                this.playerChunkMap.getWorldServer().getEntityTracker().sendLeashedEntitiesInChunk(entityplayermp, this.chunk);
-                // chunk watch event - delayed to here as the chunk wasn't ready in addPlayer
-                net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkWatchEvent.Watch(this.chunk, entityplayermp));
+                this.queueSendToPlayer(entityplayermp);
             }
 
             return true;
         }
     }
 
+    private void queueSendToPlayer(EntityPlayerMP player)
+    {
+        this.unsentPlayers.add(player);
+        this.playerChunkMap.queueChunkSend(player, this);
+    }
+
+    /**
+     * Forge: Starts encoding the chunk for the players waiting for it, off the server thread.
+     *
+     * @return true if the chunk can be sent with {@link #sendQueuedChunk} without encoding it first
+     */
+    boolean prepareQueuedChunk()
+    {
+        if (this.payloadCache == null)
+        {
+            this.payloadCache = new net.minecraftforge.common.network.ChunkPayloadCache();
+        }
+
+        return this.payloadCache.prepare(this.chunk);
+    }
+
+    /**
+     * Forge: Sends the chunk to a player that was waiting for it in its send queue, together with the entities in the
+     * chunk, and fires {@link net.minecraftforge.event.world.ChunkWatchEvent.Watch}.
+     *
+     * @return the size of the chunk data sent, or -1 if the player is no longer waiting for this chunk
+     */
+    int sendQueuedChunk(EntityPlayerMP player)
+    {
+        if (!this.unsentPlayers.remove(player))
+        {
+            return -1;
+        }
+
+        SPacketChunkData spacketchunkdata = this.payloadCache != null ? this.payloadCache.createPacket(this.chunk) : new SPacketChunkData(this.chunk, 65535);
+
+        if (this.unsentPlayers.isEmpty())
+        {
+            this.payloadCache = null;
+        }
+
+        player.connection.sendPacket(spacketchunkdata);
+        this.playerChunkMap.getWorldServer().getEntityTracker().sendLeashedEntitiesInChunk(player, this.chunk);
+        // chunk watch event - delayed to here as the chunk wasn't sent in addPlayer
+        net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkWatchEvent.Watch(this.chunk, player));
+        return spacketchunkdata.getDataSize();
+    }
+
+    boolean isQueuedFor(EntityPlayerMP player)
+    {
+        return this.unsentPlayers.contains(player);
+    }
+
+    /**
+     * Forge: Whether the chunk has been sent to the player, rather than the player waiting for it in its send queue.
+     */
+    public boolean isSentToPlayer(EntityPlayerMP player)
+    {
+        return this.sentToPlayers && this.players.contains(player) && !this.unsentPlayers.contains(player);
+    }
+
     public void sendToPlayer(EntityPlayerMP player)
     {
         if (this.sentToPlayers)
         {
+            // Forge: a player still waiting in its send queue gets the chunk now instead of again once its turn comes
+            boolean queued = this.unsentPlayers.remove(player);
+
+            if (queued)
+            {
+                this.playerChunkMap.dequeueChunkSend(player, this);
+
+                if (this.unsentPlayers.isEmpty())
+                {
+                    this.payloadCache = null;
+                }
+            }
+
             player.connection.sendPacket(new SPacketChunkData(this.chunk, 65535));
             this.playerChunkMap.getWorldServer().getEntityTracker().sendLeashedEntitiesInChunk(player, this.chunk);
+
+            if (queued)
+            {
+                net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkWatchEvent.Watch(this.chunk, player));
+            }
         }
     }
 
@@ -200,6 +288,11 @@ public class PlayerChunkMapEntry
 
             this.changedSectionFilter |= 1 << (y >> 4);
 
+            if (this.payloadCache != null)
+            {
+                this.payloadCache.invalidate(y >> 4);
+            }
+
             //Forge; Cache everything, so always run
             {
                 short short1 = (short)(x << 12 | z << 8 | y);
@@ -224,7 +317,13 @@ public class PlayerChunkMapEntry
         {
             for (int i = 0; i < this.players.size(); ++i)
             {
-                (this.players.get(i)).connection.sendPacket(packetIn);
+                EntityPlayerMP entityplayermp = this.players.get(i);
+
+                // Forge: the chunk sent later already contains the change
+                if (this.unsentPlayers.isEmpty() || !this.unsentPlayers.contains(entityplayermp))
+                {
+                    entityplayermp.connection.sendPacket(packetIn);
+                }
             }
         }
     }
@@ -351,6 +450,12 @@ public class PlayerChunkMapEntry
 
     public List<EntityPlayerMP> getWatchingPlayers()
     {
+        if (isSentToPlayers() && !this.unsentPlayers.isEmpty())
+        {
+            List<EntityPlayerMP> list = Lists.newArrayList(this.players);
+            list.removeAll(this.unsentPlayers);
+            return java.util.Collections.unmodifiableList(list);
+        }
         return isSentToPlayers() ? java.util.Collections.unmodifiableList(players) : java.util.Collections.emptyList();
     }
 }
\ No newline at end of file
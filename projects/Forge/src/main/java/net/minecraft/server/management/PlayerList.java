@@ -612,6 +612,7 @@ public abstract class PlayerList
 
     public void transferPlayerToDimension(EntityPlayerMP player, int dimensionIn, net.minecraftforge.common.util.ITeleporter teleporter)
     {
+        if (net.minecraftforge.common.ParallelWorldTicker.deferIfTicking(() -> this.transferPlayerToDimension(player, dimensionIn, teleporter))) return; // Forge: wait until no other world is ticking
         int i = player.dimension;
         WorldServer worldserver = this.mcServer.getWorld(player.dimension);
         player.dimension = dimensionIn;
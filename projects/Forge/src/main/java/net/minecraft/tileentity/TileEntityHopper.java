@@ -33,6 +33,9 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
     private NonNullList<ItemStack> inventory = NonNullList.<ItemStack>withSize(5, ItemStack.EMPTY);
     private int transferCooldown = -1;
     private long tickedGameTime;
+    // Forge: the blocks above and in front of this hopper, see getInventoryCache
+    private final net.minecraftforge.items.HopperInventoryCache sourceCache = new net.minecraftforge.items.HopperInventoryCache();
+    private final net.minecraftforge.items.HopperInventoryCache targetCache = new net.minecraftforge.items.HopperInventoryCache();
     // CraftBukkit start - add fields and methods
     public java.util.List<org.bukkit.entity.HumanEntity> transaction = new java.util.ArrayList<org.bukkit.entity.HumanEntity>();
     private int maxStack = MAX_STACK;
@@ -232,28 +235,41 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
                     if (!this.getStackInSlot(i).isEmpty())
                     {
                         ItemStack itemstack = this.getStackInSlot(i).copy();
-                        // CraftBukkit start - Call event when pushing items into other inventories
-                        org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(this.decrStackSize(i, 1));
-                        org.bukkit.inventory.Inventory destinationInventory;
-                        if (iinventory instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
-                            destinationInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) iinventory);
+                        ItemStack taken = this.decrStackSize(i, net.minecraftforge.common.ForgeModContainer.hopperItemsPerTransfer);
+                        int count = taken.getCount();
+                        int offered = count;
+                        ItemStack itemstack1;
+                        boolean unchanged = true;
+
+                        if (net.minecraftforge.items.VanillaInventoryCodeHooks.hasMoveItemListeners()) { // Forge: skip the event if no plugin listens to it
+                            // CraftBukkit start - Call event when pushing items into other inventories
+                            org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(taken);
+                            org.bukkit.inventory.Inventory destinationInventory;
+                            if (iinventory instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
+                                destinationInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) iinventory);
+                            } else {
+                                destinationInventory = iinventory.getOwner().getInventory();
+                            }
+                            org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(this.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
+                            this.getWorld().getServer().getPluginManager().callEvent(event);
+                            if (event.isCancelled()) {
+                                this.setInventorySlotContents(i, itemstack);
+                                this.setTransferCooldown(8); // Delay hopper checks
+                                return false;
+                            }
+                            ItemStack moved = org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem());
+                            offered = moved.getCount();
+                            itemstack1 = putStackInInventoryAllSlots(this, iinventory, moved, enumfacing);
+                            unchanged = event.getItem().equals(oitemstack);
+                            // CraftBukkit end
                         } else {
-                            destinationInventory = iinventory.getOwner().getInventory();
+                            itemstack1 = putStackInInventoryAllSlots(this, iinventory, taken, enumfacing);
                         }
-                        org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(this.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
-                        this.getWorld().getServer().getPluginManager().callEvent(event);
-                        if (event.isCancelled()) {
-                            this.setInventorySlotContents(i, itemstack);
-                            this.setTransferCooldown(8); // Delay hopper checks
-                            return false;
-                        }
-                        ItemStack itemstack1 = putStackInInventoryAllSlots(this, iinventory, org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem()), enumfacing);
-                        // CraftBukkit end
 
                         if (itemstack1.isEmpty())
                         {
                             // CraftBukkit start
-                            if (event.getItem().equals(oitemstack)) {
+                            if (unchanged) {
                                 iinventory.markDirty();
                             } else {
                                 this.setInventorySlotContents(i, itemstack);
@@ -261,6 +277,22 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
                             return true;
                         }
 
+                        // Forge: with several items per transfer, keep the part that fit
+                        if (unchanged && itemstack1.getCount() < count)
+                        {
+                            itemstack.shrink(count - itemstack1.getCount());
+                            this.setInventorySlotContents(i, itemstack);
+                            iinventory.markDirty();
+                            return true;
+                        }
+
+                        // Forge: the item a plugin changed replaces the taken items, once part of it went in they stay taken
+                        if (!unchanged && itemstack1.getCount() < offered)
+                        {
+                            iinventory.markDirty();
+                            return true;
+                        }
+
                         this.setInventorySlotContents(i, itemstack);
                     }
                 }
@@ -398,32 +430,45 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
         if (!itemstack.isEmpty() && canExtractItemFromSlot(inventoryIn, itemstack, index, direction))
         {
             ItemStack itemstack1 = itemstack.copy();
-            // CraftBukkit start - Call event on collection of items from inventories into the hopper
-            org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(inventoryIn.decrStackSize(index, 1));
-            org.bukkit.inventory.Inventory sourceInventory;
-            if (inventoryIn instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
-                sourceInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) inventoryIn);
-            } else {
-                sourceInventory = inventoryIn.getOwner().getInventory();
-            }
-            org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(sourceInventory, oitemstack.clone(), hopper.getOwner().getInventory(), false);
-            hopper.getWorld().getServer().getPluginManager().callEvent(event);
-            if (event.isCancelled()) {
-                inventoryIn.setInventorySlotContents(index, itemstack1);
-                if (hopper instanceof TileEntityHopper) {
-                    ((TileEntityHopper) hopper).setTransferCooldown(8);
-                } else if (inventoryIn instanceof net.minecraft.entity.item.EntityMinecartHopper) {
-                    ((net.minecraft.entity.item.EntityMinecartHopper) hopper).setTransferTicker(4);
+            ItemStack taken = inventoryIn.decrStackSize(index, net.minecraftforge.common.ForgeModContainer.hopperItemsPerTransfer);
+            int count = taken.getCount();
+            int offered = count;
+            ItemStack itemstack2;
+            boolean unchanged = true;
+
+            if (net.minecraftforge.items.VanillaInventoryCodeHooks.hasMoveItemListeners()) { // Forge: skip the event if no plugin listens to it
+                // CraftBukkit start - Call event on collection of items from inventories into the hopper
+                org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(taken);
+                org.bukkit.inventory.Inventory sourceInventory;
+                if (inventoryIn instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
+                    sourceInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) inventoryIn);
+                } else {
+                    sourceInventory = inventoryIn.getOwner().getInventory();
                 }
-                return false;
+                org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(sourceInventory, oitemstack.clone(), hopper.getOwner().getInventory(), false);
+                hopper.getWorld().getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    inventoryIn.setInventorySlotContents(index, itemstack1);
+                    if (hopper instanceof TileEntityHopper) {
+                        ((TileEntityHopper) hopper).setTransferCooldown(8);
+                    } else if (inventoryIn instanceof net.minecraft.entity.item.EntityMinecartHopper) {
+                        ((net.minecraft.entity.item.EntityMinecartHopper) hopper).setTransferTicker(4);
+                    }
+                    return false;
+                }
+                ItemStack moved = org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem());
+                offered = moved.getCount();
+                itemstack2 = putStackInInventoryAllSlots(inventoryIn, hopper, moved, null);
+                unchanged = event.getItem().equals(oitemstack);
+                // CraftBukkit end
+            } else {
+                itemstack2 = putStackInInventoryAllSlots(inventoryIn, hopper, taken, null);
             }
-            ItemStack itemstack2 = putStackInInventoryAllSlots(inventoryIn, hopper, org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem()), null);
-            // CraftBukkit end
 
             if (itemstack2.isEmpty())
             {
                 // CraftBukkit start
-                if (event.getItem().equals(oitemstack)) {
+                if (unchanged) {
                     inventoryIn.markDirty();
                 } else {
                     inventoryIn.setInventorySlotContents(index, itemstack1);
@@ -431,6 +476,22 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
                 return true;
             }
 
+            // Forge: with several items per transfer, keep the part that fit
+            if (unchanged && itemstack2.getCount() < count)
+            {
+                itemstack1.shrink(count - itemstack2.getCount());
+                inventoryIn.setInventorySlotContents(index, itemstack1);
+                inventoryIn.markDirty();
+                return true;
+            }
+
+            // Forge: the item a plugin changed replaces the taken items, once part of it went in they stay taken
+            if (!unchanged && itemstack2.getCount() < offered)
+            {
+                inventoryIn.markDirty();
+                return true;
+            }
+
             inventoryIn.setInventorySlotContents(index, itemstack1);
         }
 
@@ -447,11 +508,13 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
         }
         else
         {
-            // CraftBukkit start
-            org.bukkit.event.inventory.InventoryPickupItemEvent event = new org.bukkit.event.inventory.InventoryPickupItemEvent(destination.getOwner().getInventory(), (org.bukkit.entity.Item) entity.getBukkitEntity());
-            entity.world.getServer().getPluginManager().callEvent(event);
-            if (event.isCancelled()) return false;
-            // CraftBukkit end
+            if (net.minecraftforge.items.VanillaInventoryCodeHooks.hasPickupItemListeners()) { // Forge: skip the event if no plugin listens to it
+                // CraftBukkit start
+                org.bukkit.event.inventory.InventoryPickupItemEvent event = new org.bukkit.event.inventory.InventoryPickupItemEvent(destination.getOwner().getInventory(), (org.bukkit.entity.Item) entity.getBukkitEntity());
+                entity.world.getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) return false;
+                // CraftBukkit end
+            }
             ItemStack itemstack = entity.getItem().copy();
             ItemStack itemstack1 = putStackInInventoryAllSlots(source, destination, itemstack, (EnumFacing)null);
 
@@ -575,47 +638,65 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
     private IInventory getInventoryForHopperTransfer()
     {
         EnumFacing enumfacing = BlockHopper.getFacing(this.getBlockMetadata());
-        return getInventoryAtPosition(this.getWorld(), this.getXPos() + (double)enumfacing.getFrontOffsetX(), this.getYPos() + (double)enumfacing.getFrontOffsetY(), this.getZPos() + (double)enumfacing.getFrontOffsetZ());
+        return getInventoryAtPosition(this.getWorld(), this.getXPos() + (double)enumfacing.getFrontOffsetX(), this.getYPos() + (double)enumfacing.getFrontOffsetY(), this.getZPos() + (double)enumfacing.getFrontOffsetZ(), this.getInventoryCache(enumfacing));
     }
 
     public static IInventory getSourceInventory(IHopper hopper)
     {
-        return getInventoryAtPosition(hopper.getWorld(), hopper.getXPos(), hopper.getYPos() + 1.0D, hopper.getZPos());
+        return getInventoryAtPosition(hopper.getWorld(), hopper.getXPos(), hopper.getYPos() + 1.0D, hopper.getZPos(), hopper instanceof TileEntityHopper ? ((TileEntityHopper)hopper).getInventoryCache(EnumFacing.UP) : null);
     }
 
     public static List<EntityItem> getCaptureItems(World worldIn, double p_184292_1_, double p_184292_3_, double p_184292_5_)
     {
-        return worldIn.<EntityItem>getEntitiesWithinAABB(EntityItem.class, new AxisAlignedBB(p_184292_1_ - 0.5D, p_184292_3_, p_184292_5_ - 0.5D, p_184292_1_ + 0.5D, p_184292_3_ + 1.5D, p_184292_5_ + 0.5D), EntitySelectors.IS_ALIVE);
+        AxisAlignedBB axisalignedbb = new AxisAlignedBB(p_184292_1_ - 0.5D, p_184292_3_, p_184292_5_ - 0.5D, p_184292_1_ + 0.5D, p_184292_3_ + 1.5D, p_184292_5_ + 0.5D);
+        if (!mayFindEntities(worldIn, axisalignedbb, false)) return new java.util.ArrayList<EntityItem>(); // Forge
+        return worldIn.<EntityItem>getEntitiesWithinAABB(EntityItem.class, axisalignedbb, EntitySelectors.IS_ALIVE);
     }
 
     public static IInventory getInventoryAtPosition(World worldIn, double x, double y, double z)
+    {
+        return getInventoryAtPosition(worldIn, x, y, z, null);
+    }
+
+    // Forge: looks the block inventory up through the cache of a hopper, if it has one
+    public static IInventory getInventoryAtPosition(World worldIn, double x, double y, double z, @Nullable net.minecraftforge.items.HopperInventoryCache cache)
     {
         IInventory iinventory = null;
         int i = MathHelper.floor(x);
         int j = MathHelper.floor(y);
         int k = MathHelper.floor(z);
         BlockPos blockpos = new BlockPos(i, j, k);
-        net.minecraft.block.state.IBlockState state = worldIn.getBlockState(blockpos);
-        Block block = state.getBlock();
 
-        if (block.hasTileEntity(state))
+        if (cache != null)
         {
-            TileEntity tileentity = worldIn.getTileEntity(blockpos);
+            iinventory = cache.getInventory(worldIn, blockpos);
+        }
+        else
+        {
+            net.minecraft.block.state.IBlockState state = worldIn.getBlockState(blockpos);
+            Block block = state.getBlock();
 
-            if (tileentity instanceof IInventory)
+            if (block.hasTileEntity(state))
             {
-                iinventory = (IInventory)tileentity;
+                TileEntity tileentity = worldIn.getTileEntity(blockpos);
 
-                if (iinventory instanceof TileEntityChest && block instanceof BlockChest)
+                if (tileentity instanceof IInventory)
                 {
-                    iinventory = ((BlockChest)block).getContainer(worldIn, blockpos, true);
+                    iinventory = (IInventory)tileentity;
+
+                    if (iinventory instanceof TileEntityChest && block instanceof BlockChest)
+                    {
+                        iinventory = ((BlockChest)block).getContainer(worldIn, blockpos, true);
+                    }
                 }
             }
         }
 
-        if (iinventory == null)
+        AxisAlignedBB axisalignedbb = new AxisAlignedBB(x - 0.5D, y - 0.5D, z - 0.5D, x + 0.5D, y + 0.5D, z + 0.5D);
+
+        if (iinventory == null && mayFindEntities(worldIn, axisalignedbb, true))
         {
-            List<Entity> list = worldIn.getEntitiesInAABBexcluding((Entity)null, new AxisAlignedBB(x - 0.5D, y - 0.5D, z - 0.5D, x + 0.5D, y + 0.5D, z + 0.5D), EntitySelectors.HAS_INVENTORY);
+            List<Entity> list = worldIn.getEntitiesInAABBexcluding((Entity)null, axisalignedbb, EntitySelectors.HAS_INVENTORY);
 
             if (!list.isEmpty())
             {
@@ -626,6 +707,32 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
         return iinventory;
     }
 
+    /**
+     * Forge: whether a chunk the entities in the box could be in has item entities, or entities with an inventory, at all
+     */
+    private static boolean mayFindEntities(World worldIn, AxisAlignedBB aabb, boolean inventories)
+    {
+        int i = MathHelper.floor((aabb.minX - World.MAX_ENTITY_RADIUS) / 16.0D);
+        int j = MathHelper.floor((aabb.maxX + World.MAX_ENTITY_RADIUS) / 16.0D);
+        int k = MathHelper.floor((aabb.minZ - World.MAX_ENTITY_RADIUS) / 16.0D);
+        int l = MathHelper.floor((aabb.maxZ + World.MAX_ENTITY_RADIUS) / 16.0D);
+
+        for (int i1 = i; i1 <= j; ++i1)
+        {
+            for (int j1 = k; j1 <= l; ++j1)
+            {
+                net.minecraft.world.chunk.Chunk chunk = worldIn.getChunkProvider().getLoadedChunk(i1, j1);
+
+                if (chunk != null && (inventories ? chunk.hasInventoryEntities() : chunk.hasItemEntities()))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     private static boolean canCombine(ItemStack stack1, ItemStack stack2)
     {
         if (stack1.getItem() != stack2.getItem())
@@ -693,4 +800,19 @@ public class TileEntityHopper extends TileEntityLockableLoot implements IHopper,
     }
 
     public long getLastUpdateTime() { return tickedGameTime; } // Forge
+
+    /**
+     * Forge: the cache for the block above this hopper if the side is UP, otherwise for the block it pushes into.
+     * @return null if hopperInventoryCache is disabled
+     */
+    @Nullable
+    public net.minecraftforge.items.HopperInventoryCache getInventoryCache(EnumFacing side)
+    {
+        if (!net.minecraftforge.common.ForgeModContainer.hopperInventoryCache)
+        {
+            return null;
+        }
+
+        return side == EnumFacing.UP ? this.sourceCache : this.targetCache;
+    }
 }
\ No newline at end of file
@@ -19,6 +19,16 @@ public class BitArray
         this.longArray = new long[MathHelper.roundUp(arraySizeIn * bitsPerEntryIn, 64) / 64];
     }
 
+    /**
+     * Forge: Copies the packed values into a new array that is not affected by later writes to this one.
+     */
+    public BitArray copy()
+    {
+        BitArray bitarray = new BitArray(this.bitsPerEntry, this.arraySize);
+        System.arraycopy(this.longArray, 0, bitarray.longArray, 0, this.longArray.length);
+        return bitarray;
+    }
+
     public void setAt(int index, int value)
     {
         Validate.inclusiveBetween(0L, (long)(this.arraySize - 1), (long)index);
@@ -75,7 +75,22 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     private int seaLevel = 63;
     protected boolean scheduledUpdatesAreImmediate;
-    public final List<Entity> loadedEntityList = Lists.<Entity>newArrayList();
+    protected final net.minecraftforge.common.util.CreatureTypeCounter creatureTypeCounter = new net.minecraftforge.common.util.CreatureTypeCounter(); // Forge
+    protected final net.minecraftforge.common.util.IndexedList<Entity> entityTickList = new net.minecraftforge.common.util.IndexedList<Entity>() // Forge: constant time removal
+    {
+        @Override
+        protected void onAdd(Entity entity)
+        {
+            World.this.creatureTypeCounter.add(entity);
+        }
+
+        @Override
+        protected void onRemove(Entity entity)
+        {
+            World.this.creatureTypeCounter.remove(entity);
+        }
+    };
+    public final List<Entity> loadedEntityList = this.entityTickList;
     protected final List<Entity> unloadedEntityList = Lists.<Entity>newArrayList();
     public final List<TileEntity> loadedTileEntityList = Lists.<TileEntity>newArrayList();
     public final List<TileEntity> tickableTileEntities = Lists.<TileEntity>newArrayList();
@@ -115,6 +130,11 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
     private boolean processingLoadedTiles;
     private final WorldBorder worldBorder;
     int[] lightUpdateBlockList;
+    /** Forge: The light checks waiting for {@link #processLightUpdates()}, created once the first check is queued */
+    @Nullable
+    private net.minecraftforge.common.util.LightUpdateQueue lightUpdateQueue;
+    /** Forge: The lists filled by {@link #getCollisionBoxesShared}, per thread */
+    private static final ThreadLocal<World.CollisionBuffers> COLLISION_BUFFERS = ThreadLocal.withInitial(World.CollisionBuffers::new);
 
     public boolean restoringBlockSnapshots = false;
     public boolean captureBlockSnapshots = false;
@@ -149,7 +169,6 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
     public long ticksPerAnimalSpawns;
     public long ticksPerMonsterSpawns;
     public boolean populating;
-    private int tickPosition;
 
     public org.bukkit.craftbukkit.CraftWorld getWorld() {
         return this.world;
@@ -451,7 +470,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                 if (newState.getLightOpacity(this, pos) != oldOpacity || newState.getLightValue(this, pos) != oldLight)
                 {
                     this.profiler.startSection("checkLight");
-                    this.checkLight(pos);
+                    this.queueLightCheck(pos);
                     this.profiler.endSection();
                 }
 
@@ -762,6 +781,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     public int getLight(BlockPos pos)
     {
+        this.processLightUpdates(); // Forge: reads see the queued light checks
         if (pos.getY() < 0)
         {
             return 0;
@@ -784,6 +804,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     public int getLight(BlockPos pos, boolean checkNeighbors)
     {
+        this.processLightUpdates(); // Forge: reads see the queued light checks
         if (pos.getX() >= -30000000 && pos.getZ() >= -30000000 && pos.getX() < 30000000 && pos.getZ() < 30000000)
         {
             if (checkNeighbors && this.getBlockState(pos).useNeighborBrightness())
@@ -948,6 +969,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     public int getLightFor(EnumSkyBlock type, BlockPos pos)
     {
+        this.processLightUpdates(); // Forge: reads see the queued light checks
         if (pos.getY() < 0)
         {
             pos = new BlockPos(pos.getX(), 0, pos.getZ());
@@ -1417,14 +1439,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
             this.getChunkFromChunkCoords(i, j).removeEntity(entityIn);
         }
 
-        // CraftBukkit start - Decrement loop variable field if we've already ticked this entity
-        int index = this.loadedEntityList.indexOf(entityIn);
-        if (index != -1) {
-            if (index <= this.tickPosition) {
-                this.tickPosition--;
-            }
-            this.loadedEntityList.remove(index);
-        } // CraftBukkit end
+        this.loadedEntityList.remove(entityIn); // Forge: IndexedList keeps the position of the entity loop valid
         this.onEntityRemoved(entityIn);
     }
 
@@ -1446,6 +1461,10 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
         boolean flag1 = entityIn != null && this.isInsideWorldBorder(entityIn);
         IBlockState iblockstate = Blocks.STONE.getDefaultState();
         BlockPos.PooledMutableBlockPos blockpos$pooledmutableblockpos = BlockPos.PooledMutableBlockPos.retain();
+        // Forge: whether a chunk is loaded is looked up once per chunk instead of once per column
+        int chunkX = Integer.MIN_VALUE;
+        int chunkZ = Integer.MIN_VALUE;
+        Chunk chunk = null;
 
         if (p_191504_3_ && !net.minecraftforge.event.ForgeEventFactory.gatherCollisionBoxes(this, entityIn, aabb, outList)) return true;
         try
@@ -1457,7 +1476,19 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                     boolean flag2 = k1 == i || k1 == j - 1;
                     boolean flag3 = l1 == i1 || l1 == j1 - 1;
 
-                    if ((!flag2 || !flag3) && this.isBlockLoaded(blockpos$pooledmutableblockpos.setPos(k1, 64, l1)))
+                    if (flag2 && flag3)
+                    {
+                        continue;
+                    }
+
+                    if (k1 >> 4 != chunkX || l1 >> 4 != chunkZ)
+                    {
+                        chunkX = k1 >> 4;
+                        chunkZ = l1 >> 4;
+                        chunk = this.isBlockLoaded(blockpos$pooledmutableblockpos.setPos(k1, 64, l1)) ? this.getChunkFromChunkCoords(chunkX, chunkZ) : null;
+                    }
+
+                    if (chunk != null)
                     {
                         for (int i2 = k; i2 < l; ++i2)
                         {
@@ -1483,10 +1514,26 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                                 {
                                     iblockstate1 = iblockstate;
                                 }
-                                else
+                                else if (this.captureTreeGeneration)
                                 {
                                     iblockstate1 = this.getBlockState(blockpos$pooledmutableblockpos);
                                 }
+                                else
+                                {
+                                    // Forge: sections without blocks are skipped as a whole
+                                    if (i2 >= 0 && i2 < 256)
+                                    {
+                                        net.minecraft.world.chunk.storage.ExtendedBlockStorage extendedblockstorage = chunk.getBlockStorageArray()[i2 >> 4];
+
+                                        if (extendedblockstorage == Chunk.NULL_BLOCK_STORAGE || extendedblockstorage.isEmpty())
+                                        {
+                                            i2 |= 15;
+                                            continue;
+                                        }
+                                    }
+
+                                    iblockstate1 = chunk.getBlockState(blockpos$pooledmutableblockpos);
+                                }
 
                                 iblockstate1.addCollisionBoxToList(this, blockpos$pooledmutableblockpos, aabb, outList, entityIn, false);
 
@@ -1512,15 +1559,52 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
     public List<AxisAlignedBB> getCollisionBoxes(@Nullable Entity entityIn, AxisAlignedBB aabb)
     {
         List<AxisAlignedBB> list = Lists.<AxisAlignedBB>newArrayList();
+        this.getCollisionBoxes(entityIn, aabb, list, Lists.<Entity>newArrayList());
+        return list;
+    }
+
+    /**
+     * Forge: Like {@link #getCollisionBoxes(Entity, AxisAlignedBB)}, but the returned list belongs to the calling thread
+     * and is reused by its next call, so it must neither be kept nor changed. Used by {@link Entity#move}, which queries
+     * the collisions of every moving entity several times per tick.
+     */
+    public List<AxisAlignedBB> getCollisionBoxesShared(@Nullable Entity entityIn, AxisAlignedBB aabb)
+    {
+        World.CollisionBuffers buffers = COLLISION_BUFFERS.get();
+
+        if (buffers.inUse)
+        {
+            // Called again while collecting, for example from a GetCollisionBoxesEvent listener
+            return this.getCollisionBoxes(entityIn, aabb);
+        }
+
+        buffers.inUse = true;
+        buffers.boxes.clear();
+
+        try
+        {
+            this.getCollisionBoxes(entityIn, aabb, buffers.boxes, buffers.entities);
+        }
+        finally
+        {
+            buffers.entities.clear();
+            buffers.inUse = false;
+        }
+
+        return buffers.boxes;
+    }
+
+    private void getCollisionBoxes(@Nullable Entity entityIn, AxisAlignedBB aabb, List<AxisAlignedBB> list, List<Entity> entities)
+    {
         this.getCollisionBoxes(entityIn, aabb, false, list);
 
         if (entityIn != null)
         {
-            List<Entity> list1 = this.getEntitiesWithinAABBExcludingEntity(entityIn, aabb.grow(0.25D));
+            this.getEntitiesInAABBexcluding(entityIn, aabb.grow(0.25D), EntitySelectors.NOT_SPECTATING, entities);
 
-            for (int i = 0; i < list1.size(); ++i)
+            for (int i = 0; i < entities.size(); ++i)
             {
-                Entity entity = list1.get(i);
+                Entity entity = entities.get(i);
 
                 if (!entityIn.isRidingSameEntity(entity))
                 {
@@ -1540,8 +1624,17 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                 }
             }
         }
-        net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.GetCollisionBoxesEvent(this, entityIn, aabb, list));
-        return list;
+        net.minecraftforge.event.ForgeEventFactory.gatherCollisionBoxes(this, entityIn, aabb, list);
+    }
+
+    /**
+     * Forge: The lists {@link #getCollisionBoxesShared} fills, one set per thread
+     */
+    private static class CollisionBuffers
+    {
+        private final List<AxisAlignedBB> boxes = Lists.<AxisAlignedBB>newArrayList();
+        private final List<Entity> entities = Lists.<Entity>newArrayList();
+        private boolean inUse;
     }
 
     public void removeEventListener(IWorldEventListener listener)
@@ -1888,9 +1981,11 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
         this.tickPlayers();
         this.profiler.endStartSection("regular");
 
-        for (this.tickPosition = 0; this.tickPosition < loadedEntityList.size(); ++this.tickPosition) // CraftBukkit - Use field for loop variable
+        this.entityTickList.beginIteration(); // Forge: entities may be removed from anywhere in the list while it is walked
+        Entity entity2;
+        while ((entity2 = this.entityTickList.advance()) != null)
         {
-            Entity entity2 = (Entity) this.loadedEntityList.get(this.tickPosition); // CraftBukkit - Use field for loop variable
+            this.creatureTypeCounter.update(entity2); // Forge: persistence may have changed since the last tick
             Entity entity3 = entity2.getRidingEntity();
 
             if (entity3 != null)
@@ -1910,7 +2005,10 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                 try
                 {
                     net.minecraftforge.server.timings.TimeTracker.ENTITY_UPDATE.trackStart(entity2);
+                    net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.ENTITY, entity2.getClass());
+                    long timingsStart = timings.start();
                     this.updateEntity(entity2);
+                    timings.stop(timingsStart);
                     net.minecraftforge.server.timings.TimeTracker.ENTITY_UPDATE.trackEnd(entity2);
                 }
                 catch (Throwable throwable1)
@@ -1941,7 +2039,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                     this.getChunkFromChunkCoords(l1, i2).removeEntity(entity2);
                 }
 
-                this.loadedEntityList.remove(this.tickPosition--); // CraftBukkit - Use field for loop variable
+                this.loadedEntityList.remove(entity2);
                 this.onEntityRemoved(entity2);
             }
 
@@ -1986,7 +2084,10 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                             return String.valueOf((Object)TileEntity.getKey(tileentity.getClass()));
                         });
                         net.minecraftforge.server.timings.TimeTracker.TILE_ENTITY_UPDATE.trackStart(tileentity);
+                        net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.TILE_ENTITY, tileentity.getClass());
+                        long timingsStart = timings.start();
                         ((ITickable)tileentity).update();
+                        timings.stop(timingsStart);
                         net.minecraftforge.server.timings.TimeTracker.TILE_ENTITY_UPDATE.trackEnd(tileentity);
                         this.profiler.endSection();
                     }
@@ -2948,6 +3049,70 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
         }
     }
 
+    /**
+     * Forge: Like {@link #checkLight(BlockPos)}, but on the server the check is queued when
+     * {@link net.minecraftforge.common.ForgeModContainer#batchedLighting} is enabled, and done together with the other
+     * queued checks by {@link #processLightUpdates()}.
+     */
+    public void queueLightCheck(BlockPos pos)
+    {
+        if (this.provider.hasSkyLight())
+        {
+            this.queueLightCheck(EnumSkyBlock.SKY, pos);
+        }
+
+        this.queueLightCheck(EnumSkyBlock.BLOCK, pos);
+    }
+
+    /**
+     * Forge: Like {@link #checkLightFor}, but queued on the server, see {@link #queueLightCheck(BlockPos)}.
+     */
+    public void queueLightCheck(EnumSkyBlock lightType, BlockPos pos)
+    {
+        if (!this.isRemote && net.minecraftforge.common.ForgeModContainer.batchedLighting && this.ownsLightUpdates())
+        {
+            if (this.lightUpdateQueue == null)
+            {
+                this.lightUpdateQueue = new net.minecraftforge.common.util.LightUpdateQueue(this);
+            }
+
+            this.lightUpdateQueue.add(lightType, pos);
+        }
+        else
+        {
+            this.checkLightFor(lightType, pos);
+        }
+    }
+
+    /**
+     * Forge: Runs the light checks queued by {@link #queueLightCheck}. Called before light is read, before mobs are
+     * spawned and before chunks are unloaded, saved or sent to players, so nothing sees the light before the checks.
+     * Does nothing when called from a thread that does not own the queue, see {@link #ownsLightUpdates()}, such reads
+     * get the light as it is.
+     */
+    public void processLightUpdates()
+    {
+        if (this.lightUpdateQueue != null && !this.lightUpdateQueue.isEmpty() && this.ownsLightUpdates())
+        {
+            this.lightUpdateQueue.process();
+        }
+    }
+
+    /**
+     * Forge: The light update queue is not thread safe, only the thread that ticks the world queues and processes
+     * light checks. Light checks from other threads are done right away.
+     */
+    protected boolean ownsLightUpdates()
+    {
+        return true;
+    }
+
+    @Nullable
+    public net.minecraftforge.common.util.LightUpdateQueue getLightUpdateQueue()
+    {
+        return this.lightUpdateQueue;
+    }
+
     public boolean checkLight(BlockPos pos)
     {
         boolean flag = false;
@@ -3026,6 +3191,7 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     public boolean checkLightFor(EnumSkyBlock lightType, BlockPos pos)
     {
+        this.processLightUpdates(); // Forge: start from up to date light, so the reads below don't flush the queue midway
         // CraftBukkit start - Use neighbor cache instead of looking up
         Chunk chunk = this.getChunkIfLoaded(pos.getX() >> 4, pos.getZ() >> 4);
         if (chunk == null || !chunk.areNeighborsLoaded(1) /*!this.areChunksLoaded(blockposition, 17, false)*/) // Akarin Forge - TODO 16 radius
@@ -3192,6 +3358,12 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
     public List<Entity> getEntitiesInAABBexcluding(@Nullable Entity entityIn, AxisAlignedBB boundingBox, @Nullable Predicate <? super Entity > predicate)
     {
         List<Entity> list = Lists.<Entity>newArrayList();
+        this.getEntitiesInAABBexcluding(entityIn, boundingBox, predicate, list);
+        return list;
+    }
+
+    private void getEntitiesInAABBexcluding(@Nullable Entity entityIn, AxisAlignedBB boundingBox, @Nullable Predicate <? super Entity > predicate, List<Entity> list)
+    {
         int j2 = MathHelper.floor((boundingBox.minX - MAX_ENTITY_RADIUS) / 16.0D);
         int k2 = MathHelper.floor((boundingBox.maxX + MAX_ENTITY_RADIUS) / 16.0D);
         int l2 = MathHelper.floor((boundingBox.minZ - MAX_ENTITY_RADIUS) / 16.0D);
@@ -3207,8 +3379,6 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
                 }
             }
         }
-
-        return list;
     }
 
     public <T extends Entity> List<T> getEntities(Class <? extends T > entityType, Predicate <? super T > filter)
@@ -4143,18 +4313,11 @@ public abstract class World implements IBlockAccess, net.minecraftforge.common.c
 
     /**
      * Returns a count of entities that classify themselves as the specified creature type.
+     * The counts are kept up to date as entities are added, removed and ticked, see {@link net.minecraftforge.common.util.CreatureTypeCounter}.
      */
     public int countEntities(net.minecraft.entity.EnumCreatureType type, boolean forSpawnCount)
     {
-        int count = 0;
-        for (int x = 0; x < loadedEntityList.size(); x++)
-        {
-            if (((Entity)loadedEntityList.get(x)).isCreatureType(type, forSpawnCount))
-            {
-                count++;
-            }
-        }
-        return count;
+        return this.creatureTypeCounter.count(this.loadedEntityList, type, forSpawnCount);
     }
 
     @Deprecated // remove in 1.13
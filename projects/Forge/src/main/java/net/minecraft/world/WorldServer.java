@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -88,8 +87,7 @@ public class WorldServer extends World implements IThreadListener
     private final MinecraftServer mcServer;
     public final EntityTracker entityTracker; // Akarin Forge - public
     private final PlayerChunkMap playerChunkMap;
-    private final Set<NextTickListEntry> pendingTickListEntriesHashSet = Sets.<NextTickListEntry>newHashSet();
-    private final TreeSet<NextTickListEntry> pendingTickListEntriesTreeSet = new TreeSet<NextTickListEntry>();
+    private final net.minecraftforge.common.util.ScheduledTickQueue pendingTickListEntries = new net.minecraftforge.common.util.ScheduledTickQueue(); // Forge: bucketed by due tick and indexed by chunk
     private final Map<UUID, Entity> entitiesByUuid = Maps.<UUID, Entity>newHashMap();
     public boolean disableLevelSaving;
     private boolean allPlayersSleeping;
@@ -100,6 +98,7 @@ public class WorldServer extends World implements IThreadListener
     private final WorldServer.ServerBlockEventList[] blockEventQueue = new WorldServer.ServerBlockEventList[] {new WorldServer.ServerBlockEventList(), new WorldServer.ServerBlockEventList()};
     private int blockEventCacheIndex;
     private final List<NextTickListEntry> pendingTickListEntriesThisTick = Lists.<NextTickListEntry>newArrayList();
+    private final Set<NextTickListEntry> pendingTickListEntriesThisTickSet = Sets.<NextTickListEntry>newHashSet(); // Forge: entries of pendingTickListEntriesThisTick that have not run yet
 
     /** Stores the recently processed (lighting) chunks */
     protected Set<ChunkPos> doneChunks = new java.util.HashSet<ChunkPos>();
@@ -197,6 +196,7 @@ public class WorldServer extends World implements IThreadListener
         }
 
         this.profiler.startSection("mobSpawner");
+        this.processLightUpdates(); // Forge: spawn checks use the light of blocks changed this tick
 
         if (this.getGameRules().getBoolean("doMobSpawning") && this.worldInfo.getTerrainType() != WorldType.DEBUG_ALL_BLOCK_STATES)
         {
@@ -204,6 +204,7 @@ public class WorldServer extends World implements IThreadListener
         }
 
         this.profiler.endStartSection("chunkSource");
+        this.processLightUpdates(); // Forge: chunks may be saved and unloaded
         this.chunkProvider.tick();
         int j = this.calculateSkylightSubtracted(1.0F);
 
@@ -517,13 +518,13 @@ public class WorldServer extends World implements IThreadListener
     public boolean isBlockTickPending(BlockPos pos, Block blockType)
     {
         NextTickListEntry nextticklistentry = new NextTickListEntry(pos, blockType);
-        return this.pendingTickListEntriesThisTick.contains(nextticklistentry);
+        return this.pendingTickListEntriesThisTickSet.contains(nextticklistentry);
     }
 
     public boolean isUpdateScheduled(BlockPos pos, Block blk)
     {
         NextTickListEntry nextticklistentry = new NextTickListEntry(pos, blk);
-        return this.pendingTickListEntriesHashSet.contains(nextticklistentry);
+        return this.pendingTickListEntries.contains(nextticklistentry);
     }
 
     public void scheduleUpdate(BlockPos pos, Block blockIn, int delay)
@@ -568,11 +569,7 @@ public class WorldServer extends World implements IThreadListener
                 nextticklistentry.setPriority(priority);
             }
 
-            if (!this.pendingTickListEntriesHashSet.contains(nextticklistentry))
-            {
-                this.pendingTickListEntriesHashSet.add(nextticklistentry);
-                this.pendingTickListEntriesTreeSet.add(nextticklistentry);
-            }
+            this.pendingTickListEntries.add(nextticklistentry);
         }
     }
 
@@ -588,11 +585,7 @@ public class WorldServer extends World implements IThreadListener
             nextticklistentry.setScheduledTime((long)delay + this.worldInfo.getWorldTotalTime());
         }
 
-        if (!this.pendingTickListEntriesHashSet.contains(nextticklistentry))
-        {
-            this.pendingTickListEntriesHashSet.add(nextticklistentry);
-            this.pendingTickListEntriesTreeSet.add(nextticklistentry);
-        }
+        this.pendingTickListEntries.add(nextticklistentry);
     }
 
     public void updateEntities()
@@ -684,77 +677,55 @@ public class WorldServer extends World implements IThreadListener
         }
         else
         {
-            int i = this.pendingTickListEntriesTreeSet.size();
+            this.profiler.startSection("cleaning");
+            this.pendingTickListEntries.drain(this.worldInfo.getWorldTotalTime(), runAllPending, 65536, this.pendingTickListEntriesThisTick);
+            this.pendingTickListEntriesThisTickSet.addAll(this.pendingTickListEntriesThisTick);
+            this.profiler.endSection();
+            this.profiler.startSection("ticking");
 
-            if (i != this.pendingTickListEntriesHashSet.size())
-            {
-                throw new IllegalStateException("TickNextTick list out of synch");
-            }
-            else
+            for (int j = 0; j < this.pendingTickListEntriesThisTick.size(); ++j)
             {
-                if (i > 65536)
-                {
-                    i = 65536;
-                }
-
-                this.profiler.startSection("cleaning");
+                NextTickListEntry nextticklistentry1 = this.pendingTickListEntriesThisTick.get(j);
 
-                for (int j = 0; j < i; ++j)
+                if (!this.pendingTickListEntriesThisTickSet.remove(nextticklistentry1))
                 {
-                    NextTickListEntry nextticklistentry = this.pendingTickListEntriesTreeSet.first();
-
-                    if (!runAllPending && nextticklistentry.scheduledTime > this.worldInfo.getWorldTotalTime())
-                    {
-                        break;
-                    }
-
-                    this.pendingTickListEntriesTreeSet.remove(nextticklistentry);
-                    this.pendingTickListEntriesHashSet.remove(nextticklistentry);
-                    this.pendingTickListEntriesThisTick.add(nextticklistentry);
+                    continue; // Taken out by getPendingBlockUpdates while ticking
                 }
 
-                this.profiler.endSection();
-                this.profiler.startSection("ticking");
-                Iterator<NextTickListEntry> iterator = this.pendingTickListEntriesThisTick.iterator();
+                //Keeping here as a note for future when it may be restored.
+                //boolean isForced = getPersistentChunks().containsKey(new ChunkPos(nextticklistentry.xCoord >> 4, nextticklistentry.zCoord >> 4));
+                //byte b0 = isForced ? 0 : 8;
+                int k = 0;
 
-                while (iterator.hasNext())
+                if (this.isAreaLoaded(nextticklistentry1.position.add(0, 0, 0), nextticklistentry1.position.add(0, 0, 0)))
                 {
-                    NextTickListEntry nextticklistentry1 = iterator.next();
-                    iterator.remove();
-                    //Keeping here as a note for future when it may be restored.
-                    //boolean isForced = getPersistentChunks().containsKey(new ChunkPos(nextticklistentry.xCoord >> 4, nextticklistentry.zCoord >> 4));
-                    //byte b0 = isForced ? 0 : 8;
-                    int k = 0;
-
-                    if (this.isAreaLoaded(nextticklistentry1.position.add(0, 0, 0), nextticklistentry1.position.add(0, 0, 0)))
-                    {
-                        IBlockState iblockstate = this.getBlockState(nextticklistentry1.position);
+                    IBlockState iblockstate = this.getBlockState(nextticklistentry1.position);
 
-                        if (iblockstate.getMaterial() != Material.AIR && Block.isEqualTo(iblockstate.getBlock(), nextticklistentry1.getBlock()))
+                    if (iblockstate.getMaterial() != Material.AIR && Block.isEqualTo(iblockstate.getBlock(), nextticklistentry1.getBlock()))
+                    {
+                        try
                         {
-                            try
-                            {
-                                iblockstate.getBlock().updateTick(this, nextticklistentry1.position, iblockstate, this.rand);
-                            }
-                            catch (Throwable throwable)
-                            {
-                                CrashReport crashreport = CrashReport.makeCrashReport(throwable, "Exception while ticking a block");
-                                CrashReportCategory crashreportcategory = crashreport.makeCategory("Block being ticked");
-                                CrashReportCategory.addBlockInfo(crashreportcategory, nextticklistentry1.position, iblockstate);
-                                throw new ReportedException(crashreport);
-                            }
+                            iblockstate.getBlock().updateTick(this, nextticklistentry1.position, iblockstate, this.rand);
+                        }
+                        catch (Throwable throwable)
+                        {
+                            CrashReport crashreport = CrashReport.makeCrashReport(throwable, "Exception while ticking a block");
+                            CrashReportCategory crashreportcategory = crashreport.makeCategory("Block being ticked");
+                            CrashReportCategory.addBlockInfo(crashreportcategory, nextticklistentry1.position, iblockstate);
+                            throw new ReportedException(crashreport);
                         }
-                    }
-                    else
-                    {
-                        this.scheduleUpdate(nextticklistentry1.position, nextticklistentry1.getBlock(), 0);
                     }
                 }
-
-                this.profiler.endSection();
-                this.pendingTickListEntriesThisTick.clear();
-                return !this.pendingTickListEntriesTreeSet.isEmpty();
+                else
+                {
+                    this.scheduleUpdate(nextticklistentry1.position, nextticklistentry1.getBlock(), 0);
+                }
             }
+
+            this.profiler.endSection();
+            this.pendingTickListEntriesThisTick.clear();
+            this.pendingTickListEntriesThisTickSet.clear();
+            return !this.pendingTickListEntries.isEmpty();
         }
     }
 
@@ -772,36 +743,19 @@ public class WorldServer extends World implements IThreadListener
     @Nullable
     public List<NextTickListEntry> getPendingBlockUpdates(StructureBoundingBox structureBB, boolean remove)
     {
-        List<NextTickListEntry> list = null;
+        List<NextTickListEntry> list = this.pendingTickListEntries.getEntriesWithin(structureBB, remove);
 
-        for (int i = 0; i < 2; ++i)
+        if (!this.pendingTickListEntriesThisTickSet.isEmpty())
         {
-            Iterator<NextTickListEntry> iterator;
-
-            if (i == 0)
+            for (NextTickListEntry nextticklistentry : this.pendingTickListEntriesThisTick)
             {
-                iterator = this.pendingTickListEntriesTreeSet.iterator();
-            }
-            else
-            {
-                iterator = this.pendingTickListEntriesThisTick.iterator();
-            }
-
-            while (iterator.hasNext())
-            {
-                NextTickListEntry nextticklistentry = iterator.next();
                 BlockPos blockpos = nextticklistentry.position;
 
-                if (blockpos.getX() >= structureBB.minX && blockpos.getX() < structureBB.maxX && blockpos.getZ() >= structureBB.minZ && blockpos.getZ() < structureBB.maxZ)
+                if (blockpos.getX() >= structureBB.minX && blockpos.getX() < structureBB.maxX && blockpos.getZ() >= structureBB.minZ && blockpos.getZ() < structureBB.maxZ && this.pendingTickListEntriesThisTickSet.contains(nextticklistentry))
                 {
                     if (remove)
                     {
-                        if (i == 0)
-                        {
-                            this.pendingTickListEntriesHashSet.remove(nextticklistentry);
-                        }
-
-                        iterator.remove();
+                        this.pendingTickListEntriesThisTickSet.remove(nextticklistentry);
                     }
 
                     if (list == null)
@@ -1004,6 +958,8 @@ public class WorldServer extends World implements IThreadListener
                 progressCallback.displayLoadingString("Saving chunks");
             }
 
+            this.processLightUpdates(); // Forge
+
             chunkproviderserver.saveChunks(all);
             net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.WorldEvent.Save(this));
 
@@ -1340,6 +1296,12 @@ public class WorldServer extends World implements IThreadListener
         return this.mcServer.isCallingFromMinecraftThread();
     }
 
+    @Override
+    protected boolean ownsLightUpdates()
+    {
+        return net.minecraftforge.common.ParallelWorldTicker.isTickingWorld(this);
+    }
+
     @Nullable
     public BlockPos findNearestStructure(String p_190528_1_, BlockPos p_190528_2_, boolean p_190528_3_)
     {
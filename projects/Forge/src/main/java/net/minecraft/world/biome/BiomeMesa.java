@@ -25,11 +25,11 @@ public class BiomeMesa extends Biome
     protected static final IBlockState STAINED_HARDENED_CLAY = Blocks.STAINED_HARDENED_CLAY.getDefaultState();
     protected static final IBlockState ORANGE_STAINED_HARDENED_CLAY = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.ORANGE);
     protected static final IBlockState RED_SAND = Blocks.SAND.getDefaultState().withProperty(BlockSand.VARIANT, BlockSand.EnumType.RED_SAND);
-    private IBlockState[] clayBands;
+    private volatile IBlockState[] clayBands; // Forge: volatile, see generateBands
     private long worldSeed;
     private NoiseGeneratorPerlin pillarNoise;
     private NoiseGeneratorPerlin pillarRoofNoise;
-    private NoiseGeneratorPerlin clayBandsOffsetNoise;
+    private volatile NoiseGeneratorPerlin clayBandsOffsetNoise;
     private final boolean brycePillars;
     private final boolean hasForest;
 
@@ -230,10 +230,11 @@ public class BiomeMesa extends Biome
 
     public void generateBands(long p_150619_1_)
     {
-        this.clayBands = new IBlockState[64];
-        Arrays.fill(this.clayBands, HARDENED_CLAY);
+        // Forge: filled in locally and published at the end, so terrain generation on other threads never sees partial bands
+        IBlockState[] clayBands = new IBlockState[64];
+        Arrays.fill(clayBands, HARDENED_CLAY);
         Random random = new Random(p_150619_1_);
-        this.clayBandsOffsetNoise = new NoiseGeneratorPerlin(random, 1);
+        NoiseGeneratorPerlin clayBandsOffsetNoise = new NoiseGeneratorPerlin(random, 1);
 
         for (int l1 = 0; l1 < 64; ++l1)
         {
@@ -241,7 +242,7 @@ public class BiomeMesa extends Biome
 
             if (l1 < 64)
             {
-                this.clayBands[l1] = ORANGE_STAINED_HARDENED_CLAY;
+                clayBands[l1] = ORANGE_STAINED_HARDENED_CLAY;
             }
         }
 
@@ -254,7 +255,7 @@ public class BiomeMesa extends Biome
 
             for (int l = 0; k + l < 64 && l < j; ++l)
             {
-                this.clayBands[k + l] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.YELLOW);
+                clayBands[k + l] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.YELLOW);
             }
         }
 
@@ -267,7 +268,7 @@ public class BiomeMesa extends Biome
 
             for (int i1 = 0; l3 + i1 < 64 && i1 < i3; ++i1)
             {
-                this.clayBands[l3 + i1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.BROWN);
+                clayBands[l3 + i1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.BROWN);
             }
         }
 
@@ -280,7 +281,7 @@ public class BiomeMesa extends Biome
 
             for (int j1 = 0; k4 + j1 < 64 && j1 < i4; ++j1)
             {
-                this.clayBands[k4 + j1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.RED);
+                clayBands[k4 + j1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.RED);
             }
         }
 
@@ -294,19 +295,22 @@ public class BiomeMesa extends Biome
 
             for (int k1 = 0; j4 + k1 < 64 && k1 < 1; ++k1)
             {
-                this.clayBands[j4 + k1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.WHITE);
+                clayBands[j4 + k1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.WHITE);
 
                 if (j4 + k1 > 1 && random.nextBoolean())
                 {
-                    this.clayBands[j4 + k1 - 1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.SILVER);
+                    clayBands[j4 + k1 - 1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.SILVER);
                 }
 
                 if (j4 + k1 < 63 && random.nextBoolean())
                 {
-                    this.clayBands[j4 + k1 + 1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.SILVER);
+                    clayBands[j4 + k1 + 1] = STAINED_HARDENED_CLAY.withProperty(BlockColored.COLOR, EnumDyeColor.SILVER);
                 }
             }
         }
+
+        this.clayBandsOffsetNoise = clayBandsOffsetNoise;
+        this.clayBands = clayBands;
     }
 
     public IBlockState getBand(int p_180629_1_, int p_180629_2_, int p_180629_3_)
@@ -18,6 +18,7 @@ import net.minecraft.world.storage.WorldInfo;
 public class BiomeProvider
 {
     private ChunkGeneratorSettings settings;
+    // Forge: the layers and the cache are only used in synchronized methods, so terrain can be generated on several threads
     private GenLayer genBiomes;
     private GenLayer biomeIndexLayer;
     private final BiomeCache biomeCache;
@@ -60,7 +61,7 @@ public class BiomeProvider
         return this.getBiome(pos, (Biome)null);
     }
 
-    public Biome getBiome(BlockPos pos, Biome defaultBiome)
+    public synchronized Biome getBiome(BlockPos pos, Biome defaultBiome)
     {
         return this.biomeCache.getBiome(pos.getX(), pos.getZ(), defaultBiome);
     }
@@ -70,7 +71,7 @@ public class BiomeProvider
         return p_76939_1_;
     }
 
-    public Biome[] getBiomesForGeneration(Biome[] biomes, int x, int z, int width, int height)
+    public synchronized Biome[] getBiomesForGeneration(Biome[] biomes, int x, int z, int width, int height)
     {
         IntCache.resetIntCache();
 
@@ -108,7 +109,7 @@ public class BiomeProvider
         return this.getBiomes(oldBiomeList, x, z, width, depth, true);
     }
 
-    public Biome[] getBiomes(@Nullable Biome[] listToReuse, int x, int z, int width, int length, boolean cacheFlag)
+    public synchronized Biome[] getBiomes(@Nullable Biome[] listToReuse, int x, int z, int width, int length, boolean cacheFlag)
     {
         IntCache.resetIntCache();
 
@@ -136,7 +137,7 @@ public class BiomeProvider
         }
     }
 
-    public boolean areBiomesViable(int x, int z, int radius, List<Biome> allowed)
+    public synchronized boolean areBiomesViable(int x, int z, int radius, List<Biome> allowed)
     {
         IntCache.resetIntCache();
         int i = x - radius >> 2;
@@ -175,7 +176,7 @@ public class BiomeProvider
     }
 
     @Nullable
-    public BlockPos findBiomePosition(int x, int z, int range, List<Biome> biomes, Random random)
+    public synchronized BlockPos findBiomePosition(int x, int z, int range, List<Biome> biomes, Random random)
     {
         IntCache.resetIntCache();
         int i = x - range >> 2;
@@ -204,7 +205,7 @@ public class BiomeProvider
         return blockpos;
     }
 
-    public void cleanupCache()
+    public synchronized void cleanupCache()
     {
         this.biomeCache.cleanupCache();
     }
@@ -17,12 +17,21 @@ public class BlockStateContainer implements IBlockStatePaletteResizer
     protected BitArray storage;
     protected IBlockStatePalette palette;
     private int bits;
+    /** Forge: Set while a {@link #snapshot()} shares {@link #storage}, the next write copies it first */
+    private boolean storageShared;
 
     public BlockStateContainer()
     {
         this.setBits(4);
     }
 
+    private BlockStateContainer(int bitsIn, IBlockStatePalette paletteIn, BitArray storageIn)
+    {
+        this.bits = bitsIn;
+        this.palette = paletteIn;
+        this.storage = storageIn;
+    }
+
     private static int getIndex(int x, int y, int z)
     {
         return y << 8 | z << 4 | x;
@@ -57,6 +66,7 @@ public class BlockStateContainer implements IBlockStatePaletteResizer
 
             this.palette.idFor(AIR_BLOCK_STATE);
             this.storage = new BitArray(this.bits, 4096);
+            this.storageShared = false;
         }
     }
 
@@ -87,9 +97,22 @@ public class BlockStateContainer implements IBlockStatePaletteResizer
     protected void set(int index, IBlockState state)
     {
         int i = this.palette.idFor(state);
+        this.unshareStorage();
         this.storage.setAt(index, i);
     }
 
+    /**
+     * Forge: Gives this container its own copy of the storage if a snapshot still reads the current one.
+     */
+    private void unshareStorage()
+    {
+        if (this.storageShared)
+        {
+            this.storage = this.storage.copy();
+            this.storageShared = false;
+        }
+    }
+
     public IBlockState get(int x, int y, int z)
     {
         return this.get(getIndex(x, y, z));
@@ -112,6 +135,7 @@ public class BlockStateContainer implements IBlockStatePaletteResizer
         }
 
         this.palette.read(buf);
+        this.unshareStorage();
         buf.readLongArray(this.storage.getBackingLongArray());
 
         int regSize = MathHelper.log2DeBruijn(Block.BLOCK_STATE_IDS.size());
@@ -181,8 +205,124 @@ public class BlockStateContainer implements IBlockStatePaletteResizer
         }
     }
 
+    /**
+     * Forge: Creates a read only copy of this container that can be read from another thread while this one is modified.
+     * The palette is resolved up front, writing to the copy throws an {@link UnsupportedOperationException}.
+     * The packed storage is shared copy-on-write: it is only copied when this container is next written to, so taking
+     * several snapshots of an unchanged container costs no more than resolving the palette.
+     */
+    public BlockStateContainer snapshot()
+    {
+        IBlockStatePalette iblockstatepalette = REGISTRY_BASED_PALETTE;
+
+        if (this.palette != REGISTRY_BASED_PALETTE)
+        {
+            IBlockState[] aiblockstate = new IBlockState[1 << this.bits];
+
+            for (int i = 0; i < aiblockstate.length; ++i)
+            {
+                aiblockstate[i] = this.palette.getBlockState(i);
+            }
+
+            iblockstatepalette = new BlockStateContainer.SnapshotPalette(aiblockstate);
+        }
+
+        this.storageShared = true;
+        return new BlockStateContainer(this.bits, iblockstatepalette, this.storage);
+    }
+
+    /**
+     * Forge: Writes the id of every block state, as in {@link Block#BLOCK_STATE_IDS}, to the array in
+     * {@code y << 8 | z << 4 | x} order. Unlike {@link #getDataForNBT} the block ids are not cut to 8 bits, and each
+     * palette entry is only looked up once.
+     */
+    public void getStateIds(int[] ids)
+    {
+        if (this.palette == REGISTRY_BASED_PALETTE)
+        {
+            for (int i = 0; i < 4096; ++i)
+            {
+                int j = this.storage.getAt(i);
+                ids[i] = Block.BLOCK_STATE_IDS.getByValue(j) == null ? 0 : j;
+            }
+        }
+        else
+        {
+            int[] aint = new int[1 << this.bits];
+
+            for (int k = 0; k < aint.length; ++k)
+            {
+                IBlockState iblockstate = this.palette.getBlockState(k);
+                aint[k] = iblockstate == null ? 0 : Math.max(0, Block.BLOCK_STATE_IDS.get(iblockstate));
+            }
+
+            for (int l = 0; l < 4096; ++l)
+            {
+                ids[l] = aint[this.storage.getAt(l)];
+            }
+        }
+    }
+
     public int getSerializedSize()
     {
         return 1 + this.palette.getSerializedSize() + PacketBuffer.getVarIntSize(this.storage.size()) + this.storage.getBackingLongArray().length * 8;
     }
-}
\ No newline at end of file
+
+    private static class SnapshotPalette implements IBlockStatePalette
+    {
+        private final IBlockState[] states;
+
+        private SnapshotPalette(IBlockState[] statesIn)
+        {
+            this.states = statesIn;
+        }
+
+        public int idFor(IBlockState state)
+        {
+            throw new UnsupportedOperationException("Block state container snapshots are read only");
+        }
+
+        @Nullable
+        public IBlockState getBlockState(int indexKey)
+        {
+            return indexKey >= 0 && indexKey < this.states.length ? this.states[indexKey] : null;
+        }
+
+        @SideOnly(Side.CLIENT)
+        public void read(PacketBuffer buf)
+        {
+            throw new UnsupportedOperationException("Block state container snapshots are read only");
+        }
+
+        public void write(PacketBuffer buf)
+        {
+            int i = 0;
+
+            while (i < this.states.length && this.states[i] != null)
+            {
+                ++i;
+            }
+
+            buf.writeVarInt(i);
+
+            for (int j = 0; j < i; ++j)
+            {
+                buf.writeVarInt(Block.BLOCK_STATE_IDS.get(this.states[j]));
+            }
+        }
+
+        public int getSerializedSize()
+        {
+            int i = 0;
+            int j = 0;
+
+            while (j < this.states.length && this.states[j] != null)
+            {
+                i += PacketBuffer.getVarIntSize(Block.BLOCK_STATE_IDS.get(this.states[j]));
+                ++j;
+            }
+
+            return i + PacketBuffer.getVarIntSize(j);
+        }
+    }
+}
@@ -66,6 +66,8 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
     private int heightMapMinimum;
     private long inhabitedTime;
     private int queuedLightChecks;
+    private int itemEntityCount; // Forge: see countEntity
+    private int inventoryEntityCount; // Forge: see countEntity
     private final ConcurrentLinkedQueue<BlockPos> tileEntityPosQueue;
     public boolean unloadQueued;
     // CraftBukkit start - Neighbor loaded cache for chunk lighting and entity ticking
@@ -366,7 +368,7 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
         {
             for (int i = startY; i < endY; ++i)
             {
-                this.world.checkLightFor(EnumSkyBlock.SKY, new BlockPos(x, i, z));
+                this.world.queueLightCheck(EnumSkyBlock.SKY, new BlockPos(x, i, z));
             }
 
             this.dirty = true;
@@ -772,6 +774,7 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
         entityIn.chunkCoordY = k;
         entityIn.chunkCoordZ = this.z;
         this.entityLists[k].add(entityIn);
+        this.countEntity(entityIn, 1);
     }
 
     public void removeEntity(Entity entityIn)
@@ -791,7 +794,40 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
             index = this.entityLists.length - 1;
         }
 
-        this.entityLists[index].remove(entityIn);
+        if (this.entityLists[index].remove(entityIn))
+        {
+            this.countEntity(entityIn, -1);
+        }
+    }
+
+    // Forge: counts the entities hoppers search for, so they can skip chunks without any
+    private void countEntity(Entity entityIn, int amount)
+    {
+        if (entityIn instanceof net.minecraft.entity.item.EntityItem)
+        {
+            this.itemEntityCount += amount;
+        }
+
+        if (entityIn instanceof net.minecraft.inventory.IInventory)
+        {
+            this.inventoryEntityCount += amount;
+        }
+    }
+
+    /**
+     * Forge: whether an item entity is in this chunk
+     */
+    public boolean hasItemEntities()
+    {
+        return this.itemEntityCount > 0;
+    }
+
+    /**
+     * Forge: whether an entity with an inventory, like a minecart with a chest, is in this chunk
+     */
+    public boolean hasInventoryEntities()
+    {
+        return this.inventoryEntityCount > 0;
     }
 
     public boolean canSeeSky(BlockPos pos)
@@ -1072,26 +1108,35 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
 
     protected void populate(IChunkGenerator generator)
     {
-        if (populating != null && net.minecraftforge.common.ForgeModContainer.logCascadingWorldGeneration) logCascadingWorldGeneration();
-        ChunkPos prev = populating;
-        populating = this.getPos();
-        if (this.isTerrainPopulated())
+        // Forge: worlds ticked in parallel populate one at a time, see ParallelWorldTicker
+        net.minecraftforge.common.ParallelWorldTicker.beginWorldGen();
+        try
         {
-            if (generator.generateStructures(this, this.x, this.z))
+            if (populating != null && net.minecraftforge.common.ForgeModContainer.logCascadingWorldGeneration) logCascadingWorldGeneration();
+            ChunkPos prev = populating;
+            populating = this.getPos();
+            if (this.isTerrainPopulated())
             {
+                if (generator.generateStructures(this, this.x, this.z))
+                {
+                    this.markDirty();
+                }
+            }
+            else
+            {
+                this.checkLight();
+                generator.populate(this.x, this.z);
+                net.minecraftforge.fml.common.registry.GameRegistry.nmsOriginChunk = this; // Akarin Forge - respect CraftBukkit
+                net.minecraftforge.fml.common.registry.GameRegistry.generateWorld(this.x, this.z, this.world, generator, this.world.getChunkProvider());
+                net.minecraftforge.fml.common.registry.GameRegistry.nmsOriginChunk = null; // Akarin Forge - respect CraftBukkit
                 this.markDirty();
             }
+            populating = prev;
         }
-        else
+        finally
         {
-            this.checkLight();
-            generator.populate(this.x, this.z);
-            net.minecraftforge.fml.common.registry.GameRegistry.nmsOriginChunk = this; // Akarin Forge - respect CraftBukkit
-            net.minecraftforge.fml.common.registry.GameRegistry.generateWorld(this.x, this.z, this.world, generator, this.world.getChunkProvider());
-            net.minecraftforge.fml.common.registry.GameRegistry.nmsOriginChunk = null; // Akarin Forge - respect CraftBukkit
-            this.markDirty();
+            net.minecraftforge.common.ParallelWorldTicker.endWorldGen();
         }
-        populating = prev;
     }
 
     public BlockPos getPrecipitationHeight(BlockPos pos)
@@ -1239,6 +1284,7 @@ public class Chunk implements net.minecraftforge.common.capabilities.ICapability
                 }
 
                 extendedblockstorage.getData().read(buf);
+                extendedblockstorage.unshareLight(); // Forge: The light arrays are written to directly
                 buf.readBytes(extendedblockstorage.getBlockLight().getData());
 
                 if (flag)
@@ -1,14 +1,23 @@
 package net.minecraft.world.chunk.storage;
 
 import com.google.common.collect.Maps;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import javax.annotation.Nullable;
 import net.minecraft.block.Block;
 import net.minecraft.entity.Entity;
@@ -27,6 +36,7 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.MinecraftException;
 import net.minecraft.world.NextTickListEntry;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.BlockStateContainer;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.NibbleArray;
 import net.minecraft.world.storage.IThreadedFileIO;
@@ -37,11 +47,15 @@ import org.apache.logging.log4j.Logger;
 public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
 {
     private static final Logger LOGGER = LogManager.getLogger();
-    private final Map<ChunkPos, NBTTagCompound> chunksToSave = Maps.<ChunkPos, NBTTagCompound>newConcurrentMap();
+    private final Map<ChunkPos, AnvilChunkLoader.PendingChunk> chunksToSave = Maps.<ChunkPos, AnvilChunkLoader.PendingChunk>newConcurrentMap();
     private final Set<ChunkPos> chunksBeingSaved = Collections.<ChunkPos>newSetFromMap(Maps.newConcurrentMap());
     public final File chunkSaveLocation;
     private final DataFixer fixer;
     private boolean flushing;
+    private final AtomicLong savedChunks = new AtomicLong();
+    private final AtomicLong regionBatches = new AtomicLong();
+    private final AtomicLong throttledSaves = new AtomicLong();
+    private final AtomicLong callerWrittenBatches = new AtomicLong();
 
     public AnvilChunkLoader(File chunkSaveLocationIn, DataFixer dataFixerIn)
     {
@@ -73,9 +87,20 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
 
     @Nullable
     public Object[] loadChunk__Async(World worldIn, int x, int z) throws IOException
+    {
+        NBTTagCompound nbttagcompound = this.loadChunkNBT__Async(x, z);
+        return nbttagcompound == null ? null : this.checkedReadChunkFromNBT__Async(worldIn, x, z, nbttagcompound);
+    }
+
+    /**
+     * First half of {@link #loadChunk__Async}: reads, decompresses and data fixes the chunk NBT without building the chunk.
+     */
+    @Nullable
+    public NBTTagCompound loadChunkNBT__Async(int x, int z) throws IOException
     {
         ChunkPos chunkpos = new ChunkPos(x, z);
-        NBTTagCompound nbttagcompound = this.chunksToSave.get(chunkpos);
+        AnvilChunkLoader.PendingChunk pendingchunk = this.chunksToSave.get(chunkpos);
+        NBTTagCompound nbttagcompound = pendingchunk == null ? null : pendingchunk.getCompound();
 
         if (nbttagcompound == null)
         {
@@ -89,14 +114,22 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
             nbttagcompound = this.fixer.process(FixTypes.CHUNK, CompressedStreamTools.read(datainputstream));
         }
 
-        return this.checkedReadChunkFromNBT__Async(worldIn, x, z, nbttagcompound);
+        return nbttagcompound;
+    }
+
+    /**
+     * Second half of {@link #loadChunk__Async}: builds the chunk from NBT returned by {@link #loadChunkNBT__Async}.
+     */
+    @Nullable
+    public Object[] readChunkFromNBT__Async(World worldIn, int x, int z, NBTTagCompound compound)
+    {
+        return this.checkedReadChunkFromNBT__Async(worldIn, x, z, compound);
     }
 
     public boolean isChunkGeneratedAt(int x, int z)
     {
         ChunkPos chunkpos = new ChunkPos(x, z);
-        NBTTagCompound nbttagcompound = this.chunksToSave.get(chunkpos);
-        return nbttagcompound != null ? true : RegionFileCache.chunkExists(this.chunkSaveLocation, x, z);
+        return this.chunksToSave.containsKey(chunkpos) ? true : RegionFileCache.chunkExists(this.chunkSaveLocation, x, z);
     }
 
     @Nullable
@@ -170,10 +203,20 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
             nbttagcompound.setTag("Level", nbttagcompound1);
             nbttagcompound.setInteger("DataVersion", 1343);
             net.minecraftforge.fml.common.FMLCommonHandler.instance().getDataFixer().writeVersionData(nbttagcompound);
-            this.writeChunkToNBT(chunkIn, worldIn, nbttagcompound1);
+            // Forge: Only the section copies are taken here, the file IO thread encodes them right before the chunk is written.
+            // Save handlers may read or patch the sections, so they are encoded up front as soon as anyone listens.
+            boolean async = net.minecraftforge.common.ForgeModContainer.asyncChunkSerialization && !net.minecraftforge.common.MinecraftForge.EVENT_BUS.hasListeners(net.minecraftforge.event.world.ChunkDataEvent.Save.class);
+            AnvilChunkLoader.SectionData[] sections = this.writeChunkToNBT(chunkIn, worldIn, nbttagcompound1, async);
+
+            if (!async)
+            {
+                writeSectionsToNBT(sections, nbttagcompound1);
+                sections = null;
+            }
+
             net.minecraftforge.common.ForgeChunkManager.storeChunkNBT(chunkIn, nbttagcompound1);
             net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.ChunkDataEvent.Save(chunkIn, nbttagcompound));
-            this.addChunkToPending(chunkIn.getPos(), nbttagcompound);
+            this.addChunkToPending(chunkIn.getPos(), new AnvilChunkLoader.PendingChunk(nbttagcompound, sections));
         }
         catch (Exception exception)
         {
@@ -183,12 +226,39 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
 
     protected void addChunkToPending(ChunkPos pos, NBTTagCompound compound)
     {
-        if (!this.chunksBeingSaved.contains(pos))
+        this.addChunkToPending(pos, new AnvilChunkLoader.PendingChunk(compound, null));
+    }
+
+    /**
+     * Queues the chunk for the file IO thread. Once more than {@link net.minecraftforge.common.ForgeModContainer#chunkSaveQueueLimit}
+     * chunks are pending the caller compresses its chunk itself, and past twice the limit it also writes pending regions,
+     * so the queue can't grow faster than it is written.
+     */
+    private void addChunkToPending(ChunkPos pos, AnvilChunkLoader.PendingChunk chunk)
+    {
+        int i = Math.max(1, net.minecraftforge.common.ForgeModContainer.chunkSaveQueueLimit);
+
+        if (this.chunksToSave.size() >= i)
         {
-            this.chunksToSave.put(pos, compound);
+            try
+            {
+                chunk.compress();
+            }
+            catch (IOException ioexception)
+            {
+                LOGGER.error("Failed to compress chunk, leaving it to the file IO thread", (Throwable)ioexception);
+            }
+
+            this.throttledSaves.incrementAndGet();
         }
 
+        this.chunksToSave.put(pos, chunk);
         ThreadedFileIOBase.getThreadedIOInstance().queueIO(this);
+
+        while (this.chunksToSave.size() >= i * 2 && this.writeRegionBatch() > 0)
+        {
+            this.callerWrittenBatches.incrementAndGet();
+        }
     }
 
     public boolean writeNextIO()
@@ -204,42 +274,92 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
         }
         else
         {
-            ChunkPos chunkpos = this.chunksToSave.keySet().iterator().next();
-            boolean lvt_3_1_;
+            if (this.writeRegionBatch() == 0 && this.flushing)
+            {
+                // Everything left is being written by another thread
+                Thread.yield();
+            }
 
-            try
+            return true;
+        }
+    }
+
+    /**
+     * Writes every pending chunk of the region the next pending chunk is in, holding the region file open only once.
+     * Chunks that are being written by another thread are left for later, so a chunk is never written twice at once
+     * and a newer save is never overwritten by an older one. Chunks stay visible to loads until they are on disk.
+     *
+     * @return the number of chunks written
+     */
+    private int writeRegionBatch()
+    {
+        Iterator<ChunkPos> iterator = this.chunksToSave.keySet().iterator();
+
+        if (!iterator.hasNext())
+        {
+            return 0;
+        }
+
+        ChunkPos chunkpos = iterator.next();
+        int i = chunkpos.x >> 5;
+        int j = chunkpos.z >> 5;
+        List<ChunkPos> list = new ArrayList<ChunkPos>();
+
+        if (this.chunksBeingSaved.add(chunkpos))
+        {
+            list.add(chunkpos);
+        }
+
+        while (iterator.hasNext())
+        {
+            ChunkPos chunkpos1 = iterator.next();
+
+            if (chunkpos1.x >> 5 == i && chunkpos1.z >> 5 == j && this.chunksBeingSaved.add(chunkpos1))
             {
-                this.chunksBeingSaved.add(chunkpos);
-                NBTTagCompound nbttagcompound = this.chunksToSave.remove(chunkpos);
+                list.add(chunkpos1);
+            }
+        }
+
+        if (list.isEmpty())
+        {
+            return 0;
+        }
 
-                if (nbttagcompound != null)
+        int k = 0;
+        RegionFile regionfile = RegionFileCache.retainRegionFile(this.chunkSaveLocation, chunkpos.x, chunkpos.z);
+
+        try
+        {
+            for (ChunkPos chunkpos2 : list)
+            {
+                AnvilChunkLoader.PendingChunk pendingchunk = this.chunksToSave.get(chunkpos2);
+
+                if (pendingchunk != null)
                 {
                     try
                     {
-                        this.writeChunkData(chunkpos, nbttagcompound);
+                        byte[] abyte = pendingchunk.compress();
+                        regionfile.write(chunkpos2.x & 31, chunkpos2.z & 31, abyte, abyte.length);
+                        ++k;
                     }
                     catch (Exception exception)
                     {
                         LOGGER.error("Failed to save chunk", (Throwable)exception);
                     }
-                }
 
-                lvt_3_1_ = true;
-            }
-            finally
-            {
-                this.chunksBeingSaved.remove(chunkpos);
+                    this.chunksToSave.remove(chunkpos2, pendingchunk);
+                }
             }
-
-            return lvt_3_1_;
         }
-    }
+        finally
+        {
+            regionfile.release();
+            this.chunksBeingSaved.removeAll(list);
+        }
 
-    private void writeChunkData(ChunkPos pos, NBTTagCompound compound) throws IOException
-    {
-        DataOutputStream dataoutputstream = RegionFileCache.getChunkOutputStream(this.chunkSaveLocation, pos.x, pos.z);
-        CompressedStreamTools.write(compound, dataoutputstream);
-        dataoutputstream.close();
+        this.savedChunks.addAndGet(k);
+        this.regionBatches.incrementAndGet();
+        return k;
     }
 
     public void saveExtraChunkData(World worldIn, Chunk chunkIn) throws IOException
@@ -300,7 +420,11 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
         });
     }
 
-    private void writeChunkToNBT(Chunk chunkIn, World worldIn, NBTTagCompound compound)
+    /**
+     * Writes everything but the block and light data, which is returned so it can be encoded later by
+     * {@link #writeSectionsToNBT}. With copySections the returned data does not change along with the chunk.
+     */
+    private AnvilChunkLoader.SectionData[] writeChunkToNBT(Chunk chunkIn, World worldIn, NBTTagCompound compound, boolean copySections)
     {
         compound.setInteger("xPos", chunkIn.x);
         compound.setInteger("zPos", chunkIn.z);
@@ -310,42 +434,17 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
         compound.setBoolean("LightPopulated", chunkIn.isLightPopulated());
         compound.setLong("InhabitedTime", chunkIn.getInhabitedTime());
         ExtendedBlockStorage[] aextendedblockstorage = chunkIn.getBlockStorageArray();
-        NBTTagList nbttaglist = new NBTTagList();
+        List<AnvilChunkLoader.SectionData> sections = new ArrayList<AnvilChunkLoader.SectionData>(aextendedblockstorage.length);
         boolean flag = worldIn.provider.hasSkyLight();
 
         for (ExtendedBlockStorage extendedblockstorage : aextendedblockstorage)
         {
             if (extendedblockstorage != Chunk.NULL_BLOCK_STORAGE)
             {
-                NBTTagCompound nbttagcompound = new NBTTagCompound();
-                nbttagcompound.setByte("Y", (byte)(extendedblockstorage.getYLocation() >> 4 & 255));
-                byte[] abyte = new byte[4096];
-                NibbleArray nibblearray = new NibbleArray();
-                NibbleArray nibblearray1 = extendedblockstorage.getData().getDataForNBT(abyte, nibblearray);
-                nbttagcompound.setByteArray("Blocks", abyte);
-                nbttagcompound.setByteArray("Data", nibblearray.getData());
-
-                if (nibblearray1 != null)
-                {
-                    nbttagcompound.setByteArray("Add", nibblearray1.getData());
-                }
-
-                nbttagcompound.setByteArray("BlockLight", extendedblockstorage.getBlockLight().getData());
-
-                if (flag)
-                {
-                    nbttagcompound.setByteArray("SkyLight", extendedblockstorage.getSkyLight().getData());
-                }
-                else
-                {
-                    nbttagcompound.setByteArray("SkyLight", new byte[extendedblockstorage.getBlockLight().getData().length]);
-                }
-
-                nbttaglist.appendTag(nbttagcompound);
+                sections.add(new AnvilChunkLoader.SectionData(extendedblockstorage, flag, copySections));
             }
         }
 
-        compound.setTag("Sections", nbttaglist);
         compound.setByteArray("Biomes", chunkIn.getBiomeArray());
         chunkIn.setHasEntities(false);
         NBTTagList nbttaglist1 = new NBTTagList();
@@ -424,6 +523,35 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
                 net.minecraftforge.fml.common.FMLLog.log.error("A capability provider has thrown an exception trying to write state. It will not persist. Report this to the mod author", exception);
             }
         }
+
+        return sections.toArray(new AnvilChunkLoader.SectionData[sections.size()]);
+    }
+
+    private static void writeSectionsToNBT(AnvilChunkLoader.SectionData[] sections, NBTTagCompound compound)
+    {
+        NBTTagList nbttaglist = new NBTTagList();
+
+        for (AnvilChunkLoader.SectionData section : sections)
+        {
+            NBTTagCompound nbttagcompound = new NBTTagCompound();
+            nbttagcompound.setByte("Y", (byte)(section.y >> 4 & 255));
+            byte[] abyte = new byte[4096];
+            NibbleArray nibblearray = new NibbleArray();
+            NibbleArray nibblearray1 = section.data.getDataForNBT(abyte, nibblearray);
+            nbttagcompound.setByteArray("Blocks", abyte);
+            nbttagcompound.setByteArray("Data", nibblearray.getData());
+
+            if (nibblearray1 != null)
+            {
+                nbttagcompound.setByteArray("Add", nibblearray1.getData());
+            }
+
+            nbttagcompound.setByteArray("BlockLight", section.blockLight);
+            nbttagcompound.setByteArray("SkyLight", section.skyLight);
+            nbttaglist.appendTag(nbttagcompound);
+        }
+
+        compound.setTag("Sections", nbttaglist);
     }
 
     private Chunk readChunkFromNBT(World worldIn, NBTTagCompound compound)
@@ -662,4 +790,148 @@ public class AnvilChunkLoader implements IChunkLoader, IThreadedFileIO
     {
         return this.chunksToSave.size();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the size in bytes of the pending chunks that have already been compressed
+     */
+    public long getPendingSaveBytes()
+    {
+        long i = 0L;
+
+        for (AnvilChunkLoader.PendingChunk pendingchunk : this.chunksToSave.values())
+        {
+            i += pendingchunk.getCompressedSize();
+        }
+
+        return i;
+    }
+
+    /**
+     * @return the number of chunks written to region files
+     */
+    public long getSavedChunkCount()
+    {
+        return this.savedChunks.get();
+    }
+
+    /**
+     * @return the number of per region batches the saved chunks were written in
+     */
+    public long getRegionBatchCount()
+    {
+        return this.regionBatches.get();
+    }
+
+    /**
+     * @return the number of saves that were compressed by the saving thread because the queue was full
+     */
+    public long getThrottledSaveCount()
+    {
+        return this.throttledSaves.get();
+    }
+
+    /**
+     * @return the number of batches the saving thread had to write itself because the file IO thread fell behind
+     */
+    public long getCallerWrittenBatchCount()
+    {
+        return this.callerWrittenBatches.get();
+    }
+
+    public void resetSaveCounters()
+    {
+        this.savedChunks.set(0L);
+        this.regionBatches.set(0L);
+        this.throttledSaves.set(0L);
+        this.callerWrittenBatches.set(0L);
+    }
+
+    /**
+     * Block and light data of a chunk section, optionally copied so later changes on the server thread do not affect it.
+     */
+    private static class SectionData
+    {
+        private final int y;
+        private final BlockStateContainer data;
+        private final byte[] blockLight;
+        private final byte[] skyLight;
+
+        private SectionData(ExtendedBlockStorage storage, boolean hasSkyLight, boolean copy)
+        {
+            this.y = storage.getYLocation();
+            this.data = copy ? storage.getData().snapshot() : storage.getData();
+            this.blockLight = copy ? storage.getBlockLight().getData().clone() : storage.getBlockLight().getData();
+
+            if (hasSkyLight)
+            {
+                this.skyLight = copy ? storage.getSkyLight().getData().clone() : storage.getSkyLight().getData();
+            }
+            else
+            {
+                this.skyLight = new byte[this.blockLight.length];
+            }
+        }
+    }
+
+    /**
+     * A chunk waiting to be written. It starts out as NBT with the sections still to be encoded and is replaced by its
+     * compressed bytes once {@link #compress()} is called, which is all the file IO thread needs.
+     */
+    private static class PendingChunk
+    {
+        @Nullable
+        private NBTTagCompound compound;
+        @Nullable
+        private AnvilChunkLoader.SectionData[] sections;
+        @Nullable
+        private byte[] data;
+
+        private PendingChunk(NBTTagCompound compoundIn, @Nullable AnvilChunkLoader.SectionData[] sectionsIn)
+        {
+            this.compound = compoundIn;
+            this.sections = sectionsIn;
+        }
+
+        /**
+         * @return the chunk NBT; a fresh copy once the chunk has been compressed
+         */
+        private synchronized NBTTagCompound getCompound() throws IOException
+        {
+            if (this.data != null)
+            {
+                return CompressedStreamTools.read(new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(this.data)))));
+            }
+
+            if (this.sections != null)
+            {
+                writeSectionsToNBT(this.sections, this.compound.getCompoundTag("Level"));
+                this.sections = null;
+            }
+
+            return this.compound;
+        }
+
+        /**
+         * @return the chunk NBT deflated the same way region files store it
+         */
+        private synchronized byte[] compress() throws IOException
+        {
+            if (this.data == null)
+            {
+                ByteArrayOutputStream bytearrayoutputstream = new ByteArrayOutputStream(8096);
+                DataOutputStream dataoutputstream = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytearrayoutputstream)));
+                CompressedStreamTools.write(this.getCompound(), dataoutputstream);
+                dataoutputstream.close();
+                this.data = bytearrayoutputstream.toByteArray();
+                this.compound = null;
+            }
+
+            return this.data;
+        }
+
+        private synchronized int getCompressedSize()
+        {
+            return this.data == null ? 0 : this.data.length;
+        }
+    }
+}
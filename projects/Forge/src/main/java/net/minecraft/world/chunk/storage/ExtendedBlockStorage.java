@@ -14,6 +14,10 @@ public class ExtendedBlockStorage
     private final BlockStateContainer data;
     private NibbleArray blockLight;
     private NibbleArray skyLight;
+    /** Forge: Counts the changes to the blocks and light of this section, see {@link #getModificationCount()} */
+    private int modificationCount;
+    /** Forge: Set while a snapshot shares the light arrays, see {@link #shareLight()} */
+    private boolean lightShared;
 
     public ExtendedBlockStorage(int y, boolean storeSkylight)
     {
@@ -77,6 +81,7 @@ public class ExtendedBlockStorage
         }
 
         this.data.set(x, y, z, state);
+        ++this.modificationCount;
     }
 
     public boolean isEmpty()
@@ -96,7 +101,9 @@ public class ExtendedBlockStorage
 
     public void setSkyLight(int x, int y, int z, int value)
     {
+        this.unshareLight();
         this.skyLight.set(x, y, z, value);
+        ++this.modificationCount;
     }
 
     public int getSkyLight(int x, int y, int z)
@@ -106,7 +113,9 @@ public class ExtendedBlockStorage
 
     public void setBlockLight(int x, int y, int z, int value)
     {
+        this.unshareLight();
         this.blockLight.set(x, y, z, value);
+        ++this.modificationCount;
     }
 
     public int getBlockLight(int x, int y, int z)
@@ -118,6 +127,7 @@ public class ExtendedBlockStorage
     {
         this.blockRefCount = 0;
         this.tickRefCount = 0;
+        ++this.modificationCount;
 
         for (int i = 0; i < 16; ++i)
         {
@@ -159,10 +169,58 @@ public class ExtendedBlockStorage
     public void setBlockLight(NibbleArray newBlocklightArray)
     {
         this.blockLight = newBlocklightArray;
+        ++this.modificationCount;
     }
 
     public void setSkyLight(NibbleArray newSkylightArray)
     {
         this.skyLight = newSkylightArray;
+        ++this.modificationCount;
+    }
+
+    /**
+     * Forge: A number that changes whenever a block or light value of this section is set, used to tell whether data
+     * derived from the section, like the encoded section of a chunk packet, is still current.
+     */
+    public int getModificationCount()
+    {
+        return this.modificationCount;
+    }
+
+    /**
+     * Forge: Marks the light arrays as read by a snapshot, so the next light value set in this section copies them
+     * instead of changing the arrays the snapshot holds. Code that writes to the arrays directly must call
+     * {@link #unshareLight()} first.
+     */
+    public void shareLight()
+    {
+        this.lightShared = true;
+    }
+
+    /**
+     * Forge: Gives this section its own copy of the light arrays if a snapshot still reads the current ones.
+     */
+    public void unshareLight()
+    {
+        if (this.lightShared)
+        {
+            this.blockLight = new NibbleArray(this.blockLight.getData().clone());
+
+            if (this.skyLight != null)
+            {
+                this.skyLight = new NibbleArray(this.skyLight.getData().clone());
+            }
+
+            this.lightShared = false;
+        }
+    }
+
+    /**
+     * Forge: Must be called after changing the arrays returned by {@link #getData()}, {@link #getBlockLight()} or
+     * {@link #getSkyLight()} directly.
+     */
+    public void markModified()
+    {
+        ++this.modificationCount;
     }
 }
\ No newline at end of file
@@ -7,10 +7,15 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
@@ -22,11 +27,19 @@ public class RegionFile
     private static final byte[] EMPTY_SECTOR = new byte[4096];
     private final File fileName;
     private RandomAccessFile dataFile;
+    /** All chunk reads and writes go through positional calls on this channel, so concurrent readers never fight over a file pointer. */
+    private FileChannel dataChannel;
+    /** Guards the sector table: reads of different chunks run in parallel, writes (which may move sectors) are exclusive. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final int[] offsets = new int[1024];
     private final int[] chunkTimestamps = new int[1024];
     private List<Boolean> sectorFree;
     private int sizeDelta;
     private long lastModified;
+    // Lifecycle state used by RegionFileCache, guarded by this
+    private int pins;
+    private boolean closePending;
+    private boolean closed;
 
     public RegionFile(File fileNameIn)
     {
@@ -41,6 +54,7 @@ public class RegionFile
             }
 
             this.dataFile = new RandomAccessFile(fileNameIn, "rw");
+            this.dataChannel = this.dataFile.getChannel();
 
             if (this.dataFile.length() < 4096L)
             {
@@ -96,14 +110,13 @@ public class RegionFile
     }
 
     @Deprecated // TODO: remove (1.13)
-    public synchronized boolean chunkExists(int x, int z)
+    public boolean chunkExists(int x, int z)
     {
         return isChunkSaved(x, z);
     }
 
     @Nullable
-
-    public synchronized DataInputStream getChunkDataInputStream(int x, int z)
+    public DataInputStream getChunkDataInputStream(int x, int z)
     {
         if (this.outOfBounds(x, z))
         {
@@ -111,77 +124,105 @@ public class RegionFile
         }
         else
         {
+            byte b0;
+            byte[] abyte;
+            this.lock.readLock().lock();
+
             try
             {
+                if (this.dataChannel == null)
+                {
+                    // Never report a chunk as absent just because its file was closed, it would be generated again
+                    throw new IllegalStateException("Region file " + this.fileName + " is closed");
+                }
+
                 int i = this.getOffset(x, z);
 
                 if (i == 0)
                 {
                     return null;
                 }
-                else
-                {
-                    int j = i >> 8;
-                    int k = i & 255;
 
-                    if (j + k > this.sectorFree.size())
-                    {
-                        return null;
-                    }
-                    else
-                    {
-                        this.dataFile.seek((long)(j * 4096));
-                        int l = this.dataFile.readInt();
+                int j = i >> 8;
+                int k = i & 255;
 
-                        if (l > 4096 * k)
-                        {
-                            return null;
-                        }
-                        else if (l <= 0)
-                        {
-                            return null;
-                        }
-                        else
-                        {
-                            byte b0 = this.dataFile.readByte();
+                if (j + k > this.sectorFree.size())
+                {
+                    return null;
+                }
 
-                            if (b0 == 1)
-                            {
-                                byte[] abyte1 = new byte[l - 1];
-                                this.dataFile.read(abyte1);
-                                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(abyte1))));
-                            }
-                            else if (b0 == 2)
-                            {
-                                byte[] abyte = new byte[l - 1];
-                                this.dataFile.read(abyte);
-                                return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(abyte))));
-                            }
-                            else
-                            {
-                                return null;
-                            }
-                        }
-                    }
+                ByteBuffer header = ByteBuffer.allocate(5);
+                this.readFully(header, (long)j * 4096L);
+                header.flip();
+                int l = header.getInt();
+
+                if (l > 4096 * k || l <= 0)
+                {
+                    return null;
                 }
+
+                b0 = header.get();
+                abyte = new byte[l - 1];
+                this.readFully(ByteBuffer.wrap(abyte), (long)j * 4096L + 5L);
             }
             catch (IOException var9)
             {
                 return null;
             }
+            finally
+            {
+                this.lock.readLock().unlock();
+            }
+
+            // Decompression happens outside of the lock, it only touches our private copy of the payload
+            try
+            {
+                if (b0 == 1)
+                {
+                    return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(abyte))));
+                }
+                else if (b0 == 2)
+                {
+                    return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(abyte))));
+                }
+                else
+                {
+                    return null;
+                }
+            }
+            catch (IOException var10)
+            {
+                return null;
+            }
         }
     }
 
     @Nullable
     public DataOutputStream getChunkDataOutputStream(int x, int z)
     {
-        return this.outOfBounds(x, z) ? null : new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new RegionFile.ChunkBuffer(x, z))));
+        return this.getChunkDataOutputStream(x, z, false);
+    }
+
+    /**
+     * @param releaseOnClose whether closing the returned stream also drops the pin taken through {@link #retain()}
+     */
+    @Nullable
+    DataOutputStream getChunkDataOutputStream(int x, int z, boolean releaseOnClose)
+    {
+        return this.outOfBounds(x, z) ? null : new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new RegionFile.ChunkBuffer(x, z, releaseOnClose))));
     }
 
-    protected synchronized void write(int x, int z, byte[] data, int length)
+    protected void write(int x, int z, byte[] data, int length)
     {
+        this.lock.writeLock().lock();
+
         try
         {
+            if (this.dataChannel == null)
+            {
+                throw new IllegalStateException("Region file " + this.fileName + " is closed");
+            }
+
             int i = this.getOffset(x, z);
             int j = i >> 8;
             int k = i & 255;
@@ -248,12 +289,11 @@ public class RegionFile
                 }
                 else
                 {
-                    this.dataFile.seek(this.dataFile.length());
                     j = this.sectorFree.size();
 
                     for (int i2 = 0; i2 < l; ++i2)
                     {
-                        this.dataFile.write(EMPTY_SECTOR);
+                        this.writeFully(ByteBuffer.wrap(EMPTY_SECTOR), (long)(j + i2) * 4096L);
                         this.sectorFree.add(Boolean.valueOf(false));
                     }
 
@@ -269,14 +309,39 @@ public class RegionFile
         {
             ioexception.printStackTrace();
         }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
     }
 
     private void write(int sectorNumber, byte[] data, int length) throws IOException
     {
-        this.dataFile.seek((long)(sectorNumber * 4096));
-        this.dataFile.writeInt(length + 1);
-        this.dataFile.writeByte(2);
-        this.dataFile.write(data, 0, length);
+        ByteBuffer buffer = ByteBuffer.allocate(length + 5);
+        buffer.putInt(length + 1);
+        buffer.put((byte)2);
+        buffer.put(data, 0, length);
+        buffer.flip();
+        this.writeFully(buffer, (long)sectorNumber * 4096L);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (this.dataChannel.read(buffer, position + (long)buffer.position()) < 0)
+            {
+                throw new EOFException("Unexpected end of region file " + this.fileName);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            this.dataChannel.write(buffer, position + (long)buffer.position());
+        }
     }
 
     private boolean outOfBounds(int x, int z)
@@ -291,28 +356,157 @@ public class RegionFile
 
     public boolean isChunkSaved(int x, int z)
     {
-        return this.getOffset(x, z) != 0;
+        this.lock.readLock().lock();
+
+        try
+        {
+            return this.getOffset(x, z) != 0;
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
     }
 
     private void setOffset(int x, int z, int offset) throws IOException
     {
         this.offsets[x + z * 32] = offset;
-        this.dataFile.seek((long)((x + z * 32) * 4));
-        this.dataFile.writeInt(offset);
+        this.writeInt(offset, (long)((x + z * 32) * 4));
     }
 
     private void setChunkTimestamp(int x, int z, int timestamp) throws IOException
     {
         this.chunkTimestamps[x + z * 32] = timestamp;
-        this.dataFile.seek((long)(4096 + (x + z * 32) * 4));
-        this.dataFile.writeInt(timestamp);
+        this.writeInt(timestamp, (long)(4096 + (x + z * 32) * 4));
+    }
+
+    private void writeInt(int value, long position) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.putInt(value);
+        buffer.flip();
+        this.writeFully(buffer, position);
     }
 
     public void close() throws IOException
     {
-        if (this.dataFile != null)
+        synchronized (this)
         {
-            this.dataFile.close();
+            this.closed = true;
+        }
+
+        // Waits for any in-flight read or write to finish before the handle goes away
+        this.lock.writeLock().lock();
+
+        try
+        {
+            if (this.dataFile != null)
+            {
+                this.dataFile.close();
+                this.dataFile = null;
+                this.dataChannel = null;
+            }
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pins this file so that RegionFileCache will not close it while the caller is using it.
+     *
+     * @return false if the file has already been closed and must be reopened
+     */
+    synchronized boolean retain()
+    {
+        if (this.closed)
+        {
+            return false;
+        }
+
+        ++this.pins;
+        this.closePending = false;
+        return true;
+    }
+
+    /**
+     * Drops a pin taken by {@link #retain()}, closing the file if it was evicted in the meantime.
+     */
+    void release()
+    {
+        boolean close;
+
+        synchronized (this)
+        {
+            close = --this.pins == 0 && this.closePending && !this.closed;
+
+            if (close)
+            {
+                this.closed = true;
+            }
+        }
+
+        if (close)
+        {
+            this.closeQuietly();
+        }
+    }
+
+    /**
+     * Closes this file now if nobody has it pinned, otherwise once the last pin is released.
+     */
+    void closeWhenReleased()
+    {
+        boolean close;
+
+        synchronized (this)
+        {
+            this.closePending = true;
+            close = this.pins == 0 && !this.closed;
+
+            if (close)
+            {
+                this.closed = true;
+            }
+        }
+
+        if (close)
+        {
+            this.closeQuietly();
+        }
+    }
+
+    /**
+     * Takes back a pending close scheduled by {@link #closeWhenReleased()}.
+     *
+     * @return false if the file has already been closed and must be reopened
+     */
+    synchronized boolean cancelClose()
+    {
+        if (this.closed)
+        {
+            return false;
+        }
+
+        this.closePending = false;
+        return true;
+    }
+
+    synchronized boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            this.close();
+        }
+        catch (IOException ioexception)
+        {
+            ioexception.printStackTrace();
         }
     }
 
@@ -320,17 +514,34 @@ public class RegionFile
     {
         private final int chunkX;
         private final int chunkZ;
+        private final boolean releaseOnClose;
 
         public ChunkBuffer(int x, int z)
+        {
+            this(x, z, false);
+        }
+
+        ChunkBuffer(int x, int z, boolean releaseOnClose)
         {
             super(8096);
             this.chunkX = x;
             this.chunkZ = z;
+            this.releaseOnClose = releaseOnClose;
         }
 
         public void close() throws IOException
         {
-            RegionFile.this.write(this.chunkX, this.chunkZ, this.buf, this.count);
+            try
+            {
+                RegionFile.this.write(this.chunkX, this.chunkZ, this.buf, this.count);
+            }
+            finally
+            {
+                if (this.releaseOnClose)
+                {
+                    RegionFile.this.release();
+                }
+            }
         }
     }
 }
\ No newline at end of file
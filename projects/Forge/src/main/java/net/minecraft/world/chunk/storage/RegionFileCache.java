@@ -5,115 +5,241 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.util.math.ChunkPos;
 
+/**
+ * Keeps region files open between chunk reads and writes.
+ *
+ * Every world directory has its own cache and lock, and the lock is only held while looking up or opening a file.
+ * The actual I/O is guarded by each {@link RegionFile}, so loads and saves touching different regions (or different
+ * dimensions) run in parallel. Each cache is bounded by {@link net.minecraftforge.common.ForgeModContainer#regionFileCacheSize}
+ * and evicts its least recently used file, deferring the close until in-flight operations on that file are done.
+ */
 public class RegionFileCache
 {
-    private static final Map<File, RegionFile> REGIONS_BY_FILE = Maps.<File, RegionFile>newHashMap();
+    private static final Map<File, RegionFileCache.WorldRegions> REGIONS_BY_WORLD = Maps.<File, RegionFileCache.WorldRegions>newConcurrentMap();
 
-    public static synchronized RegionFile createOrLoadRegionFile(File worldDir, int chunkX, int chunkZ)
+    private static RegionFileCache.WorldRegions getWorldRegions(File worldDir)
     {
-        File file1 = new File(worldDir, "region");
-        File file2 = new File(file1, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
-        RegionFile regionfile = REGIONS_BY_FILE.get(file2);
-
-        if (regionfile != null)
-        {
-            return regionfile;
-        }
-        else
-        {
-            if (!file1.exists())
-            {
-                file1.mkdirs();
-            }
-
-            if (REGIONS_BY_FILE.size() >= 256)
-            {
-                clearRegionFileReferences();
-            }
+        return REGIONS_BY_WORLD.computeIfAbsent(worldDir, RegionFileCache.WorldRegions::new);
+    }
 
-            RegionFile regionfile1 = new RegionFile(file2);
-            REGIONS_BY_FILE.put(file2, regionfile1);
-            return regionfile1;
-        }
+    /**
+     * The returned file is not pinned, so it may be closed once it is evicted. The stream helpers below pin the file
+     * for as long as they use it.
+     */
+    public static RegionFile createOrLoadRegionFile(File worldDir, int chunkX, int chunkZ)
+    {
+        return getWorldRegions(worldDir).get(chunkX, chunkZ, true, false);
     }
 
-    public static synchronized RegionFile getRegionFileIfExists(File worldDir, int chunkX, int chunkZ)
+    @Nullable
+    public static RegionFile getRegionFileIfExists(File worldDir, int chunkX, int chunkZ)
     {
-        File file1 = new File(worldDir, "region");
-        File file2 = new File(file1, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
-        RegionFile regionfile = REGIONS_BY_FILE.get(file2);
+        return getWorldRegions(worldDir).get(chunkX, chunkZ, false, false);
+    }
 
-        if (regionfile != null)
+    public static void clearRegionFileReferences()
+    {
+        for (RegionFileCache.WorldRegions worldregions : REGIONS_BY_WORLD.values())
         {
-            return regionfile;
+            worldregions.clear();
         }
-        else if (file1.exists() && file2.exists())
-        {
-            if (REGIONS_BY_FILE.size() >= 256)
-            {
-                clearRegionFileReferences();
-            }
+    }
 
-            RegionFile regionfile1 = new RegionFile(file2);
-            REGIONS_BY_FILE.put(file2, regionfile1);
-            return regionfile1;
-        }
-        else
+    /**
+     * Closes the region files of a single world directory, leaving other dimensions untouched.
+     */
+    public static void clearRegionFileReferences(File worldDir)
+    {
+        RegionFileCache.WorldRegions worldregions = REGIONS_BY_WORLD.get(worldDir);
+
+        if (worldregions != null)
         {
-            return null;
+            worldregions.clear();
         }
     }
 
-    public static synchronized void clearRegionFileReferences()
+    /**
+     * @return the number of region files currently held open for all worlds
+     */
+    public static int getOpenRegionFileCount()
     {
-        for (RegionFile regionfile : REGIONS_BY_FILE.values())
+        int i = 0;
+
+        for (RegionFileCache.WorldRegions worldregions : REGIONS_BY_WORLD.values())
         {
-            try
-            {
-                if (regionfile != null)
-                {
-                    regionfile.close();
-                }
-            }
-            catch (IOException ioexception)
-            {
-                ioexception.printStackTrace();
-            }
+            i += worldregions.size();
         }
 
-        REGIONS_BY_FILE.clear();
+        return i;
     }
 
+    @Nullable
     public static DataInputStream getChunkInputStream(File worldDir, int chunkX, int chunkZ)
     {
-        RegionFile regionfile = createOrLoadRegionFile(worldDir, chunkX, chunkZ);
-        return regionfile.getChunkDataInputStream(chunkX & 31, chunkZ & 31);
+        RegionFile regionfile = getWorldRegions(worldDir).get(chunkX, chunkZ, true, true);
+
+        try
+        {
+            return regionfile.getChunkDataInputStream(chunkX & 31, chunkZ & 31);
+        }
+        finally
+        {
+            regionfile.release();
+        }
     }
     // CraftBukkit start - call sites hoisted for synchronization
-    public static synchronized net.minecraft.nbt.NBTTagCompound getChunkData(File worldDir, int chunkX, int chunkZ) throws IOException {
-        RegionFile regionfile = createOrLoadRegionFile(worldDir, chunkX, chunkZ);;
-        DataInputStream datainputstream = regionfile.getChunkDataInputStream(chunkX & 31, chunkZ & 31);
+    @Nullable
+    public static net.minecraft.nbt.NBTTagCompound getChunkData(File worldDir, int chunkX, int chunkZ) throws IOException {
+        DataInputStream datainputstream = getChunkInputStream(worldDir, chunkX, chunkZ);
         if (datainputstream == null) return null;
         return net.minecraft.nbt.CompressedStreamTools.read(datainputstream);
     }
-    public static synchronized void writeChunkData(File file, int chunkX, int chunkZ, net.minecraft.nbt.NBTTagCompound nbttagcompound) throws IOException {
-        RegionFile regionfile = createOrLoadRegionFile(file, chunkX, chunkZ);
-        DataOutputStream dataoutputstream = regionfile.getChunkDataOutputStream(chunkX & 31, chunkZ & 31);
+    public static void writeChunkData(File file, int chunkX, int chunkZ, net.minecraft.nbt.NBTTagCompound nbttagcompound) throws IOException {
+        DataOutputStream dataoutputstream = getChunkOutputStream(file, chunkX, chunkZ);
         net.minecraft.nbt.CompressedStreamTools.write(nbttagcompound, (java.io.DataOutput) dataoutputstream);
         dataoutputstream.close();
     } // CraftBukkit end
 
+    /**
+     * Returns the region file pinned, so it stays open until {@link RegionFile#release()} is called, even if it is
+     * evicted in the meantime. Used to write several chunks of one region without looking it up again.
+     */
+    static RegionFile retainRegionFile(File worldDir, int chunkX, int chunkZ)
+    {
+        return getWorldRegions(worldDir).get(chunkX, chunkZ, true, true);
+    }
+
+    /**
+     * The region file stays pinned until the returned stream is closed, so it must always be closed.
+     */
     public static DataOutputStream getChunkOutputStream(File worldDir, int chunkX, int chunkZ)
     {
-        RegionFile regionfile = createOrLoadRegionFile(worldDir, chunkX, chunkZ);
-        return regionfile.getChunkDataOutputStream(chunkX & 31, chunkZ & 31);
+        RegionFile regionfile = getWorldRegions(worldDir).get(chunkX, chunkZ, true, true);
+        return regionfile.getChunkDataOutputStream(chunkX & 31, chunkZ & 31, true);
     }
 
     public static boolean chunkExists(File worldDir, int chunkX, int chunkZ)
     {
-        RegionFile regionfile = getRegionFileIfExists(worldDir, chunkX, chunkZ);
-        return regionfile != null ? regionfile.isChunkSaved(chunkX & 31, chunkZ & 31) : false;
+        RegionFile regionfile = getWorldRegions(worldDir).get(chunkX, chunkZ, false, true);
+
+        if (regionfile == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            return regionfile.isChunkSaved(chunkX & 31, chunkZ & 31);
+        }
+        finally
+        {
+            regionfile.release();
+        }
+    }
+
+    private static class WorldRegions
+    {
+        private final File regionDir;
+        /** Open files in access order, the eldest entry is the next one to be evicted */
+        private final LinkedHashMap<Long, RegionFile> regions = new LinkedHashMap<Long, RegionFile>(16, 0.75F, true);
+        /** Evicted files that are still pinned; reused if their region is requested again before they are closed */
+        private final Map<Long, RegionFile> closing = Maps.<Long, RegionFile>newHashMap();
+
+        private WorldRegions(File worldDir)
+        {
+            this.regionDir = new File(worldDir, "region");
+        }
+
+        @Nullable
+        private synchronized RegionFile get(int chunkX, int chunkZ, boolean create, boolean pin)
+        {
+            Long key = Long.valueOf(ChunkPos.asLong(chunkX >> 5, chunkZ >> 5));
+
+            while (true)
+            {
+                RegionFile regionfile = this.regions.get(key);
+
+                if (regionfile == null || regionfile.isClosed())
+                {
+                    regionfile = this.closing.remove(key);
+
+                    // An evicted file that is still pinned is picked back up instead of opening the same file twice
+                    if (regionfile == null || !regionfile.cancelClose())
+                    {
+                        File file1 = new File(this.regionDir, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+
+                        if (!create && !(this.regionDir.exists() && file1.exists()))
+                        {
+                            return null;
+                        }
+
+                        if (!this.regionDir.exists())
+                        {
+                            this.regionDir.mkdirs();
+                        }
+
+                        regionfile = new RegionFile(file1);
+                    }
+
+                    this.regions.put(key, regionfile);
+                    this.trim();
+                }
+
+                // Only fails if the file was closed directly since the check above, in which case it is opened again
+                if (!pin || regionfile.retain())
+                {
+                    return regionfile;
+                }
+
+                this.regions.remove(key);
+            }
+        }
+
+        private void trim()
+        {
+            int i = Math.max(1, net.minecraftforge.common.ForgeModContainer.regionFileCacheSize);
+            Iterator<Map.Entry<Long, RegionFile>> iterator = this.regions.entrySet().iterator();
+
+            while (this.regions.size() > i && iterator.hasNext())
+            {
+                Map.Entry<Long, RegionFile> entry = iterator.next();
+                iterator.remove();
+                this.close(entry.getKey(), entry.getValue());
+            }
+
+            this.closing.values().removeIf(RegionFile::isClosed);
+        }
+
+        private void close(Long key, RegionFile regionfile)
+        {
+            regionfile.closeWhenReleased();
+
+            if (!regionfile.isClosed())
+            {
+                this.closing.put(key, regionfile);
+            }
+        }
+
+        private synchronized void clear()
+        {
+            for (Map.Entry<Long, RegionFile> entry : this.regions.entrySet())
+            {
+                this.close(entry.getKey(), entry.getValue());
+            }
+
+            this.regions.clear();
+            this.closing.values().removeIf(RegionFile::isClosed);
+        }
+
+        private synchronized int size()
+        {
+            return this.regions.size();
+        }
     }
-}
\ No newline at end of file
+}
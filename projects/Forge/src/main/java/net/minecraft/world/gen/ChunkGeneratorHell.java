@@ -63,11 +63,13 @@ public class ChunkGeneratorHell implements IChunkGenerator
     double[] br;
     double[] noiseData4;
     double[] dr;
+    private final long seed; // Forge: kept for createTerrainWorker
 
     public ChunkGeneratorHell(World worldIn, boolean p_i45637_2_, long seed)
     {
         this.world = worldIn;
         this.generateStructures = p_i45637_2_;
+        this.seed = seed;
         this.rand = new Random(seed);
         this.lperlinNoise1 = new NoiseGeneratorOctaves(this.rand, 16);
         this.lperlinNoise2 = new NoiseGeneratorOctaves(this.rand, 16);
@@ -260,19 +262,39 @@ public class ChunkGeneratorHell implements IChunkGenerator
 
     public Chunk generateChunk(int x, int z)
     {
-        this.rand.setSeed((long)x * 341873128712L + (long)z * 132897987541L);
         ChunkPrimer chunkprimer = new ChunkPrimer();
-        this.prepareHeights(x, z, chunkprimer);
-        this.buildSurfaces(x, z, chunkprimer);
-        this.genNetherCaves.generate(this.world, x, z, chunkprimer);
+        Biome[] abiome = this.generateTerrain(x, z, chunkprimer); // Forge: split out for createTerrainWorker
 
         if (this.generateStructures)
         {
             this.genNetherBridge.generate(this.world, x, z, chunkprimer);
         }
 
+        return this.createChunk(x, z, chunkprimer, abiome);
+    }
+
+    /**
+     * Forge: generates the blocks of a chunk without its fortress, the part of generateChunk a copy made by
+     * {@link #createTerrainWorker} runs on another thread.
+     *
+     * @return the biomes of the chunk
+     */
+    public Biome[] generateTerrain(int x, int z, ChunkPrimer chunkprimer)
+    {
+        this.rand.setSeed((long)x * 341873128712L + (long)z * 132897987541L);
+        this.prepareHeights(x, z, chunkprimer);
+        this.buildSurfaces(x, z, chunkprimer);
+        this.genNetherCaves.generate(this.world, x, z, chunkprimer);
+        return this.world.getBiomeProvider().getBiomes((Biome[])null, x * 16, z * 16, 16, 16);
+    }
+
+    /**
+     * Forge: creates the chunk for the blocks and biomes generated by {@link #generateTerrain}, the last part of
+     * generateChunk. Creating a chunk fires AttachCapabilitiesEvent, so this has to run on the main thread.
+     */
+    public Chunk createChunk(int x, int z, ChunkPrimer chunkprimer, Biome[] abiome)
+    {
         Chunk chunk = new Chunk(this.world, chunkprimer, x, z);
-        Biome[] abiome = this.world.getBiomeProvider().getBiomes((Biome[])null, x * 16, z * 16, 16, 16);
         byte[] abyte = chunk.getBiomeArray();
 
         for (int i = 0; i < abyte.length; ++i)
@@ -489,6 +511,26 @@ public class ChunkGeneratorHell implements IChunkGenerator
         return "Fortress".equals(structureName) && this.genNetherBridge != null ? this.genNetherBridge.isInsideStructure(pos) : false;
     }
 
+    /**
+     * Forge: creates a generator producing the same terrain as this one, for use on another thread by
+     * {@link net.minecraftforge.server.command.ParallelChunkGenWorker}. The copy only runs {@link #generateTerrain}, this
+     * generator creates the chunk with {@link #createChunk} and registers its fortress through {@link #recreateStructures}
+     * once it is added to the world.
+     *
+     * @return null if this generator, the biome provider or the caves were replaced and may not be thread safe
+     */
+    @Nullable
+    public IChunkGenerator createTerrainWorker()
+    {
+        if (this.getClass() != ChunkGeneratorHell.class || this.world.getBiomeProvider().getClass() != net.minecraft.world.biome.BiomeProviderSingle.class)
+        {
+            return null;
+        }
+
+        ChunkGeneratorHell worker = new ChunkGeneratorHell(this.world, false, this.seed);
+        return worker.genNetherCaves.getClass() == MapGenCavesHell.class ? worker : null;
+    }
+
     public void recreateStructures(Chunk chunkIn, int x, int z)
     {
         this.genNetherBridge.generate(this.world, x, z, (ChunkPrimer)null);
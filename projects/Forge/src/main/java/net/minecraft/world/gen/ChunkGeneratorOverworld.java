@@ -58,6 +58,8 @@ public class ChunkGeneratorOverworld implements IChunkGenerator
     double[] minLimitRegion;
     double[] maxLimitRegion;
     double[] depthRegion;
+    private final long seed; // Forge: kept for createTerrainWorker
+    private final String generatorOptions; // Forge: kept for createTerrainWorker
 
     public ChunkGeneratorOverworld(World worldIn, long seed, boolean mapFeaturesEnabledIn, String generatorOptions)
     {
@@ -74,6 +76,8 @@ public class ChunkGeneratorOverworld implements IChunkGenerator
         this.world = worldIn;
         this.mapFeaturesEnabled = mapFeaturesEnabledIn;
         this.terrainType = worldIn.getWorldInfo().getTerrainType();
+        this.seed = seed;
+        this.generatorOptions = generatorOptions;
         this.rand = new Random(seed);
         this.minLimitPerlinNoise = new NoiseGeneratorOctaves(this.rand, 16);
         this.maxLimitPerlinNoise = new NoiseGeneratorOctaves(this.rand, 16);
@@ -200,21 +204,8 @@ public class ChunkGeneratorOverworld implements IChunkGenerator
 
     public Chunk generateChunk(int x, int z)
     {
-        this.rand.setSeed((long)x * 341873128712L + (long)z * 132897987541L);
         ChunkPrimer chunkprimer = new ChunkPrimer();
-        this.setBlocksInChunk(x, z, chunkprimer);
-        this.biomesForGeneration = this.world.getBiomeProvider().getBiomes(this.biomesForGeneration, x * 16, z * 16, 16, 16);
-        this.replaceBiomeBlocks(x, z, chunkprimer, this.biomesForGeneration);
-
-        if (this.settings.useCaves)
-        {
-            this.caveGenerator.generate(this.world, x, z, chunkprimer);
-        }
-
-        if (this.settings.useRavines)
-        {
-            this.ravineGenerator.generate(this.world, x, z, chunkprimer);
-        }
+        this.generateTerrain(x, z, chunkprimer); // Forge: split out for createTerrainWorker
 
         if (this.mapFeaturesEnabled)
         {
@@ -249,12 +240,47 @@ public class ChunkGeneratorOverworld implements IChunkGenerator
             }
         }
 
+        return this.createChunk(x, z, chunkprimer, this.biomesForGeneration);
+    }
+
+    /**
+     * Forge: generates the blocks of a chunk without its structures, the part of generateChunk a copy made by
+     * {@link #createTerrainWorker} runs on another thread.
+     *
+     * @return the biomes of the chunk, an array that is reused by the next call
+     */
+    public Biome[] generateTerrain(int x, int z, ChunkPrimer chunkprimer)
+    {
+        this.rand.setSeed((long)x * 341873128712L + (long)z * 132897987541L);
+        this.setBlocksInChunk(x, z, chunkprimer);
+        this.biomesForGeneration = this.world.getBiomeProvider().getBiomes(this.biomesForGeneration, x * 16, z * 16, 16, 16);
+        this.replaceBiomeBlocks(x, z, chunkprimer, this.biomesForGeneration);
+
+        if (this.settings.useCaves)
+        {
+            this.caveGenerator.generate(this.world, x, z, chunkprimer);
+        }
+
+        if (this.settings.useRavines)
+        {
+            this.ravineGenerator.generate(this.world, x, z, chunkprimer);
+        }
+
+        return this.biomesForGeneration;
+    }
+
+    /**
+     * Forge: creates the chunk for the blocks and biomes generated by {@link #generateTerrain}, the last part of
+     * generateChunk. Creating a chunk fires AttachCapabilitiesEvent, so this has to run on the main thread.
+     */
+    public Chunk createChunk(int x, int z, ChunkPrimer chunkprimer, Biome[] biomes)
+    {
         Chunk chunk = new Chunk(this.world, chunkprimer, x, z);
         byte[] abyte = chunk.getBiomeArray();
 
         for (int i = 0; i < abyte.length; ++i)
         {
-            abyte[i] = (byte)Biome.getIdForBiome(this.biomesForGeneration[i]);
+            abyte[i] = (byte)Biome.getIdForBiome(biomes[i]);
         }
 
         chunk.generateSkylightMap();
@@ -590,6 +616,35 @@ public class ChunkGeneratorOverworld implements IChunkGenerator
         }
     }
 
+    /**
+     * Forge: creates a generator producing the same terrain as this one, for use on another thread by
+     * {@link net.minecraftforge.server.command.ParallelChunkGenWorker}. The copy only runs {@link #generateTerrain}, this
+     * generator creates the chunk with {@link #createChunk} and registers its structures through {@link #recreateStructures}
+     * once it is added to the world.
+     *
+     * @return null if this generator, the biome provider, caves or ravines were replaced and may not be thread safe
+     */
+    @Nullable
+    public IChunkGenerator createTerrainWorker()
+    {
+        if (this.getClass() != ChunkGeneratorOverworld.class || this.world.getBiomeProvider().getClass() != net.minecraft.world.biome.BiomeProvider.class)
+        {
+            return null;
+        }
+
+        ChunkGeneratorOverworld worker = new ChunkGeneratorOverworld(this.world, this.seed, false, this.generatorOptions);
+
+        if (worker.caveGenerator.getClass() != MapGenCaves.class || worker.ravineGenerator.getClass() != MapGenRavine.class)
+        {
+            return null;
+        }
+
+        // The loaded chunks the world would look biomes up in are changed by the main thread
+        worker.caveGenerator.biomesFromProvider = true;
+        worker.ravineGenerator.biomesFromProvider = true;
+        return worker;
+    }
+
     public void recreateStructures(Chunk chunkIn, int x, int z)
     {
         if (this.mapFeaturesEnabled)
@@ -1,9 +1,11 @@
 package net.minecraft.world.gen;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import java.io.IOException;
 import java.util.Collection;
@@ -30,7 +32,9 @@ import org.apache.logging.log4j.Logger;
 public class ChunkProviderServer implements IChunkProvider
 {
     private static final Logger LOGGER = LogManager.getLogger();
-    public final Set<Long> droppedChunksSet = Sets.<Long>newHashSet(); // Akarin Forge - public
+    public final Set<Long> droppedChunksSet = new LongOpenHashSet(); // Akarin Forge - public
+    // Forge: the same set without boxing, the public field keeps its declared type for compiled mods and plugins
+    private final LongSet droppedChunks = (LongSet)this.droppedChunksSet;
     public final IChunkGenerator chunkGenerator;
     public final IChunkLoader chunkLoader;
     public final Long2ObjectMap<Chunk> id2ChunkMap = new Long2ObjectOpenHashMap<Chunk>(8192);
@@ -53,7 +57,7 @@ public class ChunkProviderServer implements IChunkProvider
     {
         if (this.world.provider.canDropChunk(chunkIn.x, chunkIn.z))
         {
-            this.droppedChunksSet.add(Long.valueOf(ChunkPos.asLong(chunkIn.x, chunkIn.z)));
+            this.droppedChunks.add(ChunkPos.asLong(chunkIn.x, chunkIn.z));
             chunkIn.unloadQueued = true;
         }
     }
@@ -115,7 +119,12 @@ public class ChunkProviderServer implements IChunkProvider
             {
                 net.minecraft.world.chunk.storage.AnvilChunkLoader loader = (net.minecraft.world.chunk.storage.AnvilChunkLoader) this.chunkLoader;
                 if (runnable == null || !net.minecraftforge.common.ForgeChunkManager.asyncChunkLoading)
+                {
+                    net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.CHUNK_LOAD, this.world.provider.getClass());
+                    long timingsStart = timings.start();
                     chunk = net.minecraftforge.common.chunkio.ChunkIOExecutor.syncChunkLoad(this.world, loader, this, x, z);
+                    timings.stop(timingsStart);
+                }
                 else if (loader.isChunkGeneratedAt(x, z))
                 {
                     // We can only use the async queue for already generated chunks
@@ -141,7 +150,10 @@ public class ChunkProviderServer implements IChunkProvider
         if (chunk == null)
         {
             long i = ChunkPos.asLong(x, z);
+            net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.CHUNK_GENERATE, this.chunkGenerator.getClass());
+            long timingsStart = timings.start();
 
+            net.minecraftforge.common.ParallelWorldTicker.beginWorldGen();
             try
             {
                 chunk = this.chunkGenerator.generateChunk(x, z);
@@ -155,10 +167,48 @@ public class ChunkProviderServer implements IChunkProvider
                 crashreportcategory.addCrashSection("Generator", this.chunkGenerator);
                 throw new ReportedException(crashreport);
             }
+            finally
+            {
+                net.minecraftforge.common.ParallelWorldTicker.endWorldGen();
+            }
 
             this.id2ChunkMap.put(i, chunk);
             chunk.onLoad();
             chunk.populate(this, this.chunkGenerator, true); // CraftBukkit
+            timings.stop(timingsStart);
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Forge: adds a chunk generated elsewhere, like by {@link net.minecraftforge.server.command.ParallelChunkGenWorker},
+     * as if provideChunk had just generated it. The structures of the chunk are registered with the generator of this
+     * provider, which also populates it as usual.
+     *
+     * @param generated creates the chunk, only called if there is no loaded or saved one at the position
+     * @return the chunk now at the position, which is a loaded or saved one instead if there was one in the meantime
+     */
+    public Chunk provideGeneratedChunk(int x, int z, java.util.function.Supplier<Chunk> generated)
+    {
+        Chunk chunk = this.loadChunk(x, z);
+
+        if (chunk == null)
+        {
+            net.minecraftforge.common.ParallelWorldTicker.beginWorldGen();
+            try
+            {
+                chunk = generated.get();
+                this.chunkGenerator.recreateStructures(chunk, x, z);
+            }
+            finally
+            {
+                net.minecraftforge.common.ParallelWorldTicker.endWorldGen();
+            }
+
+            this.id2ChunkMap.put(ChunkPos.asLong(x, z), chunk);
+            chunk.onLoad();
+            chunk.populate(this, this.chunkGenerator, true); // CraftBukkit
         }
 
         return chunk;
@@ -167,6 +217,8 @@ public class ChunkProviderServer implements IChunkProvider
     @Nullable
     private Chunk loadChunkFromFile(int x, int z)
     {
+        net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.CHUNK_LOAD, this.world.provider.getClass());
+        long timingsStart = timings.start();
         try
         {
             Chunk chunk = this.chunkLoader.loadChunk(this.world, x, z);
@@ -184,6 +236,10 @@ public class ChunkProviderServer implements IChunkProvider
             LOGGER.error("Couldn't load chunk", (Throwable)exception);
             return null;
         }
+        finally
+        {
+            timings.stop(timingsStart);
+        }
     }
 
     private void saveChunkExtraData(Chunk chunkIn)
@@ -200,6 +256,8 @@ public class ChunkProviderServer implements IChunkProvider
 
     private void saveChunkData(Chunk chunkIn)
     {
+        net.minecraftforge.server.timings.TimingHandler timings = net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.CHUNK_SAVE, this.world.provider.getClass());
+        long timingsStart = timings.start();
         try
         {
             chunkIn.setLastSaveTime(this.world.getTotalWorldTime());
@@ -213,6 +271,7 @@ public class ChunkProviderServer implements IChunkProvider
         {
             LOGGER.error("Couldn't save chunk; already in use by another instance of Minecraft?", (Throwable)minecraftexception);
         }
+        timings.stop(timingsStart);
     }
 
     public boolean saveChunks(boolean all)
@@ -256,19 +315,21 @@ public class ChunkProviderServer implements IChunkProvider
     {
         if (!this.world.disableLevelSaving)
         {
-            if (!this.droppedChunksSet.isEmpty())
+            if (!this.droppedChunks.isEmpty())
             {
                 for (ChunkPos forced : this.world.getPersistentChunks().keySet())
                 {
-                    this.droppedChunksSet.remove(ChunkPos.asLong(forced.x, forced.z));
+                    this.droppedChunks.remove(ChunkPos.asLong(forced.x, forced.z));
                 }
 
-                Iterator<Long> iterator = this.droppedChunksSet.iterator();
+                // Forge: Past the minimum, keep unloading until the tick budget is used up so large queues drain quickly
+                LongIterator iterator = this.droppedChunks.iterator();
+                int min = net.minecraftforge.common.ForgeModContainer.chunkUnloadMinPerTick;
+                long deadline = System.nanoTime() + (long)(net.minecraftforge.common.ForgeModContainer.chunkUnloadTickBudget * 1000000.0D);
 
-                for (int i = 0; i < 100 && iterator.hasNext(); iterator.remove())
+                for (int i = 0; iterator.hasNext() && (i < min || System.nanoTime() < deadline); iterator.remove())
                 {
-                    Long olong = iterator.next();
-                    Chunk chunk = (Chunk)this.id2ChunkMap.get(olong);
+                    Chunk chunk = (Chunk)this.id2ChunkMap.get(iterator.nextLong());
 
                     if (chunk != null && chunk.unloadQueued)
                     {
@@ -319,7 +380,7 @@ public class ChunkProviderServer implements IChunkProvider
 
     public String makeString()
     {
-        return "ServerChunkCache: " + this.id2ChunkMap.size() + " Drop: " + this.droppedChunksSet.size();
+        return "ServerChunkCache: " + this.id2ChunkMap.size() + " Drop: " + this.droppedChunks.size();
     }
 
     public List<Biome.SpawnListEntry> getPossibleCreatures(EnumCreatureType creatureType, BlockPos pos)
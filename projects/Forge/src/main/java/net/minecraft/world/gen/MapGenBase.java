@@ -9,6 +9,8 @@ public class MapGenBase
     protected int range = 8;
     protected Random rand = new Random();
     protected World world;
+    /** Forge: set on copies generating terrain on another thread, see {@link #getGenerationBiome} */
+    boolean biomesFromProvider;
 
     public void generate(World worldIn, int x, int z, ChunkPrimer primer)
     {
@@ -43,4 +45,13 @@ public class MapGenBase
     protected void recursiveGenerate(World worldIn, int chunkX, int chunkZ, int originalX, int originalZ, ChunkPrimer chunkPrimerIn)
     {
     }
+
+    /**
+     * Forge: the biome at the position, like {@link World#getBiome}. Copies running on another thread ask the biome
+     * provider directly instead of the loaded chunks of the world, which gives the same biome for the chunk being generated.
+     */
+    protected net.minecraft.world.biome.Biome getGenerationBiome(net.minecraft.util.math.BlockPos pos)
+    {
+        return this.biomesFromProvider ? this.world.getBiomeProvider().getBiome(pos, net.minecraft.init.Biomes.PLAINS) : this.world.getBiome(pos);
+    }
 }
\ No newline at end of file
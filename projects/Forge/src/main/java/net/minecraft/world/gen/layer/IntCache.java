@@ -5,72 +5,86 @@ import java.util.List;
 
 public class IntCache
 {
-    private static int intCacheSize = 256;
-    private static final List<int[]> freeSmallArrays = Lists.<int[]>newArrayList();
-    private static final List<int[]> inUseSmallArrays = Lists.<int[]>newArrayList();
-    private static final List<int[]> freeLargeArrays = Lists.<int[]>newArrayList();
-    private static final List<int[]> inUseLargeArrays = Lists.<int[]>newArrayList();
+    // Forge: every thread has its own arrays, so biome layers can run on several threads without handing out the same array twice
+    private static final ThreadLocal<IntCache.Arrays> ARRAYS = ThreadLocal.withInitial(IntCache.Arrays::new);
 
-    public static synchronized int[] getIntCache(int size)
+    public static int[] getIntCache(int size)
     {
+        IntCache.Arrays arrays = ARRAYS.get();
+
         if (size <= 256)
         {
-            if (freeSmallArrays.isEmpty())
+            if (arrays.freeSmallArrays.isEmpty())
             {
                 int[] aint4 = new int[256];
-                inUseSmallArrays.add(aint4);
+                arrays.inUseSmallArrays.add(aint4);
                 return aint4;
             }
             else
             {
-                int[] aint3 = freeSmallArrays.remove(freeSmallArrays.size() - 1);
-                inUseSmallArrays.add(aint3);
+                int[] aint3 = arrays.freeSmallArrays.remove(arrays.freeSmallArrays.size() - 1);
+                arrays.inUseSmallArrays.add(aint3);
                 return aint3;
             }
         }
-        else if (size > intCacheSize)
+        else if (size > arrays.intCacheSize)
         {
-            intCacheSize = size;
-            freeLargeArrays.clear();
-            inUseLargeArrays.clear();
-            int[] aint2 = new int[intCacheSize];
-            inUseLargeArrays.add(aint2);
+            arrays.intCacheSize = size;
+            arrays.freeLargeArrays.clear();
+            arrays.inUseLargeArrays.clear();
+            int[] aint2 = new int[arrays.intCacheSize];
+            arrays.inUseLargeArrays.add(aint2);
             return aint2;
         }
-        else if (freeLargeArrays.isEmpty())
+        else if (arrays.freeLargeArrays.isEmpty())
         {
-            int[] aint1 = new int[intCacheSize];
-            inUseLargeArrays.add(aint1);
+            int[] aint1 = new int[arrays.intCacheSize];
+            arrays.inUseLargeArrays.add(aint1);
             return aint1;
         }
         else
         {
-            int[] aint = freeLargeArrays.remove(freeLargeArrays.size() - 1);
-            inUseLargeArrays.add(aint);
+            int[] aint = arrays.freeLargeArrays.remove(arrays.freeLargeArrays.size() - 1);
+            arrays.inUseLargeArrays.add(aint);
             return aint;
         }
     }
 
-    public static synchronized void resetIntCache()
+    public static void resetIntCache()
     {
-        if (!freeLargeArrays.isEmpty())
+        IntCache.Arrays arrays = ARRAYS.get();
+
+        if (!arrays.freeLargeArrays.isEmpty())
         {
-            freeLargeArrays.remove(freeLargeArrays.size() - 1);
+            arrays.freeLargeArrays.remove(arrays.freeLargeArrays.size() - 1);
         }
 
-        if (!freeSmallArrays.isEmpty())
+        if (!arrays.freeSmallArrays.isEmpty())
         {
-            freeSmallArrays.remove(freeSmallArrays.size() - 1);
+            arrays.freeSmallArrays.remove(arrays.freeSmallArrays.size() - 1);
         }
 
-        freeLargeArrays.addAll(inUseLargeArrays);
-        freeSmallArrays.addAll(inUseSmallArrays);
-        inUseLargeArrays.clear();
-        inUseSmallArrays.clear();
+        arrays.freeLargeArrays.addAll(arrays.inUseLargeArrays);
+        arrays.freeSmallArrays.addAll(arrays.inUseSmallArrays);
+        arrays.inUseLargeArrays.clear();
+        arrays.inUseSmallArrays.clear();
+    }
+
+    /**
+     * Forge: describes the arrays of the calling thread
+     */
+    public static String getCacheSizes()
+    {
+        IntCache.Arrays arrays = ARRAYS.get();
+        return "cache: " + arrays.freeLargeArrays.size() + ", tcache: " + arrays.freeSmallArrays.size() + ", allocated: " + arrays.inUseLargeArrays.size() + ", tallocated: " + arrays.inUseSmallArrays.size();
     }
 
-    public static synchronized String getCacheSizes()
+    private static class Arrays
     {
-        return "cache: " + freeLargeArrays.size() + ", tcache: " + freeSmallArrays.size() + ", allocated: " + inUseLargeArrays.size() + ", tallocated: " + inUseSmallArrays.size();
+        private int intCacheSize = 256;
+        private final List<int[]> freeSmallArrays = Lists.<int[]>newArrayList();
+        private final List<int[]> inUseSmallArrays = Lists.<int[]>newArrayList();
+        private final List<int[]> freeLargeArrays = Lists.<int[]>newArrayList();
+        private final List<int[]> inUseLargeArrays = Lists.<int[]>newArrayList();
     }
 }
\ No newline at end of file
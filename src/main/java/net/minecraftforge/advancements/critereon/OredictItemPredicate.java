@@ -22,7 +22,6 @@ package net.minecraftforge.advancements.critereon;
 
 import com.google.gson.JsonObject;
 import net.minecraft.util.JsonUtils;
-import org.apache.commons.lang3.ArrayUtils;
 
 import net.minecraft.advancements.critereon.ItemPredicate;
 import net.minecraft.item.ItemStack;
@@ -45,6 +44,6 @@ public class OredictItemPredicate extends ItemPredicate
     @Override
     public boolean test(ItemStack stack)
     {
-        return !stack.isEmpty() && ArrayUtils.contains(OreDictionary.getOreIDs(stack), OreDictionary.getOreID(ore));
+        return OreDictionary.hasOreID(stack, OreDictionary.getOreID(ore));
     }
 }
@@ -115,6 +115,9 @@ public class ForgeChunkManager
     private static int dormantChunkCacheSize;
 
     public static boolean asyncChunkLoading;
+    public static int asyncChunkLoadingMaxThreads;
+    public static int asyncChunkLoadingTargetLatency;
+    public static int asyncChunkLoadingTickBudget;
 
     public static final List<String> MOD_PROP_ORDER = new ArrayList<String>(2);
 
@@ -1115,6 +1118,31 @@ public class ForgeChunkManager
         asyncChunkLoading = temp.getBoolean(true);
         propOrder.add("asyncChunkLoading");
 
+        temp = config.get("defaults", "asyncChunkLoadingMaxThreads", 0);
+        temp.setComment("The maximum number of threads used to load chunks asynchronously. The pool grows with the number\n" +
+                    "of queued loads and their measured latency up to this limit. 0 uses one less than the number of available processors.");
+        temp.setLanguageKey("forge.configgui.asyncChunkLoadingMaxThreads");
+        temp.setMinValue(0);
+        asyncChunkLoadingMaxThreads = temp.getInt(0);
+        propOrder.add("asyncChunkLoadingMaxThreads");
+
+        temp = config.get("defaults", "asyncChunkLoadingTargetLatency", 50);
+        temp.setComment("The time in milliseconds a queued asynchronous chunk load should at most wait for a thread.\n" +
+                    "More threads are started when the backlog can't be worked off within this time.");
+        temp.setLanguageKey("forge.configgui.asyncChunkLoadingTargetLatency");
+        temp.setMinValue(1);
+        asyncChunkLoadingTargetLatency = temp.getInt(50);
+        propOrder.add("asyncChunkLoadingTargetLatency");
+
+        temp = config.get("defaults", "asyncChunkLoadingTickBudget", 5);
+        temp.setComment("The time in milliseconds the server thread may spend per tick adding asynchronously loaded chunks\n" +
+                    "to their world (loading entities, structures and population). Chunks that don't fit are carried over to\n" +
+                    "the next tick, closest to a player first. 0 disables the limit.");
+        temp.setLanguageKey("forge.configgui.asyncChunkLoadingTickBudget");
+        temp.setMinValue(0);
+        asyncChunkLoadingTickBudget = temp.getInt(5);
+        propOrder.add("asyncChunkLoadingTickBudget");
+
         config.setCategoryPropertyOrder("defaults", propOrder);
 
         config.addCustomCategoryComment(ForgeVersion.MOD_ID, "Sample mod specific control section.\n" +
@@ -564,7 +564,7 @@ public class ForgeHooks
 
     public static boolean onLivingUpdate(EntityLivingBase entity)
     {
-        return MinecraftForge.EVENT_BUS.post(new LivingUpdateEvent(entity));
+        return MinecraftForge.EVENT_BUS.hasListeners(LivingUpdateEvent.class) && MinecraftForge.EVENT_BUS.post(new LivingUpdateEvent(entity));
     }
 
     public static boolean onLivingAttack(EntityLivingBase entity, DamageSource src, float amount)
@@ -67,6 +67,8 @@ import net.minecraftforge.fluids.UniversalBucket;
 import net.minecraftforge.oredict.OreDictionary;
 import net.minecraftforge.oredict.RecipeSorter;
 import net.minecraftforge.server.command.ForgeCommand;
+import net.minecraftforge.server.command.ParallelChunkGenWorker;
+import net.minecraftforge.server.timings.Timings;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -121,6 +123,26 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
     public static boolean disableStairSlabCulling = false; // Also known as the "DontCullStairsBecauseIUseACrappyTexturePackThatBreaksBasicBlockShapesSoICantTrustBasicBlockCulling" flag
     public static boolean alwaysSetupTerrainOffThread = false; // In RenderGlobal.setupTerrain, always force the chunk render updates to be queued to the thread
     public static int dimensionUnloadQueueDelay = 0;
+    public static int regionFileCacheSize = 256;
+    public static boolean parallelWorldTicking = false;
+    public static int parallelWorldTickingThreads = 0;
+    public static int[] parallelWorldTickingExcludedDimensions = {};
+    public static boolean timingsEnabled = true;
+    public static int chunkUnloadMinPerTick = 100;
+    public static double chunkUnloadTickBudget = 5.0D;
+    public static boolean asyncChunkSerialization = true;
+    public static int chunkSaveQueueLimit = 1024;
+    public static boolean parallelTrackerPackets = false;
+    public static int parallelTrackerPacketThreads = 0;
+    public static int chunkSendsPerTick = 16;
+    public static int chunkSendBytesPerTick = 1048576;
+    public static int chunkPacketThreads = 0;
+    public static int bukkitAsyncTaskThreads = 0;
+    public static boolean batchedLighting = true;
+    public static boolean networkFlushConsolidation = true;
+    public static int networkFlushThreshold = 32768;
+    public static boolean hopperInventoryCache = true;
+    public static int hopperItemsPerTransfer = 1;
     public static boolean logCascadingWorldGeneration = true; // see Chunk#logCascadingWorldGeneration()
     public static boolean fixVanillaCascading = false; // There are various places in vanilla that cause cascading worldgen. Enabling this WILL change where blocks are placed to prevent this.
                                                        // DO NOT contact Forge about worldgen not 'matching' vanilla if this flag is set.
@@ -309,6 +331,138 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
         prop.setLanguageKey("forge.configgui.dimensionUnloadQueueDelay");
         propOrder.add(prop.getName());
 
+        prop = config.get(Configuration.CATEGORY_GENERAL, "regionFileCacheSize", 256,
+                "The maximum number of region files kept open per world directory. The least recently used file is closed once the limit is reached. " +
+                        "Every dimension has its own cache, so keep the total below the open file limit of your system.", 1, 4096);
+        regionFileCacheSize = prop.getInt(256);
+        prop.setLanguageKey("forge.configgui.regionFileCacheSize");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "parallelWorldTicking", false,
+                "Tick independent dimensions at the same time on a thread pool. Portals and player transfers are delayed until every dimension is done, " +
+                        "chunk generation still runs one dimension at a time. " +
+                        "Experimental: mods and plugins that share state between dimensions may break, exclude their dimensions with parallelWorldTickingExcludedDimensions. " +
+                        "Bukkit event listeners are called from the world threads at the same time, and Server.isPrimaryThread() is false there, " +
+                        "so plugins must treat those events like async ones.");
+        parallelWorldTicking = prop.getBoolean(false);
+        prop.setLanguageKey("forge.configgui.parallelWorldTicking");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "parallelWorldTickingThreads", 0,
+                "The number of threads used to tick dimensions in parallel. 0 uses one thread less than the number of available processors.", 0, 256);
+        parallelWorldTickingThreads = prop.getInt(0);
+        prop.setLanguageKey("forge.configgui.parallelWorldTickingThreads");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "parallelWorldTickingExcludedDimensions", new int[0],
+                "Dimensions that are always ticked on the server thread, before the other dimensions start, when parallelWorldTicking is enabled.");
+        parallelWorldTickingExcludedDimensions = prop.getIntList();
+        prop.setLanguageKey("forge.configgui.parallelWorldTickingExcludedDimensions");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "timingsEnabled", true,
+                "Continuously measure the time spent on entities, tile entities, event handlers, scheduler tasks, chunks and packets. " +
+                        "Use /forge timings to view or export the results. Also enables Bukkit plugin profiling.");
+        timingsEnabled = prop.getBoolean(true);
+        Timings.setEnabled(timingsEnabled);
+        prop.setLanguageKey("forge.configgui.timingsEnabled");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkUnloadMinPerTick", 100,
+                "The number of queued chunks every world unloads per tick regardless of chunkUnloadTickBudget.", 1, 10000);
+        chunkUnloadMinPerTick = prop.getInt(100);
+        prop.setLanguageKey("forge.configgui.chunkUnloadMinPerTick");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkUnloadTickBudget", 5.0D,
+                "The time in milliseconds every world may keep unloading queued chunks per tick once chunkUnloadMinPerTick is reached. " +
+                        "Large unload queues drain faster at the cost of tick time, 0 restores the fixed vanilla rate.", 0.0D, 50.0D);
+        chunkUnloadTickBudget = prop.getDouble(5.0D);
+        prop.setLanguageKey("forge.configgui.chunkUnloadTickBudget");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "asyncChunkSerialization", true,
+                "Copy the block and light data of saved chunks on the server thread and encode it to NBT on the file IO thread. " +
+                        "Chunks are still encoded on the server thread while any mod listens to ChunkDataEvent.Save, so its handlers see the \"Sections\" tag.");
+        asyncChunkSerialization = prop.getBoolean(true);
+        prop.setLanguageKey("forge.configgui.asyncChunkSerialization");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkSaveQueueLimit", 1024,
+                "The number of chunks per world that may wait for the file IO thread. Past this the server thread compresses the chunks it saves, " +
+                        "and past twice this it writes them itself, which keeps memory bounded during large saves.", 1, 65536);
+        chunkSaveQueueLimit = prop.getInt(1024);
+        prop.setLanguageKey("forge.configgui.chunkSaveQueueLimit");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "parallelTrackerPackets", false,
+                "Queue the entity update packets of each world's entity tracker during its tick and hand them to the player connections on a thread pool. " +
+                        "Every player still receives them in the same order.");
+        parallelTrackerPackets = prop.getBoolean(false);
+        prop.setLanguageKey("forge.configgui.parallelTrackerPackets");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "parallelTrackerPacketThreads", 0,
+                "The number of threads used to send entity tracker packets. 0 uses half the number of available processors.", 0, 256);
+        parallelTrackerPacketThreads = prop.getInt(0);
+        prop.setLanguageKey("forge.configgui.parallelTrackerPacketThreads");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkSendsPerTick", 16,
+                "The number of chunks every player is sent per tick at most. Chunks are sent nearest first, those in front of the player before those behind it.", 1, 1024);
+        chunkSendsPerTick = prop.getInt(16);
+        prop.setLanguageKey("forge.configgui.chunkSendsPerTick");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkSendBytesPerTick", 1048576,
+                "The amount of chunk data in bytes every player is sent per tick before the remaining chunks wait for the next tick. " +
+                        "At least one chunk is sent per tick. 0 only limits the number of chunks.", 0, Integer.MAX_VALUE);
+        chunkSendBytesPerTick = prop.getInt(1048576);
+        prop.setLanguageKey("forge.configgui.chunkSendBytesPerTick");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkPacketThreads", 0,
+                "The number of threads that encode the chunks sent to players. 0 uses a quarter of the number of available processors.", 0, 256);
+        chunkPacketThreads = prop.getInt(0);
+        prop.setLanguageKey("forge.configgui.chunkPacketThreads");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "bukkitAsyncTaskThreads", 0,
+                "The most threads that run asynchronous plugin tasks, further tasks wait for a free thread. 0 uses four times the number of available processors, at least 8. Requires a restart.", 0, 1024);
+        bukkitAsyncTaskThreads = prop.getInt(0);
+        prop.setLanguageKey("forge.configgui.bukkitAsyncTaskThreads").setRequiresMcRestart(true);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "batchedLighting", true,
+                "Queue the light updates caused by block changes and process them together, before light is next read or chunks are sent to players, instead of after every change.");
+        batchedLighting = prop.getBoolean(true);
+        prop.setLanguageKey("forge.configgui.batchedLighting");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "networkFlushConsolidation", true,
+                "Send the packets written to a player during a tick together at the end of the tick, instead of flushing the connection after every packet.");
+        networkFlushConsolidation = prop.getBoolean(true);
+        prop.setLanguageKey("forge.configgui.networkFlushConsolidation");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "networkFlushThreshold", 32768,
+                "The bytes waiting on a connection before it is flushed before the end of the tick, if networkFlushConsolidation is enabled.", 1024, 1048576);
+        networkFlushThreshold = prop.getInt(32768);
+        prop.setLanguageKey("forge.configgui.networkFlushThreshold");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "hopperInventoryCache", true,
+                "Let every hopper remember the blocks it pulls from and pushes to, instead of looking up their tile entity and inventory for every transfer.");
+        hopperInventoryCache = prop.getBoolean(true);
+        prop.setLanguageKey("forge.configgui.hopperInventoryCache");
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "hopperItemsPerTransfer", 1,
+                "The items hoppers move from one slot per transfer. Values above 1 speed up item transport but change the timing of redstone contraptions built around hoppers.", 1, 64);
+        hopperItemsPerTransfer = prop.getInt(1);
+        prop.setLanguageKey("forge.configgui.hopperItemsPerTransfer");
+        propOrder.add(prop.getName());
+
         config.setCategoryPropertyOrder(CATEGORY_GENERAL, propOrder);
 
         propOrder = new ArrayList<String>();
@@ -527,12 +681,17 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
     public void serverStarting(FMLServerStartingEvent evt)
     {
         evt.registerServerCommand(new ForgeCommand());
+        ParallelChunkGenWorker.resumeSaved(evt.getServer());
     }
 
     @Subscribe
     public void serverStopping(FMLServerStoppingEvent evt)
     {
         WorldWorkerManager.clear();
+        ParallelChunkGenWorker.stopAll();
+        ParallelWorldTicker.shutdown();
+        TrackerPacketQueue.shutdown();
+        net.minecraftforge.common.network.ChunkPayloadCache.shutdown();
     }
 
     @Override
@@ -0,0 +1,366 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.crash.CrashReport;
+import net.minecraft.network.play.server.SPacketTimeUpdate;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ReportedException;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.FMLLog;
+
+/**
+ * Ticks independent dimensions on a thread pool when {@link ForgeModContainer#parallelWorldTicking} is enabled.
+ *
+ * Each tick is split into phases that are separated by a barrier on the server thread:
+ * <ol>
+ *   <li>time sync and the {@code WorldTickEvent} START events, on the server thread</li>
+ *   <li>{@link WorldServer#tick()} and {@link WorldServer#updateEntities()}, one task per dimension</li>
+ *   <li>the {@code WorldTickEvent} END events, on the server thread</li>
+ *   <li>{@link net.minecraft.entity.EntityTracker#tick()}, one task per dimension</li>
+ *   <li>cross-dimension work deferred with {@link #deferIfTicking(Runnable)}, on the server thread</li>
+ * </ol>
+ * Dimensions listed in {@link ForgeModContainer#parallelWorldTickingExcludedDimensions} are ticked on the server thread
+ * before the others start, exactly like they would be without this mode.
+ *
+ * World generation is full of shared state (biome decorators, feature singletons, {@code BlockFalling.fallInstantly}),
+ * so world tick threads generate and populate chunks one at a time, see {@link #beginWorldGen()}.
+ *
+ * Bukkit listeners of events fired while ticking run on the world threads, for different dimensions at the same time.
+ * {@code Server#isPrimaryThread()} and {@link MinecraftServer#isCallingFromMinecraftThread()} are false there, so work
+ * handed to the Bukkit scheduler or {@link MinecraftServer#addScheduledTask} runs on the server thread in a later tick.
+ */
+public class ParallelWorldTicker
+{
+    private static final Queue<Runnable> deferred = new ConcurrentLinkedQueue<Runnable>();
+    private static final ReentrantLock worldGenLock = new ReentrantLock();
+    private static ExecutorService pool;
+    private static int poolThreads;
+
+    /**
+     * @return true if the worlds of this tick should be ticked by {@link #tickWorlds}
+     */
+    public static boolean isEnabled(MinecraftServer server)
+    {
+        // The profiler keeps a single section stack, so profiling runs fall back to ticking one world after another
+        return ForgeModContainer.parallelWorldTicking && !server.profiler.profilingEnabled;
+    }
+
+    public static boolean canTickInParallel(int dim)
+    {
+        for (int excluded : ForgeModContainer.parallelWorldTickingExcludedDimensions)
+        {
+            if (excluded == dim)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the current thread is ticking a world for this class
+     */
+    public static boolean isWorldTickThread()
+    {
+        return Thread.currentThread() instanceof WorldTickThread;
+    }
+
+    /**
+     * @return true on the thread that ticks the world right now: its world tick thread while the worlds are ticked in
+     * parallel, the server thread otherwise
+     */
+    public static boolean isTickingWorld(WorldServer world)
+    {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof WorldTickThread)
+        {
+            return ((WorldTickThread)thread).world == world;
+        }
+        return world.getMinecraftServer() != null && world.getMinecraftServer().isCallingFromMinecraftThread();
+    }
+
+    /**
+     * Work that touches more than one dimension (portals, player transfers) must not run while other worlds are ticking.
+     * When called from a world tick thread the task is queued and run on the server thread once all worlds are done.
+     *
+     * @return true if the task was deferred, false if the caller should run it right away
+     */
+    public static boolean deferIfTicking(Runnable task)
+    {
+        if (!isWorldTickThread())
+        {
+            return false;
+        }
+        deferred.add(task);
+        return true;
+    }
+
+    /**
+     * Called before a chunk is generated or populated, must be paired with {@link #endWorldGen()}. Only one world tick
+     * thread generates at a time, other threads are not affected.
+     */
+    public static void beginWorldGen()
+    {
+        if (isWorldTickThread())
+        {
+            worldGenLock.lock();
+        }
+    }
+
+    public static void endWorldGen()
+    {
+        if (isWorldTickThread())
+        {
+            worldGenLock.unlock();
+        }
+    }
+
+    /**
+     * @return false on a world tick thread that is not generating chunks right now, which must ignore the global flags
+     * world generation sets for the duration of a chunk
+     */
+    public static boolean isWorldGenThread()
+    {
+        return !isWorldTickThread() || worldGenLock.isHeldByCurrentThread();
+    }
+
+    public static void tickWorlds(MinecraftServer server, Integer[] ids)
+    {
+        List<WorldServer> worlds = new ArrayList<WorldServer>(ids.length);
+        List<long[]> times = new ArrayList<long[]>(ids.length);
+        int tick = server.getTickCounter();
+
+        for (int id : ids)
+        {
+            long start = System.nanoTime();
+
+            if (id == 0 || server.getAllowNether())
+            {
+                WorldServer world = DimensionManager.getWorld(id);
+
+                if (tick % 20 == 0)
+                {
+                    server.getPlayerList().sendPacketToAllPlayersInDimension(new SPacketTimeUpdate(world.getTotalWorldTime(), world.getWorldTime(), world.getGameRules().getBoolean("doDaylightCycle")), world.provider.getDimension());
+                }
+
+                FMLCommonHandler.instance().onPreWorldTick(world);
+
+                if (canTickInParallel(id))
+                {
+                    worlds.add(world);
+                    times.add(server.worldTickTimes.get(id));
+                }
+                else
+                {
+                    tick(world);
+                    FMLCommonHandler.instance().onPostWorldTick(world);
+                    world.getEntityTracker().tick();
+                }
+            }
+
+            server.worldTickTimes.get(id)[tick % 100] = System.nanoTime() - start;
+        }
+
+        if (!worlds.isEmpty())
+        {
+            long[] nanos = new long[worlds.size()];
+            forEach(worlds, nanos, ParallelWorldTicker::tick);
+
+            for (int i = 0; i < worlds.size(); i++)
+            {
+                long start = System.nanoTime();
+                FMLCommonHandler.instance().onPostWorldTick(worlds.get(i));
+                nanos[i] += System.nanoTime() - start;
+            }
+
+            forEach(worlds, nanos, world -> world.getEntityTracker().tick());
+
+            for (int i = 0; i < worlds.size(); i++)
+            {
+                times.get(i)[tick % 100] += nanos[i];
+            }
+        }
+
+        Runnable task;
+        while ((task = deferred.poll()) != null)
+        {
+            task.run();
+        }
+    }
+
+    private static void tick(WorldServer world)
+    {
+        try
+        {
+            world.tick();
+        }
+        catch (Throwable throwable)
+        {
+            CrashReport crashreport = CrashReport.makeCrashReport(throwable, "Exception ticking world");
+            world.addWorldInfoToCrashReport(crashreport);
+            throw new ReportedException(crashreport);
+        }
+
+        try
+        {
+            world.updateEntities();
+        }
+        catch (Throwable throwable)
+        {
+            CrashReport crashreport = CrashReport.makeCrashReport(throwable, "Exception ticking world entities");
+            world.addWorldInfoToCrashReport(crashreport);
+            throw new ReportedException(crashreport);
+        }
+    }
+
+    /**
+     * Runs the action for every world on the pool and blocks until all of them are done, adding the time spent on each
+     * world to {@code nanos}. A failure is rethrown only after the remaining worlds have finished.
+     */
+    private static void forEach(List<WorldServer> worlds, long[] nanos, Consumer<WorldServer> action)
+    {
+        ExecutorService executor = getPool();
+        List<Future<?>> futures = new ArrayList<Future<?>>(worlds.size());
+
+        for (int i = 0; i < worlds.size(); i++)
+        {
+            WorldServer world = worlds.get(i);
+            int index = i;
+            futures.add(executor.submit(() ->
+            {
+                WorldTickThread thread = (WorldTickThread)Thread.currentThread();
+                long start = System.nanoTime();
+                thread.world = world;
+                try
+                {
+                    action.accept(world);
+                }
+                finally
+                {
+                    thread.world = null;
+                    nanos[index] += System.nanoTime() - start;
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        boolean interrupted = false;
+
+        for (Future<?> future : futures)
+        {
+            while (true)
+            {
+                try
+                {
+                    future.get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    if (failure == null)
+                    {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        if (failure != null)
+        {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private static synchronized ExecutorService getPool()
+    {
+        int threads = ForgeModContainer.parallelWorldTickingThreads > 0 ? ForgeModContainer.parallelWorldTickingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        if (pool == null || poolThreads != threads)
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+
+            AtomicInteger count = new AtomicInteger(1);
+            pool = Executors.newFixedThreadPool(threads, r -> new WorldTickThread(r, "World Tick Thread-" + count.getAndIncrement()));
+            poolThreads = threads;
+            FMLLog.log.debug("Ticking worlds in parallel on {} threads", threads);
+        }
+        return pool;
+    }
+
+    //Internal only, used to release the threads when the server shuts down.
+    public static synchronized void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+        deferred.clear();
+    }
+
+    private static class WorldTickThread extends Thread
+    {
+        /** The world this thread is running a task for, see {@link #isTickingWorld} */
+        @Nullable
+        private WorldServer world;
+
+        private WorldTickThread(Runnable target, String name)
+        {
+            super(target, name);
+            this.setDaemon(true);
+        }
+    }
+}
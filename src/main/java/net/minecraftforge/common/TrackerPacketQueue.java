@@ -0,0 +1,305 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.Packet;
+import net.minecraftforge.fml.common.FMLLog;
+
+/**
+ * Collects the packets an {@link net.minecraft.entity.EntityTracker} sends while it ticks and, when
+ * {@link ForgeModContainer#parallelTrackerPackets} is enabled, hands them to the player connections on a thread pool.
+ *
+ * The packets are still created by the ticking thread. They copy the entity state they carry (position and rotation
+ * deltas, dirty data manager entries, attribute snapshots) when constructed, so every recipient shares one instance and
+ * they can be written later. Only the fan-out to the {@link net.minecraft.network.NetworkManager}s runs on the pool,
+ * and each connection is served by a single task that walks the queue in order, so every player receives the packets
+ * in the same order as if they had been sent right away.
+ *
+ * Code that may send packets on its own, like events and entity hooks, has to run between {@link #pause()} and
+ * {@link #resume(boolean)}, which sends everything queued so far first.
+ */
+public class TrackerPacketQueue
+{
+    /** Below this many sends the pool costs more than it saves, so they are done by the ticking thread */
+    private static final int MIN_PARALLEL_SENDS = 512;
+    private static final EntityPlayerMP[] NO_PLAYERS = new EntityPlayerMP[0];
+    private static ExecutorService pool;
+    private static int poolThreads;
+
+    private Packet<?>[] packets = new Packet<?>[256];
+    /** Shared between the packets of one entry, never modified once queued */
+    private EntityPlayerMP[][] recipients = new EntityPlayerMP[256][];
+    private EntityPlayerMP[] extraRecipients = new EntityPlayerMP[256];
+    private int size;
+    private int sends;
+    private boolean queueing;
+
+    /**
+     * @return true if packets should be passed to {@link #add} instead of being sent
+     */
+    public boolean isQueueing()
+    {
+        return this.queueing;
+    }
+
+    public void begin()
+    {
+        this.queueing = ForgeModContainer.parallelTrackerPackets;
+    }
+
+    /**
+     * Sends everything that is queued and blocks until it has been handed to the connections.
+     */
+    public void end()
+    {
+        this.flush();
+        this.queueing = false;
+    }
+
+    /**
+     * Sends everything that is queued and stops queueing until {@link #resume(boolean)} is called.
+     *
+     * @return the value to pass to {@link #resume(boolean)}
+     */
+    public boolean pause()
+    {
+        boolean flag = this.queueing;
+
+        if (flag)
+        {
+            this.flush();
+            this.queueing = false;
+        }
+
+        return flag;
+    }
+
+    public void resume(boolean wasQueueing)
+    {
+        this.queueing = wasQueueing;
+    }
+
+    /**
+     * Queues a packet for a group of players and one more player, usually the tracked entity itself.
+     *
+     * @param players the recipients, this array must not be modified afterwards
+     */
+    public void add(Packet<?> packet, EntityPlayerMP[] players, @Nullable EntityPlayerMP player)
+    {
+        if (this.size == this.packets.length)
+        {
+            int i = this.size * 2;
+            this.packets = Arrays.copyOf(this.packets, i);
+            this.recipients = Arrays.copyOf(this.recipients, i);
+            this.extraRecipients = Arrays.copyOf(this.extraRecipients, i);
+        }
+
+        this.packets[this.size] = packet;
+        this.recipients[this.size] = players;
+        this.extraRecipients[this.size] = player;
+        ++this.size;
+        this.sends += player == null ? players.length : players.length + 1;
+    }
+
+    public void add(Packet<?> packet, EntityPlayerMP player)
+    {
+        this.add(packet, NO_PLAYERS, player);
+    }
+
+    private void flush()
+    {
+        if (this.size == 0)
+        {
+            return;
+        }
+
+        try
+        {
+            int i = getThreads();
+
+            if (this.sends < MIN_PARALLEL_SENDS || i < 2)
+            {
+                this.send(0, 1);
+            }
+            else
+            {
+                this.sendInParallel(i);
+            }
+        }
+        finally
+        {
+            Arrays.fill(this.packets, 0, this.size, null);
+            Arrays.fill(this.recipients, 0, this.size, null);
+            Arrays.fill(this.extraRecipients, 0, this.size, null);
+            this.size = 0;
+            this.sends = 0;
+        }
+    }
+
+    /**
+     * Runs one task per thread, the first one on the calling thread, and blocks until all of them are done. A failure
+     * is rethrown only after the remaining tasks have finished.
+     */
+    private void sendInParallel(int tasks)
+    {
+        ExecutorService executor = getPool(tasks - 1);
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks - 1);
+
+        for (int i = 1; i < tasks; ++i)
+        {
+            int task = i;
+            futures.add(executor.submit(() -> this.send(task, tasks)));
+        }
+
+        Throwable failure = null;
+
+        try
+        {
+            this.send(0, tasks);
+        }
+        catch (Throwable throwable)
+        {
+            failure = throwable;
+        }
+
+        boolean interrupted = false;
+
+        for (Future<?> future : futures)
+        {
+            while (true)
+            {
+                try
+                {
+                    future.get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    if (failure == null)
+                    {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        if (failure != null)
+        {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    /**
+     * Sends the queued packets, in order, to the players that belong to {@code task}. Every player belongs to exactly
+     * one of the tasks.
+     */
+    private void send(int task, int tasks)
+    {
+        for (int i = 0; i < this.size; ++i)
+        {
+            Packet<?> packet = this.packets[i];
+
+            for (EntityPlayerMP entityplayermp : this.recipients[i])
+            {
+                if (tasks == 1 || getTask(entityplayermp, tasks) == task)
+                {
+                    entityplayermp.connection.sendPacket(packet);
+                }
+            }
+
+            EntityPlayerMP entityplayermp1 = this.extraRecipients[i];
+
+            if (entityplayermp1 != null && (tasks == 1 || getTask(entityplayermp1, tasks) == task))
+            {
+                entityplayermp1.connection.sendPacket(packet);
+            }
+        }
+    }
+
+    private static int getTask(EntityPlayerMP player, int tasks)
+    {
+        return (player.getEntityId() & Integer.MAX_VALUE) % tasks;
+    }
+
+    private static int getThreads()
+    {
+        return ForgeModContainer.parallelTrackerPacketThreads > 0 ? ForgeModContainer.parallelTrackerPacketThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    private static synchronized ExecutorService getPool(int threads)
+    {
+        if (pool == null || poolThreads != threads)
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+
+            AtomicInteger count = new AtomicInteger(1);
+            pool = Executors.newFixedThreadPool(threads, r ->
+            {
+                Thread thread = new Thread(r, "Tracker Packet Thread-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            poolThreads = threads;
+            FMLLog.log.debug("Sending entity tracker packets on {} threads", threads + 1);
+        }
+        return pool;
+    }
+
+    //Internal only, used to release the threads when the server shuts down.
+    public static synchronized void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+}
@@ -19,30 +19,42 @@
 
 package net.minecraftforge.common.chunkio;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.server.timings.TimingHandler;
+import net.minecraftforge.server.timings.Timings;
+import net.minecraftforge.server.timings.TimingsCategory;
 
 public class ChunkIOExecutor
 {
     private static final int BASE_THREADS = 1;
     private static final int PLAYERS_PER_THREAD = 50;
+    /** Number of ticks the pool has to stay oversized before a thread is released */
+    private static final int SHRINK_DELAY = 100;
 
     private static final Map<QueuedChunk, ChunkIOProvider> tasks = Maps.newConcurrentMap();
+    // Queued loads are ordered by ChunkIOProvider#compareTo, so the chunks closest to a player are read first
     private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(BASE_THREADS, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
-        new LinkedBlockingQueue<Runnable>(),
+        new PriorityBlockingQueue<Runnable>(),
         new ThreadFactory()
         {
             private AtomicInteger count = new AtomicInteger(1);
@@ -102,7 +114,7 @@ public class ChunkIOExecutor
         ChunkIOProvider task = tasks.get(key);
         if (task == null)
         {
-            task = new ChunkIOProvider(key, loader, provider);
+            task = new ChunkIOProvider(key, loader, provider, getPriority(world, x, z));
             task.addCallback(runnable); // Add before calling execute for thread safety
             tasks.put(key, task);
             pool.execute(task);
@@ -133,24 +145,188 @@ public class ChunkIOExecutor
         }
     }
 
+    private static int playerThreads = BASE_THREADS;
+    private static int shrinkTicks = 0;
+
+    private static final ArrayList<ChunkIOProvider> finished = Lists.newArrayList();
+    private static int deferredLastTick = 0;
+    private static long deferredTotal = 0;
+    private static long budgetExceededTicks = 0;
+
     public static void adjustPoolSize(int players)
     {
-        pool.setCorePoolSize(Math.max(BASE_THREADS, players / PLAYERS_PER_THREAD));
+        playerThreads = Math.max(BASE_THREADS, MathHelper.ceil(players / (double)PLAYERS_PER_THREAD));
+        resizePool();
+    }
+
+    /**
+     * Sizes the pool so the current backlog is worked off within {@link ForgeChunkManager#asyncChunkLoadingTargetLatency},
+     * based on how long recent loads took. Grows immediately, but only gives threads back after the pool has been
+     * oversized for a while so bursts of teleports don't churn threads.
+     */
+    private static void resizePool()
+    {
+        int current = pool.getCorePoolSize();
+        int queued = pool.getQueue().size();
+        double taskMillis = Math.max(0.1D, ChunkIOStage.READ.getRecentMillis() + ChunkIOStage.PARSE.getRecentMillis());
+        int wanted = Math.max(playerThreads, MathHelper.ceil(queued * taskMillis / Math.max(1, ForgeChunkManager.asyncChunkLoadingTargetLatency)));
+
+        if (queued > 0 && ChunkIOStage.QUEUED.getRecentMillis() > ForgeChunkManager.asyncChunkLoadingTargetLatency)
+        {
+            // Loads are waiting longer than we want even though the estimate says we have enough threads
+            wanted = Math.max(wanted, current + 1);
+        }
+
+        wanted = MathHelper.clamp(wanted, BASE_THREADS, getMaxThreads());
+
+        if (wanted > current)
+        {
+            pool.setCorePoolSize(wanted);
+            shrinkTicks = 0;
+        }
+        else if (wanted < current && ++shrinkTicks >= SHRINK_DELAY)
+        {
+            pool.setCorePoolSize(current - 1);
+            shrinkTicks = 0;
+        }
+        else if (wanted == current)
+        {
+            shrinkTicks = 0;
+        }
+    }
+
+    private static int getMaxThreads()
+    {
+        int max = ForgeChunkManager.asyncChunkLoadingMaxThreads;
+        return max > 0 ? max : Math.max(BASE_THREADS, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * @return the squared distance in chunks from the given chunk to the closest player in the world
+     */
+    private static long getPriority(World world, int x, int z)
+    {
+        long priority = Long.MAX_VALUE;
+        List<EntityPlayer> players = world.playerEntities;
+
+        for (int i = 0; i < players.size(); ++i)
+        {
+            EntityPlayer player = players.get(i);
+            long dx = (MathHelper.floor(player.posX) >> 4) - x;
+            long dz = (MathHelper.floor(player.posZ) >> 4) - z;
+            priority = Math.min(priority, dx * dx + dz * dz);
+        }
+
+        return priority;
+    }
+
+    /**
+     * @return the number of chunk loads waiting for a worker thread
+     */
+    public static int getQueueDepth()
+    {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * @return the number of chunk loads that have not been handed back to the server thread yet
+     */
+    public static int getPendingCount()
+    {
+        return tasks.size();
     }
 
+    public static int getPoolSize()
+    {
+        return pool.getCorePoolSize();
+    }
+
+    public static int getActiveThreads()
+    {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * @return the number of finished loads that were carried over to the next tick because the tick budget was used up
+     */
+    public static int getDeferredLastTick()
+    {
+        return deferredLastTick;
+    }
+
+    /**
+     * @return the total number of times a finished load was carried over to the next tick
+     */
+    public static long getDeferredTotal()
+    {
+        return deferredTotal;
+    }
+
+    /**
+     * @return the number of ticks in which the budget was used up before all finished loads were integrated
+     */
+    public static long getBudgetExceededTicks()
+    {
+        return budgetExceededTicks;
+    }
+
+    public static void resetCounters()
+    {
+        deferredLastTick = 0;
+        deferredTotal = 0;
+        budgetExceededTicks = 0;
+    }
+
+    /**
+     * Hands finished loads back to the world. The stage 2 work (entities, structures, population) of a burst of
+     * loads can be expensive, so it is limited to {@link ForgeChunkManager#asyncChunkLoadingTickBudget} per tick and
+     * the rest is carried over, closest to a player first. At least one chunk is always integrated per tick.
+     */
     public static void tick()
     {
-        Iterator<ChunkIOProvider> itr = tasks.values().iterator();
-        while (itr.hasNext())
+        for (Map.Entry<QueuedChunk, ChunkIOProvider> entry : tasks.entrySet())
         {
-            ChunkIOProvider task = itr.next();
+            ChunkIOProvider task = entry.getValue();
             if (task.runFinished())
             {
                 if (task.hasCallback())
-                    task.syncCallback();
+                    finished.add(task);
+                else
+                    tasks.remove(entry.getKey(), task); // Nobody is waiting for it anymore
+            }
+        }
+
+        deferredLastTick = 0;
+
+        if (!finished.isEmpty())
+        {
+            Collections.sort(finished);
+            long budget = ForgeChunkManager.asyncChunkLoadingTickBudget * 1000000L;
+            long start = System.nanoTime();
+
+            for (int i = 0; i < finished.size(); ++i)
+            {
+                if (i > 0 && budget > 0 && System.nanoTime() - start >= budget)
+                {
+                    deferredLastTick = finished.size() - i;
+                    deferredTotal += deferredLastTick;
+                    ++budgetExceededTicks;
+                    break;
+                }
 
-                itr.remove();
+                ChunkIOProvider task = finished.get(i);
+                if (tasks.remove(task.getChunkInfo(), task)) // Skip loads that syncChunkLoad already took over
+                {
+                    TimingHandler timings = Timings.of(TimingsCategory.CHUNK_LOAD, task.getChunkInfo().world.provider.getClass());
+                    long timingsStart = timings.start();
+                    task.syncCallback();
+                    timings.stop(timingsStart);
+                }
             }
+
+            finished.clear();
         }
+
+        resizePool();
     }
 }
@@ -30,23 +30,45 @@ import net.minecraftforge.fml.common.FMLLog;
 
 import java.io.IOException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
-class ChunkIOProvider implements Runnable
+class ChunkIOProvider implements Runnable, Comparable<ChunkIOProvider>
 {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
     private final QueuedChunk chunkInfo;
     private final AnvilChunkLoader loader;
     private final ChunkProviderServer provider;
+    private final long priority;
+    private final long sequence = SEQUENCE.getAndIncrement();
+    private final long queuedAt = System.nanoTime();
 
     private Chunk chunk;
     private NBTTagCompound nbt;
     private final ConcurrentLinkedQueue<Runnable> callbacks = new ConcurrentLinkedQueue<Runnable>();
-    private boolean ran = false;
+    private volatile boolean ran = false;
 
     ChunkIOProvider(QueuedChunk chunk, AnvilChunkLoader loader, ChunkProviderServer provider)
+    {
+        this(chunk, loader, provider, 0);
+    }
+
+    /**
+     * @param priority lower values are loaded first, usually the squared chunk distance to the closest player
+     */
+    ChunkIOProvider(QueuedChunk chunk, AnvilChunkLoader loader, ChunkProviderServer provider, long priority)
     {
         this.chunkInfo = chunk;
         this.loader = loader;
         this.provider = provider;
+        this.priority = priority;
+    }
+
+    @Override
+    public int compareTo(ChunkIOProvider other)
+    {
+        int result = Long.compare(this.priority, other.priority);
+        return result != 0 ? result : Long.compare(this.sequence, other.sequence);
     }
 
     public void addCallback(Runnable callback)
@@ -63,10 +85,29 @@ class ChunkIOProvider implements Runnable
     {
         synchronized(this)
         {
+            long start = System.nanoTime();
+            ChunkIOStage.QUEUED.record(start - this.queuedAt);
             Object[] data = null;
             try
             {
-                data = this.loader.loadChunk__Async(chunkInfo.world, chunkInfo.x, chunkInfo.z);
+                if (this.loader.getClass() == AnvilChunkLoader.class)
+                {
+                    NBTTagCompound compound = this.loader.loadChunkNBT__Async(chunkInfo.x, chunkInfo.z);
+                    long read = System.nanoTime();
+                    ChunkIOStage.READ.record(read - start);
+
+                    if (compound != null)
+                    {
+                        data = this.loader.readChunkFromNBT__Async(chunkInfo.world, chunkInfo.x, chunkInfo.z, compound);
+                        ChunkIOStage.PARSE.record(System.nanoTime() - read);
+                    }
+                }
+                else
+                {
+                    // Subclasses may override loadChunk__Async, so don't bypass it
+                    data = this.loader.loadChunk__Async(chunkInfo.world, chunkInfo.x, chunkInfo.z);
+                    ChunkIOStage.READ.record(System.nanoTime() - start);
+                }
             }
             catch (IOException e)
             {
@@ -93,6 +134,8 @@ class ChunkIOProvider implements Runnable
             return;
         }
 
+        long start = System.nanoTime();
+
         // Load Entities
         this.loader.loadEntities(this.chunkInfo.world, this.nbt.getCompoundTag("Level"), this.chunk);
 
@@ -104,10 +147,16 @@ class ChunkIOProvider implements Runnable
         provider.id2ChunkMap.put(ChunkPos.asLong(this.chunkInfo.x, this.chunkInfo.z), this.chunk);
         this.chunk.onLoad();
         this.chunk.populate(provider, provider.chunkGenerator);
+        ChunkIOStage.SYNC.record(System.nanoTime() - start);
 
         this.runCallbacks();
     }
 
+    QueuedChunk getChunkInfo()
+    {
+        return this.chunkInfo;
+    }
+
     public Chunk getChunk()
     {
         return this.chunk;
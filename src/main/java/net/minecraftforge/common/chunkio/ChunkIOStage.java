@@ -0,0 +1,82 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.chunkio;
+
+/**
+ * Latency statistics for the stages a chunk goes through when it is loaded by the {@link ChunkIOExecutor}.
+ */
+public enum ChunkIOStage
+{
+    /** Time between queueing a load and a worker thread picking it up. */
+    QUEUED,
+    /** Reading the region file, decompressing and parsing the NBT, on a worker thread. */
+    READ,
+    /** Building the chunk and its block storage from NBT, on a worker thread. */
+    PARSE,
+    /** Loading entities, recreating structures and populating, on the server thread. */
+    SYNC;
+
+    /** Weight of the newest sample in {@link #getRecentMillis()} */
+    private static final double RECENT_WEIGHT = 0.05D;
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private double recentNanos;
+
+    synchronized void record(long nanos)
+    {
+        this.recentNanos = this.count == 0 ? nanos : this.recentNanos + (nanos - this.recentNanos) * RECENT_WEIGHT;
+        ++this.count;
+        this.totalNanos += nanos;
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+    }
+
+    public synchronized long getCount()
+    {
+        return this.count;
+    }
+
+    public synchronized double getAverageMillis()
+    {
+        return this.count == 0 ? 0.0D : this.totalNanos / (double)this.count * 1.0E-6D;
+    }
+
+    /**
+     * @return an exponentially weighted average biased towards the latest samples
+     */
+    public synchronized double getRecentMillis()
+    {
+        return this.recentNanos * 1.0E-6D;
+    }
+
+    public synchronized double getMaxMillis()
+    {
+        return this.maxNanos * 1.0E-6D;
+    }
+
+    public synchronized void reset()
+    {
+        this.count = 0;
+        this.totalNanos = 0;
+        this.maxNanos = 0;
+        this.recentNanos = 0.0D;
+    }
+}
@@ -33,6 +33,12 @@ public class CompoundIngredient extends Ingredient
         this.isSimple = simple;
     }
 
+    @Nonnull
+    public Collection<Ingredient> getChildren()
+    {
+        return Collections.unmodifiableCollection(children);
+    }
+
     @Override
     @Nonnull
     public ItemStack[] getMatchingStacks()
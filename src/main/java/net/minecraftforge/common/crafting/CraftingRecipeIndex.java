@@ -0,0 +1,477 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.crafting;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.world.World;
+import net.minecraftforge.oredict.OreDictionary;
+import net.minecraftforge.oredict.OreIngredient;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+
+/**
+ * Finds the crafting recipe that matches a grid without calling {@link IRecipe#matches} on every recipe.
+ * <p>
+ * Each {@link IRecipe#isIndexable() indexable} recipe is filed under the keys of one of its ingredients: the items of a
+ * plain {@link Ingredient} or {@link IngredientNBT}, or the ore id of an {@link OreIngredient}, with
+ * {@link CompoundIngredient}s contributing the keys of their children. Of the ingredients of a recipe the one whose keys
+ * are shared by the fewest other recipes is used. A grid is only checked against the recipes filed under its items and
+ * their ore ids, plus the recipes that could not be filed, in registry order, so it finds the same recipe as checking
+ * every recipe in turn. Ore ids are looked up when a grid is checked, so registering ores later needs no rebuild. Items
+ * whose ore ids can't be looked up by damage, see {@link OreDictionary#isKeyedByMetadata}, are checked against every
+ * recipe filed under an ore id.
+ * <p>
+ * The index of {@link CraftingManager#REGISTRY} is rebuilt on the first lookup after the registry changed. On top of
+ * that each {@link InventoryCrafting} remembers its last grid and the recipe found for it, and reuses it while the grid
+ * holds the same items, metadata and tags, whatever the stack sizes. That is only safe for the plain shaped and
+ * shapeless recipes with the ingredient types Forge knows, whose result depends on nothing else. Every other recipe
+ * that was checked for the remembered grid, like the special vanilla recipes or mod recipes that look at the player,
+ * the stack sizes or capabilities, is checked again when the grid is reused.
+ */
+public class CraftingRecipeIndex
+{
+    private static volatile int registryVersion;
+    @Nullable
+    private static volatile CraftingRecipeIndex registryIndex;
+
+    private final int version;
+    private final int registrySize;
+    private final IRecipe[] recipes;
+    /** The positions in {@link #recipes} of the recipes filed under each item or ore id (as Integer), ascending */
+    private final Map<Object, int[]> recipesByKey = Maps.newHashMap();
+    /** The positions of the recipes that have to be checked against every grid, ascending */
+    private final int[] unindexed;
+    /** The positions of all recipes filed under an ore id, ascending, for stacks whose ore ids can't be looked up */
+    private final int[] oreFiled;
+    /** Whether the recipe at each position only looks at the items, metadata and tags of the grid */
+    private final boolean[] gridOnly;
+
+    public CraftingRecipeIndex(Iterable<IRecipe> recipes)
+    {
+        this(recipes, -1, -1);
+    }
+
+    private CraftingRecipeIndex(Iterable<IRecipe> recipes, int version, int registrySize)
+    {
+        this.version = version;
+        this.registrySize = registrySize;
+        this.recipes = Lists.newArrayList(recipes).toArray(new IRecipe[0]);
+        this.gridOnly = new boolean[this.recipes.length];
+
+        for (int i = 0; i < this.recipes.length; ++i)
+        {
+            this.gridOnly[i] = isGridOnly(this.recipes[i]);
+        }
+
+        // First find the keys of every ingredient and count how many recipes use each key
+        List<List<Set<Object>>> keys = Lists.newArrayListWithCapacity(this.recipes.length);
+        Map<Object, int[]> counts = Maps.newHashMap();
+
+        for (IRecipe recipe : this.recipes)
+        {
+            List<Set<Object>> recipeKeys = Lists.newArrayList();
+
+            if (recipe.isIndexable())
+            {
+                for (Ingredient ingredient : recipe.getIngredients())
+                {
+                    Set<Object> ingredientKeys = getKeys(ingredient);
+
+                    if (ingredientKeys != null)
+                    {
+                        recipeKeys.add(ingredientKeys);
+
+                        for (Object key : ingredientKeys)
+                        {
+                            counts.computeIfAbsent(key, k -> new int[1])[0]++;
+                        }
+                    }
+                }
+            }
+
+            keys.add(recipeKeys);
+        }
+
+        // Then file every recipe under its rarest ingredient
+        Map<Object, IntArrayList> filed = Maps.newHashMap();
+        IntArrayList unfiled = new IntArrayList();
+
+        for (int i = 0; i < this.recipes.length; ++i)
+        {
+            Set<Object> best = null;
+            long bestCount = Long.MAX_VALUE;
+
+            for (Set<Object> ingredientKeys : keys.get(i))
+            {
+                long count = 0;
+
+                for (Object key : ingredientKeys)
+                {
+                    count += counts.get(key)[0];
+                }
+
+                if (count < bestCount)
+                {
+                    best = ingredientKeys;
+                    bestCount = count;
+                }
+            }
+
+            if (best == null)
+            {
+                unfiled.add(i);
+            }
+            else
+            {
+                for (Object key : best)
+                {
+                    filed.computeIfAbsent(key, k -> new IntArrayList()).add(i);
+                }
+            }
+        }
+
+        IntSortedSet oreFiled = new IntRBTreeSet();
+
+        for (Map.Entry<Object, IntArrayList> entry : filed.entrySet())
+        {
+            this.recipesByKey.put(entry.getKey(), entry.getValue().toIntArray());
+
+            if (entry.getKey() instanceof Integer)
+            {
+                oreFiled.addAll(entry.getValue());
+            }
+        }
+
+        this.oreFiled = oreFiled.toIntArray();
+
+        this.unindexed = unfiled.toIntArray();
+    }
+
+    /**
+     * @return the items and ore ids of which a grid has to hold one to match the ingredient, or null if it matches
+     *         other stacks too, like empty ones, or is of an unknown type
+     */
+    @Nullable
+    private static Set<Object> getKeys(Ingredient ingredient)
+    {
+        if (ingredient == Ingredient.EMPTY)
+        {
+            return null;
+        }
+
+        Class<?> type = ingredient.getClass();
+
+        if (type == OreIngredient.class)
+        {
+            return Sets.newHashSet(((OreIngredient)ingredient).getOreId());
+        }
+        else if (type == CompoundIngredient.class)
+        {
+            Set<Object> keys = Sets.newHashSet();
+
+            for (Ingredient child : ((CompoundIngredient)ingredient).getChildren())
+            {
+                Set<Object> childKeys = getKeys(child);
+
+                if (childKeys == null)
+                {
+                    return null;
+                }
+
+                keys.addAll(childKeys);
+            }
+
+            return keys.isEmpty() ? null : keys;
+        }
+        else if (type == Ingredient.class || type == IngredientNBT.class)
+        {
+            Set<Object> keys = Sets.newHashSet();
+
+            for (ItemStack stack : ingredient.getUnexpandedStacks())
+            {
+                // An ingredient created with an empty stack also accepts an empty slot
+                if (stack.isEmpty())
+                {
+                    return null;
+                }
+
+                keys.add(stack.getItem());
+            }
+
+            return keys.isEmpty() ? null : keys;
+        }
+
+        return null;
+    }
+
+    private static boolean isGridOnly(IRecipe recipe)
+    {
+        Class<?> type = recipe.getClass();
+
+        if (type != ShapedRecipes.class && type != ShapelessRecipes.class && type != ShapedOreRecipe.class && type != ShapelessOreRecipe.class)
+        {
+            return false;
+        }
+
+        for (Ingredient ingredient : recipe.getIngredients())
+        {
+            if (!isGridOnly(ingredient))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return whether the ingredient only looks at the item, metadata and tag of a stack
+     */
+    private static boolean isGridOnly(Ingredient ingredient)
+    {
+        Class<?> type = ingredient.getClass();
+
+        if (ingredient == Ingredient.EMPTY || type == Ingredient.class || type == IngredientNBT.class || type == OreIngredient.class)
+        {
+            return true;
+        }
+        else if (type == CompoundIngredient.class)
+        {
+            for (Ingredient child : ((CompoundIngredient)ingredient).getChildren())
+            {
+                if (!isGridOnly(child))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The index of {@link CraftingManager#REGISTRY}, rebuilt if the registry changed since it was built.
+     */
+    public static CraftingRecipeIndex get()
+    {
+        CraftingRecipeIndex index = registryIndex;
+        int version = registryVersion;
+        int size = CraftingManager.REGISTRY.getKeys().size();
+
+        // Removing a recipe does not fire a registry callback, but changes the size
+        if (index == null || index.version != version || index.registrySize != size)
+        {
+            index = new CraftingRecipeIndex(CraftingManager.REGISTRY, version, size);
+            registryIndex = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Called when recipes are added to or cleared from the registry.
+     */
+    public static void invalidate()
+    {
+        ++registryVersion;
+    }
+
+    /**
+     * @return the first recipe in registry order that matches the grid, or null
+     */
+    @Nullable
+    public IRecipe findMatchingRecipe(InventoryCrafting craftMatrix, World world)
+    {
+        LastMatch last = craftMatrix.lastRecipeMatch;
+
+        if (last != null && last.index == this && last.world == world && last.isSameGrid(craftMatrix) && this.isStillValid(last, craftMatrix, world))
+        {
+            return last.recipe;
+        }
+
+        IntArrayList recheck = new IntArrayList();
+        IRecipe recipe = this.find(craftMatrix, world, recheck);
+        craftMatrix.lastRecipeMatch = new LastMatch(this, world, craftMatrix, recipe, recheck.toIntArray());
+        return recipe;
+    }
+
+    /**
+     * Checks the recipes whose answer may have changed although the grid did not: the earlier ones must still not
+     * match, and the recipe found must still match.
+     */
+    private boolean isStillValid(LastMatch last, InventoryCrafting craftMatrix, World world)
+    {
+        for (int i : last.recheck)
+        {
+            IRecipe recipe = this.recipes[i];
+
+            if (recipe.matches(craftMatrix, world) != (recipe == last.recipe))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param recheck receives the positions of the checked recipes that don't only look at the grid, ascending
+     */
+    @Nullable
+    private IRecipe find(InventoryCrafting craftMatrix, World world, IntArrayList recheck)
+    {
+        // Several slots usually share items or ore ids, every list of recipes is only added once
+        Map<int[], Boolean> lists = new IdentityHashMap<int[], Boolean>();
+        int count = this.unindexed.length;
+        lists.put(this.unindexed, Boolean.TRUE);
+
+        for (int i = 0; i < craftMatrix.getSizeInventory(); ++i)
+        {
+            ItemStack stack = craftMatrix.getStackInSlot(i);
+
+            if (!stack.isEmpty())
+            {
+                count += add(lists, this.recipesByKey.get(stack.getItem()));
+
+                if (!OreDictionary.isKeyedByMetadata(stack))
+                {
+                    count += add(lists, this.oreFiled);
+                    continue;
+                }
+
+                for (int id : OreDictionary.getSharedOreIDs(stack))
+                {
+                    count += add(lists, this.recipesByKey.get(id));
+                }
+            }
+        }
+
+        int[] candidates = new int[count];
+        int j = 0;
+
+        for (int[] list : lists.keySet())
+        {
+            System.arraycopy(list, 0, candidates, j, list.length);
+            j += list.length;
+        }
+
+        // A recipe filed under several keys of the grid is only checked once, in registry order
+        Arrays.sort(candidates);
+        int previous = -1;
+
+        for (int candidate : candidates)
+        {
+            if (candidate != previous)
+            {
+                previous = candidate;
+
+                if (!this.gridOnly[candidate])
+                {
+                    recheck.add(candidate);
+                }
+
+                if (this.recipes[candidate].matches(craftMatrix, world))
+                {
+                    return this.recipes[candidate];
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static int add(Map<int[], Boolean> lists, @Nullable int[] list)
+    {
+        return list != null && lists.put(list, Boolean.TRUE) == null ? list.length : 0;
+    }
+
+    /**
+     * The last grid of a crafting inventory and the recipe that was found for it.
+     */
+    public static final class LastMatch
+    {
+        private final CraftingRecipeIndex index;
+        private final World world;
+        private final ItemStack[] grid;
+        @Nullable
+        private final IRecipe recipe;
+        /** The positions of the recipes to check again when the grid is reused, see {@link #isStillValid} */
+        private final int[] recheck;
+
+        private LastMatch(CraftingRecipeIndex index, World world, InventoryCrafting craftMatrix, @Nullable IRecipe recipe, int[] recheck)
+        {
+            this.index = index;
+            this.world = world;
+            this.recipe = recipe;
+            this.recheck = recheck;
+            this.grid = new ItemStack[craftMatrix.getSizeInventory()];
+
+            for (int i = 0; i < this.grid.length; ++i)
+            {
+                this.grid[i] = craftMatrix.getStackInSlot(i).copy();
+            }
+        }
+
+        private boolean isSameGrid(InventoryCrafting craftMatrix)
+        {
+            for (int i = 0; i < this.grid.length; ++i)
+            {
+                ItemStack cached = this.grid[i];
+                ItemStack stack = craftMatrix.getStackInSlot(i);
+
+                if (cached.isEmpty() != stack.isEmpty())
+                {
+                    return false;
+                }
+
+                // IngredientNBT compares the damage and the share tag, which items can make differ from the metadata and the tag
+                if (!stack.isEmpty() && (cached.getItem() != stack.getItem() || cached.getMetadata() != stack.getMetadata() || cached.getItemDamage() != stack.getItemDamage()
+                        || !ItemStack.areItemStackTagsEqual(cached, stack) || !ItemStack.areItemStackShareTagsEqual(cached, stack)))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.crafting;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.FurnaceRecipes;
+import net.minecraftforge.oredict.OreDictionary;
+
+/**
+ * The map behind the inputs and experience values of {@link FurnaceRecipes}, keyed by the stack instances like a
+ * plain map but also indexed by item and metadata, with keys using {@link OreDictionary#WILDCARD_VALUE} matching every
+ * metadata of their item.
+ * <p>
+ * Entries are kept in insertion order, and {@link #findMatch} returns the value of the first key matching a stack in that
+ * order, the same one a scan of {@link #entrySet()} would find. Every change through the map, its views and their
+ * iterators keeps the index up to date. A key is indexed by the item and metadata it had when it was added, so keys must
+ * not be changed while they are in the map.
+ */
+public class FurnaceRecipeMap<V> extends AbstractMap<ItemStack, V>
+{
+    private final Map<ItemStack, Node<V>> nodes = new LinkedHashMap<ItemStack, Node<V>>();
+    private final Map<Item, Int2ObjectMap<List<Node<V>>>> index = Maps.newHashMap();
+    private final EntrySet entrySet = new EntrySet();
+    private long nextOrder;
+
+    /**
+     * @return the value of the first key with the same item as the stack and either its metadata or the wildcard
+     *         metadata, or null if there is none
+     */
+    @Nullable
+    public V findMatch(ItemStack stack)
+    {
+        Int2ObjectMap<List<Node<V>>> byMeta = this.index.get(stack.getItem());
+
+        if (byMeta == null)
+        {
+            return null;
+        }
+
+        Node<V> exact = first(byMeta.get(stack.getMetadata()));
+        Node<V> wildcard = first(byMeta.get(OreDictionary.WILDCARD_VALUE));
+
+        if (exact == null)
+        {
+            return wildcard == null ? null : wildcard.getValue();
+        }
+
+        return wildcard == null || exact.order < wildcard.order ? exact.getValue() : wildcard.getValue();
+    }
+
+    @Nullable
+    private static <V> Node<V> first(@Nullable List<Node<V>> list)
+    {
+        return list == null ? null : list.get(0);
+    }
+
+    @Override
+    public int size()
+    {
+        return this.nodes.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return this.nodes.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        Node<V> node = this.nodes.get(key);
+        return node == null ? null : node.getValue();
+    }
+
+    @Override
+    public V put(ItemStack key, V value)
+    {
+        Node<V> node = this.nodes.get(key);
+
+        if (node != null)
+        {
+            return node.setValue(value);
+        }
+
+        node = new Node<V>(key, value, this.nextOrder++);
+        this.nodes.put(key, node);
+        this.index.computeIfAbsent(node.item, k -> new Int2ObjectOpenHashMap<List<Node<V>>>()).computeIfAbsent(node.meta, k -> Lists.newArrayListWithCapacity(1)).add(node);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        Node<V> node = this.nodes.remove(key);
+
+        if (node == null)
+        {
+            return null;
+        }
+
+        this.unindex(node);
+        return node.getValue();
+    }
+
+    private void unindex(Node<V> node)
+    {
+        Int2ObjectMap<List<Node<V>>> byMeta = this.index.get(node.item);
+        List<Node<V>> list = byMeta.get(node.meta);
+        list.remove(node);
+
+        if (list.isEmpty())
+        {
+            byMeta.remove(node.meta);
+
+            if (byMeta.isEmpty())
+            {
+                this.index.remove(node.item);
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        this.nodes.clear();
+        this.index.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<ItemStack, V>> entrySet()
+    {
+        return this.entrySet;
+    }
+
+    private static class Node<V> extends AbstractMap.SimpleEntry<ItemStack, V>
+    {
+        private final Item item;
+        private final int meta;
+        /** Increases with every added key, so comparing it gives the order of the keys in the map */
+        private final long order;
+
+        private Node(ItemStack key, V value, long order)
+        {
+            super(key, value);
+            this.item = key.getItem();
+            this.meta = key.getMetadata();
+            this.order = order;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<ItemStack, V>>
+    {
+        @Override
+        public int size()
+        {
+            return FurnaceRecipeMap.this.nodes.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            FurnaceRecipeMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<ItemStack, V>> iterator()
+        {
+            return new Iterator<Map.Entry<ItemStack, V>>()
+            {
+                private final Iterator<Node<V>> iterator = FurnaceRecipeMap.this.nodes.values().iterator();
+                @Nullable
+                private Node<V> last;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return this.iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<ItemStack, V> next()
+                {
+                    this.last = this.iterator.next();
+                    return this.last;
+                }
+
+                @Override
+                public void remove()
+                {
+                    this.iterator.remove();
+                    FurnaceRecipeMap.this.unindex(this.last);
+                    this.last = null;
+                }
+            };
+        }
+    }
+}
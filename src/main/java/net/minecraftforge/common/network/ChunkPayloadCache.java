@@ -0,0 +1,345 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.network;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.common.ForgeModContainer;
+import net.minecraftforge.fml.common.FMLLog;
+
+/**
+ * The encoded block and light data of the sections of one chunk, as sent in a {@link SPacketChunkData}. Kept by
+ * {@link net.minecraft.server.management.PlayerChunkMapEntry} while players are waiting for the chunk, so a chunk sent
+ * to many players is encoded once, and sections that did not change are not encoded again.
+ * <p>
+ * {@link #prepare} copies the sections that changed, which is cheap, and encodes the copies on a thread pool. A section
+ * is current as long as it is the same {@link ExtendedBlockStorage} with the same
+ * {@link ExtendedBlockStorage#getModificationCount()} and was not passed to {@link #invalidate}. The cache is only
+ * used from the server thread.
+ */
+public class ChunkPayloadCache
+{
+    /** After this many encodings in a row that were outdated once done, the chunk is encoded on the server thread */
+    private static final int MAX_ASYNC_ATTEMPTS = 3;
+    private static ExecutorService pool;
+    private static int poolThreads;
+
+    private final ExtendedBlockStorage[] sources = new ExtendedBlockStorage[16];
+    private final int[] modificationCounts = new int[16];
+    /** Bumped by {@link #invalidate}, so an encoding that started before does not overwrite the invalidation */
+    private final int[] epochs = new int[16];
+    private final byte[][] payloads = new byte[16][];
+    @Nullable
+    private ChunkPayloadCache.Encoding encoding;
+    @Nullable
+    private Future<?> pending;
+    private int attempts;
+    /** The packet created last, shared by the players that are sent the chunk in the same tick */
+    @Nullable
+    private SPacketChunkData packet;
+    private long packetTime;
+
+    /**
+     * Starts encoding the outdated sections of the chunk unless they are already being encoded.
+     *
+     * @return true if {@link #createPacket} can be called right away
+     */
+    public boolean prepare(Chunk chunk)
+    {
+        if (this.pending != null)
+        {
+            if (!this.pending.isDone())
+            {
+                return false;
+            }
+
+            this.finishEncoding();
+        }
+
+        int i = this.getOutdatedSections(chunk);
+
+        if (i == 0)
+        {
+            this.attempts = 0;
+            return true;
+        }
+
+        if (this.attempts >= MAX_ASYNC_ATTEMPTS)
+        {
+            // The chunk keeps changing faster than it is encoded
+            this.encode(chunk, i);
+            this.attempts = 0;
+            return true;
+        }
+
+        ++this.attempts;
+        this.encoding = new ChunkPayloadCache.Encoding(chunk, i, this.epochs);
+        this.pending = getPool().submit(this.encoding);
+        return false;
+    }
+
+    /**
+     * Creates a full chunk packet, encoding any outdated section on the calling thread.
+     */
+    public SPacketChunkData createPacket(Chunk chunk)
+    {
+        int i = this.getOutdatedSections(chunk);
+        long j = chunk.getWorld().getTotalWorldTime();
+
+        if (i == 0 && this.packet != null && this.packetTime == j)
+        {
+            return this.packet;
+        }
+
+        if (i != 0)
+        {
+            this.encode(chunk, i);
+        }
+
+        byte[][] abyte = new byte[16][];
+        ExtendedBlockStorage[] aextendedblockstorage = chunk.getBlockStorageArray();
+
+        for (int k = 0; k < aextendedblockstorage.length; ++k)
+        {
+            if (isSent(aextendedblockstorage[k]))
+            {
+                abyte[k] = this.payloads[k];
+            }
+        }
+
+        this.packet = new SPacketChunkData(chunk, abyte);
+        this.packetTime = j;
+        return this.packet;
+    }
+
+    /**
+     * Drops the encoded data of a section, for changes that may have bypassed {@link ExtendedBlockStorage}.
+     */
+    public void invalidate(int sectionY)
+    {
+        if (sectionY >= 0 && sectionY < 16)
+        {
+            ++this.epochs[sectionY];
+            this.payloads[sectionY] = null;
+            this.sources[sectionY] = null;
+            this.packet = null;
+        }
+    }
+
+    private int getOutdatedSections(Chunk chunk)
+    {
+        int i = 0;
+        ExtendedBlockStorage[] aextendedblockstorage = chunk.getBlockStorageArray();
+
+        for (int j = 0; j < aextendedblockstorage.length; ++j)
+        {
+            ExtendedBlockStorage extendedblockstorage = aextendedblockstorage[j];
+
+            if (isSent(extendedblockstorage) && (this.payloads[j] == null || this.sources[j] != extendedblockstorage || this.modificationCounts[j] != extendedblockstorage.getModificationCount()))
+            {
+                i |= 1 << j;
+            }
+        }
+
+        if (i != 0)
+        {
+            this.packet = null;
+        }
+
+        return i;
+    }
+
+    private void finishEncoding()
+    {
+        ChunkPayloadCache.Encoding encoding = this.encoding;
+        Future<?> future = this.pending;
+        this.encoding = null;
+        this.pending = null;
+
+        try
+        {
+            future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (ExecutionException e)
+        {
+            // The sections are encoded on the server thread instead
+            FMLLog.log.error("Failed to encode chunk sections", e.getCause());
+            return;
+        }
+
+        for (int i = 0; i < 16; ++i)
+        {
+            if ((encoding.sections & 1 << i) != 0 && encoding.epochs[i] == this.epochs[i])
+            {
+                this.sources[i] = encoding.sources[i];
+                this.modificationCounts[i] = encoding.modificationCounts[i];
+                this.payloads[i] = encoding.payloads[i];
+            }
+        }
+    }
+
+    private void encode(Chunk chunk, int sections)
+    {
+        boolean flag = chunk.getWorld().provider.hasSkyLight();
+        ExtendedBlockStorage[] aextendedblockstorage = chunk.getBlockStorageArray();
+
+        for (int i = 0; i < aextendedblockstorage.length; ++i)
+        {
+            if ((sections & 1 << i) != 0)
+            {
+                ExtendedBlockStorage extendedblockstorage = aextendedblockstorage[i];
+                this.sources[i] = extendedblockstorage;
+                this.modificationCounts[i] = extendedblockstorage.getModificationCount();
+                this.payloads[i] = encode(extendedblockstorage.getData(), extendedblockstorage.getBlockLight().getData(), flag ? extendedblockstorage.getSkyLight().getData() : null);
+            }
+        }
+    }
+
+    /**
+     * Writes a section like {@link SPacketChunkData#extractChunkData} does.
+     */
+    private static byte[] encode(BlockStateContainer data, byte[] blockLight, @Nullable byte[] skyLight)
+    {
+        byte[] abyte = new byte[data.getSerializedSize() + blockLight.length + (skyLight == null ? 0 : skyLight.length)];
+        ByteBuf bytebuf = Unpooled.wrappedBuffer(abyte);
+        bytebuf.writerIndex(0);
+        PacketBuffer packetbuffer = new PacketBuffer(bytebuf);
+        data.write(packetbuffer);
+        packetbuffer.writeBytes(blockLight);
+
+        if (skyLight != null)
+        {
+            packetbuffer.writeBytes(skyLight);
+        }
+
+        return abyte;
+    }
+
+    /**
+     * Full chunk packets leave out sections without blocks.
+     */
+    private static boolean isSent(ExtendedBlockStorage storage)
+    {
+        return storage != Chunk.NULL_BLOCK_STORAGE && !storage.isEmpty();
+    }
+
+    private static synchronized ExecutorService getPool()
+    {
+        int threads = ForgeModContainer.chunkPacketThreads > 0 ? ForgeModContainer.chunkPacketThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+        if (pool == null || poolThreads != threads)
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+
+            AtomicInteger count = new AtomicInteger(1);
+            pool = Executors.newFixedThreadPool(threads, r ->
+            {
+                Thread thread = new Thread(r, "Chunk Packet Thread-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            poolThreads = threads;
+            FMLLog.log.debug("Encoding chunk packets on {} threads", threads);
+        }
+        return pool;
+    }
+
+    //Internal only, used to release the threads when the server shuts down.
+    public static synchronized void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Copies of the sections to encode, taken on the server thread, and the encoded data once done.
+     */
+    private static class Encoding implements Runnable
+    {
+        private final int sections;
+        private final boolean hasSkyLight;
+        private final ExtendedBlockStorage[] sources = new ExtendedBlockStorage[16];
+        private final int[] modificationCounts = new int[16];
+        private final int[] epochs;
+        private final BlockStateContainer[] data = new BlockStateContainer[16];
+        private final byte[][] blockLight = new byte[16][];
+        private final byte[][] skyLight = new byte[16][];
+        private final byte[][] payloads = new byte[16][];
+
+        private Encoding(Chunk chunk, int sections, int[] epochs)
+        {
+            this.sections = sections;
+            this.hasSkyLight = chunk.getWorld().provider.hasSkyLight();
+            this.epochs = epochs.clone();
+            ExtendedBlockStorage[] aextendedblockstorage = chunk.getBlockStorageArray();
+
+            for (int i = 0; i < aextendedblockstorage.length; ++i)
+            {
+                if ((sections & 1 << i) != 0)
+                {
+                    ExtendedBlockStorage extendedblockstorage = aextendedblockstorage[i];
+                    this.sources[i] = extendedblockstorage;
+                    this.modificationCounts[i] = extendedblockstorage.getModificationCount();
+                    this.data[i] = extendedblockstorage.getData().snapshot();
+                    this.blockLight[i] = extendedblockstorage.getBlockLight().getData().clone();
+
+                    if (this.hasSkyLight)
+                    {
+                        this.skyLight[i] = extendedblockstorage.getSkyLight().getData().clone();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            for (int i = 0; i < 16; ++i)
+            {
+                if ((this.sections & 1 << i) != 0)
+                {
+                    this.payloads[i] = encode(this.data[i], this.blockLight[i], this.hasSkyLight ? this.skyLight[i] : null);
+                }
+            }
+        }
+    }
+}
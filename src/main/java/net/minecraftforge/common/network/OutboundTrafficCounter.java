@@ -0,0 +1,92 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Counts what is written to and flushed on one connection. Added as the first handler of the pipeline by
+ * {@link net.minecraft.network.NetworkManager}, so the bytes are counted as they go out, after compression and
+ * encryption. Memory connections pass packets instead of bytes, for them only the writes are counted.
+ * <p>
+ * The counters are only changed on the event loop of the channel and can be read from any thread.
+ */
+public class OutboundTrafficCounter extends ChannelOutboundHandlerAdapter
+{
+    private volatile long writes;
+    private volatile long bytes;
+    private volatile long flushes;
+    private volatile int pendingWrites;
+    private volatile int pendingBytes;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception
+    {
+        int size = msg instanceof ByteBuf ? ((ByteBuf)msg).readableBytes() : msg instanceof ByteBufHolder ? ((ByteBufHolder)msg).content().readableBytes() : 0;
+        this.writes++;
+        this.bytes += size;
+        this.pendingWrites++;
+        this.pendingBytes += size;
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception
+    {
+        // Flushes without anything new to send do not reach the socket, so they are not counted
+        if (this.pendingWrites > 0)
+        {
+            this.flushes++;
+            this.pendingWrites = 0;
+            this.pendingBytes = 0;
+        }
+
+        super.flush(ctx);
+    }
+
+    /**
+     * @return the number of messages written, usually one per packet
+     */
+    public long getWrites()
+    {
+        return this.writes;
+    }
+
+    public long getBytes()
+    {
+        return this.bytes;
+    }
+
+    public long getFlushes()
+    {
+        return this.flushes;
+    }
+
+    /**
+     * @return the bytes written since the last flush
+     */
+    public int getPendingBytes()
+    {
+        return this.pendingBytes;
+    }
+}
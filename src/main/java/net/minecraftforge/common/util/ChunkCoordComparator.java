@@ -34,6 +34,12 @@ public class ChunkCoordComparator implements java.util.Comparator<ChunkPos>
         z = (int) entityplayer.posZ >> 4;
     }
 
+    public ChunkCoordComparator(int chunkX, int chunkZ)
+    {
+        x = chunkX;
+        z = chunkZ;
+    }
+
     @Override
     public int compare(ChunkPos a, ChunkPos b)
     {
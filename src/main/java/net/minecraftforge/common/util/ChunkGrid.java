@@ -0,0 +1,204 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Files values under the chunk column they are in, so everything near a position can be found without looking at
+ * values far away. Used by {@link net.minecraft.entity.EntityTracker} to find the players and entities within
+ * tracking range of each other.
+ * <p>
+ * The grid does not know where its values are, callers pass the same cell to {@link #remove} that they used for
+ * {@link #add}. Cells are packed into a long with {@link #key}, which matches {@link net.minecraft.util.math.ChunkPos#asLong}.
+ */
+public class ChunkGrid<T>
+{
+    private final Long2ObjectOpenHashMap<List<T>> cells = new Long2ObjectOpenHashMap<List<T>>();
+    private int size;
+
+    public static long key(int chunkX, int chunkZ)
+    {
+        return (long)chunkX & 4294967295L | ((long)chunkZ & 4294967295L) << 32;
+    }
+
+    public static int getX(long key)
+    {
+        return (int)key;
+    }
+
+    public static int getZ(long key)
+    {
+        return (int)(key >>> 32);
+    }
+
+    public void add(T value, long key)
+    {
+        List<T> list = this.cells.get(key);
+
+        if (list == null)
+        {
+            list = new ArrayList<T>(4);
+            this.cells.put(key, list);
+        }
+
+        list.add(value);
+        ++this.size;
+    }
+
+    /**
+     * @return false if the value was not filed under the given cell
+     */
+    public boolean remove(T value, long key)
+    {
+        List<T> list = this.cells.get(key);
+
+        if (list == null)
+        {
+            return false;
+        }
+
+        // Swap remove, the order within a cell does not matter
+        for (int i = list.size() - 1; i >= 0; --i)
+        {
+            if (list.get(i) == value)
+            {
+                T last = list.remove(list.size() - 1);
+
+                if (i < list.size())
+                {
+                    list.set(i, last);
+                }
+
+                if (list.isEmpty())
+                {
+                    this.cells.remove(key);
+                }
+
+                --this.size;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the value from one cell to another, does nothing if both are the same.
+     */
+    public void move(T value, long from, long to)
+    {
+        if (from != to)
+        {
+            this.remove(value, from);
+            this.add(value, to);
+        }
+    }
+
+    /**
+     * Adds every value in the given, inclusive, range of chunks to the collection.
+     */
+    public void collect(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, Collection<? super T> out)
+    {
+        // Walking a big range of mostly empty cells is slower than looking at the filled ones
+        if ((long)(maxChunkX - minChunkX + 1) * (long)(maxChunkZ - minChunkZ + 1) > (long)this.cells.size())
+        {
+            for (Long2ObjectMap.Entry<List<T>> entry : this.cells.long2ObjectEntrySet())
+            {
+                int x = getX(entry.getLongKey());
+                int z = getZ(entry.getLongKey());
+
+                if (x >= minChunkX && x <= maxChunkX && z >= minChunkZ && z <= maxChunkZ)
+                {
+                    out.addAll(entry.getValue());
+                }
+            }
+
+            return;
+        }
+
+        for (int x = minChunkX; x <= maxChunkX; ++x)
+        {
+            for (int z = minChunkZ; z <= maxChunkZ; ++z)
+            {
+                List<T> list = this.cells.get(key(x, z));
+
+                if (list != null)
+                {
+                    out.addAll(list);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every value within the given, inclusive, range of chunks around the center to the collection.
+     */
+    public void collect(int centerChunkX, int centerChunkZ, int radius, Collection<? super T> out)
+    {
+        this.collect(centerChunkX - radius, centerChunkZ - radius, centerChunkX + radius, centerChunkZ + radius, out);
+    }
+
+    /**
+     * Adds every value in the chunks touched by the range of blocks around the position, and in the chunks around an
+     * earlier chunk that are at most as far away, to the collection. Each value is added once, but values in between
+     * both ranges may be added as well.
+     */
+    public void collectAround(double x, double z, int range, long previousChunk, Collection<? super T> out)
+    {
+        int minX = MathHelper.floor(x - range) >> 4;
+        int minZ = MathHelper.floor(z - range) >> 4;
+        int maxX = MathHelper.floor(x + range) >> 4;
+        int maxZ = MathHelper.floor(z + range) >> 4;
+        int radius = (range >> 4) + 1;
+        int previousX = getX(previousChunk);
+        int previousZ = getZ(previousChunk);
+
+        if (previousX + radius < minX || previousX - radius > maxX || previousZ + radius < minZ || previousZ - radius > maxZ)
+        {
+            // Teleported, both ranges are apart
+            this.collect(minX, minZ, maxX, maxZ, out);
+            this.collect(previousX, previousZ, radius, out);
+        }
+        else
+        {
+            this.collect(Math.min(minX, previousX - radius), Math.min(minZ, previousZ - radius), Math.max(maxX, previousX + radius), Math.max(maxZ, previousZ + radius), out);
+        }
+    }
+
+    /**
+     * @return the number of values in the grid
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    public void clear()
+    {
+        this.cells.clear();
+        this.size = 0;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.util;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A heap of values placed at chunk columns, ordered by how soon a player should receive them: first the 3x3 chunks the
+ * player stands in and next to, then by distance, with chunks ahead of the player taking precedence over those behind
+ * it. Used by {@link net.minecraft.server.management.PlayerChunkMap} to send every player their chunks nearest first.
+ * <p>
+ * The priority of a value is computed when it is added. {@link #setView} recomputes all of them, but only does any work
+ * once the player entered another chunk or turned by more than 45 degrees, so it can be called every tick.
+ */
+public class ChunkPriorityQueue<T>
+{
+    private Object[] values = new Object[16];
+    private int[] chunkXs = new int[16];
+    private int[] chunkZs = new int[16];
+    private int[] priorities = new int[16];
+    private int size;
+    private int viewX;
+    private int viewZ;
+    /** The yaw of the view rounded to one of eight directions, -1 while unknown */
+    private int viewDirection = -1;
+    private float lookX;
+    private float lookZ;
+
+    /**
+     * Moves the view the priorities are relative to.
+     *
+     * @param yaw the rotation of the player, in degrees
+     * @return true if the priorities were recomputed
+     */
+    public boolean setView(int chunkX, int chunkZ, float yaw)
+    {
+        int i = (int)Math.floor(yaw / 45.0F + 0.5F) & 7;
+
+        if (chunkX == this.viewX && chunkZ == this.viewZ && i == this.viewDirection)
+        {
+            return false;
+        }
+
+        this.viewX = chunkX;
+        this.viewZ = chunkZ;
+        this.viewDirection = i;
+        // Same as Entity#getLookVec, a yaw of 0 looks towards positive z
+        double d0 = Math.toRadians(i * 45.0D);
+        this.lookX = (float)-Math.sin(d0);
+        this.lookZ = (float)Math.cos(d0);
+
+        for (int j = 0; j < this.size; ++j)
+        {
+            this.priorities[j] = this.getPriority(this.chunkXs[j], this.chunkZs[j]);
+        }
+
+        this.heapify();
+        return true;
+    }
+
+    /**
+     * @return the priority of a chunk for the current view, lower comes first
+     */
+    public int getPriority(int chunkX, int chunkZ)
+    {
+        int i = chunkX - this.viewX;
+        int j = chunkZ - this.viewZ;
+        int k = i * i + j * j;
+
+        if (k <= 2)
+        {
+            return k;
+        }
+
+        // From 1 straight ahead to -1 straight behind, which doubles the distance a chunk seems to be at
+        float f = (float)((i * this.lookX + j * this.lookZ) / Math.sqrt(k));
+        return (int)(k * (3.0F - f));
+    }
+
+    public void add(T value, int chunkX, int chunkZ)
+    {
+        if (this.size == this.values.length)
+        {
+            int i = this.size * 2;
+            this.values = Arrays.copyOf(this.values, i);
+            this.chunkXs = Arrays.copyOf(this.chunkXs, i);
+            this.chunkZs = Arrays.copyOf(this.chunkZs, i);
+            this.priorities = Arrays.copyOf(this.priorities, i);
+        }
+
+        int j = this.size++;
+        this.values[j] = value;
+        this.chunkXs[j] = chunkX;
+        this.chunkZs[j] = chunkZ;
+        this.priorities[j] = this.getPriority(chunkX, chunkZ);
+        this.siftUp(j);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T peek()
+    {
+        return this.size == 0 ? null : (T)this.values[0];
+    }
+
+    /**
+     * Removes and returns the value with the lowest priority.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T poll()
+    {
+        if (this.size == 0)
+        {
+            return null;
+        }
+
+        T value = (T)this.values[0];
+        --this.size;
+        this.move(this.size, 0);
+        this.values[this.size] = null;
+
+        if (this.size > 0)
+        {
+            this.siftDown(0);
+        }
+
+        return value;
+    }
+
+    /**
+     * Removes every value matching the filter.
+     *
+     * @return the number of values removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super T> filter)
+    {
+        int i = 0;
+
+        for (int j = 0; j < this.size; ++j)
+        {
+            if (!filter.test((T)this.values[j]))
+            {
+                this.move(j, i++);
+            }
+        }
+
+        int k = this.size - i;
+        Arrays.fill(this.values, i, this.size, null);
+        this.size = i;
+
+        if (k > 0)
+        {
+            this.heapify();
+        }
+
+        return k;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void heapify()
+    {
+        for (int i = this.size / 2 - 1; i >= 0; --i)
+        {
+            this.siftDown(i);
+        }
+    }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int i = (index - 1) >> 1;
+
+            if (this.priorities[i] <= this.priorities[index])
+            {
+                break;
+            }
+
+            this.swap(i, index);
+            index = i;
+        }
+    }
+
+    private void siftDown(int index)
+    {
+        while (true)
+        {
+            int i = 2 * index + 1;
+
+            if (i >= this.size)
+            {
+                break;
+            }
+
+            if (i + 1 < this.size && this.priorities[i + 1] < this.priorities[i])
+            {
+                ++i;
+            }
+
+            if (this.priorities[index] <= this.priorities[i])
+            {
+                break;
+            }
+
+            this.swap(index, i);
+            index = i;
+        }
+    }
+
+    private void move(int from, int to)
+    {
+        this.values[to] = this.values[from];
+        this.chunkXs[to] = this.chunkXs[from];
+        this.chunkZs[to] = this.chunkZs[from];
+        this.priorities[to] = this.priorities[from];
+    }
+
+    private void swap(int a, int b)
+    {
+        Object object = this.values[a];
+        this.values[a] = this.values[b];
+        this.values[b] = object;
+        int i = this.chunkXs[a];
+        this.chunkXs[a] = this.chunkXs[b];
+        this.chunkXs[b] = i;
+        i = this.chunkZs[a];
+        this.chunkZs[a] = this.chunkZs[b];
+        this.chunkZs[b] = i;
+        i = this.priorities[a];
+        this.priorities[a] = this.priorities[b];
+        this.priorities[b] = i;
+    }
+}
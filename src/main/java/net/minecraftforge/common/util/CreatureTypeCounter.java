@@ -0,0 +1,179 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.util;
+
+import java.util.List;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLiving;
+import net.minecraft.entity.EnumCreatureType;
+
+/**
+ * Keeps the number of entities of each {@link EnumCreatureType} in a world up to date, so the mob cap check of the
+ * spawner does not have to walk the whole entity list.
+ * <p>
+ * Entities are classified when they are added to the world. The result of {@link Entity#isCreatureType} for spawn
+ * counts also depends on {@link EntityLiving#isNoDespawnRequired()}, which can change at any time, so every entity is
+ * checked again by {@link #update} when the world ticks it. Entities whose class overrides {@code isCreatureType} are
+ * fully classified again on each update.
+ */
+public class CreatureTypeCounter
+{
+    /** Creature types with a higher ordinal do not fit into {@link Entity#creatureTypeMask} and are counted by scanning */
+    public static final int MAX_TYPES = 31;
+    private static final long CLASS_BITS = 0x5555555555555555L >>> 2; // Even bits of the 62 type bits
+    /** Set for entities whose class overrides isCreatureType */
+    private static final long DYNAMIC = 1L << 63;
+    private static final ClassValue<Boolean> OVERRIDES_CREATURE_TYPE = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try
+            {
+                return type.getMethod("isCreatureType", EnumCreatureType.class, boolean.class).getDeclaringClass() != Entity.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
+    private final int[] counts = new int[MAX_TYPES * 2];
+
+    public void add(Entity entity)
+    {
+        long mask = OVERRIDES_CREATURE_TYPE.get(entity.getClass()) ? classify(entity) | DYNAMIC : classifyByClass(entity);
+        entity.creatureTypeMask = mask;
+        this.apply(mask, 1);
+    }
+
+    public void remove(Entity entity)
+    {
+        this.apply(entity.creatureTypeMask, -1);
+        entity.creatureTypeMask = 0;
+    }
+
+    /**
+     * Checks the entity again and moves it to its new types, if they changed since it was added or last updated.
+     */
+    public void update(Entity entity)
+    {
+        long old = entity.creatureTypeMask;
+        long mask;
+
+        if ((old & DYNAMIC) != 0)
+        {
+            mask = classify(entity) | DYNAMIC;
+        }
+        else if (entity instanceof EntityLiving)
+        {
+            long byClass = old & CLASS_BITS;
+            mask = ((EntityLiving)entity).isNoDespawnRequired() ? byClass : byClass | byClass << 1;
+        }
+        else
+        {
+            return;
+        }
+
+        if (mask != old)
+        {
+            this.apply(old, -1);
+            this.apply(mask, 1);
+            entity.creatureTypeMask = mask;
+        }
+    }
+
+    /**
+     * @return the number of counted entities that are of this type, the same as scanning all entities with
+     *         {@link Entity#isCreatureType}
+     */
+    public int count(List<Entity> entities, EnumCreatureType type, boolean forSpawnCount)
+    {
+        if (type.ordinal() >= MAX_TYPES)
+        {
+            return scan(entities, type, forSpawnCount);
+        }
+        return this.counts[type.ordinal() * 2 + (forSpawnCount ? 1 : 0)];
+    }
+
+    /**
+     * Counts the entities of a type the slow way, used for types that are not tracked and to check the counters.
+     */
+    public static int scan(List<Entity> entities, EnumCreatureType type, boolean forSpawnCount)
+    {
+        int count = 0;
+        for (int x = 0; x < entities.size(); x++)
+        {
+            if (entities.get(x).isCreatureType(type, forSpawnCount))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void apply(long mask, int delta)
+    {
+        mask &= ~DYNAMIC;
+        while (mask != 0)
+        {
+            int bit = Long.numberOfTrailingZeros(mask);
+            this.counts[bit] += delta;
+            mask &= mask - 1;
+        }
+    }
+
+    private static long classify(Entity entity)
+    {
+        long mask = 0;
+        EnumCreatureType[] types = EnumCreatureType.values();
+        for (int i = 0; i < types.length && i < MAX_TYPES; i++)
+        {
+            if (entity.isCreatureType(types[i], false))
+            {
+                mask |= 1L << (i * 2);
+            }
+            if (entity.isCreatureType(types[i], true))
+            {
+                mask |= 1L << (i * 2 + 1);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Same result as {@link #classify} for entities that use the default {@link Entity#isCreatureType}.
+     */
+    private static long classifyByClass(Entity entity)
+    {
+        boolean persistent = entity instanceof EntityLiving && ((EntityLiving)entity).isNoDespawnRequired();
+        long mask = 0;
+        EnumCreatureType[] types = EnumCreatureType.values();
+        for (int i = 0; i < types.length && i < MAX_TYPES; i++)
+        {
+            if (types[i].getCreatureClass().isAssignableFrom(entity.getClass()))
+            {
+                mask |= persistent ? 1L << (i * 2) : 3L << (i * 2);
+            }
+        }
+        return mask;
+    }
+}
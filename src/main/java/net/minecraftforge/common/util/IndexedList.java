@@ -0,0 +1,311 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * A list that knows the index of each of its elements, so {@link #contains}, {@link #indexOf} and {@link #remove(Object)}
+ * run in constant time. Used for {@link net.minecraft.world.World#loadedEntityList}.
+ * <p>
+ * Removal moves the last element into the freed slot instead of shifting the tail, so the order of the elements is
+ * not stable. The list does not hold duplicates, adding an element that is already present does nothing.
+ * <p>
+ * The list can be walked with {@link #beginIteration()} and {@link #advance()} while elements are added and removed.
+ * Elements are visited once per pass, no matter which elements are removed in between: the list keeps everything that
+ * was already visited before the iteration position and everything else after it.
+ * <p>
+ * Subclasses can override {@link #onAdd} and {@link #onRemove} to keep derived data in sync with the contents.
+ */
+public class IndexedList<E> extends AbstractList<E> implements RandomAccess
+{
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] elements = EMPTY;
+    private int size;
+    private final Object2IntOpenHashMap<Object> indices = new Object2IntOpenHashMap<Object>();
+    /** Index of the element last returned by {@link #advance()}, -1 outside of an iteration */
+    private int cursor = -1;
+
+    public IndexedList()
+    {
+        this.indices.defaultReturnValue(-1);
+    }
+
+    /**
+     * Starts a new pass over the list. Any pass that was not finished is abandoned.
+     */
+    public void beginIteration()
+    {
+        this.cursor = -1;
+    }
+
+    /**
+     * @return the next element of the current pass, or null once every element was visited
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public E advance()
+    {
+        if (this.cursor + 1 < this.size)
+        {
+            return (E)this.elements[++this.cursor];
+        }
+        this.cursor = -1;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return (E)this.elements[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return this.indices.containsKey(o);
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        return this.indices.getInt(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o)
+    {
+        return this.indices.getInt(o);
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        if (this.indices.containsKey(e))
+        {
+            return false;
+        }
+        this.grow(this.size + 1);
+        this.elements[this.size] = e;
+        this.indices.put(e, this.size++);
+        ++this.modCount;
+        this.onAdd(e);
+        return true;
+    }
+
+    /**
+     * Inserts by shifting the tail, which is linear in the number of shifted elements.
+     * Prefer {@link #add(Object)}, the position of an element has no meaning in this list.
+     */
+    @Override
+    public void add(int index, E e)
+    {
+        if (index < 0 || index > this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        if (this.indices.containsKey(e))
+        {
+            return;
+        }
+        this.grow(this.size + 1);
+        System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+        this.elements[index] = e;
+        ++this.size;
+        for (int i = index; i < this.size; ++i)
+        {
+            this.indices.put(this.elements[i], i);
+        }
+        if (index <= this.cursor)
+        {
+            ++this.cursor;
+        }
+        ++this.modCount;
+        this.onAdd(e);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E e)
+    {
+        E old = this.get(index);
+        boolean added = !this.indices.containsKey(e);
+        // Collections.swap and friends go through a state with duplicates, only drop the old index if it still points here
+        boolean removed = this.indices.getInt(old) == index;
+        if (removed)
+        {
+            this.indices.removeInt(old);
+        }
+        this.elements[index] = e;
+        this.indices.put(e, index);
+        if (removed)
+        {
+            this.onRemove(old);
+        }
+        if (added)
+        {
+            this.onAdd(e);
+        }
+        return old;
+    }
+
+    @Override
+    public E remove(int index)
+    {
+        E old = this.get(index);
+        this.removeAt(index);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        int index = this.indices.getInt(o);
+        if (index < 0)
+        {
+            return false;
+        }
+        this.removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes every element of the collection, in time linear in the size of the collection.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c)
+    {
+        boolean changed = false;
+        for (Object o : c)
+        {
+            changed |= this.remove(o);
+        }
+        return changed;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear()
+    {
+        Object[] old = this.elements;
+        int oldSize = this.size;
+        this.elements = EMPTY;
+        this.indices.clear();
+        this.size = 0;
+        this.cursor = -1;
+        ++this.modCount;
+        for (int i = 0; i < oldSize; ++i)
+        {
+            this.onRemove((E)old[i]);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c)
+    {
+        Arrays.sort((E[])this.elements, 0, this.size, c);
+        for (int i = 0; i < this.size; ++i)
+        {
+            this.indices.put(this.elements[i], i);
+        }
+        ++this.modCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeAt(int index)
+    {
+        E old = (E)this.elements[index];
+        this.indices.removeInt(old);
+        int last = this.size - 1;
+
+        if (index <= this.cursor)
+        {
+            // Keep visited elements before the cursor: the slot is refilled with the element at the cursor,
+            // and the cursor slot with the last, not yet visited element.
+            if (index != this.cursor)
+            {
+                this.move(this.cursor, index);
+            }
+            if (this.cursor != last)
+            {
+                this.move(last, this.cursor);
+            }
+            --this.cursor;
+        }
+        else if (index != last)
+        {
+            this.move(last, index);
+        }
+
+        this.elements[last] = null;
+        this.size = last;
+        ++this.modCount;
+        this.onRemove(old);
+    }
+
+    /**
+     * Called after an element was added to the list.
+     */
+    protected void onAdd(E e)
+    {
+    }
+
+    /**
+     * Called after an element was removed from the list.
+     */
+    protected void onRemove(E e)
+    {
+    }
+
+    private void move(int from, int to)
+    {
+        Object e = this.elements[from];
+        this.elements[to] = e;
+        this.indices.put(e, to);
+    }
+
+    private void grow(int capacity)
+    {
+        if (capacity > this.elements.length)
+        {
+            this.elements = Arrays.copyOf(this.elements, Math.max(capacity, Math.max(10, this.elements.length + (this.elements.length >> 1))));
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.common.util;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * The light checks of a world that were queued since they were last processed, see {@link World#queueLightCheck}.
+ *
+ * {@link World#checkLightFor} searches outwards from every changed block on its own, so an explosion or a large edit
+ * updates the light of the same area over and over. Here the queued positions are deduplicated and used as the
+ * starting points of one search per light type. The search works like the vanilla one: positions lit by something
+ * that was removed are darkened first, then every darkened or changed position takes the light its neighbours give
+ * it and passes any increase on. Unlike the vanilla search it is not limited to a fixed number of positions, only to
+ * loaded chunks. Only used by the thread that ticks the world, see {@link World#ownsLightUpdates()}.
+ */
+public class LightUpdateQueue
+{
+    private static final EnumFacing[] FACINGS = EnumFacing.values();
+    /** Checks queued while the queue is processed, for example by block light hooks, are processed in further rounds up to this many */
+    private static final int MAX_ROUNDS = 4;
+
+    private final World world;
+    private final LongLinkedOpenHashSet[] queued = new LongLinkedOpenHashSet[EnumSkyBlock.values().length];
+    private long[] darken = new long[1024];
+    private int[] darkenLevels = new int[1024];
+    private long[] brighten = new long[1024];
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    private final BlockPos.MutableBlockPos neighbor = new BlockPos.MutableBlockPos();
+    @Nullable
+    private Chunk lastChunk;
+    private long checked;
+    private long changed;
+    /** Light reads flush the queue, this keeps the reads made by block hooks during processing from starting over */
+    private boolean processing;
+
+    public LightUpdateQueue(World world)
+    {
+        this.world = world;
+
+        for (int i = 0; i < this.queued.length; ++i)
+        {
+            this.queued[i] = new LongLinkedOpenHashSet();
+        }
+    }
+
+    public void add(EnumSkyBlock type, BlockPos pos)
+    {
+        this.queued[type.ordinal()].add(pack(pos));
+    }
+
+    public boolean isEmpty()
+    {
+        for (LongLinkedOpenHashSet set : this.queued)
+        {
+            if (!set.isEmpty())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the number of queued light checks
+     */
+    public int size()
+    {
+        int i = 0;
+
+        for (LongLinkedOpenHashSet set : this.queued)
+        {
+            i += set.size();
+        }
+
+        return i;
+    }
+
+    /**
+     * Runs the queued light checks. Does nothing when called while the queue is already being processed.
+     */
+    public void process()
+    {
+        if (this.processing || this.isEmpty())
+        {
+            return;
+        }
+
+        this.processing = true;
+        this.world.profiler.startSection("batchedLight");
+
+        try
+        {
+            for (int i = 0; i < MAX_ROUNDS && !this.isEmpty(); ++i)
+            {
+                for (EnumSkyBlock type : EnumSkyBlock.values())
+                {
+                    LongLinkedOpenHashSet set = this.queued[type.ordinal()];
+
+                    if (!set.isEmpty())
+                    {
+                        long[] starts = set.toLongArray();
+                        set.clear();
+                        this.update(type, starts);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            this.processing = false;
+            this.lastChunk = null;
+            this.world.profiler.endSection();
+        }
+    }
+
+    /**
+     * @return the number of positions whose light was checked, since the queue was created
+     */
+    public long getCheckedCount()
+    {
+        return this.checked;
+    }
+
+    /**
+     * @return the number of positions whose light changed, since the queue was created
+     */
+    public long getChangedCount()
+    {
+        return this.changed;
+    }
+
+    private void update(EnumSkyBlock type, long[] starts)
+    {
+        int darkenSize = 0;
+        int brightenSize = 0;
+
+        for (long start : starts)
+        {
+            unpack(start, this.pos);
+            Chunk chunk = this.getChunk(this.pos);
+
+            // Same requirement as World#checkLightFor
+            if (chunk == null || !chunk.areNeighborsLoaded(1))
+            {
+                continue;
+            }
+
+            int stored = chunk.getLightFor(type, this.pos);
+            int raw = this.getRawLight(type, chunk, this.pos);
+
+            if (raw > stored)
+            {
+                brightenSize = this.addBrighten(brightenSize, start);
+            }
+            else if (raw < stored)
+            {
+                darkenSize = this.addDarken(darkenSize, start, stored);
+            }
+        }
+
+        for (int i = 0; i < darkenSize; ++i)
+        {
+            long current = this.darken[i];
+            int level = this.darkenLevels[i];
+            unpack(current, this.pos);
+            Chunk chunk = this.getChunk(this.pos);
+            ++this.checked;
+            // Every darkened position takes its light from its neighbours again afterwards
+            brightenSize = this.addBrighten(brightenSize, current);
+
+            if (chunk == null || chunk.getLightFor(type, this.pos) != level)
+            {
+                continue;
+            }
+
+            this.setLight(type, chunk, this.pos, 0);
+
+            if (level > 0)
+            {
+                for (EnumFacing facing : FACINGS)
+                {
+                    this.neighbor.setPos(this.pos).move(facing);
+                    Chunk neighborChunk = this.getChunk(this.neighbor);
+
+                    if (neighborChunk != null)
+                    {
+                        IBlockState state = neighborChunk.getBlockState(this.neighbor);
+                        int neighborLevel = level - Math.max(1, state.getLightOpacity(this.world, this.neighbor));
+
+                        if (neighborChunk.getLightFor(type, this.neighbor) == neighborLevel)
+                        {
+                            darkenSize = this.addDarken(darkenSize, pack(this.neighbor), neighborLevel);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < brightenSize; ++i)
+        {
+            long current = this.brighten[i];
+            unpack(current, this.pos);
+            Chunk chunk = this.getChunk(this.pos);
+
+            if (chunk == null)
+            {
+                continue;
+            }
+
+            ++this.checked;
+            int stored = chunk.getLightFor(type, this.pos);
+            int raw = this.getRawLight(type, chunk, this.pos);
+
+            if (raw != stored)
+            {
+                this.setLight(type, chunk, this.pos, raw);
+
+                if (raw > stored)
+                {
+                    for (EnumFacing facing : FACINGS)
+                    {
+                        this.neighbor.setPos(this.pos).move(facing);
+                        Chunk neighborChunk = this.getChunk(this.neighbor);
+
+                        if (neighborChunk != null && neighborChunk.getLightFor(type, this.neighbor) < raw)
+                        {
+                            brightenSize = this.addBrighten(brightenSize, pack(this.neighbor));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int addDarken(int size, long position, int level)
+    {
+        if (size == this.darken.length)
+        {
+            this.darken = Arrays.copyOf(this.darken, size * 2);
+            this.darkenLevels = Arrays.copyOf(this.darkenLevels, size * 2);
+        }
+
+        this.darken[size] = position;
+        this.darkenLevels[size] = level;
+        return size + 1;
+    }
+
+    private int addBrighten(int size, long position)
+    {
+        if (size == this.brighten.length)
+        {
+            this.brighten = Arrays.copyOf(this.brighten, size * 2);
+        }
+
+        this.brighten[size] = position;
+        return size + 1;
+    }
+
+    /**
+     * Packs a position of the world height range into a long, x and z take 26 bits each and y the remaining 12.
+     */
+    private static long pack(BlockPos pos)
+    {
+        return ((long)pos.getX() & 0x3FFFFFFL) << 38 | ((long)pos.getZ() & 0x3FFFFFFL) << 12 | (long)pos.getY() & 0xFFFL;
+    }
+
+    private static void unpack(long packed, BlockPos.MutableBlockPos pos)
+    {
+        pos.setPos((int)(packed >> 38), (int)(packed << 52 >> 52), (int)(packed << 26 >> 38));
+    }
+
+    private void setLight(EnumSkyBlock type, Chunk chunk, BlockPos pos, int value)
+    {
+        chunk.setLightFor(type, pos, value);
+        this.world.notifyLightSet(pos);
+        ++this.changed;
+    }
+
+    /**
+     * The light a position gets from its own block and its neighbours, like World#getRawLight.
+     */
+    private int getRawLight(EnumSkyBlock type, Chunk chunk, BlockPos pos)
+    {
+        if (type == EnumSkyBlock.SKY && chunk.canSeeSky(pos))
+        {
+            return 15;
+        }
+
+        IBlockState state = chunk.getBlockState(pos);
+        int light = type == EnumSkyBlock.SKY ? 0 : state.getLightValue(this.world, pos);
+        int opacity = Math.max(1, state.getLightOpacity(this.world, pos));
+
+        if (opacity >= 15 || light >= 14)
+        {
+            return light;
+        }
+
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+
+        for (EnumFacing facing : FACINGS)
+        {
+            this.neighbor.setPos(x + facing.getFrontOffsetX(), y + facing.getFrontOffsetY(), z + facing.getFrontOffsetZ());
+            light = Math.max(light, this.getLight(type, this.neighbor) - opacity);
+
+            if (light >= 14)
+            {
+                break;
+            }
+        }
+
+        return light;
+    }
+
+    /**
+     * Reads the light like World#getLightFor does.
+     */
+    private int getLight(EnumSkyBlock type, BlockPos.MutableBlockPos pos)
+    {
+        if (pos.getY() < 0)
+        {
+            pos.setY(0);
+        }
+        else if (pos.getY() > 255)
+        {
+            return type.defaultLightValue;
+        }
+
+        Chunk chunk = this.getChunk(pos);
+        return chunk == null ? type.defaultLightValue : chunk.getLightFor(type, pos);
+    }
+
+    /**
+     * @return the loaded chunk containing the position, or null if it is not loaded or outside the world height
+     */
+    @Nullable
+    private Chunk getChunk(BlockPos pos)
+    {
+        if (pos.getY() < 0 || pos.getY() > 255)
+        {
+            return null;
+        }
+
+        int x = pos.getX() >> 4;
+        int z = pos.getZ() >> 4;
+        Chunk chunk = this.lastChunk;
+
+        if (chunk == null || chunk.x != x || chunk.z != z)
+        {
+            chunk = this.world.getChunkIfLoaded(x, z);
+
+            if (chunk != null)
+            {
+                this.lastChunk = chunk;
+            }
+        }
+
+        return chunk;
+    }
+}
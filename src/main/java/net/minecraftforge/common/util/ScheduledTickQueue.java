@@ -0,0 +1,346 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+/**
+ * The pending block updates of a world, replacing the TreeSet and HashSet pair vanilla keeps in WorldServer.
+ *
+ * Entries are grouped into buckets by the tick they are due in and additionally indexed by chunk. Scheduling and
+ * duplicate checks are hash lookups, draining a tick only touches the buckets that are due, and collecting the
+ * entries of a chunk only touches the entries of the chunks overlapping the requested area. Entries are still
+ * handed out in {@link NextTickListEntry#compareTo} order: due time, then priority, then scheduling order.
+ */
+public class ScheduledTickQueue
+{
+    private static final Comparator<NextTickListEntry> PRIORITY_ORDER = new Comparator<NextTickListEntry>()
+    {
+        @Override
+        public int compare(NextTickListEntry a, NextTickListEntry b)
+        {
+            return Integer.compare(a.priority, b.priority);
+        }
+    };
+
+    private final Set<NextTickListEntry> entries = Sets.newHashSet();
+    private final Long2ObjectSortedMap<Bucket> buckets = new Long2ObjectRBTreeMap<Bucket>();
+    private final Long2ObjectMap<Set<NextTickListEntry>> byChunk = new Long2ObjectOpenHashMap<Set<NextTickListEntry>>();
+    // Most updates scheduled in a tick share a handful of delays, remember the last bucket to skip the tree lookup
+    @Nullable
+    private Bucket lastBucket;
+
+    /**
+     * @return true if the entry was added, false if an equal entry (same position and block) is already scheduled
+     */
+    public boolean add(NextTickListEntry entry)
+    {
+        if (!this.entries.add(entry))
+        {
+            return false;
+        }
+
+        Bucket bucket = this.lastBucket;
+
+        if (bucket == null || bucket.time != entry.scheduledTime)
+        {
+            bucket = this.buckets.get(entry.scheduledTime);
+
+            if (bucket == null)
+            {
+                bucket = new Bucket(entry.scheduledTime);
+                this.buckets.put(entry.scheduledTime, bucket);
+            }
+
+            this.lastBucket = bucket;
+        }
+
+        bucket.add(entry);
+        long chunk = chunkKey(entry.position);
+        Set<NextTickListEntry> chunkEntries = this.byChunk.get(chunk);
+
+        if (chunkEntries == null)
+        {
+            chunkEntries = Sets.newHashSet();
+            this.byChunk.put(chunk, chunkEntries);
+        }
+
+        chunkEntries.add(entry);
+        return true;
+    }
+
+    /**
+     * @return true if an entry equal to the given one was scheduled and has been removed
+     */
+    public boolean remove(NextTickListEntry entry)
+    {
+        if (!this.entries.remove(entry))
+        {
+            return false;
+        }
+
+        this.removeFromIndexes(entry);
+        return true;
+    }
+
+    public boolean contains(NextTickListEntry entry)
+    {
+        return this.entries.contains(entry);
+    }
+
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * Removes the entries that are due and moves them into the given collection, in the order they have to run.
+     *
+     * @param time the current world time, ignored if all is set
+     * @param all whether every entry should be drained regardless of its due time
+     * @param limit the maximum number of entries to drain
+     * @return the number of drained entries
+     */
+    public int drain(long time, boolean all, int limit, Collection<NextTickListEntry> out)
+    {
+        int count = 0;
+
+        while (count < limit && !this.buckets.isEmpty())
+        {
+            long bucketTime = this.buckets.firstLongKey();
+
+            if (!all && bucketTime > time)
+            {
+                break;
+            }
+
+            Bucket bucket = this.buckets.get(bucketTime);
+            Iterator<NextTickListEntry> iterator = bucket.ordered().iterator();
+
+            while (count < limit && iterator.hasNext())
+            {
+                NextTickListEntry entry = iterator.next();
+                iterator.remove();
+                this.entries.remove(entry);
+                this.removeFromChunk(entry);
+                out.add(entry);
+                ++count;
+            }
+
+            if (bucket.isEmpty())
+            {
+                this.removeBucket(bucket);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Collects the entries whose position lies within the horizontal bounds of the given box (min inclusive, max
+     * exclusive), in the order they will run.
+     *
+     * @param remove whether the collected entries should be unscheduled
+     * @return the matching entries, or null if there are none
+     */
+    @Nullable
+    public List<NextTickListEntry> getEntriesWithin(StructureBoundingBox box, boolean remove)
+    {
+        List<NextTickListEntry> list = null;
+        int minChunkX = box.minX >> 4;
+        int maxChunkX = (box.maxX - 1) >> 4;
+        int minChunkZ = box.minZ >> 4;
+        int maxChunkZ = (box.maxZ - 1) >> 4;
+
+        if ((long)(maxChunkX - minChunkX + 1) * (long)(maxChunkZ - minChunkZ + 1) <= this.byChunk.size())
+        {
+            for (int x = minChunkX; x <= maxChunkX; ++x)
+            {
+                for (int z = minChunkZ; z <= maxChunkZ; ++z)
+                {
+                    list = collect(this.byChunk.get(ChunkPos.asLong(x, z)), box, list);
+                }
+            }
+        }
+        else
+        {
+            // The box covers more chunks than have entries, walking the index is cheaper
+            for (Set<NextTickListEntry> chunkEntries : this.byChunk.values())
+            {
+                list = collect(chunkEntries, box, list);
+            }
+        }
+
+        if (list != null)
+        {
+            Collections.sort(list);
+
+            if (remove)
+            {
+                for (NextTickListEntry entry : list)
+                {
+                    this.remove(entry);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    @Nullable
+    private static List<NextTickListEntry> collect(@Nullable Set<NextTickListEntry> chunkEntries, StructureBoundingBox box, @Nullable List<NextTickListEntry> list)
+    {
+        if (chunkEntries != null)
+        {
+            for (NextTickListEntry entry : chunkEntries)
+            {
+                BlockPos pos = entry.position;
+
+                if (pos.getX() >= box.minX && pos.getX() < box.maxX && pos.getZ() >= box.minZ && pos.getZ() < box.maxZ)
+                {
+                    if (list == null)
+                    {
+                        list = Lists.newArrayList();
+                    }
+
+                    list.add(entry);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    private void removeFromIndexes(NextTickListEntry entry)
+    {
+        Bucket bucket = this.buckets.get(entry.scheduledTime);
+
+        if (bucket != null && bucket.remove(entry) && bucket.isEmpty())
+        {
+            this.removeBucket(bucket);
+        }
+
+        this.removeFromChunk(entry);
+    }
+
+    private void removeBucket(Bucket bucket)
+    {
+        this.buckets.remove(bucket.time);
+
+        if (this.lastBucket == bucket)
+        {
+            this.lastBucket = null;
+        }
+    }
+
+    private void removeFromChunk(NextTickListEntry entry)
+    {
+        long chunk = chunkKey(entry.position);
+        Set<NextTickListEntry> chunkEntries = this.byChunk.get(chunk);
+
+        if (chunkEntries != null && chunkEntries.remove(entry) && chunkEntries.isEmpty())
+        {
+            this.byChunk.remove(chunk);
+        }
+    }
+
+    private static long chunkKey(BlockPos pos)
+    {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * The entries due in a single tick. Entries are appended in scheduling order, so they only need to be
+     * reordered when entries with different priorities were added.
+     */
+    private static class Bucket
+    {
+        private final long time;
+        private LinkedHashSet<NextTickListEntry> entries = Sets.newLinkedHashSet();
+        private boolean sorted = true;
+        private int lastPriority = Integer.MIN_VALUE;
+
+        private Bucket(long time)
+        {
+            this.time = time;
+        }
+
+        private void add(NextTickListEntry entry)
+        {
+            if (entry.priority < this.lastPriority)
+            {
+                this.sorted = false;
+            }
+
+            this.lastPriority = Math.max(this.lastPriority, entry.priority);
+            this.entries.add(entry);
+        }
+
+        private boolean remove(NextTickListEntry entry)
+        {
+            return this.entries.remove(entry);
+        }
+
+        private boolean isEmpty()
+        {
+            return this.entries.isEmpty();
+        }
+
+        private Set<NextTickListEntry> ordered()
+        {
+            if (!this.sorted)
+            {
+                // Stable sort keeps the scheduling order between entries of the same priority
+                ArrayList<NextTickListEntry> list = Lists.newArrayList(this.entries);
+                Collections.sort(list, PRIORITY_ORDER);
+                this.entries = Sets.newLinkedHashSet(list);
+                this.sorted = true;
+            }
+
+            return this.entries;
+        }
+    }
+}
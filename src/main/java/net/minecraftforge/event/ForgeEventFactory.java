@@ -20,6 +20,7 @@
 package net.minecraftforge.event;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Random;
@@ -136,7 +137,6 @@ import javax.annotation.Nullable;
 
 public class ForgeEventFactory
 {
-
     public static MultiPlaceEvent onPlayerMultiBlockPlace(EntityPlayer player, List<BlockSnapshot> blockSnapshots, EnumFacing direction, EnumHand hand)
     {
         BlockSnapshot snap = blockSnapshots.get(0);
@@ -627,36 +627,42 @@ public class ForgeEventFactory
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(TileEntity tileEntity)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return null;
         return gatherCapabilities(new AttachCapabilitiesEvent<TileEntity>(TileEntity.class, tileEntity), null);
     }
 
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(Entity entity)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return null;
         return gatherCapabilities(new AttachCapabilitiesEvent<Entity>(Entity.class, entity), null);
     }
 
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(Village village)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return null;
         return gatherCapabilities(new AttachCapabilitiesEvent<Village>(Village.class, village), null);
     }
 
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(ItemStack stack, ICapabilityProvider parent)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return parent != null ? new CapabilityDispatcher(Collections.<ResourceLocation, ICapabilityProvider>emptyMap(), parent) : null;
         return gatherCapabilities(new AttachCapabilitiesEvent<ItemStack>(ItemStack.class, stack), parent);
     }
 
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(World world, ICapabilityProvider parent)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return parent != null ? new CapabilityDispatcher(Collections.<ResourceLocation, ICapabilityProvider>emptyMap(), parent) : null;
         return gatherCapabilities(new AttachCapabilitiesEvent<World>(World.class, world), parent);
     }
 
     @Nullable
     public static CapabilityDispatcher gatherCapabilities(Chunk chunk)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(AttachCapabilitiesEvent.class)) return null;
         return gatherCapabilities(new AttachCapabilitiesEvent<Chunk>(Chunk.class, chunk), null);
     }
 
@@ -768,7 +774,11 @@ public class ForgeEventFactory
 
     public static boolean gatherCollisionBoxes(World world, Entity entity, AxisAlignedBB aabb, List<AxisAlignedBB> outList)
     {
-        MinecraftForge.EVENT_BUS.post(new GetCollisionBoxesEvent(world, entity, aabb, outList));
+        // Collisions are gathered several times per moving entity and tick, most of the time without any listener
+        if (MinecraftForge.EVENT_BUS.hasListeners(GetCollisionBoxesEvent.class))
+        {
+            MinecraftForge.EVENT_BUS.post(new GetCollisionBoxesEvent(world, entity, aabb, outList));
+        }
         return outList.isEmpty();
     }
 
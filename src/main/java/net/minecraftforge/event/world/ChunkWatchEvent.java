@@ -88,8 +88,9 @@ public class ChunkWatchEvent extends Event //TODO: extend ChunkEvent in 1.13
 
     /**
      * ChunkWatchEvent.Watch is fired when an EntityPlayer begins watching a chunk.<br>
-     * This event is fired when a chunk is added to the watched chunks of an EntityPlayer in
-     * {@link PlayerChunkMapEntry#addPlayer(EntityPlayerMP)} and {@link PlayerChunkMapEntry#sendToPlayers()}. <br>
+     * This event is fired when a chunk added to the watched chunks of an EntityPlayer in
+     * {@link PlayerChunkMapEntry#addPlayer(EntityPlayerMP)} is sent to the player, which happens once it is ready and
+     * its turn comes in the player's send queue, see {@link net.minecraftforge.common.ForgeModContainer#chunkSendsPerTick}. <br>
      * <br>
      * This event is not {@link Cancelable}.<br>
      * <br>
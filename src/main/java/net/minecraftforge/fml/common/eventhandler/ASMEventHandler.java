@@ -21,12 +21,23 @@ package net.minecraftforge.fml.common.eventhandler;
 
 import static org.objectweb.asm.Opcodes.*;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.util.HashMap;
 
+import javax.annotation.Nullable;
+
 import net.minecraftforge.fml.common.ModContainer;
+import net.minecraftforge.server.timings.TimingHandler;
+import net.minecraftforge.server.timings.Timings;
+import net.minecraftforge.server.timings.TimingsCategory;
 
 import org.apache.logging.log4j.ThreadContext;
 import org.objectweb.asm.ClassWriter;
@@ -43,12 +54,16 @@ public class ASMEventHandler implements IEventListener
     private static final ASMClassLoader LOADER = new ASMClassLoader();
     private static final HashMap<Method, Class<?>> cache = Maps.newHashMap();
     private static final boolean GETCONTEXT = Boolean.parseBoolean(System.getProperty("fml.LogContext", "false"));
+    /** Bind handlers through {@link LambdaMetafactory} instead of generating a wrapper class with ASM */
+    private static final boolean LAMBDAS = Boolean.parseBoolean(System.getProperty("fml.eventHandlerLambdas", "true"));
 
     private final IEventListener handler;
     private final SubscribeEvent subInfo;
+    private final boolean receiveCanceled;
     private ModContainer owner;
     private String readable;
     private java.lang.reflect.Type filter = null;
+    private final TimingHandler timings;
 
     @Deprecated
     public ASMEventHandler(Object target, Method method, ModContainer owner) throws Exception
@@ -59,12 +74,17 @@ public class ASMEventHandler implements IEventListener
     public ASMEventHandler(Object target, Method method, ModContainer owner, boolean isGeneric) throws Exception
     {
         this.owner = owner;
-        if (Modifier.isStatic(method.getModifiers()))
+        IEventListener lambda = LAMBDAS ? createLambda(target, method) : null;
+        if (lambda != null)
+            handler = lambda;
+        else if (Modifier.isStatic(method.getModifiers()))
             handler = (IEventListener)createWrapper(method).newInstance();
         else
             handler = (IEventListener)createWrapper(method).getConstructor(Object.class).newInstance(target);
         subInfo = method.getAnnotation(SubscribeEvent.class);
+        receiveCanceled = subInfo.receiveCanceled();
         readable = "ASM: " + target + " " + method.getName() + Type.getMethodDescriptor(method);
+        timings = Timings.of(TimingsCategory.EVENT_HANDLER, method.getDeclaringClass().getName() + "." + method.getName() + "(" + method.getParameterTypes()[0].getSimpleName() + ")", owner == null ? null : owner.getModId());
         if (isGeneric)
         {
             java.lang.reflect.Type type = method.getGenericParameterTypes()[0];
@@ -83,11 +103,14 @@ public class ASMEventHandler implements IEventListener
             ThreadContext.put("mod", owner == null ? "" : owner.getName());
         if (handler != null)
         {
-            if (!event.isCancelable() || !event.isCanceled() || subInfo.receiveCanceled())
+            // Events that are not cancelable are never canceled, so there is no need to ask
+            if (receiveCanceled || !event.isCanceled())
             {
                 if (filter == null || filter == ((IGenericEvent)event).getGenericType())
                 {
+                    long start = timings.start();
                     handler.invoke(event);
+                    timings.stop(start);
                 }
             }
         }
@@ -100,6 +123,50 @@ public class ASMEventHandler implements IEventListener
         return subInfo.priority();
     }
 
+    /**
+     * Binds the method to an {@link IEventListener} through {@link LambdaMetafactory}, which the JIT can inline into
+     * {@link #invoke} just like a lambda. Returns null if the method can not be bound that way, for example because
+     * its class loader can not see {@link IEventListener}, the ASM wrapper is used instead then.
+     */
+    @Nullable
+    static IEventListener createLambda(Object target, Method method)
+    {
+        try
+        {
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            Class<?> owner = method.getDeclaringClass();
+            MethodHandles.Lookup lookup = privateLookupIn(owner);
+            MethodHandle handle = lookup.unreflect(method);
+            MethodType invokedType = isStatic ? MethodType.methodType(IEventListener.class) : MethodType.methodType(IEventListener.class, owner);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", invokedType, MethodType.methodType(void.class, Event.class),
+                    handle, MethodType.methodType(void.class, method.getParameterTypes()[0]));
+            return isStatic ? (IEventListener)site.getTarget().invoke() : (IEventListener)site.getTarget().invoke(target);
+        }
+        catch (Throwable t)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * The metafactory needs a lookup with private access to the class it defines the listener next to.
+     */
+    private static MethodHandles.Lookup privateLookupIn(Class<?> cls) throws Exception
+    {
+        try
+        {
+            // Java 9 and newer
+            Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            return (MethodHandles.Lookup)privateLookupIn.invoke(null, cls, MethodHandles.lookup());
+        }
+        catch (NoSuchMethodException e)
+        {
+            Constructor<MethodHandles.Lookup> ctr = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+            ctr.setAccessible(true);
+            return ctr.newInstance(cls, MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED | MethodHandles.Lookup.PACKAGE);
+        }
+    }
+
     public Class<?> createWrapper(Method callback)
     {
         if (cache.containsKey(callback))
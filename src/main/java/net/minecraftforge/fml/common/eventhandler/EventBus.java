@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.Loader;
@@ -42,6 +43,25 @@ import com.google.common.reflect.TypeToken;
 public class EventBus implements IEventExceptionHandler
 {
     private static int maxID = 0;
+    /** The listener list of every event type, found by creating an event like {@link #register} does; null if that fails */
+    private static final ClassValue<ListenerList> LISTENER_LISTS = new ClassValue<ListenerList>()
+    {
+        @Override
+        @Nullable
+        protected ListenerList computeValue(Class<?> type)
+        {
+            try
+            {
+                Constructor<?> ctr = type.getConstructor();
+                ctr.setAccessible(true);
+                return ((Event)ctr.newInstance()).getListenerList();
+            }
+            catch (Exception e)
+            {
+                return null;
+            }
+        }
+    };
 
     private ConcurrentHashMap<Object, ArrayList<IEventListener>> listeners = new ConcurrentHashMap<Object, ArrayList<IEventListener>>();
     private Map<Object,ModContainer> listenerOwners = new MapMaker().weakKeys().weakValues().makeMap();
@@ -169,6 +189,27 @@ public class EventBus implements IEventExceptionHandler
         }
     }
 
+    /**
+     * Whether any listener on this bus receives events of the type of the given event. Callers can keep one instance of
+     * an event type around to skip creating events that nobody listens to.
+     */
+    public boolean hasListeners(Event event)
+    {
+        return !shutdown && event.getListenerList().getListeners(busID).length > 0;
+    }
+
+    /**
+     * Whether any listener on this bus receives events of the given type, including listeners of its super types.
+     * Hot call sites check this before creating an event that nobody would receive. Event types that can not be
+     * created without arguments are assumed to have listeners.
+     */
+    public boolean hasListeners(Class<? extends Event> eventType)
+    {
+        if (shutdown) return false;
+        ListenerList list = LISTENER_LISTS.get(eventType);
+        return list == null || list.getListeners(busID).length > 0;
+    }
+
     public boolean post(Event event)
     {
         if (shutdown) return false;
@@ -0,0 +1,206 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.items;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockChest;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityChest;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Remembers the block a hopper last found at one of its neighbour positions, so its tile entity and inventory are not
+ * looked up again for every transfer. Entities are never remembered, see {@link net.minecraft.tileentity.TileEntityHopper#getInventoryAtPosition}.
+ * <li>The block is looked up again once the block state at the position changes, or its tile entity was invalidated or
+ *     is no longer the one in its chunk, like after the chunk was reloaded.</li>
+ * <li>For chests the blocks beside the chest are compared as well, since they decide whether it is part of a double chest.</li>
+ * <li>Capabilities are still requested from the tile entity every time, they may change without the block changing.</li>
+ */
+public class HopperInventoryCache
+{
+    @Nullable
+    private BlockPos pos;
+    @Nullable
+    private IBlockState state;
+    @Nullable
+    private TileEntity tileEntity;
+    @Nullable
+    private IInventory inventory;
+    /** The chests beside a chest, null for other blocks */
+    @Nullable
+    private TileEntity[] chests;
+    /** The horizontal sides of a chest that have the same chest block, by horizontal index */
+    private int chestSides;
+
+    /**
+     * @return the tile entity at the position, null if the block has none
+     */
+    @Nullable
+    public TileEntity getTileEntity(World world, BlockPos pos)
+    {
+        update(world, pos);
+        return this.tileEntity;
+    }
+
+    /**
+     * @return the inventory of the block at the position, like {@link net.minecraft.tileentity.TileEntityHopper#getInventoryAtPosition}
+     *         without searching for entities
+     */
+    @Nullable
+    public IInventory getInventory(World world, BlockPos pos)
+    {
+        update(world, pos);
+        return this.inventory;
+    }
+
+    public void invalidate()
+    {
+        this.pos = null;
+        this.state = null;
+        this.tileEntity = null;
+        this.inventory = null;
+        this.chests = null;
+        this.chestSides = 0;
+    }
+
+    private void update(World world, BlockPos pos)
+    {
+        IBlockState state = world.getBlockState(pos);
+
+        if (state != this.state || !pos.equals(this.pos) || !isValid(world))
+        {
+            invalidate();
+            lookup(world, pos, state);
+        }
+    }
+
+    private boolean isValid(World world)
+    {
+        if (this.tileEntity != null && !isCurrent(world, this.tileEntity))
+        {
+            return false;
+        }
+
+        if (this.chests != null)
+        {
+            Block block = this.state.getBlock();
+
+            for (EnumFacing facing : EnumFacing.Plane.HORIZONTAL)
+            {
+                boolean chest = world.getBlockState(this.pos.offset(facing)).getBlock() == block;
+
+                if (chest != ((this.chestSides & 1 << facing.getHorizontalIndex()) != 0))
+                {
+                    return false;
+                }
+            }
+
+            for (TileEntity tileentity : this.chests)
+            {
+                if (!isCurrent(world, tileentity))
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isCurrent(World world, TileEntity tileEntity)
+    {
+        BlockPos pos = tileEntity.getPos();
+        return !tileEntity.isInvalid() && world.getChunkFromBlockCoords(pos).getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK) == tileEntity;
+    }
+
+    private void lookup(World world, BlockPos pos, IBlockState state)
+    {
+        Block block = state.getBlock();
+
+        if (block.hasTileEntity(state))
+        {
+            TileEntity tileentity = world.getTileEntity(pos);
+
+            // Not created yet, nothing is remembered until it is
+            if (tileentity == null)
+            {
+                return;
+            }
+
+            this.tileEntity = tileentity;
+
+            if (tileentity instanceof TileEntityChest && block instanceof BlockChest)
+            {
+                List<TileEntity> chests = Lists.newArrayListWithCapacity(1);
+                boolean complete = true;
+                int sides = 0;
+
+                for (EnumFacing facing : EnumFacing.Plane.HORIZONTAL)
+                {
+                    BlockPos blockpos = pos.offset(facing);
+
+                    if (world.getBlockState(blockpos).getBlock() == block)
+                    {
+                        TileEntity tileentity1 = world.getTileEntity(blockpos);
+
+                        if (tileentity1 instanceof TileEntityChest)
+                        {
+                            chests.add(tileentity1);
+                        }
+                        else
+                        {
+                            complete = false;
+                        }
+
+                        sides |= 1 << facing.getHorizontalIndex();
+                    }
+                }
+
+                this.inventory = ((BlockChest)block).getContainer(world, pos, true);
+
+                // A chest beside it has no tile entity yet, nothing is remembered until it does
+                if (!complete)
+                {
+                    return;
+                }
+
+                this.chests = chests.toArray(new TileEntity[chests.size()]);
+                this.chestSides = sides;
+            }
+            else if (tileentity instanceof IInventory)
+            {
+                this.inventory = (IInventory)tileentity;
+            }
+        }
+
+        this.pos = pos.toImmutable();
+        this.state = state;
+    }
+}
@@ -33,11 +33,13 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import net.minecraftforge.common.ForgeModContainer;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest;
 import org.bukkit.craftbukkit.inventory.CraftItemStack;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -59,43 +61,47 @@ public class VanillaInventoryCodeHooks
 
         for (int i = 0; i < handler.getSlots(); i++)
         {
-            ItemStack extractItem = handler.extractItem(i, 1, true);
+            ItemStack extractItem = handler.extractItem(i, ForgeModContainer.hopperItemsPerTransfer, true);
             if (!extractItem.isEmpty())
             {
-                // CraftBukkit start - Call event on collection of items from inventories into the hopper
-                ItemStack copy = extractItem.copy();
-                IInventory inventoryIn = TileEntityHopper.getSourceInventory(dest);
-                org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(extractItem);
-                org.bukkit.inventory.Inventory sourceInventory;
-                if (inventoryIn instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
-                    sourceInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) inventoryIn);
-                } else {
-                    sourceInventory = inventoryIn.getOwner().getInventory();
-                }
-                org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(sourceInventory, oitemstack.clone(), dest.getOwner().getInventory(), false);
-                dest.getWorld().getServer().getPluginManager().callEvent(event);
-                if (event.isCancelled()) {
-                    inventoryIn.setInventorySlotContents(i, copy);
-                    if (dest instanceof TileEntityHopper) {
-                        ((TileEntityHopper) dest).setTransferCooldown(8);
-                    } else if (inventoryIn instanceof net.minecraft.entity.item.EntityMinecartHopper) {
-                        ((net.minecraft.entity.item.EntityMinecartHopper) dest).setTransferTicker(4);
+                if (hasMoveItemListeners()) {
+                    // CraftBukkit start - Call event on collection of items from inventories into the hopper
+                    ItemStack copy = extractItem.copy();
+                    IInventory inventoryIn = TileEntityHopper.getSourceInventory(dest);
+                    org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(extractItem);
+                    org.bukkit.inventory.Inventory sourceInventory;
+                    if (inventoryIn instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
+                        sourceInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) inventoryIn);
+                    } else {
+                        sourceInventory = inventoryIn.getOwner().getInventory();
+                    }
+                    org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(sourceInventory, oitemstack.clone(), dest.getOwner().getInventory(), false);
+                    dest.getWorld().getServer().getPluginManager().callEvent(event);
+                    if (event.isCancelled()) {
+                        inventoryIn.setInventorySlotContents(i, copy);
+                        if (dest instanceof TileEntityHopper) {
+                            ((TileEntityHopper) dest).setTransferCooldown(8);
+                        } else if (inventoryIn instanceof net.minecraft.entity.item.EntityMinecartHopper) {
+                            ((net.minecraft.entity.item.EntityMinecartHopper) dest).setTransferTicker(4);
+                        }
+                        return false;
                     }
-                    return false;
+                    extractItem = org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem()); // Akarin Forge - respect CraftBukkit
+                    // CraftBukkit end
                 }
-                extractItem = org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem()); // Akarin Forge - respect CraftBukkit
-                // CraftBukkit end
                 for (int j = 0; j < dest.getSizeInventory(); j++)
                 {
                     ItemStack destStack = dest.getStackInSlot(j);
                     if (dest.isItemValidForSlot(j, extractItem) && (destStack.isEmpty() || destStack.getCount() < destStack.getMaxStackSize() && destStack.getCount() < dest.getInventoryStackLimit() && ItemHandlerHelper.canItemStacksStack(extractItem, destStack)))
                     {
-                        extractItem = handler.extractItem(i, 1, false);
+                        // Forge: as many of the items as fit into the slot, with several items per transfer
+                        int space = Math.min(destStack.isEmpty() ? extractItem.getMaxStackSize() : destStack.getMaxStackSize(), dest.getInventoryStackLimit()) - destStack.getCount();
+                        extractItem = handler.extractItem(i, Math.max(1, Math.min(extractItem.getCount(), space)), false);
                         if (destStack.isEmpty())
                             dest.setInventorySlotContents(j, extractItem);
                         else
                         {
-                            destStack.grow(1);
+                            destStack.grow(extractItem.getCount());
                             dest.setInventorySlotContents(j, destStack);
                         }
                         dest.markDirty();
@@ -125,26 +131,33 @@ public class VanillaInventoryCodeHooks
             IItemHandler itemHandler = destinationResult.getKey();
             Object destination = destinationResult.getValue();
             ItemStack dispensedStack = stack.copy().splitStack(1);
-            // Akarin Forge - start
-            BlockPos facepos = pos.offset(enumfacing);
-            IInventory iinventory = TileEntityHopper.getInventoryAtPosition(world, (double) facepos.getX(), (double) facepos.getY(), (double) facepos.getZ());
+            ItemStack remainder;
+            boolean unchanged = true;
+            if (hasMoveItemListeners()) {
+                // Akarin Forge - start
+                BlockPos facepos = pos.offset(enumfacing);
+                IInventory iinventory = TileEntityHopper.getInventoryAtPosition(world, (double) facepos.getX(), (double) facepos.getY(), (double) facepos.getZ());
+            
+                CraftItemStack oitemstack = CraftItemStack.asCraftMirror(dispensedStack.copy());
+                org.bukkit.inventory.Inventory destinationInventory;
+                // Have to special case large chests as they work oddly
+                if (iinventory instanceof InventoryLargeChest) {
+                    destinationInventory = new CraftInventoryDoubleChest((InventoryLargeChest) iinventory);
+                } else {
+                    destinationInventory = iinventory.getOwner().getInventory();
+                }
             
-            CraftItemStack oitemstack = CraftItemStack.asCraftMirror(dispensedStack.copy());
-            org.bukkit.inventory.Inventory destinationInventory;
-            // Have to special case large chests as they work oddly
-            if (iinventory instanceof InventoryLargeChest) {
-                destinationInventory = new CraftInventoryDoubleChest((InventoryLargeChest) iinventory);
+                InventoryMoveItemEvent event = new InventoryMoveItemEvent(dropper.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
+                world.getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) return false;
+                // Akarin Forge - end
+                remainder = putStackInInventoryAllSlots(dropper, destination, itemHandler, CraftItemStack.asNMSCopy(event.getItem())); // Akarin Forge - respect CraftBukkit
+                unchanged = event.getItem().equals(oitemstack);
             } else {
-                destinationInventory = iinventory.getOwner().getInventory();
+                remainder = putStackInInventoryAllSlots(dropper, destination, itemHandler, dispensedStack);
             }
-            
-            InventoryMoveItemEvent event = new InventoryMoveItemEvent(dropper.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
-            world.getServer().getPluginManager().callEvent(event);
-            if (event.isCancelled()) return false;
-            // Akarin Forge - end
-            ItemStack remainder = putStackInInventoryAllSlots(dropper, destination, itemHandler, CraftItemStack.asNMSCopy(event.getItem())); // Akarin Forge - respect CraftBukkit
 
-            if (event.getItem().equals(oitemstack) && remainder.isEmpty()) // Akarin Forge - respect CraftBukkit
+            if (unchanged && remainder.isEmpty()) // Akarin Forge - respect CraftBukkit
             {
                 remainder = stack.copy();
                 remainder.shrink(1);
@@ -185,27 +198,52 @@ public class VanillaInventoryCodeHooks
                     if (!hopper.getStackInSlot(i).isEmpty())
                     {
                         ItemStack originalSlotContents = hopper.getStackInSlot(i).copy();
-                        ItemStack insertStack = hopper.decrStackSize(i, 1);
-                        // CraftBukkit start - Call event when pushing items into other inventories
-                        IInventory iinventory = TileEntityHopper.getInventoryAtPosition(hopper.getWorld(), hopper.getXPos() + hopperFacing.getFrontOffsetX(), hopper.getYPos() + hopperFacing.getFrontOffsetY(), hopper.getZPos() + hopperFacing.getFrontOffsetZ());
-                        org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(insertStack);
-                        org.bukkit.inventory.Inventory destinationInventory;
-                        if (iinventory instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
-                            destinationInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) iinventory);
+                        ItemStack insertStack = hopper.decrStackSize(i, ForgeModContainer.hopperItemsPerTransfer);
+                        int count = insertStack.getCount();
+                        int offered = count;
+                        ItemStack remainder;
+                        boolean unchanged = true;
+                        if (hasMoveItemListeners()) {
+                            // CraftBukkit start - Call event when pushing items into other inventories
+                            IInventory iinventory = TileEntityHopper.getInventoryAtPosition(hopper.getWorld(), hopper.getXPos() + hopperFacing.getFrontOffsetX(), hopper.getYPos() + hopperFacing.getFrontOffsetY(), hopper.getZPos() + hopperFacing.getFrontOffsetZ(), hopper.getInventoryCache(hopperFacing));
+                            org.bukkit.craftbukkit.inventory.CraftItemStack oitemstack = org.bukkit.craftbukkit.inventory.CraftItemStack.asCraftMirror(insertStack);
+                            org.bukkit.inventory.Inventory destinationInventory;
+                            if (iinventory instanceof net.minecraft.inventory.InventoryLargeChest) { // Have to special case large chests as they work oddly
+                                destinationInventory = new org.bukkit.craftbukkit.inventory.CraftInventoryDoubleChest((net.minecraft.inventory.InventoryLargeChest) iinventory);
+                            } else {
+                                destinationInventory = iinventory.getOwner().getInventory();
+                            }
+                            org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(hopper.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
+                            hopper.getWorld().getServer().getPluginManager().callEvent(event);
+                            if (event.isCancelled()) {
+                                hopper.setInventorySlotContents(i, originalSlotContents);
+                                hopper.setTransferCooldown(8); // Delay hopper checks
+                                return false;
+                            }
+                            ItemStack moved = org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem());
+                            offered = moved.getCount();
+                            remainder = putStackInInventoryAllSlots(hopper, destination, itemHandler, moved);
+                            unchanged = event.getItem().equals(oitemstack);
+                            // CraftBukkit end
                         } else {
-                            destinationInventory = iinventory.getOwner().getInventory();
+                            remainder = putStackInInventoryAllSlots(hopper, destination, itemHandler, insertStack);
                         }
-                        org.bukkit.event.inventory.InventoryMoveItemEvent event = new org.bukkit.event.inventory.InventoryMoveItemEvent(hopper.getOwner().getInventory(), oitemstack.clone(), destinationInventory, true);
-                        hopper.getWorld().getServer().getPluginManager().callEvent(event);
-                        if (event.isCancelled()) {
+
+                        if (remainder.isEmpty())
+                        {
+                            return true;
+                        }
+
+                        // Forge: with several items per transfer, keep the part that fit
+                        if (unchanged && remainder.getCount() < count)
+                        {
+                            originalSlotContents.shrink(count - remainder.getCount());
                             hopper.setInventorySlotContents(i, originalSlotContents);
-                            hopper.setTransferCooldown(8); // Delay hopper checks
-                            return false;
+                            return true;
                         }
-                        ItemStack remainder = putStackInInventoryAllSlots(hopper, destination, itemHandler, org.bukkit.craftbukkit.inventory.CraftItemStack.asNMSCopy(event.getItem()));
-                        // CraftBukkit end
 
-                        if (remainder.isEmpty())
+                        // Forge: the item a plugin changed replaces the taken items, once part of it went in they stay taken
+                        if (!unchanged && remainder.getCount() < offered)
                         {
                             return true;
                         }
@@ -219,6 +257,23 @@ public class VanillaInventoryCodeHooks
         }
     }
 
+    /**
+     * Whether a plugin listens to InventoryMoveItemEvent. Hoppers and droppers skip building the Bukkit inventories
+     * and calling the event for every transfer otherwise.
+     */
+    public static boolean hasMoveItemListeners()
+    {
+        return InventoryMoveItemEvent.getHandlerList().getRegisteredListeners().length != 0;
+    }
+
+    /**
+     * Whether a plugin listens to InventoryPickupItemEvent, see {@link #hasMoveItemListeners()}.
+     */
+    public static boolean hasPickupItemListeners()
+    {
+        return InventoryPickupItemEvent.getHandlerList().getRegisteredListeners().length != 0;
+    }
+
     private static ItemStack putStackInInventoryAllSlots(TileEntity source, Object destination, IItemHandler destInventory, ItemStack stack)
     {
         for (int slot = 0; slot < destInventory.getSlots() && !stack.isEmpty(); slot++)
@@ -235,15 +290,15 @@ public class VanillaInventoryCodeHooks
     {
         ItemStack itemstack = destInventory.getStackInSlot(slot);
 
-        if (destInventory.insertItem(slot, stack, true).isEmpty())
+        // Forge: slots that take part of the stack are filled too, which only makes a difference with several items per transfer
+        if (destInventory.insertItem(slot, stack, true).getCount() < stack.getCount())
         {
             boolean insertedItem = false;
             boolean inventoryWasEmpty = isEmpty(destInventory);
 
             if (itemstack.isEmpty())
             {
-                destInventory.insertItem(slot, stack, false);
-                stack = ItemStack.EMPTY;
+                stack = destInventory.insertItem(slot, stack, false);
                 insertedItem = true;
             }
             else if (ItemHandlerHelper.canItemStacksStack(itemstack, stack))
@@ -286,7 +341,8 @@ public class VanillaInventoryCodeHooks
         double x = hopper.getXPos() + (double) hopperFacing.getFrontOffsetX();
         double y = hopper.getYPos() + (double) hopperFacing.getFrontOffsetY();
         double z = hopper.getZPos() + (double) hopperFacing.getFrontOffsetZ();
-        return getItemHandler(hopper.getWorld(), x, y, z, hopperFacing.getOpposite());
+        HopperInventoryCache cache = hopper instanceof TileEntityHopper ? ((TileEntityHopper) hopper).getInventoryCache(hopperFacing) : null;
+        return getItemHandler(hopper.getWorld(), x, y, z, hopperFacing.getOpposite(), cache);
     }
 
     private static boolean isFull(IItemHandler itemHandler)
@@ -317,28 +373,44 @@ public class VanillaInventoryCodeHooks
 
     @Nullable
     public static Pair<IItemHandler, Object> getItemHandler(World worldIn, double x, double y, double z, final EnumFacing side)
+    {
+        return getItemHandler(worldIn, x, y, z, side, null);
+    }
+
+    /**
+     * @param cache the cache of the hopper looking for the handler, which remembers the tile entity but not its capability
+     */
+    @Nullable
+    public static Pair<IItemHandler, Object> getItemHandler(World worldIn, double x, double y, double z, final EnumFacing side, @Nullable HopperInventoryCache cache)
     {
         Pair<IItemHandler, Object> destination = null;
         int i = MathHelper.floor(x);
         int j = MathHelper.floor(y);
         int k = MathHelper.floor(z);
         BlockPos blockpos = new BlockPos(i, j, k);
-        net.minecraft.block.state.IBlockState state = worldIn.getBlockState(blockpos);
-        Block block = state.getBlock();
+        TileEntity tileentity = null;
 
-        if (block.hasTileEntity(state))
+        if (cache != null)
+        {
+            tileentity = cache.getTileEntity(worldIn, blockpos);
+        }
+        else
         {
-            TileEntity tileentity = worldIn.getTileEntity(blockpos);
-            if (tileentity != null)
+            net.minecraft.block.state.IBlockState state = worldIn.getBlockState(blockpos);
+            Block block = state.getBlock();
+
+            if (block.hasTileEntity(state))
             {
-                if (tileentity.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side))
-                {
-                    IItemHandler capability = tileentity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side);
-                    destination = ImmutablePair.<IItemHandler, Object>of(capability, tileentity);
-                }
+                tileentity = worldIn.getTileEntity(blockpos);
             }
         }
 
+        if (tileentity != null && tileentity.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side))
+        {
+            IItemHandler capability = tileentity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side);
+            destination = ImmutablePair.<IItemHandler, Object>of(capability, tileentity);
+        }
+
         return destination;
     }
 }
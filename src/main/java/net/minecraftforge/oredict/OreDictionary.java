@@ -20,6 +20,7 @@
 package net.minecraftforge.oredict;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,7 +49,9 @@ import net.minecraftforge.common.MinecraftForge;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.Loader;
@@ -66,7 +69,8 @@ public class OreDictionary
     private static Map<String, Integer>  nameToId = new HashMap<String, Integer>(128);
     private static List<NonNullList<ItemStack>> idToStack = Lists.newArrayList();
     private static List<NonNullList<ItemStack>> idToStackUn = Lists.newArrayList();
-    private static Map<Integer, List<Integer>> stackToId = Maps.newHashMapWithExpectedSize((int)(128 * 0.75));
+    private static Int2ObjectMap<ItemOreIDs> stackToId = new Int2ObjectOpenHashMap<ItemOreIDs>(128);
+    private static final int[] NO_IDS = new int[0];
     public static final NonNullList<ItemStack> EMPTY_LIST = NonNullList.create();
 
     /**
@@ -492,32 +496,160 @@ public class OreDictionary
     {
         if (stack.isEmpty()) throw new IllegalArgumentException("Stack can not be invalid!");
 
-        Set<Integer> set = new HashSet<Integer>();
+        int[] ids = lookupOreIDs(stack);
+        return ids.length == 0 ? new int[0] : ids.clone();
+    }
+
+    /**
+     * Like {@link #getOreIDs(ItemStack)}, but returns the array kept by the dictionary instead of a copy.
+     * It is replaced rather than changed when ores are registered, but must never be modified by the caller.
+     *
+     * @param stack The item stack of the ore.
+     * @return An array of ids that this ore is registered as, shared by all stacks of the same item and metadata.
+     */
+    public static int[] getSharedOreIDs(@Nonnull ItemStack stack)
+    {
+        if (stack.isEmpty()) throw new IllegalArgumentException("Stack can not be invalid!");
+
+        return lookupOreIDs(stack);
+    }
+
+    /**
+     * Checks whether the stack is registered to the ore, without allocating.
+     *
+     * @param stack The item stack to check, may be empty.
+     * @param oreID The ore ID, see getOreID
+     * @return Whether getOreIDs would include the ID for this stack.
+     */
+    public static boolean hasOreID(@Nonnull ItemStack stack, int oreID)
+    {
+        if (stack.isEmpty()) return false;
+
+        for (int id : lookupOreIDs(stack))
+        {
+            if (id == oreID) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the ore IDs of the stack, which are looked up by its damage like every registered ore, give the same
+     * answer as comparing its metadata with the registered ores using {@link #itemMatches}. They only differ for items
+     * that override {@link Item#getMetadata(ItemStack)}, which have to be compared against the ores instead.
+     *
+     * @param stack The item stack to check, may be empty.
+     * @return Whether the stack and every ore registered for its item have the same damage and metadata.
+     */
+    public static boolean isKeyedByMetadata(@Nonnull ItemStack stack)
+    {
+        if (stack.isEmpty()) return true;
+        if (stack.getItemDamage() != stack.getMetadata()) return false;
+
+        ResourceLocation registryName = stack.getItem().delegate.name();
+        ItemOreIDs ids = stackToId.get(registryName == null ? -1 : Item.REGISTRY.getIDForObject(stack.getItem().delegate.get()));
+        return ids == null || !ids.metadataDiffers;
+    }
 
+    private static int[] lookupOreIDs(ItemStack stack)
+    {
         // HACK: use the registry name's ID. It is unique and it knows about substitutions. Fallback to a -1 value (what Item.getIDForItem would have returned) in the case where the registry is not aware of the item yet
         // IT should be noted that -1 will fail the gate further down, if an entry already exists with value -1 for this name. This is what is broken and being warned about.
         // APPARENTLY it's quite common to do this. OreDictionary should be considered alongside Recipes - you can't make them properly until you've registered with the game.
         ResourceLocation registryName = stack.getItem().delegate.name();
-        int id;
         if (registryName == null)
         {
             FMLLog.log.debug("Attempted to find the oreIDs for an unregistered object ({}). This won't work very well.", stack);
-            return new int[0];
+            return NO_IDS;
         }
-        else
+        ItemOreIDs ids = stackToId.get(Item.REGISTRY.getIDForObject(stack.getItem().delegate.get()));
+        return ids == null ? NO_IDS : ids.get(stack.getItemDamage());
+    }
+
+    /**
+     * The ore IDs of one item, by the registry ID of the item in stackToId.
+     * The arrays handed out are precomputed for every registered metadata and replaced, never changed, on registration.
+     */
+    private static class ItemOreIDs
+    {
+        /** IDs registered for every metadata of the item */
+        private int[] wildcard = NO_IDS;
+        /** IDs registered for a single metadata */
+        private final Int2ObjectMap<int[]> byMeta = new Int2ObjectOpenHashMap<int[]>();
+        /** The union of byMeta and wildcard for every metadata in byMeta */
+        private final Int2ObjectMap<int[]> merged = new Int2ObjectOpenHashMap<int[]>();
+        /** Whether an ore of the item was registered with a metadata other than its damage */
+        private boolean metadataDiffers;
+
+        private int[] get(int meta)
         {
-            id = Item.REGISTRY.getIDForObject(stack.getItem().delegate.get());
+            int[] ids = this.merged.get(meta);
+            return ids == null ? this.wildcard : ids;
+        }
+
+        /**
+         * @return false if the ID was already registered for the metadata
+         */
+        private boolean add(int meta, int oreID)
+        {
+            if (meta == WILDCARD_VALUE)
+            {
+                if (contains(this.wildcard, oreID)) return false;
+                this.wildcard = merge(this.wildcard, new int[] { oreID });
+                for (Int2ObjectMap.Entry<int[]> entry : this.byMeta.int2ObjectEntrySet())
+                {
+                    this.merged.put(entry.getIntKey(), merge(entry.getValue(), this.wildcard));
+                }
+            }
+            else
+            {
+                int[] ids = this.byMeta.get(meta);
+                if (ids == null) ids = NO_IDS;
+                if (contains(ids, oreID)) return false;
+                ids = merge(ids, new int[] { oreID });
+                this.byMeta.put(meta, ids);
+                this.merged.put(meta, merge(ids, this.wildcard));
+            }
+            return true;
+        }
+
+        private static boolean contains(int[] ids, int oreID)
+        {
+            for (int id : ids)
+            {
+                if (id == oreID) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the IDs of first followed by those of second that are not in first
+         */
+        private static int[] merge(int[] first, int[] second)
+        {
+            int[] ret = Arrays.copyOf(first, first.length + second.length);
+            int size = first.length;
+            for (int id : second)
+            {
+                if (!contains(first, id)) ret[size++] = id;
+            }
+            return size == ret.length ? ret : Arrays.copyOf(ret, size);
         }
-        List<Integer> ids = stackToId.get(id);
-        if (ids != null) set.addAll(ids);
-        ids = stackToId.get(id | ((stack.getItemDamage() + 1) << 16));
-        if (ids != null) set.addAll(ids);
-
-        Integer[] tmp = set.toArray(new Integer[set.size()]);
-        int[] ret = new int[tmp.length];
-        for (int x = 0; x < tmp.length; x++)
-            ret[x] = tmp[x];
-        return ret;
+    }
+
+    /**
+     * @return false if the ore was already registered to the ID for the item and metadata
+     */
+    private static boolean addOreID(int itemID, ItemStack ore, int oreID)
+    {
+        ItemOreIDs ids = stackToId.get(itemID);
+        if (ids == null)
+        {
+            ids = new ItemOreIDs();
+            stackToId.put(itemID, ids);
+        }
+        ids.metadataDiffers |= ore.getItemDamage() != ore.getMetadata();
+        // Unregistered items can only support a single value per ore, whatever their metadata
+        return ids.add(itemID == -1 ? WILDCARD_VALUE : ore.getItemDamage(), oreID);
     }
 
     /**
@@ -660,7 +792,7 @@ public class OreDictionary
         // IT should be noted that -1 will fail the gate further down, if an entry already exists with value -1 for this name. This is what is broken and being warned about.
         // APPARENTLY it's quite common to do this. OreDictionary should be considered alongside Recipes - you can't make them properly until you've registered with the game.
         ResourceLocation registryName = ore.getItem().delegate.name();
-        int hash;
+        int itemID;
         if (registryName == null)
         {
             ModContainer modContainer = Loader.instance().activeModContainer();
@@ -668,26 +800,15 @@ public class OreDictionary
             FMLLog.bigWarning("A broken ore dictionary registration with name {} has occurred. It adds an item (type: {}) which is currently unknown to the game registry. This dictionary item can only support a single value when"
                     + " registered with ores like this, and NO I am not going to turn this spam off. Just register your ore dictionary entries after the GameRegistry.\n"
                     + "TO USERS: YES this is a BUG in the mod " + modContainerName + " report it to them!", name, ore.getItem().getClass());
-            hash = -1;
+            itemID = -1;
         }
         else
         {
-            hash = Item.REGISTRY.getIDForObject(ore.getItem().delegate.get());
-        }
-        if (ore.getItemDamage() != WILDCARD_VALUE)
-        {
-            hash |= ((ore.getItemDamage() + 1) << 16); // +1 so 0 is significant
+            itemID = Item.REGISTRY.getIDForObject(ore.getItem().delegate.get());
         }
 
         //Add things to the baked version, and prevent duplicates
-        List<Integer> ids = stackToId.get(hash);
-        if (ids != null && ids.contains(oreID)) return;
-        if (ids == null)
-        {
-            ids = Lists.newArrayList();
-            stackToId.put(hash, ids);
-        }
-        ids.add(oreID);
+        if (!addOreID(itemID, ore, oreID)) return;
 
         //Add to the unbaked version
         ore = ore.copy();
@@ -730,23 +851,18 @@ public class OreDictionary
             {
                 // HACK: use the registry name's ID. It is unique and it knows about substitutions
                 ResourceLocation name = ore.getItem().delegate.name();
-                int hash;
+                int itemID;
                 if (name == null)
                 {
                     FMLLog.log.debug("Defaulting unregistered ore dictionary entry for ore dictionary {}: type {} to -1", getOreName(id), ore.getItem().getClass());
-                    hash = -1;
+                    itemID = -1;
                 }
                 else
                 {
-                    hash = Item.REGISTRY.getIDForObject(ore.getItem().delegate.get());
-                }
-                if (ore.getItemDamage() != WILDCARD_VALUE)
-                {
-                    hash |= ((ore.getItemDamage() + 1) << 16); // +1 so meta 0 is significant
+                    itemID = Item.REGISTRY.getIDForObject(ore.getItem().delegate.get());
                 }
-                List<Integer> ids = stackToId.computeIfAbsent(hash, k -> Lists.newArrayList());
-                ids.add(id);
-                //System.out.println(id + " " + getOreName(id) + " " + Integer.toHexString(hash) + " " + ore);
+                addOreID(itemID, ore, id);
+                //System.out.println(id + " " + getOreName(id) + " " + itemID + ":" + ore.getItemDamage() + " " + ore);
             }
         }
     }
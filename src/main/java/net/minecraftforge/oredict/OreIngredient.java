@@ -36,11 +36,21 @@ public class OreIngredient extends Ingredient
     private IntList itemIds = null;
     private ItemStack[] array = null;
     private int lastSizeA = -1, lastSizeL = -1;
+    private final int oreId;
 
     public OreIngredient(String ore)
     {
         super(0);
         ores = OreDictionary.getOres(ore);
+        oreId = OreDictionary.getOreID(ore);
+    }
+
+    /**
+     * @return the id of the ore name this ingredient matches, see {@link OreDictionary#getOreIDs(ItemStack)}
+     */
+    public int getOreId()
+    {
+        return oreId;
     }
 
     @Override
@@ -101,6 +111,11 @@ public class OreIngredient extends Ingredient
         if (input == null)
             return false;
 
+        // Registered items are looked up in the precomputed ids of the dictionary, which holds the same entries as the list.
+        // The ids are keyed by damage, so items whose metadata differs from it are compared against the list like before
+        if (input.isEmpty() || (input.getItem().delegate.name() != null && OreDictionary.isKeyedByMetadata(input)))
+            return OreDictionary.hasOreID(input, this.oreId);
+
         for (ItemStack target : this.ores)
             if (OreDictionary.itemMatches(target, input, false))
                 return true;
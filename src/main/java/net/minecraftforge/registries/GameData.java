@@ -47,6 +47,7 @@ import net.minecraft.util.registry.RegistryNamespacedDefaultedByKey;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.crafting.CraftingRecipeIndex;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.RegistryEvent.MissingMappings;
 import net.minecraftforge.fml.common.EnhancedRuntimeException;
@@ -402,10 +403,22 @@ public class GameData
         }
     }
 
-    private static class RecipeCallbacks implements IForgeRegistry.ValidateCallback<IRecipe>, IForgeRegistry.MissingFactory<IRecipe>
+    private static class RecipeCallbacks implements IForgeRegistry.ValidateCallback<IRecipe>, IForgeRegistry.MissingFactory<IRecipe>, IForgeRegistry.AddCallback<IRecipe>, IForgeRegistry.ClearCallback<IRecipe>
     {
         static final RecipeCallbacks INSTANCE = new RecipeCallbacks();
 
+        @Override
+        public void onAdd(IForgeRegistryInternal<IRecipe> owner, RegistryManager stage, int id, IRecipe obj, @Nullable IRecipe oldObj)
+        {
+            if (stage == RegistryManager.ACTIVE) CraftingRecipeIndex.invalidate();
+        }
+
+        @Override
+        public void onClear(IForgeRegistryInternal<IRecipe> owner, RegistryManager stage)
+        {
+            if (stage == RegistryManager.ACTIVE) CraftingRecipeIndex.invalidate();
+        }
+
         @Override
         public void onValidate(IForgeRegistryInternal<IRecipe> owner, RegistryManager stage, int id, ResourceLocation key, IRecipe obj)
         {
@@ -0,0 +1,136 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.server.command;
+
+import java.text.DecimalFormat;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import net.minecraftforge.common.chunkio.ChunkIOStage;
+
+class CommandChunkIO extends CommandBase
+{
+    private static final DecimalFormat TIME_FORMATTER = new DecimalFormat("########0.000");
+
+    @Override
+    public String getName()
+    {
+        return "chunkio";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender)
+    {
+        return "commands.forge.chunkio.usage";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel()
+    {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+    {
+        if (args.length > 0)
+        {
+            if (!"reset".equals(args[0]))
+            {
+                throw new WrongUsageException("commands.forge.chunkio.usage");
+            }
+
+            for (ChunkIOStage stage : ChunkIOStage.values())
+            {
+                stage.reset();
+            }
+            ChunkIOExecutor.resetCounters();
+
+            for (WorldServer world : DimensionManager.getWorlds())
+            {
+                AnvilChunkLoader loader = getLoader(world);
+
+                if (loader != null)
+                {
+                    loader.resetSaveCounters();
+                }
+
+                world.getPlayerChunkMap().resetChunkSendCounters();
+            }
+
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.reset"));
+            return;
+        }
+
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.summary",
+                ChunkIOExecutor.getQueueDepth(), ChunkIOExecutor.getPendingCount(), ChunkIOExecutor.getActiveThreads(), ChunkIOExecutor.getPoolSize()));
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.deferred",
+                ChunkIOExecutor.getDeferredLastTick(), ChunkIOExecutor.getDeferredTotal(), ChunkIOExecutor.getBudgetExceededTicks()));
+
+        for (ChunkIOStage stage : ChunkIOStage.values())
+        {
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.stage", stage.name().toLowerCase(), stage.getCount(),
+                    TIME_FORMATTER.format(stage.getAverageMillis()), TIME_FORMATTER.format(stage.getRecentMillis()), TIME_FORMATTER.format(stage.getMaxMillis())));
+        }
+
+        for (WorldServer world : DimensionManager.getWorlds())
+        {
+            AnvilChunkLoader loader = getLoader(world);
+
+            if (loader != null)
+            {
+                sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.saves", world.provider.getDimension(),
+                        loader.getPendingSaveCount(), loader.getPendingSaveBytes() / 1024L, loader.getSavedChunkCount(), loader.getRegionBatchCount(),
+                        loader.getThrottledSaveCount(), loader.getCallerWrittenBatchCount()));
+            }
+
+            PlayerChunkMap playerchunkmap = world.getPlayerChunkMap();
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.chunkio.sends", world.provider.getDimension(),
+                    playerchunkmap.getQueuedChunkSends(), playerchunkmap.getChunkSendQueueCount(), playerchunkmap.getDeepestChunkSendQueue(),
+                    playerchunkmap.getChunksSentLastTick(), playerchunkmap.getBytesSentLastTick() / 1024L, playerchunkmap.getChunksSentTotal(),
+                    playerchunkmap.getBudgetLimitedTicks()));
+        }
+    }
+
+    @Nullable
+    private static AnvilChunkLoader getLoader(WorldServer world)
+    {
+        return world.getChunkProvider().chunkLoader instanceof AnvilChunkLoader ? (AnvilChunkLoader)world.getChunkProvider().chunkLoader : null;
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos)
+    {
+        return args.length == 1 ? getListOfStringsMatchingLastWord(args, "reset") : Collections.<String>emptyList();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.command;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.entity.EnumCreatureType;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.util.CreatureTypeCounter;
+
+/**
+ * Compares the creature type counts used for the mob caps with a full scan of the loaded entities.
+ */
+class CommandCreatures extends CommandBase
+{
+    @Override
+    public String getName()
+    {
+        return "creatures";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender)
+    {
+        return "commands.forge.creatures.usage";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel()
+    {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+    {
+        int dim = args.length > 0 ? parseInt(args[0]) : sender.getEntityWorld().provider.getDimension();
+        WorldServer world = DimensionManager.getWorld(dim);
+        if (world == null)
+        {
+            throw new CommandException("commands.forge.creatures.noWorld", dim);
+        }
+
+        boolean mismatch = false;
+        for (EnumCreatureType type : EnumCreatureType.values())
+        {
+            int counted = world.countEntities(type, false);
+            int scanned = CreatureTypeCounter.scan(world.loadedEntityList, type, false);
+            int countedForSpawn = world.countEntities(type, true);
+            int scannedForSpawn = CreatureTypeCounter.scan(world.loadedEntityList, type, true);
+            mismatch |= counted != scanned || countedForSpawn != scannedForSpawn;
+
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.creatures.type", type.name().toLowerCase(),
+                    counted, scanned, countedForSpawn, scannedForSpawn));
+        }
+
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, mismatch ? "commands.forge.creatures.mismatch" : "commands.forge.creatures.match", dim));
+    }
+}
@@ -59,7 +59,15 @@ class CommandGenerate extends CommandBase
     @Override
     public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
     {
-        // x y z chunkCount [dim] [interval]
+        // x y z chunkCount [dim] [interval] [threads] | cancel [dim]
+        if (args.length >= 1 && "cancel".equals(args[0]))
+        {
+            int dim = args.length >= 2 ? parseInt(args[1]) : sender.getEntityWorld().provider.getDimension();
+            boolean cancelled = ParallelChunkGenWorker.cancel(dim);
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, cancelled ? "commands.forge.gen.cancel" : "commands.forge.gen.cancel_none", dim));
+            return;
+        }
+
         if (args.length < 4)
         {
             throw new WrongUsageException("commands.forge.gen.usage");
@@ -71,6 +79,20 @@ class CommandGenerate extends CommandBase
         int interval = args.length >= 6 ? parseInt(args[5]) : -1;
         BlockPos chunkpos = new BlockPos(blockpos.getX() >> 4, 0, blockpos.getZ() >> 4);
 
+        if (args.length >= 7)
+        {
+            int threads = parseInt(args[6], 0, 64);
+            if (ParallelChunkGenWorker.isRunning(dim))
+            {
+                throw new CommandException("commands.forge.gen.running", dim, dim);
+            }
+
+            ParallelChunkGenWorker worker = new ParallelChunkGenWorker(sender, chunkpos, count, dim, interval, threads);
+            sender.sendMessage(worker.getStartMessage(sender));
+            ParallelChunkGenWorker.addWorker(worker);
+            return;
+        }
+
         ChunkGenWorker worker = new ChunkGenWorker(sender, chunkpos, count, dim, interval);
         sender.sendMessage(worker.getStartMessage(sender));
         WorldWorkerManager.addWorker(worker);
@@ -79,6 +101,10 @@ class CommandGenerate extends CommandBase
     @Override
     public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos)
     {
+        if (args.length == 1 && !args[0].isEmpty() && "cancel".startsWith(args[0]))
+        {
+            return getListOfStringsMatchingLastWord(args, "cancel");
+        }
         if (args.length < 4)
         {
             return getTabCompletionCoordinate(args, 0, targetPos);
@@ -0,0 +1,103 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.server.command;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import org.bukkit.craftbukkit.scheduler.CraftPluginTaskTime;
+import org.bukkit.craftbukkit.scheduler.CraftScheduler;
+
+class CommandScheduler extends CommandBase
+{
+    private static final DecimalFormat TIME_FORMATTER = new DecimalFormat("########0.000");
+    private static final int REPORT_LINES = 10;
+
+    @Override
+    public String getName()
+    {
+        return "scheduler";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender)
+    {
+        return "commands.forge.scheduler.usage";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel()
+    {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+    {
+        CraftScheduler scheduler = server.server.getScheduler();
+
+        if (args.length > 0)
+        {
+            if (!"reset".equals(args[0]))
+            {
+                throw new WrongUsageException("commands.forge.scheduler.usage");
+            }
+
+            scheduler.resetStatistics();
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.scheduler.reset"));
+            return;
+        }
+
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.scheduler.summary",
+                scheduler.getScheduledTaskCount(), scheduler.getSyncTasksLastTick()));
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.scheduler.async",
+                scheduler.getAsyncQueueSize(), scheduler.getAsyncQueuePeak(), scheduler.getAsyncActiveThreads(), scheduler.getAsyncPoolSize(),
+                scheduler.getAsyncCompletedTasks()));
+
+        int ticks = Math.max(1, scheduler.getTaskTimeTicks());
+        List<CraftPluginTaskTime> times = new ArrayList<CraftPluginTaskTime>(scheduler.getTaskTimes());
+        times.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.scheduler.header", scheduler.getTaskTimeTicks()));
+
+        for (int i = 0; i < times.size() && i < REPORT_LINES; ++i)
+        {
+            CraftPluginTaskTime time = times.get(i);
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.scheduler.plugin", time.getPlugin(),
+                    TIME_FORMATTER.format(time.getTotalNanos() / 1.0E6D / ticks), TIME_FORMATTER.format(time.getLastTickNanos() / 1.0E6D),
+                    TIME_FORMATTER.format(time.getMaxTickNanos() / 1.0E6D), time.getRuns()));
+        }
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos)
+    {
+        return args.length == 1 ? getListOfStringsMatchingLastWord(args, "reset") : Collections.<String>emptyList();
+    }
+}
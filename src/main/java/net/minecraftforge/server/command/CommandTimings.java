@@ -0,0 +1,161 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.server.timings.Timings;
+import net.minecraftforge.server.timings.TimingsCategory;
+import net.minecraftforge.server.timings.TimingsEntry;
+import net.minecraftforge.server.timings.TimingsExporter;
+
+class CommandTimings extends CommandBase
+{
+    private static final DecimalFormat TIME_FORMATTER = new DecimalFormat("########0.000");
+    private static final int REPORT_LINES = 10;
+
+    @Override
+    public String getName()
+    {
+        return "timings";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender)
+    {
+        return "commands.forge.timings.usage";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel()
+    {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+    {
+        String action = args.length > 0 ? args[0] : "report";
+
+        if ("on".equals(action) || "off".equals(action))
+        {
+            Timings.setEnabled("on".equals(action));
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings." + action));
+        }
+        else if ("reset".equals(action))
+        {
+            Timings.reset();
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.reset"));
+        }
+        else if ("export".equals(action))
+        {
+            try
+            {
+                List<File> files = TimingsExporter.export(server.getFile("timings"));
+                for (File file : files)
+                {
+                    sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.exported", file.getPath()));
+                }
+            }
+            catch (IOException e)
+            {
+                FMLLog.log.error("Could not export timings", e);
+                throw new CommandException("commands.forge.timings.exportFailed", e.getMessage());
+            }
+        }
+        else if ("report".equals(action))
+        {
+            report(sender, args.length > 1 ? args[1] : "owners");
+        }
+        else
+        {
+            throw new WrongUsageException(getUsage(sender));
+        }
+    }
+
+    private void report(ICommandSender sender, String type) throws CommandException
+    {
+        List<TimingsEntry> entries = Timings.collect();
+        int ticks = Math.max(1, Timings.getSampledTicks());
+
+        if ("owners".equals(type))
+        {
+            sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.header", type, Timings.getSampledTicks()));
+            int lines = 0;
+            for (Map.Entry<String, Long> owner : TimingsExporter.getOwnerTotals(entries).entrySet())
+            {
+                if (lines++ == REPORT_LINES)
+                {
+                    break;
+                }
+                sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.owner", owner.getKey(),
+                        TIME_FORMATTER.format(owner.getValue() / 1.0E6D / ticks)));
+            }
+            return;
+        }
+
+        TimingsCategory category = TimingsCategory.byId(type);
+        if (category == null)
+        {
+            throw new WrongUsageException("commands.forge.timings.usage");
+        }
+
+        sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.header", type, Timings.getSampledTicks()));
+        entries.stream()
+                .filter(entry -> entry.getCategory() == category)
+                .limit(REPORT_LINES)
+                .forEach(entry -> sender.sendMessage(TextComponentHelper.createComponentTranslation(sender, "commands.forge.timings.entry", entry.getName(), entry.getOwner(),
+                        TIME_FORMATTER.format(entry.getTotalNanos() / 1.0E6D / ticks), TIME_FORMATTER.format(entry.getAverageNanos() / 1.0E3D), entry.getCount())));
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos)
+    {
+        if (args.length == 1)
+        {
+            return getListOfStringsMatchingLastWord(args, "report", "export", "reset", "on", "off");
+        }
+        if (args.length == 2 && "report".equals(args[0]))
+        {
+            List<String> types = new ArrayList<String>();
+            types.add("owners");
+            for (TimingsCategory category : TimingsCategory.values())
+            {
+                types.add(category.getId());
+            }
+            return getListOfStringsMatchingLastWord(args, types);
+        }
+        return Collections.<String>emptyList();
+    }
+}
@@ -34,6 +34,10 @@ public class ForgeCommand extends CommandTreeBase
         super.addSubcommand(new CommandEntity());
         super.addSubcommand(new CommandSetDimension());
         super.addSubcommand(new CommandDimensions());
+        super.addSubcommand(new CommandChunkIO());
+        super.addSubcommand(new CommandScheduler());
+        super.addSubcommand(new CommandTimings());
+        super.addSubcommand(new CommandCreatures());
         super.addSubcommand(new CommandTreeHelp(this));
     }
 
@@ -0,0 +1,717 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.text.TextComponentBase;
+import net.minecraft.world.MinecraftException;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.gen.ChunkGeneratorHell;
+import net.minecraft.world.gen.ChunkGeneratorOverworld;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.gen.IChunkGenerator;
+import net.minecraft.world.storage.MapStorage;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.WorldWorkerManager;
+import net.minecraftforge.common.WorldWorkerManager.IWorker;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.event.terraingen.ChunkGeneratorEvent;
+import net.minecraftforge.event.terraingen.InitNoiseGensEvent;
+import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.fml.common.registry.ForgeRegistries;
+
+/**
+ * Generates the same chunks as {@link ChunkGenWorker}, but runs the terrain generation of upcoming chunks on worker threads.
+ * <li>Chunks are processed by region, in a spiral of regions around the start and row by row within a region, so the
+ *     chunks saved one after another end up in the same region file.</li>
+ * <li>The workers only fill in the blocks and biomes of a chunk on their own copy of the generator, see
+ *     {@link ChunkGeneratorOverworld#createTerrainWorker}. Creating the chunks, which fires AttachCapabilitiesEvent,
+ *     adding them to the world, registering their structures and populating them stays on the main thread, in the same
+ *     order as before.</li>
+ * <li>Generators that can not be copied, biomes other than the vanilla ones, or terrain events with listeners, make it
+ *     generate on the main thread only.</li>
+ * <li>The progress is stored in the map storage after every region, so the task resumes after a restart.</li>
+ */
+public class ParallelChunkGenWorker implements IWorker
+{
+    private static final int REGION_SHIFT = 5;
+    private static final int MAX_PENDING_SAVES = 1024;
+    private static final Map<Integer, ParallelChunkGenWorker> RUNNING = Maps.newHashMap();
+
+    private final ICommandSender listener;
+    private final BlockPos start;
+    private final int total;
+    private final int dim;
+    private final int interval;
+    private final int threads;
+    private final int notificationFrequency;
+    private final int radius;
+    final List<ChunkPos> regions;
+    private final Cursor consumer;
+    private final Cursor producer;
+    /** Chunks being generated by the workers, by {@link ChunkPos#asLong} */
+    private final Long2ObjectMap<Future<Terrain>> jobs = new Long2ObjectOpenHashMap<Future<Terrain>>();
+    private final int maxInFlight;
+    private ExecutorService executor;
+    private BlockingQueue<IChunkGenerator> generators;
+    private boolean started = false;
+    private boolean stopped = false;
+    private Boolean keepingLoaded;
+    private int done;
+    private int doneAtStart;
+    private int produced;
+    private int genned;
+    private long startTime;
+    private int lastNotification = 0;
+    private long lastNotificationTime;
+
+    public ParallelChunkGenWorker(ICommandSender listener, BlockPos start, int total, int dim, int interval, int threads)
+    {
+        this(listener, start, total, dim, interval, threads, 0, 0);
+    }
+
+    private ParallelChunkGenWorker(ICommandSender listener, BlockPos start, int total, int dim, int interval, int threads, int region, int genned)
+    {
+        this.listener = listener;
+        this.start = start;
+        this.total = total;
+        this.dim = dim;
+        this.interval = interval;
+        this.threads = threads;
+        this.notificationFrequency = interval != -1 ? interval : Math.max(total / 20, 100); //Every 5% or every 100, whichever is more.
+        int r = 0;
+        while ((long)(2 * r + 1) * (2 * r + 1) < total)
+            r++;
+        this.radius = r;
+        this.regions = buildRegions();
+        this.maxInFlight = Math.max(32, threads * 16);
+        this.consumer = new Cursor(region);
+        this.producer = new Cursor(region);
+        for (int i = 0; i < region && i < regions.size(); i++)
+            this.done += getTargets(regions.get(i)).length;
+        this.doneAtStart = this.done;
+        this.produced = this.done;
+        this.genned = genned;
+        this.startTime = System.currentTimeMillis();
+        this.lastNotificationTime = this.startTime;
+    }
+
+    /**
+     * The position of a chunk in the spiral of {@link ChunkGenWorker#buildQueue}, relative to its start.
+     */
+    static long spiralIndex(int dx, int dz)
+    {
+        long r = Math.max(Math.abs(dx), Math.abs(dz));
+        if (r == 0)
+            return 0;
+
+        long base = (2 * r - 1) * (2 * r - 1);
+        if (dx == r && dz > -r)
+            return base + dz + r - 1;
+        if (dz == r)
+            return base + 2 * r + (r - 1 - dx);
+        if (dx == -r)
+            return base + 4 * r + (r - 1 - dz);
+        return base + 6 * r + (dx + r - 1);
+    }
+
+    private List<ChunkPos> buildRegions()
+    {
+        int cx = start.getX() >> REGION_SHIFT;
+        int cz = start.getZ() >> REGION_SHIFT;
+        List<ChunkPos> ret = Lists.newArrayList();
+        for (int x = (start.getX() - radius) >> REGION_SHIFT; x <= (start.getX() + radius) >> REGION_SHIFT; x++)
+            for (int z = (start.getZ() - radius) >> REGION_SHIFT; z <= (start.getZ() + radius) >> REGION_SHIFT; z++)
+                ret.add(new ChunkPos(x, z));
+        ret.sort(Comparator.comparingLong(pos -> spiralIndex(pos.x - cx, pos.z - cz)));
+        return ret;
+    }
+
+    /**
+     * @return the chunks of the region that are part of the spiral, row by row
+     */
+    long[] getTargets(ChunkPos region)
+    {
+        int minX = Math.max(region.x << REGION_SHIFT, start.getX() - radius);
+        int maxX = Math.min((region.x << REGION_SHIFT) + (1 << REGION_SHIFT) - 1, start.getX() + radius);
+        int minZ = Math.max(region.z << REGION_SHIFT, start.getZ() - radius);
+        int maxZ = Math.min((region.z << REGION_SHIFT) + (1 << REGION_SHIFT) - 1, start.getZ() + radius);
+        long[] ret = new long[1 << (REGION_SHIFT * 2)];
+        int count = 0;
+        for (int z = minZ; z <= maxZ; z++)
+            for (int x = minX; x <= maxX; x++)
+                if (spiralIndex(x - start.getX(), z - start.getZ()) < total)
+                    ret[count++] = ChunkPos.asLong(x, z);
+        return Arrays.copyOf(ret, count);
+    }
+
+    public TextComponentBase getStartMessage(ICommandSender sender)
+    {
+        return TextComponentHelper.createComponentTranslation(sender, "commands.forge.gen.start", total, start.getX(), start.getZ(), dim);
+    }
+
+    @Override
+    public boolean hasWork()
+    {
+        return !stopped;
+    }
+
+    @Override
+    public boolean doWork()
+    {
+        if (stopped)
+        {
+            return false;
+        }
+
+        WorldServer world = DimensionManager.getWorld(dim);
+        if (world == null)
+        {
+            DimensionManager.initDimension(dim);
+            world = DimensionManager.getWorld(dim);
+            if (world == null)
+            {
+                listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.dim_fail", dim));
+                stop(false);
+                return false;
+            }
+        }
+
+        if (!started)
+        {
+            start(world);
+        }
+
+        AnvilChunkLoader loader = world.getChunkProvider().chunkLoader instanceof AnvilChunkLoader ? (AnvilChunkLoader)world.getChunkProvider().chunkLoader : null;
+        if (loader != null && loader.getPendingSaveCount() > MAX_PENDING_SAVES)
+        {
+            if (lastNotificationTime < System.currentTimeMillis() - 10*1000)
+            {
+                sendProgress();
+            }
+            return false;
+        }
+
+        // While we work we don't want to cause world load spam so pause unloading the world.
+        if (keepingLoaded == null)
+        {
+            keepingLoaded = DimensionManager.keepDimensionLoaded(dim, true);
+        }
+
+        submit(world.getChunkProvider());
+
+        if (!consumer.hasNext())
+        {
+            listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.complete", genned, total, dim));
+            stop(false);
+            return false;
+        }
+
+        long next = consumer.peek();
+        int x = (int)next;
+        int z = (int)(next >>> 32);
+
+        // Wait for the workers instead of generating on the main thread, the chunks are ready in a later tick
+        if (!isReady(x, z) || !isReady(x + 1, z) || !isReady(x + 1, z + 1) || !isReady(x, z + 1))
+        {
+            return false;
+        }
+
+        Chunk target = obtain(world, x, z);
+        Chunk[] chunks = { target };
+
+        if (!target.isTerrainPopulated())
+        {
+            // Same order as ChunkGenWorker, so the target is populated once its last neighbour is added.
+            chunks = new Chunk[] {
+                target,
+                obtain(world, x + 1, z),
+                obtain(world, x + 1, z + 1),
+                obtain(world, x,     z + 1),
+            };
+            try
+            {
+                world.getChunkProvider().chunkLoader.saveChunk(world, target);
+            }
+            catch (IOException | MinecraftException e)
+            {
+                listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.saveerror", e.getMessage()));
+            }
+            genned++;
+        }
+        else
+        {
+            // The neighbours of a populated chunk already exist, a worker may have raced a player to one of them
+            discard(x + 1, z);
+            discard(x + 1, z + 1);
+            discard(x, z + 1);
+        }
+
+        for (Chunk chunk : chunks)
+        {
+            PlayerChunkMapEntry watchers = world.getPlayerChunkMap().getEntry(chunk.x, chunk.z);
+            if (watchers == null)
+                world.getChunkProvider().queueUnload(chunk);
+        }
+
+        done++;
+        if (consumer.advance())
+        {
+            save(consumer.region + 1);
+        }
+
+        if (++lastNotification >= notificationFrequency || lastNotificationTime < System.currentTimeMillis() - 60*1000)
+        {
+            sendProgress();
+        }
+        return true;
+    }
+
+    private void start(WorldServer world)
+    {
+        started = true;
+        save(consumer.region + 1);
+
+        List<IChunkGenerator> workers = createGenerators(world);
+        if (workers == null)
+        {
+            if (threads > 0)
+            {
+                listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.threads_fail", dim));
+            }
+            return;
+        }
+
+        listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.threads", threads));
+        generators = new ArrayBlockingQueue<IChunkGenerator>(threads, false, workers);
+        AtomicInteger count = new AtomicInteger(1);
+        executor = Executors.newFixedThreadPool(threads, r ->
+        {
+            Thread thread = new Thread(r, "Chunk Gen Thread-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return one copy of the generator of the world per thread, or null if the terrain can only be generated on the main thread
+     */
+    @Nullable
+    private List<IChunkGenerator> createGenerators(WorldServer world)
+    {
+        // Listeners of the events fired during generateTerrain, or with noise generators of their own, may not be thread safe
+        if (threads <= 0 || MinecraftForge.EVENT_BUS.hasListeners(ChunkGeneratorEvent.ReplaceBiomeBlocks.class) ||
+            MinecraftForge.EVENT_BUS.hasListeners(ChunkGeneratorEvent.InitNoiseField.class) ||
+            MinecraftForge.TERRAIN_GEN_BUS.hasListeners(InitNoiseGensEvent.class))
+        {
+            return null;
+        }
+
+        // Biomes fill in the top blocks of the terrain, only the vanilla ones are known to do that safely on several threads
+        for (Biome biome : ForgeRegistries.BIOMES)
+        {
+            if (!biome.getClass().getName().startsWith("net.minecraft.world.biome."))
+            {
+                return null;
+            }
+        }
+
+        IChunkGenerator generator = world.getChunkProvider().chunkGenerator;
+        List<IChunkGenerator> ret = Lists.newArrayListWithCapacity(threads);
+        for (int i = 0; i < threads; i++)
+        {
+            IChunkGenerator worker = null;
+            if (generator instanceof ChunkGeneratorOverworld)
+                worker = ((ChunkGeneratorOverworld)generator).createTerrainWorker();
+            else if (generator instanceof ChunkGeneratorHell)
+                worker = ((ChunkGeneratorHell)generator).createTerrainWorker();
+
+            if (worker == null)
+                return null;
+            ret.add(worker);
+        }
+        return ret;
+    }
+
+    /**
+     * Hands the next chunks to the workers, staying ahead of the main thread by a bounded number of chunks.
+     */
+    private void submit(ChunkProviderServer provider)
+    {
+        if (executor == null)
+        {
+            return;
+        }
+
+        while (jobs.size() < maxInFlight && produced - done < maxInFlight * 4 && producer.hasNext())
+        {
+            long next = producer.peek();
+            int x = (int)next;
+            int z = (int)(next >>> 32);
+            schedule(provider, x, z);
+            schedule(provider, x + 1, z);
+            schedule(provider, x + 1, z + 1);
+            schedule(provider, x, z + 1);
+            producer.advance();
+            produced++;
+        }
+    }
+
+    private void schedule(ChunkProviderServer provider, int x, int z)
+    {
+        long key = ChunkPos.asLong(x, z);
+        if (jobs.containsKey(key) || provider.isChunkGeneratedAt(x, z))
+        {
+            return;
+        }
+
+        jobs.put(key, executor.submit(() ->
+        {
+            IChunkGenerator generator = generators.take();
+            try
+            {
+                ChunkPrimer primer = new ChunkPrimer();
+                Biome[] biomes;
+                if (generator instanceof ChunkGeneratorOverworld)
+                    biomes = ((ChunkGeneratorOverworld)generator).generateTerrain(x, z, primer).clone();
+                else
+                    biomes = ((ChunkGeneratorHell)generator).generateTerrain(x, z, primer);
+                return new Terrain(primer, biomes);
+            }
+            finally
+            {
+                generators.add(generator);
+            }
+        }));
+    }
+
+    private boolean isReady(int x, int z)
+    {
+        Future<Terrain> job = jobs.get(ChunkPos.asLong(x, z));
+        return job == null || job.isDone();
+    }
+
+    /**
+     * @return the chunk at the position, added to the world from its worker if it has one
+     */
+    private Chunk obtain(WorldServer world, int x, int z)
+    {
+        Future<Terrain> job = jobs.remove(ChunkPos.asLong(x, z));
+        if (job != null)
+        {
+            try
+            {
+                Terrain terrain = job.get();
+                IChunkGenerator generator = world.getChunkProvider().chunkGenerator;
+                return world.getChunkProvider().provideGeneratedChunk(x, z, () -> generator instanceof ChunkGeneratorOverworld ?
+                        ((ChunkGeneratorOverworld)generator).createChunk(x, z, terrain.primer, terrain.biomes) :
+                        ((ChunkGeneratorHell)generator).createChunk(x, z, terrain.primer, terrain.biomes));
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                FMLLog.log.error("Failed to generate chunk {}, {} of dimension {} on a worker thread, generating it on the main thread", x, z, dim, e);
+            }
+        }
+        return world.getChunkFromChunkCoords(x, z);
+    }
+
+    private void discard(int x, int z)
+    {
+        Future<Terrain> job = jobs.remove(ChunkPos.asLong(x, z));
+        if (job != null)
+        {
+            job.cancel(false);
+        }
+    }
+
+    private void sendProgress()
+    {
+        long now = System.currentTimeMillis();
+        double rate = now > startTime ? (done - doneAtStart) * 1000.0D / (now - startTime) : 0.0D;
+        String eta = rate > 0 ? formatDuration((long)((total - done) / rate)) : "?";
+        listener.sendMessage(TextComponentHelper.createComponentTranslation(listener, "commands.forge.gen.progress_rate", done, total, String.format("%.1f", rate), eta));
+        lastNotification = 0;
+        lastNotificationTime = now;
+    }
+
+    private static String formatDuration(long seconds)
+    {
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private void save(int region)
+    {
+        SavedTasks tasks = SavedTasks.get();
+        if (tasks != null)
+        {
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setInteger("Dim", dim);
+            tag.setInteger("X", start.getX());
+            tag.setInteger("Z", start.getZ());
+            tag.setInteger("Total", total);
+            tag.setInteger("Interval", interval);
+            tag.setInteger("Threads", threads);
+            tag.setInteger("Region", region);
+            tag.setInteger("Genned", genned);
+            tasks.tasks.put(dim, tag);
+            tasks.markDirty();
+        }
+    }
+
+    /**
+     * @param keepSaved whether the task resumes once the server starts again
+     */
+    private void stop(boolean keepSaved)
+    {
+        stopped = true;
+        RUNNING.remove(dim, this);
+
+        if (executor != null)
+        {
+            for (Future<Terrain> job : jobs.values())
+                job.cancel(false);
+            jobs.clear();
+            executor.shutdownNow();
+            executor = null;
+        }
+
+        if (keepingLoaded != null && keepingLoaded)
+        {
+            DimensionManager.keepDimensionLoaded(dim, false);
+        }
+
+        if (!keepSaved)
+        {
+            SavedTasks tasks = SavedTasks.get();
+            if (tasks != null && tasks.tasks.remove(dim) != null)
+            {
+                tasks.markDirty();
+            }
+        }
+    }
+
+    /**
+     * @return false if a task is already generating chunks in the dimension
+     */
+    public static boolean addWorker(ParallelChunkGenWorker worker)
+    {
+        if (RUNNING.containsKey(worker.dim))
+        {
+            return false;
+        }
+
+        RUNNING.put(worker.dim, worker);
+        WorldWorkerManager.addWorker(worker);
+        return true;
+    }
+
+    public static boolean isRunning(int dim)
+    {
+        return RUNNING.containsKey(dim);
+    }
+
+    /**
+     * @return false if no task was generating chunks in the dimension
+     */
+    public static boolean cancel(int dim)
+    {
+        ParallelChunkGenWorker worker = RUNNING.get(dim);
+        if (worker == null)
+        {
+            return false;
+        }
+
+        worker.stop(false);
+        return true;
+    }
+
+    //Internal only, used to pick up the tasks that were running when the server was stopped.
+    public static void resumeSaved(MinecraftServer server)
+    {
+        SavedTasks tasks = SavedTasks.get();
+        if (tasks == null)
+        {
+            return;
+        }
+
+        for (NBTTagCompound tag : tasks.tasks.values())
+        {
+            ParallelChunkGenWorker worker = new ParallelChunkGenWorker(server, new BlockPos(tag.getInteger("X"), 0, tag.getInteger("Z")), tag.getInteger("Total"),
+                    tag.getInteger("Dim"), tag.getInteger("Interval"), tag.getInteger("Threads"), tag.getInteger("Region"), tag.getInteger("Genned"));
+            if (addWorker(worker))
+            {
+                server.sendMessage(TextComponentHelper.createComponentTranslation(server, "commands.forge.gen.resume", worker.total, worker.start.getX(),
+                        worker.start.getZ(), worker.dim, worker.done, worker.total));
+            }
+        }
+    }
+
+    //Internal only, used to release the threads when the server shuts down. The tasks stay saved and resume on the next start.
+    public static void stopAll()
+    {
+        for (ParallelChunkGenWorker worker : Lists.newArrayList(RUNNING.values()))
+        {
+            worker.stop(true);
+        }
+    }
+
+    /**
+     * The blocks and biomes of a chunk, generated by a worker for the main thread to create the chunk from.
+     */
+    private static class Terrain
+    {
+        private final ChunkPrimer primer;
+        private final Biome[] biomes;
+
+        private Terrain(ChunkPrimer primer, Biome[] biomes)
+        {
+            this.primer = primer;
+            this.biomes = biomes;
+        }
+    }
+
+    /**
+     * Walks the chunks of the regions in order, moving on to the next region that has chunks when one is done.
+     */
+    private class Cursor
+    {
+        private int region;
+        private long[] chunks = new long[0];
+        private int index = 0;
+
+        private Cursor(int region)
+        {
+            this.region = region - 1;
+        }
+
+        private boolean hasNext()
+        {
+            while (index >= chunks.length)
+            {
+                if (region + 1 >= regions.size())
+                {
+                    return false;
+                }
+                chunks = getTargets(regions.get(++region));
+                index = 0;
+            }
+            return true;
+        }
+
+        private long peek()
+        {
+            return chunks[index];
+        }
+
+        /**
+         * @return true if that was the last chunk of the region
+         */
+        private boolean advance()
+        {
+            return ++index >= chunks.length;
+        }
+    }
+
+    /**
+     * The unfinished tasks of all dimensions, stored with the overworld.
+     */
+    public static class SavedTasks extends WorldSavedData
+    {
+        private static final String NAME = "forge_chunk_gen";
+        private final Map<Integer, NBTTagCompound> tasks = Maps.newHashMap();
+
+        public SavedTasks(String name)
+        {
+            super(name);
+        }
+
+        @Nullable
+        private static SavedTasks get()
+        {
+            WorldServer overworld = DimensionManager.getWorld(0);
+            if (overworld == null)
+            {
+                return null;
+            }
+
+            MapStorage storage = overworld.getMapStorage();
+            SavedTasks data = (SavedTasks)storage.getOrLoadData(SavedTasks.class, NAME);
+            if (data == null)
+            {
+                data = new SavedTasks(NAME);
+                storage.setData(NAME, data);
+            }
+            return data;
+        }
+
+        @Override
+        public void readFromNBT(NBTTagCompound nbt)
+        {
+            tasks.clear();
+            NBTTagList list = nbt.getTagList("Tasks", Constants.NBT.TAG_COMPOUND);
+            for (int i = 0; i < list.tagCount(); i++)
+            {
+                NBTTagCompound tag = list.getCompoundTagAt(i);
+                tasks.put(tag.getInteger("Dim"), tag);
+            }
+        }
+
+        @Override
+        public NBTTagCompound writeToNBT(NBTTagCompound compound)
+        {
+            NBTTagList list = new NBTTagList();
+            for (NBTTagCompound tag : tasks.values())
+                list.appendTag(tag);
+            compound.setTag("Tasks", list);
+            return compound;
+        }
+    }
+}
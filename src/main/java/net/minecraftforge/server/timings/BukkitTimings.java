@@ -0,0 +1,82 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.TimedRegisteredListener;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Reads the listener timings Bukkit already collects when plugin profiling is enabled.
+ * Bukkit dispatches its events itself, so its listeners are not wrapped in a {@link TimingHandler}.
+ */
+class BukkitTimings
+{
+    static void collect(List<TimingsEntry> entries)
+    {
+        for (HandlerList handlers : HandlerList.getHandlerLists())
+        {
+            for (RegisteredListener listener : handlers.getRegisteredListeners())
+            {
+                if (listener instanceof TimedRegisteredListener && ((TimedRegisteredListener)listener).getCount() > 0)
+                {
+                    TimedRegisteredListener timed = (TimedRegisteredListener)listener;
+                    String event = timed.hasMultiple() || timed.getEventClass() == null ? "Event" : timed.getEventClass().getSimpleName();
+                    entries.add(new TimingsEntry(TimingsCategory.BUKKIT_LISTENER, timed.getListener().getClass().getName() + " (" + event + ")",
+                            timed.getPlugin().getName(), timed.getCount(), timed.getTotalTime(), 0));
+                }
+            }
+        }
+    }
+
+    static void reset()
+    {
+        for (HandlerList handlers : HandlerList.getHandlerLists())
+        {
+            for (RegisteredListener listener : handlers.getRegisteredListeners())
+            {
+                if (listener instanceof TimedRegisteredListener)
+                {
+                    ((TimedRegisteredListener)listener).reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the name of the plugin that loaded the class, or null if it was not loaded by a plugin
+     */
+    @Nullable
+    static String getPlugin(Class<?> type)
+    {
+        try
+        {
+            return JavaPlugin.getProvidingPlugin(type).getName();
+        }
+        catch (IllegalArgumentException | IllegalStateException e)
+        {
+            return null;
+        }
+    }
+}
@@ -32,6 +32,8 @@ import net.minecraft.tileentity.TileEntity;
 
 /**
  * A class to assist in the collection of data to measure the update times of ticking objects {currently Tile Entities and Entities}
+ * <p>
+ * This tracks single instances for a short window. For continuous, per class and per mod data see {@link Timings}.
  *
  * @param <T>
  */
@@ -0,0 +1,131 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Accumulates the time spent in one kind of work, for example the updates of every entity of one class.
+ *
+ * Handlers are created once through {@link Timings} and kept by the caller, so recording a sample is only two
+ * {@link System#nanoTime()} calls and a few counter updates:
+ * <pre>
+ * long start = handler.start();
+ * doWork();
+ * handler.stop(start);
+ * </pre>
+ * The counters may be updated from several threads at once.
+ */
+public class TimingHandler
+{
+    private final TimingsCategory category;
+    private final String name;
+    @Nullable
+    private final Class<?> type;
+    private volatile String owner;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    TimingHandler(TimingsCategory category, String name, @Nullable Class<?> type, @Nullable String owner)
+    {
+        this.category = category;
+        this.name = name;
+        this.type = type;
+        this.owner = owner;
+    }
+
+    /**
+     * @return the start time to pass to {@link #stop(long)}, or 0 if timings are disabled
+     */
+    public long start()
+    {
+        return Timings.enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(long start)
+    {
+        if (start != 0)
+        {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(long nanos)
+    {
+        count.increment();
+        totalNanos.add(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+        {
+            max = maxNanos.get();
+        }
+    }
+
+    public TimingsCategory getCategory()
+    {
+        return category;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the id of the mod or the name of the plugin responsible for this work
+     */
+    public String getOwner()
+    {
+        String ret = owner;
+        if (ret == null)
+        {
+            // Resolved on first use, the mod and plugin lists are not complete when the first handlers are created
+            ret = owner = Timings.getOwner(category, type);
+        }
+        return ret;
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public long getTotalNanos()
+    {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    void reset()
+    {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.ModContainer;
+
+/**
+ * Always-on timings, aggregated by class (or handler) and by the mod or plugin that owns it.
+ *
+ * Unlike {@link TimeTracker}, which records single objects for a short window, the handlers kept here only hold a few
+ * counters each and are meant to stay enabled on production servers. Use {@link TimingsExporter} to write a report.
+ */
+public class Timings
+{
+    static volatile boolean enabled = true;
+
+    @SuppressWarnings("unchecked")
+    private static final ClassValue<TimingHandler>[] BY_CLASS = new ClassValue[TimingsCategory.values().length];
+    private static final Map<String, TimingHandler> BY_NAME = Maps.newConcurrentMap();
+    private static final Queue<TimingHandler> HANDLERS = new ConcurrentLinkedQueue<TimingHandler>();
+
+    private static volatile long resetTime = System.currentTimeMillis();
+    private static volatile int resetTick = 0;
+
+    static
+    {
+        for (TimingsCategory category : TimingsCategory.values())
+        {
+            BY_CLASS[category.ordinal()] = new ClassValue<TimingHandler>()
+            {
+                @Override
+                protected TimingHandler computeValue(Class<?> type)
+                {
+                    return register(new TimingHandler(category, type.getName(), type, null));
+                }
+            };
+        }
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled)
+    {
+        Timings.enabled = enabled;
+    }
+
+    /**
+     * @return the shared handler for all work of this category done by instances of the given class
+     */
+    public static TimingHandler of(TimingsCategory category, Class<?> type)
+    {
+        return BY_CLASS[category.ordinal()].get(type);
+    }
+
+    /**
+     * @param owner the mod id or plugin name, or null to leave the handler without owner
+     * @return the shared handler for the given name, which should be looked up once and kept by the caller
+     */
+    public static TimingHandler of(TimingsCategory category, String name, @Nullable String owner)
+    {
+        return BY_NAME.computeIfAbsent(category.getId() + ":" + name, k -> register(new TimingHandler(category, name, null, owner == null ? "unknown" : owner)));
+    }
+
+    private static TimingHandler register(TimingHandler handler)
+    {
+        HANDLERS.add(handler);
+        return handler;
+    }
+
+    /**
+     * Clears all collected data, including the timings of Bukkit listeners.
+     */
+    public static void reset()
+    {
+        for (TimingHandler handler : HANDLERS)
+        {
+            handler.reset();
+        }
+        BukkitTimings.reset();
+        resetTime = System.currentTimeMillis();
+        MinecraftServer server = FMLCommonHandler.instance().getMinecraftServerInstance();
+        resetTick = server == null ? 0 : server.getTickCounter();
+    }
+
+    /**
+     * @return the time of the last {@link #reset()}, in milliseconds
+     */
+    public static long getResetTime()
+    {
+        return resetTime;
+    }
+
+    /**
+     * @return the number of server ticks since the last {@link #reset()}
+     */
+    public static int getSampledTicks()
+    {
+        MinecraftServer server = FMLCommonHandler.instance().getMinecraftServerInstance();
+        return server == null ? 0 : Math.max(0, server.getTickCounter() - resetTick);
+    }
+
+    /**
+     * @return a snapshot of every handler that recorded anything, most expensive first
+     */
+    public static List<TimingsEntry> collect()
+    {
+        List<TimingsEntry> ret = new ArrayList<TimingsEntry>();
+
+        for (TimingHandler handler : HANDLERS)
+        {
+            long count = handler.getCount();
+            if (count > 0)
+            {
+                ret.add(new TimingsEntry(handler.getCategory(), handler.getName(), handler.getOwner(), count, handler.getTotalNanos(), handler.getMaxNanos()));
+            }
+        }
+        BukkitTimings.collect(ret);
+
+        Collections.sort(ret);
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    static String getOwner(TimingsCategory category, @Nullable Class<?> type)
+    {
+        if (type == null)
+        {
+            return "unknown";
+        }
+
+        ResourceLocation key = null;
+        if (category == TimingsCategory.ENTITY && Entity.class.isAssignableFrom(type))
+        {
+            key = EntityList.getKey((Class<? extends Entity>)type);
+        }
+        else if (category == TimingsCategory.TILE_ENTITY && TileEntity.class.isAssignableFrom(type))
+        {
+            key = TileEntity.getKey((Class<? extends TileEntity>)type);
+        }
+        if (key != null)
+        {
+            return key.getResourceDomain();
+        }
+
+        String plugin = BukkitTimings.getPlugin(type);
+        if (plugin != null)
+        {
+            return plugin;
+        }
+
+        return getMod(type);
+    }
+
+    /**
+     * Finds the mod whose jar or directory the class was loaded from.
+     */
+    private static String getMod(Class<?> type)
+    {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        URL location = source == null ? null : source.getLocation();
+
+        if (location != null)
+        {
+            try
+            {
+                String path = new File(location.toURI()).getAbsolutePath();
+                for (ModContainer mod : Loader.instance().getActiveModList())
+                {
+                    File modSource = mod.getSource();
+                    if (modSource != null && (path.equals(modSource.getAbsolutePath()) || path.startsWith(modSource.getAbsolutePath() + File.separator)))
+                    {
+                        return mod.getModId();
+                    }
+                }
+            }
+            catch (URISyntaxException | IllegalArgumentException e)
+            {
+                // Not a file location, fall through
+            }
+        }
+        return "minecraft";
+    }
+}
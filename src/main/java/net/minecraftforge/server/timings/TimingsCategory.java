@@ -0,0 +1,62 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+/**
+ * The kinds of work measured by {@link Timings}.
+ */
+public enum TimingsCategory
+{
+    ENTITY("entity"),
+    TILE_ENTITY("te"),
+    EVENT_HANDLER("event"),
+    BUKKIT_LISTENER("listener"),
+    SCHEDULER_TASK("task"),
+    CHUNK_LOAD("chunkload"),
+    CHUNK_GENERATE("chunkgen"),
+    CHUNK_SAVE("chunksave"),
+    PACKET("packet");
+
+    private final String id;
+
+    TimingsCategory(String id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * @return the short name used by the timings command and in exported reports
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    public static TimingsCategory byId(String id)
+    {
+        for (TimingsCategory category : values())
+        {
+            if (category.id.equals(id))
+            {
+                return category;
+            }
+        }
+        return null;
+    }
+}
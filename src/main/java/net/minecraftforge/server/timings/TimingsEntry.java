@@ -0,0 +1,89 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+/**
+ * A snapshot of the data recorded by one {@link TimingHandler}, or by one Bukkit listener.
+ */
+public class TimingsEntry implements Comparable<TimingsEntry>
+{
+    private final TimingsCategory category;
+    private final String name;
+    private final String owner;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    public TimingsEntry(TimingsCategory category, String name, String owner, long count, long totalNanos, long maxNanos)
+    {
+        this.category = category;
+        this.name = name;
+        this.owner = owner;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public TimingsCategory getCategory()
+    {
+        return category;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getTotalNanos()
+    {
+        return totalNanos;
+    }
+
+    /**
+     * @return the longest single sample, 0 if unknown
+     */
+    public long getMaxNanos()
+    {
+        return maxNanos;
+    }
+
+    public double getAverageNanos()
+    {
+        return count == 0 ? 0 : (double)totalNanos / count;
+    }
+
+    /**
+     * Sorts the most expensive entries first.
+     */
+    @Override
+    public int compareTo(TimingsEntry other)
+    {
+        return Long.compare(other.totalNanos, totalNanos);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.timings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Writes the data collected by {@link Timings} to JSON and HTML reports.
+ */
+public class TimingsExporter
+{
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    /**
+     * Writes {@code timings-<date>.json} and {@code timings-<date>.html} to the given directory.
+     *
+     * @return the written files
+     */
+    public static List<File> export(File dir) throws IOException
+    {
+        List<TimingsEntry> entries = Timings.collect();
+        int ticks = Timings.getSampledTicks();
+        long start = Timings.getResetTime();
+        long end = System.currentTimeMillis();
+        String name = "timings-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date(end));
+
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            throw new IOException("Could not create " + dir);
+        }
+
+        List<File> ret = new ArrayList<File>();
+        File json = new File(dir, name + ".json");
+        Files.write(toJson(entries, start, end, ticks), json, StandardCharsets.UTF_8);
+        ret.add(json);
+        File html = new File(dir, name + ".html");
+        Files.write(toHtml(entries, start, end, ticks), html, StandardCharsets.UTF_8);
+        ret.add(html);
+        return ret;
+    }
+
+    /**
+     * @return the total time of the entries per owner, most expensive first
+     */
+    public static Map<String, Long> getOwnerTotals(List<TimingsEntry> entries)
+    {
+        Map<String, Long> totals = Maps.newHashMap();
+        for (TimingsEntry entry : entries)
+        {
+            totals.merge(entry.getOwner(), entry.getTotalNanos(), Long::sum);
+        }
+
+        Map<String, Long> ret = new LinkedHashMap<String, Long>();
+        totals.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                .forEach(e -> ret.put(e.getKey(), e.getValue()));
+        return ret;
+    }
+
+    public static String toJson(List<TimingsEntry> entries, long start, long end, int ticks)
+    {
+        JsonObject root = new JsonObject();
+        root.addProperty("start", start);
+        root.addProperty("end", end);
+        root.addProperty("ticks", ticks);
+
+        JsonArray owners = new JsonArray();
+        for (Map.Entry<String, Long> owner : getOwnerTotals(entries).entrySet())
+        {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("owner", owner.getKey());
+            obj.addProperty("totalNanos", owner.getValue());
+            obj.addProperty("perTickNanos", ticks == 0 ? 0 : owner.getValue() / ticks);
+            owners.add(obj);
+        }
+        root.add("owners", owners);
+
+        JsonArray array = new JsonArray();
+        for (TimingsEntry entry : entries)
+        {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("category", entry.getCategory().getId());
+            obj.addProperty("name", entry.getName());
+            obj.addProperty("owner", entry.getOwner());
+            obj.addProperty("count", entry.getCount());
+            obj.addProperty("totalNanos", entry.getTotalNanos());
+            obj.addProperty("averageNanos", (long)entry.getAverageNanos());
+            obj.addProperty("maxNanos", entry.getMaxNanos());
+            obj.addProperty("perTickNanos", ticks == 0 ? 0 : entry.getTotalNanos() / ticks);
+            array.add(obj);
+        }
+        root.add("entries", array);
+
+        return GSON.toJson(root);
+    }
+
+    public static String toHtml(List<TimingsEntry> entries, long start, long end, int ticks)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Timings</title>\n<style>\n")
+          .append("body { font-family: sans-serif; }\n")
+          .append("table { border-collapse: collapse; margin-bottom: 2em; }\n")
+          .append("th, td { border: 1px solid #ccc; padding: 2px 8px; }\n")
+          .append("td.n { text-align: right; }\n")
+          .append("</style>\n</head>\n<body>\n");
+        sb.append("<h1>Timings</h1>\n<p>")
+          .append(escape(new Date(start).toString())).append(" - ").append(escape(new Date(end).toString()))
+          .append(", ").append(ticks).append(" ticks</p>\n");
+
+        sb.append("<h2>Owners</h2>\n<table>\n<tr><th>Owner</th><th>Total ms</th><th>ms/tick</th></tr>\n");
+        for (Map.Entry<String, Long> owner : getOwnerTotals(entries).entrySet())
+        {
+            sb.append("<tr><td>").append(escape(owner.getKey())).append("</td>")
+              .append(cell(owner.getValue() / 1.0E6D))
+              .append(cell(ticks == 0 ? 0 : owner.getValue() / 1.0E6D / ticks))
+              .append("</tr>\n");
+        }
+        sb.append("</table>\n");
+
+        for (TimingsCategory category : TimingsCategory.values())
+        {
+            boolean header = false;
+            for (TimingsEntry entry : entries)
+            {
+                if (entry.getCategory() != category)
+                {
+                    continue;
+                }
+                if (!header)
+                {
+                    sb.append("<h2>").append(escape(category.getId())).append("</h2>\n<table>\n")
+                      .append("<tr><th>Name</th><th>Owner</th><th>Count</th><th>Total ms</th><th>Avg &micro;s</th><th>Max &micro;s</th><th>ms/tick</th></tr>\n");
+                    header = true;
+                }
+                sb.append("<tr><td>").append(escape(entry.getName())).append("</td><td>").append(escape(entry.getOwner())).append("</td>")
+                  .append("<td class=\"n\">").append(entry.getCount()).append("</td>")
+                  .append(cell(entry.getTotalNanos() / 1.0E6D))
+                  .append(cell(entry.getAverageNanos() / 1.0E3D))
+                  .append(cell(entry.getMaxNanos() / 1.0E3D))
+                  .append(cell(ticks == 0 ? 0 : entry.getTotalNanos() / 1.0E6D / ticks))
+                  .append("</tr>\n");
+            }
+            if (header)
+            {
+                sb.append("</table>\n");
+            }
+        }
+
+        sb.append("</body>\n</html>\n");
+        return sb.toString();
+    }
+
+    private static String cell(double value)
+    {
+        return "<td class=\"n\">" + String.format("%.3f", value) + "</td>";
+    }
+
+    private static String escape(String s)
+    {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -1,7 +1,6 @@
 package org.bukkit.craftbukkit;
 
 import java.lang.ref.WeakReference;
-import java.util.Arrays;
 
 
 import org.bukkit.Chunk;
@@ -17,7 +16,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.BiomeProvider;
-import net.minecraft.world.chunk.NibbleArray;
+import net.minecraft.world.chunk.BlockStateContainer;
 import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
 public class CraftChunk implements Chunk {
@@ -25,9 +24,6 @@ public class CraftChunk implements Chunk {
     private final WorldServer worldServer;
     private final int x;
     private final int z;
-    private static final byte[] emptyData = new byte[2048];
-    private static final short[] emptyBlockIDs = new short[4096];
-    private static final byte[] emptySkyLight = new byte[2048];
 
     public CraftChunk(net.minecraft.world.chunk.Chunk chunk) {
         this.weakChunk = new WeakReference<net.minecraft.world.chunk.Chunk>(chunk);
@@ -159,43 +155,17 @@ public class CraftChunk implements Chunk {
         net.minecraft.world.chunk.Chunk chunk = getHandle();
 
         ExtendedBlockStorage[] cs = chunk.getBlockStorageArray();
-        short[][] sectionBlockIDs = new short[cs.length][];
-        byte[][] sectionBlockData = new byte[cs.length][];
+        BlockStateContainer[] sectionBlocks = new BlockStateContainer[cs.length];
         byte[][] sectionSkyLights = new byte[cs.length][];
         byte[][] sectionEmitLights = new byte[cs.length][];
-        boolean[] sectionEmpty = new boolean[cs.length];
 
+        // The sections are shared copy-on-write, they are only copied once the chunk changes again
         for (int i = 0; i < cs.length; i++) {
-            if (cs[i] == null) { // Section is empty?
-                sectionBlockIDs[i] = emptyBlockIDs;
-                sectionBlockData[i] = emptyData;
-                sectionSkyLights[i] = emptySkyLight;
-                sectionEmitLights[i] = emptyData;
-                sectionEmpty[i] = true;
-            } else { // Not empty
-                short[] blockids = new short[4096];
-
-                byte[] rawIds = new byte[4096];
-                NibbleArray data = new NibbleArray();
-                cs[i].getData().getDataForNBT(rawIds, data);
-
-                byte[] dataValues = sectionBlockData[i] = data.getData();
-
-                // Copy base IDs
-                for (int j = 0; j < 4096; j++) {
-                    blockids[j] = (short) (rawIds[j] & 0xFF);
-                }
-
-                sectionBlockIDs[i] = blockids;
-
-                if (cs[i].getSkyLight() == null) {
-                    sectionSkyLights[i] = emptyData;
-                } else {
-                    sectionSkyLights[i] = new byte[2048];
-                    System.arraycopy(cs[i].getSkyLight().getData(), 0, sectionSkyLights[i], 0, 2048);
-                }
-                sectionEmitLights[i] = new byte[2048];
-                System.arraycopy(cs[i].getBlockLight().getData(), 0, sectionEmitLights[i], 0, 2048);
+            if (cs[i] != net.minecraft.world.chunk.Chunk.NULL_BLOCK_STORAGE) {
+                sectionBlocks[i] = cs[i].getData().snapshot();
+                cs[i].shareLight();
+                sectionSkyLights[i] = cs[i].getSkyLight() == null ? null : cs[i].getSkyLight().getData();
+                sectionEmitLights[i] = cs[i].getBlockLight().getData();
             }
         }
 
@@ -240,7 +210,7 @@ public class CraftChunk implements Chunk {
         }
 
         World world = getWorld();
-        return new CraftChunkSnapshot(getX(), getZ(), world.getName(), world.getFullTime(), sectionBlockIDs, sectionBlockData, sectionSkyLights, sectionEmitLights, sectionEmpty, hmap, biome, biomeTemp, biomeRain);
+        return new CraftChunkSnapshot(getX(), getZ(), world.getName(), world.getFullTime(), sectionBlocks, sectionSkyLights, sectionEmitLights, hmap, biome, biomeTemp, biomeRain);
     }
 
     public static ChunkSnapshot getEmptyChunkSnapshot(int x, int z, CraftWorld world, boolean includeBiome, boolean includeBiomeTempRain) {
@@ -279,21 +249,8 @@ public class CraftChunk implements Chunk {
 
         /* Fill with empty data */
         int hSection = world.getMaxHeight() >> 4;
-        short[][] blockIDs = new short[hSection][];
-        byte[][] skyLight = new byte[hSection][];
-        byte[][] emitLight = new byte[hSection][];
-        byte[][] blockData = new byte[hSection][];
-        boolean[] empty = new boolean[hSection];
-
-        for (int i = 0; i < hSection; i++) {
-            blockIDs[i] = emptyBlockIDs;
-            skyLight[i] = emptySkyLight;
-            emitLight[i] = emptyData;
-            blockData[i] = emptyData;
-            empty[i] = true;
-        }
 
-        return new CraftChunkSnapshot(x, z, world.getName(), world.getFullTime(), blockIDs, blockData, skyLight, emitLight, empty, new int[256], biome, biomeTemp, biomeRain);
+        return new CraftChunkSnapshot(x, z, world.getName(), world.getFullTime(), new BlockStateContainer[hSection], new byte[hSection][], new byte[hSection][], new int[256], biome, biomeTemp, biomeRain);
     }
 
     private static float[] getTemperatures(BiomeProvider chunkmanager, int chunkX, int chunkZ) {
@@ -312,8 +269,4 @@ public class CraftChunk implements Chunk {
 
         return temps;
     }
-
-    static {
-        Arrays.fill(emptySkyLight, (byte) 0xFF);
-    }
 }
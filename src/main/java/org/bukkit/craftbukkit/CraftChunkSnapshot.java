@@ -1,5 +1,8 @@
 package org.bukkit.craftbukkit;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.minecraft.world.chunk.BlockStateContainer;
 import org.bukkit.ChunkSnapshot;
 import org.bukkit.Material;
 import org.bukkit.block.Biome;
@@ -7,32 +10,33 @@ import org.bukkit.craftbukkit.block.CraftBlock;
 
 /**
  * Represents a static, thread-safe snapshot of chunk of blocks
- * Purpose is to allow clean, efficient copy of a chunk data to be made, and then handed off for processing in another thread (e.g. map rendering)
+ * Purpose is to allow clean, efficient copy of a chunk data to be made, and then handed off for processing in another thread (e.g. map rendering).
+ * The block and light data of the sections is shared copy-on-write with the chunk, and the block ids of a section are
+ * only decoded the first time the section is read.
  */
 public class CraftChunkSnapshot implements ChunkSnapshot {
     private final int x, z;
     private final String worldname;
-    private final short[][] blockids; /* Block IDs, by section */
-    private final byte[][] blockdata;
-    private final byte[][] skylight;
-    private final byte[][] emitlight;
-    private final boolean[] empty;
+    private static final int[] EMPTY_STATE_IDS = new int[4096];
+    private final BlockStateContainer[] blocks; /* Block states, by section, null if empty */
+    private final AtomicReferenceArray<int[]> stateids; /* Decoded block id << 4 | data, by section */
+    private final byte[][] skylight; /* null if empty or without sky light */
+    private final byte[][] emitlight; /* null if empty */
     private final int[] hmap; // Height map
     private final long captureFulltime;
     private final Biome[] biome;
     private final double[] biomeTemp;
     private final double[] biomeRain;
 
-    CraftChunkSnapshot(int x, int z, String wname, long wtime, short[][] sectionBlockIDs, byte[][] sectionBlockData, byte[][] sectionSkyLights, byte[][] sectionEmitLights, boolean[] sectionEmpty, int[] hmap, Biome[] biome, double[] biomeTemp, double[] biomeRain) {
+    CraftChunkSnapshot(int x, int z, String wname, long wtime, BlockStateContainer[] sectionBlocks, byte[][] sectionSkyLights, byte[][] sectionEmitLights, int[] hmap, Biome[] biome, double[] biomeTemp, double[] biomeRain) {
         this.x = x;
         this.z = z;
         this.worldname = wname;
         this.captureFulltime = wtime;
-        this.blockids = sectionBlockIDs;
-        this.blockdata = sectionBlockData;
+        this.blocks = sectionBlocks;
+        this.stateids = new AtomicReferenceArray<int[]>(sectionBlocks.length);
         this.skylight = sectionSkyLights;
         this.emitlight = sectionEmitLights;
-        this.empty = sectionEmpty;
         this.hmap = hmap;
         this.biome = biome;
         this.biomeTemp = biomeTemp;
@@ -57,22 +61,43 @@ public class CraftChunkSnapshot implements ChunkSnapshot {
     }
 
     public final int getBlockTypeId(int x, int y, int z) {
-        return blockids[y >> 4][((y & 0xF) << 8) | (z << 4) | x];
+        return getStateIds(y >> 4)[((y & 0xF) << 8) | (z << 4) | x] >> 4;
     }
 
     public final int getBlockData(int x, int y, int z) {
-        int off = ((y & 0xF) << 7) | (z << 3) | (x >> 1);
-        return (blockdata[y >> 4][off] >> ((x & 1) << 2)) & 0xF;
+        return getStateIds(y >> 4)[((y & 0xF) << 8) | (z << 4) | x] & 0xF;
     }
 
     public final int getBlockSkyLight(int x, int y, int z) {
+        byte[] light = skylight[y >> 4];
+        if (light == null) {
+            return blocks[y >> 4] == null ? 15 : 0;
+        }
         int off = ((y & 0xF) << 7) | (z << 3) | (x >> 1);
-        return (skylight[y >> 4][off] >> ((x & 1) << 2)) & 0xF;
+        return (light[off] >> ((x & 1) << 2)) & 0xF;
     }
 
     public final int getBlockEmittedLight(int x, int y, int z) {
+        byte[] light = emitlight[y >> 4];
+        if (light == null) {
+            return 0;
+        }
         int off = ((y & 0xF) << 7) | (z << 3) | (x >> 1);
-        return (emitlight[y >> 4][off] >> ((x & 1) << 2)) & 0xF;
+        return (light[off] >> ((x & 1) << 2)) & 0xF;
+    }
+
+    private int[] getStateIds(int sy) {
+        int[] ids = stateids.get(sy);
+        if (ids == null) {
+            if (blocks[sy] == null) {
+                return EMPTY_STATE_IDS;
+            }
+            // Two threads decoding the same section at once both get the same result, so no lock is needed
+            ids = new int[4096];
+            blocks[sy].getStateIds(ids);
+            stateids.set(sy, ids);
+        }
+        return ids;
     }
 
     public final int getHighestBlockYAt(int x, int z) {
@@ -96,6 +121,6 @@ public class CraftChunkSnapshot implements ChunkSnapshot {
     }
 
     public final boolean isSectionEmpty(int sy) {
-        return empty[sy];
+        return blocks[sy] == null;
     }
 }
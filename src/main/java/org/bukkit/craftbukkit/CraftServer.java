@@ -285,7 +285,7 @@ public final class CraftServer implements Server {
         saveCommandsConfig();
         overrideAllCommandBlockCommands = commandsConfiguration.getStringList("command-block-overrides").contains("*");
         unrestrictedAdvancements = commandsConfiguration.getBoolean("unrestricted-advancements");
-        pluginManager.useTimings(configuration.getBoolean("settings.plugin-profiling"));
+        pluginManager.useTimings(configuration.getBoolean("settings.plugin-profiling") || net.minecraftforge.common.ForgeModContainer.timingsEnabled); // Akarin Forge - feed /forge timings
         monsterSpawn = configuration.getInt("spawn-limits.monsters");
         animalSpawn = configuration.getInt("spawn-limits.animals");
         waterAnimalSpawn = configuration.getInt("spawn-limits.water-animals");
@@ -1124,7 +1124,8 @@ public final class CraftServer implements Server {
     public void resetRecipes() {
         CraftingManager.REGISTRY = new RegistryNamespaced();
         CraftingManager.init();
-        FurnaceRecipes.instance().smeltingList = new FurnaceRecipes().smeltingList;
+        FurnaceRecipes.instance().smeltingList.clear();
+        FurnaceRecipes.instance().smeltingList.putAll(new FurnaceRecipes().smeltingList);
         FurnaceRecipes.instance().customRecipes.clear();
         FurnaceRecipes.instance().customExperience.clear();
     }
@@ -0,0 +1,59 @@
+package org.bukkit.craftbukkit.scheduler;
+
+/**
+ * The time the sync tasks of one plugin took on the main thread, since the statistics were last reset.
+ */
+public final class CraftPluginTaskTime {
+
+    private final String plugin;
+    private long runs;
+    private long totalNanos;
+    private long tickNanos;
+    private long lastTickNanos;
+    private long maxTickNanos;
+
+    CraftPluginTaskTime(final String plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @return true if this is the first task of the plugin in the current tick
+     */
+    boolean add(final long nanos) {
+        final boolean first = tickNanos == 0;
+        runs++;
+        totalNanos += nanos;
+        // Never 0 once a task ran, so the first task of a tick is recognized even if it took no measurable time
+        tickNanos += Math.max(nanos, 1L);
+        return first;
+    }
+
+    void endTick() {
+        lastTickNanos = tickNanos;
+        maxTickNanos = Math.max(maxTickNanos, tickNanos);
+        tickNanos = 0;
+    }
+
+    public String getPlugin() {
+        return plugin;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return the time taken in the last tick the plugin had a task run
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+}
@@ -1,19 +1,23 @@
 package org.bukkit.craftbukkit.scheduler;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang.Validate;
 import org.bukkit.plugin.IllegalPluginAccessException;
 import org.bukkit.plugin.Plugin;
@@ -25,7 +29,7 @@ import org.bukkit.scheduler.BukkitWorker;
 /**
  * The fundamental concepts for this implementation:
  * <li>Main thread owns {@link #head} and {@link #currentTick}, but it may be read from any thread</li>
- * <li>Main thread exclusively controls {@link #temp} and {@link #pending}.
+ * <li>Main thread exclusively controls {@link #due} and {@link #pending}.
  *     They are never to be accessed outside of the main thread; alternatives exist to prevent locking.</li>
  * <li>{@link #head} to {@link #tail} act as a linked list/queue, with 1 consumer and infinite producers.
  *     Adding to the tail is atomic and very efficient; utility method is {@link #handle(CraftTask, long)} or {@link #addTask(CraftTask)}. </li>
@@ -33,10 +37,12 @@ import org.bukkit.scheduler.BukkitWorker;
  *     Any future task needs to notify waiting threads.
  *     Async tasks must be synchronized to make sure that any thread that's finishing will remove itself from {@link #runners}.
  *     Another utility method is provided for this, {@link #cancelTask(int)}</li>
+ * <li>{@link #pending} is a {@link CraftTimingWheel}, so scheduling and cancelling a task takes constant time no matter how many tasks are scheduled.
+ *     Every task in it is also in {@link #runners}, which is how cancelled tasks are found.</li>
  * <li>{@link #runners} provides a moderately up-to-date view of active tasks.
  *     If the linked head to tail set is read, all remaining tasks that were active at the time execution started will be located in runners.</li>
  * <li>Async tasks are responsible for removing themselves from runners</li>
- * <li>Sync tasks are only to be removed from runners on the main thread when coupled with a removal from pending and temp.</li>
+ * <li>Sync tasks are only to be removed from runners on the main thread when coupled with a removal from pending and due.</li>
  * <li>Most of the design in this scheduler relies on queuing special tasks to perform any data changes on the main thread.
  *     When executed from inside a synchronous method, the scheduler will be updated before next execution by virtue of the frequent {@link #parsePending()} calls.</li>
  */
@@ -57,25 +63,33 @@ public class CraftScheduler implements BukkitScheduler {
     /**
      * Main thread logic only
      */
-    private final PriorityQueue<CraftTask> pending = new PriorityQueue<CraftTask>(10,
-            new Comparator<CraftTask>() {
-                public int compare(final CraftTask o1, final CraftTask o2) {
-                    int value = Long.compare(o1.getNextRun(), o2.getNextRun());
-
-                    // If the tasks should run on the same tick they should be run FIFO
-                    return value != 0 ? value : Integer.compare(o1.getTaskId(), o2.getTaskId());
-                }
-            });
+    private final CraftTimingWheel pending = new CraftTimingWheel(-1);
     /**
-     * Main thread logic only
+     * Main thread logic only, the tasks to run in the current heartbeat
      */
-    private final List<CraftTask> temp = new ArrayList<CraftTask>();
+    private final List<CraftTask> due = new ArrayList<CraftTask>();
+    private static final Comparator<CraftTask> DUE_ORDER = new Comparator<CraftTask>() {
+        public int compare(final CraftTask o1, final CraftTask o2) {
+            int value = Long.compare(o1.getNextRun(), o2.getNextRun());
+
+            // If the tasks should run on the same tick they should be run FIFO
+            return value != 0 ? value : Integer.compare(o1.getTaskId(), o2.getTaskId());
+        }
+    };
     /**
      * These are tasks that are currently active. It's provided for 'viewing' the current state.
      */
     private final ConcurrentHashMap<Integer, CraftTask> runners = new ConcurrentHashMap<Integer, CraftTask>();
     private volatile int currentTick = -1;
-    private final Executor executor = Executors.newCachedThreadPool();
+    private final ThreadPoolExecutor executor;
+    private int asyncQueuePeak;
+    /**
+     * Main thread logic only. Sync task time by plugin name, so it adds up over reloads
+     */
+    private final Map<String, CraftPluginTaskTime> taskTimes = new HashMap<String, CraftPluginTaskTime>();
+    private final List<CraftPluginTaskTime> tickTaskTimes = new ArrayList<CraftPluginTaskTime>();
+    private int taskTimeTicks;
+    private int syncTasksLastTick;
     private CraftAsyncDebugger debugHead = new CraftAsyncDebugger(-1, null, null) {@Override StringBuilder debugTo(StringBuilder string) {return string;}};
     private CraftAsyncDebugger debugTail = debugHead;
     private static final int RECENT_TICKS;
@@ -84,6 +98,15 @@ public class CraftScheduler implements BukkitScheduler {
         RECENT_TICKS = 30;
     }
 
+    public CraftScheduler() {
+        final int threads = net.minecraftforge.common.ForgeModContainer.bukkitAsyncTaskThreads > 0 ? net.minecraftforge.common.ForgeModContainer.bukkitAsyncTaskThreads
+                : Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("Craft Scheduler Thread - %d").build());
+        // Idle threads go away like in a cached pool
+        executor.allowCoreThreadTimeOut(true);
+    }
+
     public int scheduleSyncDelayedTask(final Plugin plugin, final Runnable task) {
         return this.scheduleSyncDelayedTask(plugin, task, 0L);
     }
@@ -171,24 +194,13 @@ public class CraftScheduler implements BukkitScheduler {
         task = new CraftTask(
                 new Runnable() {
                     public void run() {
-                        if (!check(CraftScheduler.this.temp)) {
-                            check(CraftScheduler.this.pending);
-                        }
-                    }
-                    private boolean check(final Iterable<CraftTask> collection) {
-                        final Iterator<CraftTask> tasks = collection.iterator();
-                        while (tasks.hasNext()) {
-                            final CraftTask task = tasks.next();
-                            if (task.getTaskId() == taskId) {
-                                task.cancel0();
-                                tasks.remove();
-                                if (task.isSync()) {
-                                    runners.remove(taskId);
-                                }
-                                return true;
+                        final CraftTask task = runners.get(taskId);
+                        if (task != null && CraftScheduler.this.pending.remove(task)) {
+                            task.cancel0();
+                            if (task.isSync()) {
+                                runners.remove(taskId);
                             }
                         }
-                        return false;
                     }});
         handle(task, 0L);
         for (CraftTask taskPending = head.getNext(); taskPending != null; taskPending = taskPending.getNext()) {
@@ -206,18 +218,13 @@ public class CraftScheduler implements BukkitScheduler {
         final CraftTask task = new CraftTask(
                 new Runnable() {
                     public void run() {
-                        check(CraftScheduler.this.pending);
-                        check(CraftScheduler.this.temp);
-                    }
-                    void check(final Iterable<CraftTask> collection) {
-                        final Iterator<CraftTask> tasks = collection.iterator();
+                        final Iterator<CraftTask> tasks = CraftScheduler.this.runners.values().iterator();
                         while (tasks.hasNext()) {
                             final CraftTask task = tasks.next();
-                            if (task.getOwner().equals(plugin)) {
+                            if (task.getOwner().equals(plugin) && CraftScheduler.this.pending.remove(task)) {
                                 task.cancel0();
-                                tasks.remove();
                                 if (task.isSync()) {
-                                    runners.remove(task.getTaskId());
+                                    tasks.remove();
                                 }
                             }
                         }
@@ -252,7 +259,6 @@ public class CraftScheduler implements BukkitScheduler {
                             }
                         }
                         CraftScheduler.this.pending.clear();
-                        CraftScheduler.this.temp.clear();
                     }
                 });
         handle(task, 0L);
@@ -336,10 +342,14 @@ public class CraftScheduler implements BukkitScheduler {
      */
     public void mainThreadHeartbeat(final int currentTick) {
         this.currentTick = currentTick;
-        final List<CraftTask> temp = this.temp;
+        final List<CraftTask> due = this.due;
         parsePending();
-        while (isReady(currentTick)) {
-            final CraftTask task = pending.remove();
+        pending.advance(currentTick, due);
+        due.sort(DUE_ORDER);
+        int syncTasks = 0;
+        // Tasks scheduled without delay by the tasks run here are added to the end and run in this heartbeat as well
+        for (int i = 0; i < due.size(); i++) {
+            final CraftTask task = due.get(i);
             if (task.getPeriod() < CraftTask.NO_REPEATING) {
                 if (task.isSync()) {
                     runners.remove(task.getTaskId(), task);
@@ -348,6 +358,9 @@ public class CraftScheduler implements BukkitScheduler {
                 continue;
             }
             if (task.isSync()) {
+                final net.minecraftforge.server.timings.TimingHandler timings = task.getTimings(); // Akarin Forge
+                final long timingsStart = timings == null ? 0 : timings.start(); // Akarin Forge
+                final long start = System.nanoTime();
                 try {
                     task.run();
                 } catch (final Throwable throwable) {
@@ -359,26 +372,107 @@ public class CraftScheduler implements BukkitScheduler {
                                 task.getOwner().getDescription().getFullName()),
                             throwable);
                 }
+                if (timings != null) timings.stop(timingsStart); // Akarin Forge
+                addTaskTime(task, System.nanoTime() - start);
+                syncTasks++;
                 parsePending();
             } else {
                 debugTail = debugTail.setNext(new CraftAsyncDebugger(currentTick + RECENT_TICKS, task.getOwner(), task.getTaskClass()));
                 executor.execute(task);
+                asyncQueuePeak = Math.max(asyncQueuePeak, executor.getQueue().size());
                 // We don't need to parse pending
                 // (async tasks must live with race-conditions if they attempt to cancel between these few lines of code)
             }
             final long period = task.getPeriod(); // State consistency
             if (period > 0) {
+                // Always lands in a later tick, so it does not run again in this heartbeat
                 task.setNextRun(currentTick + period);
-                temp.add(task);
+                pending.add(task);
             } else if (task.isSync()) {
                 runners.remove(task.getTaskId());
             }
         }
-        pending.addAll(temp);
-        temp.clear();
+        due.clear();
+        for (int i = 0; i < tickTaskTimes.size(); i++) {
+            tickTaskTimes.get(i).endTick();
+        }
+        tickTaskTimes.clear();
+        taskTimeTicks++;
+        syncTasksLastTick = syncTasks;
         debugHead = debugHead.getNextHead(currentTick);
     }
 
+    private void addTaskTime(final CraftTask task, final long nanos) {
+        final String plugin = task.getOwner().getName();
+        CraftPluginTaskTime time = taskTimes.get(plugin);
+        if (time == null) {
+            time = new CraftPluginTaskTime(plugin);
+            taskTimes.put(plugin, time);
+        }
+        if (time.add(nanos)) {
+            tickTaskTimes.add(time);
+        }
+    }
+
+    /**
+     * Main thread only.
+     *
+     * @return the time the sync tasks of each plugin took since {@link #resetStatistics()}
+     */
+    public Collection<CraftPluginTaskTime> getTaskTimes() {
+        return taskTimes.values();
+    }
+
+    /**
+     * @return the number of heartbeats since {@link #resetStatistics()}
+     */
+    public int getTaskTimeTicks() {
+        return taskTimeTicks;
+    }
+
+    public int getSyncTasksLastTick() {
+        return syncTasksLastTick;
+    }
+
+    /**
+     * @return the number of tasks waiting for a later tick
+     */
+    public int getScheduledTaskCount() {
+        return pending.size();
+    }
+
+    public int getAsyncQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the most async tasks that waited for a thread at once since {@link #resetStatistics()}
+     */
+    public int getAsyncQueuePeak() {
+        return asyncQueuePeak;
+    }
+
+    public int getAsyncActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public int getAsyncPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public long getAsyncCompletedTasks() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Main thread only.
+     */
+    public void resetStatistics() {
+        taskTimes.clear();
+        taskTimeTicks = 0;
+        asyncQueuePeak = 0;
+    }
+
     private void addTask(final CraftTask task) {
         final AtomicReference<CraftTask> tail = this.tail;
         CraftTask tailTask = tail.get();
@@ -414,7 +508,9 @@ public class CraftScheduler implements BukkitScheduler {
             if (task.getTaskId() == -1) {
                 task.run();
             } else if (task.getPeriod() >= CraftTask.NO_REPEATING) {
-                pending.add(task);
+                if (!pending.add(task)) {
+                    due.add(task);
+                }
                 runners.put(task.getTaskId(), task);
             }
         }
@@ -427,10 +523,6 @@ public class CraftScheduler implements BukkitScheduler {
         this.head = lastTask;
     }
 
-    private boolean isReady(final int currentTick) {
-        return !pending.isEmpty() && pending.peek().getNextRun() <= currentTick;
-    }
-
     @Override
     public String toString() {
         int debugTick = currentTick;
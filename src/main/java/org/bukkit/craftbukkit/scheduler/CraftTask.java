@@ -8,6 +8,11 @@ import org.bukkit.scheduler.BukkitTask;
 class CraftTask implements BukkitTask, Runnable {
 
     private volatile CraftTask next = null;
+    /**
+     * Links in the {@link CraftTimingWheel} slot holding this task, null while it is not in the wheel. Main thread only.
+     */
+    CraftTask wheelPrev = null;
+    CraftTask wheelNext = null;
     public static final int ERROR = 0;
     public static final int NO_REPEATING = -1;
     public static final int CANCEL = -2;
@@ -26,6 +31,7 @@ class CraftTask implements BukkitTask, Runnable {
     private final Runnable task;
     private final Plugin plugin;
     private final int id;
+    private final net.minecraftforge.server.timings.TimingHandler timings; // Akarin Forge
 
     CraftTask() {
         this(null, null, CraftTask.NO_REPEATING, CraftTask.NO_REPEATING);
@@ -40,6 +46,7 @@ class CraftTask implements BukkitTask, Runnable {
         this.task = task;
         this.id = id;
         this.period = period;
+        this.timings = task == null ? null : net.minecraftforge.server.timings.Timings.of(net.minecraftforge.server.timings.TimingsCategory.SCHEDULER_TASK, task.getClass()); // Akarin Forge
     }
 
     public final int getTaskId() {
@@ -82,6 +89,12 @@ class CraftTask implements BukkitTask, Runnable {
         this.next = next;
     }
 
+    // Akarin Forge - start
+    net.minecraftforge.server.timings.TimingHandler getTimings() {
+        return timings;
+    }
+    // Akarin Forge - end
+
     Class<? extends Runnable> getTaskClass() {
         return task.getClass();
     }
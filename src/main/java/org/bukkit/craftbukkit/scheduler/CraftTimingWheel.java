@@ -0,0 +1,149 @@
+package org.bukkit.craftbukkit.scheduler;
+
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel holding the scheduled tasks by the tick they run next.
+ * <li>Level 0 has one slot per tick for the next 64 ticks, every further level has slots 64 times as wide.
+ *     Tasks further away than the last level are kept in an overflow list.</li>
+ * <li>Adding and removing a task is constant time; the tasks are linked into their slot through
+ *     {@link CraftTask#wheelPrev} and {@link CraftTask#wheelNext}.</li>
+ * <li>Whenever a level 0 round ends the next slot of level 1 is spread over level 0, and so on for the higher levels,
+ *     so every task is moved at most once per level before it is due.</li>
+ * <li>Main thread only.</li>
+ */
+class CraftTimingWheel {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = 1L << (LEVEL_BITS * LEVELS);
+
+    private final CraftTask[][] slots = new CraftTask[LEVELS][SLOTS];
+    private final CraftTask overflow = newSlot();
+    private long tick;
+    private int size;
+
+    CraftTimingWheel(final long tick) {
+        this.tick = tick;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots[level][slot] = newSlot();
+            }
+        }
+    }
+
+    private static CraftTask newSlot() {
+        final CraftTask slot = new CraftTask();
+        slot.wheelPrev = slot;
+        slot.wheelNext = slot;
+        return slot;
+    }
+
+    /**
+     * @return false if the task is already due, in which case it was not added
+     */
+    boolean add(final CraftTask task) {
+        final long nextRun = task.getNextRun();
+        final long delay = nextRun - tick;
+        if (delay <= 0) {
+            return false;
+        }
+        final CraftTask slot;
+        if (delay < MAX_DELAY) {
+            final int level = (63 - Long.numberOfLeadingZeros(delay)) / LEVEL_BITS;
+            slot = slots[level][(int) (nextRun >> (level * LEVEL_BITS)) & SLOT_MASK];
+        } else {
+            slot = overflow;
+        }
+        task.wheelPrev = slot.wheelPrev;
+        task.wheelNext = slot;
+        slot.wheelPrev.wheelNext = task;
+        slot.wheelPrev = task;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return false if the task was not in the wheel
+     */
+    boolean remove(final CraftTask task) {
+        if (task.wheelNext == null) {
+            return false;
+        }
+        task.wheelPrev.wheelNext = task.wheelNext;
+        task.wheelNext.wheelPrev = task.wheelPrev;
+        task.wheelPrev = null;
+        task.wheelNext = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given tick, adding every task that became due to the list.
+     */
+    void advance(final long to, final List<CraftTask> due) {
+        while (tick < to) {
+            tick++;
+            final int index = (int) tick & SLOT_MASK;
+            if (index == 0) {
+                cascade(1, due);
+            }
+            drain(slots[0][index], due);
+        }
+    }
+
+    private void cascade(final int level, final List<CraftTask> due) {
+        final int index = (int) (tick >> (level * LEVEL_BITS)) & SLOT_MASK;
+        if (index == 0) {
+            if (level + 1 < LEVELS) {
+                cascade(level + 1, due);
+            } else {
+                reinsert(overflow, due);
+            }
+        }
+        reinsert(slots[level][index], due);
+    }
+
+    private void reinsert(final CraftTask slot, final List<CraftTask> due) {
+        CraftTask task = slot.wheelNext;
+        slot.wheelPrev = slot;
+        slot.wheelNext = slot;
+        while (task != slot) {
+            final CraftTask next = task.wheelNext;
+            size--;
+            if (!add(task)) {
+                task.wheelPrev = null;
+                task.wheelNext = null;
+                due.add(task);
+            }
+            task = next;
+        }
+    }
+
+    private void drain(final CraftTask slot, final List<CraftTask> due) {
+        while (slot.wheelNext != slot) {
+            final CraftTask task = slot.wheelNext;
+            remove(task);
+            due.add(task);
+        }
+    }
+
+    void clear() {
+        for (final CraftTask[] level : slots) {
+            for (final CraftTask slot : level) {
+                while (slot.wheelNext != slot) {
+                    remove(slot.wheelNext);
+                }
+            }
+        }
+        while (overflow.wheelNext != overflow) {
+            remove(overflow.wheelNext);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+}
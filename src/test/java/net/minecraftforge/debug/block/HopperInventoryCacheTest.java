@@ -0,0 +1,167 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.debug.block;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.init.Blocks;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.inventory.InventoryLargeChest;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityFurnace;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.items.HopperInventoryCache;
+
+/**
+ * Checks that a {@link HopperInventoryCache} looks the inventory up again whenever it changed.
+ * Use /hoppercachetest to place blocks a few blocks above the sender and check each rule the cache follows:
+ * <li>a different block state at the position,</li>
+ * <li>a tile entity that is no longer the one in its chunk,</li>
+ * <li>a double chest that forms or splits up.</li>
+ * The command fails on the first rule that does not hold. The blocks are removed afterwards.
+ */
+@Mod(modid = HopperInventoryCacheTest.MODID, name = "Hopper Inventory Cache Test", version = "1.0", acceptableRemoteVersions = "*")
+public class HopperInventoryCacheTest
+{
+    public static final String MODID = "hopperinventorycachetest";
+
+    private static final boolean ENABLE = false;
+
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event)
+    {
+        if (ENABLE)
+        {
+            event.registerServerCommand(new HopperCacheCommand());
+        }
+    }
+
+    private static class HopperCacheCommand extends CommandBase
+    {
+        @Override
+        public String getName()
+        {
+            return "hoppercachetest";
+        }
+
+        @Override
+        public String getUsage(ICommandSender sender)
+        {
+            return "/hoppercachetest";
+        }
+
+        @Override
+        public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+        {
+            World world = sender.getEntityWorld();
+            BlockPos pos = sender.getPosition().up(3);
+            BlockPos beside = pos.east();
+
+            try
+            {
+                checkBlockState(world, pos);
+                checkTileEntity(world, pos);
+                checkDoubleChest(world, pos, beside);
+            }
+            finally
+            {
+                world.setBlockToAir(pos);
+                world.setBlockToAir(beside);
+                world.setBlockToAir(pos.up());
+            }
+
+            sender.sendMessage(new TextComponentString("The hopper inventory cache followed every change"));
+        }
+
+        private static void checkBlockState(World world, BlockPos pos) throws CommandException
+        {
+            HopperInventoryCache cache = new HopperInventoryCache();
+            set(world, pos, Blocks.FURNACE.getDefaultState());
+            IInventory furnace = cache.getInventory(world, pos);
+            check(furnace == world.getTileEntity(pos), "The furnace was not found");
+            check(cache.getInventory(world, pos) == furnace, "The furnace was looked up again without a change");
+
+            set(world, pos, Blocks.DROPPER.getDefaultState());
+            check(cache.getInventory(world, pos) == world.getTileEntity(pos), "The dropper that replaced the furnace was not found");
+
+            set(world, pos, Blocks.STONE.getDefaultState());
+            check(cache.getInventory(world, pos) == null, "An inventory was found after the block was replaced with stone");
+        }
+
+        private static void checkTileEntity(World world, BlockPos pos) throws CommandException
+        {
+            HopperInventoryCache cache = new HopperInventoryCache();
+            set(world, pos, Blocks.FURNACE.getDefaultState());
+            TileEntity old = world.getTileEntity(pos);
+            check(cache.getInventory(world, pos) == old, "The furnace was not found");
+
+            // Swap the tile entity without changing the block, and make the old one valid again like the tile entity
+            // of a chunk that was unloaded and loaded again, so only its chunk tells that it is out of date
+            TileEntity fresh = new TileEntityFurnace();
+            world.setTileEntity(pos, fresh);
+            old.validate();
+            check(cache.getTileEntity(world, pos) == fresh, "The tile entity that is no longer in its chunk was returned");
+            check(cache.getInventory(world, pos) == fresh, "The inventory of the replaced tile entity was returned");
+
+            world.removeTileEntity(pos);
+            check(cache.getInventory(world, pos) != fresh, "The removed tile entity was returned");
+        }
+
+        private static void checkDoubleChest(World world, BlockPos pos, BlockPos beside) throws CommandException
+        {
+            HopperInventoryCache cache = new HopperInventoryCache();
+            set(world, pos, Blocks.CHEST.getDefaultState());
+            IInventory single = cache.getInventory(world, pos);
+            check(single == world.getTileEntity(pos), "The single chest was not found");
+
+            set(world, beside, Blocks.CHEST.getDefaultState());
+            IInventory joined = cache.getInventory(world, pos);
+            check(joined instanceof InventoryLargeChest && ((InventoryLargeChest)joined).isPartOfLargeChest(single)
+                    && ((InventoryLargeChest)joined).isPartOfLargeChest((IInventory)world.getTileEntity(beside)), "The double chest was not found after a chest was placed beside it");
+            check(cache.getInventory(world, pos) == joined, "The double chest was looked up again without a change");
+
+            world.setBlockToAir(beside);
+            check(cache.getInventory(world, pos) == single, "The double chest was returned after the chest beside it was removed");
+
+            set(world, pos.up(), Blocks.CHEST.getDefaultState());
+            check(cache.getInventory(world, pos) == single, "A chest above joined the chest");
+        }
+
+        private static void set(World world, BlockPos pos, IBlockState state)
+        {
+            world.setBlockToAir(pos);
+            world.setBlockState(pos, state, 2);
+        }
+
+        private static void check(boolean condition, String message) throws CommandException
+        {
+            if (!condition)
+            {
+                throw new CommandException(message);
+            }
+        }
+    }
+}
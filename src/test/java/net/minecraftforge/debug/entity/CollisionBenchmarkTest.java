@@ -0,0 +1,159 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.debug.entity;
+
+import java.util.List;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.entity.MoverType;
+import net.minecraft.entity.monster.EntityZombie;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Measures the collision queries of entities packed like in a mob farm.
+ * Use /collisionbench [count] [rounds] to spawn count zombies without AI on the block the sender stands on, then time
+ * the allocating World#getCollisionBoxes against World#getCollisionBoxesShared, and Entity#move, for every zombie in
+ * every round. The zombies are removed afterwards.
+ * <p>
+ * Before anything is timed, the boxes World#getCollisionBoxesShared returns for every zombie, for boxes moved in
+ * every direction, are checked to be the same boxes in the same order as the ones World#getCollisionBoxes returns.
+ * The command fails on the first difference.
+ */
+@Mod(modid = CollisionBenchmarkTest.MODID, name = "Collision Benchmark", version = "1.0", acceptableRemoteVersions = "*")
+public class CollisionBenchmarkTest
+{
+    public static final String MODID = "collisionbenchmarktest";
+
+    private static final boolean ENABLE = false;
+
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event)
+    {
+        if (ENABLE)
+        {
+            event.registerServerCommand(new CollisionBenchCommand());
+        }
+    }
+
+    private static class CollisionBenchCommand extends CommandBase
+    {
+        @Override
+        public String getName()
+        {
+            return "collisionbench";
+        }
+
+        @Override
+        public String getUsage(ICommandSender sender)
+        {
+            return "/collisionbench [count] [rounds]";
+        }
+
+        @Override
+        public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+        {
+            int count = args.length > 0 ? parseInt(args[0], 1, 1000) : 200;
+            int rounds = args.length > 1 ? parseInt(args[1], 1, 1000) : 100;
+            World world = sender.getEntityWorld();
+            BlockPos pos = sender.getPosition();
+            List<EntityZombie> zombies = Lists.newArrayList();
+
+            for (int i = 0; i < count; ++i)
+            {
+                EntityZombie zombie = new EntityZombie(world);
+                zombie.setNoAI(true);
+                zombie.setPosition(pos.getX() + 0.5D, pos.getY(), pos.getZ() + 0.5D);
+                world.spawnEntity(zombie);
+                zombies.add(zombie);
+            }
+
+            long allocating = 0;
+            long shared = 0;
+            long move = 0;
+            int boxes = 0;
+
+            try
+            {
+                for (EntityZombie zombie : zombies)
+                {
+                    for (double dx = -0.5D; dx <= 0.5D; dx += 0.5D)
+                    {
+                        for (double dy = -0.5D; dy <= 0.5D; dy += 0.5D)
+                        {
+                            for (double dz = -0.5D; dz <= 0.5D; dz += 0.5D)
+                            {
+                                checkSameBoxes(world, zombie, zombie.getEntityBoundingBox().expand(dx, dy, dz));
+                            }
+                        }
+                    }
+                }
+
+                for (int i = 0; i < rounds; ++i)
+                {
+                    for (EntityZombie zombie : zombies)
+                    {
+                        AxisAlignedBB box = zombie.getEntityBoundingBox().expand(0.05D, -0.08D, 0.05D);
+                        long start = System.nanoTime();
+                        boxes += world.getCollisionBoxes(zombie, box).size();
+                        allocating += System.nanoTime() - start;
+                        start = System.nanoTime();
+                        boxes -= world.getCollisionBoxesShared(zombie, box).size();
+                        shared += System.nanoTime() - start;
+                        start = System.nanoTime();
+                        zombie.move(MoverType.SELF, 0.05D, -0.08D, 0.05D);
+                        zombie.move(MoverType.SELF, -0.05D, -0.08D, -0.05D);
+                        move += System.nanoTime() - start;
+                    }
+                }
+            }
+            finally
+            {
+                for (EntityZombie zombie : zombies)
+                {
+                    zombie.setDead();
+                }
+            }
+
+            int queries = count * rounds;
+            sender.sendMessage(new TextComponentString(String.format("%d zombies, %d rounds: getCollisionBoxes %.0f ns, getCollisionBoxesShared %.0f ns, move %.0f ns per call%s",
+                    count, rounds, allocating / (double)queries, shared / (double)queries, move / (queries * 2.0D), boxes == 0 ? "" : " (results differ!)")));
+        }
+
+        private static void checkSameBoxes(World world, EntityZombie zombie, AxisAlignedBB box) throws CommandException
+        {
+            List<AxisAlignedBB> expected = world.getCollisionBoxes(zombie, box);
+            List<AxisAlignedBB> actual = world.getCollisionBoxesShared(zombie, box);
+
+            if (!expected.equals(actual))
+            {
+                throw new CommandException("getCollisionBoxesShared returned %s instead of %s for %s", actual, expected, box);
+            }
+        }
+    }
+}
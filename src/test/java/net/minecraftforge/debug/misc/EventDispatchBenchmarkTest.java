@@ -0,0 +1,204 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.debug.misc;
+
+import java.lang.reflect.Method;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.ModContainer;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.fml.common.eventhandler.ASMEventHandler;
+import net.minecraftforge.fml.common.eventhandler.Event;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
+import net.minecraftforge.fml.common.eventhandler.IEventListener;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Measures the cost of dispatching events.
+ * Use /eventbench [iterations] to time, per event:
+ * <li>posting an event nobody listens to, against checking {@link EventBus#hasListeners(Class)} first,</li>
+ * <li>calling one handler through the {@link ASMEventHandler} (bound with LambdaMetafactory), the ASM generated
+ *     wrapper and reflection,</li>
+ * <li>posting an event to a bus with one and with ten listeners.</li>
+ */
+@Mod(modid = EventDispatchBenchmarkTest.MODID, name = "Event Dispatch Benchmark", version = "1.0", acceptableRemoteVersions = "*")
+public class EventDispatchBenchmarkTest
+{
+    public static final String MODID = "eventdispatchbenchmarktest";
+
+    private static final boolean ENABLE = false;
+
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event)
+    {
+        if (ENABLE)
+        {
+            event.registerServerCommand(new EventBenchCommand());
+        }
+    }
+
+    public static class BenchEvent extends Event
+    {
+        private int value;
+    }
+
+    public static class UnheardEvent extends Event
+    {
+    }
+
+    public static class BenchListener
+    {
+        @SubscribeEvent
+        public void onBench(BenchEvent event)
+        {
+            event.value++;
+        }
+    }
+
+    private static class EventBenchCommand extends CommandBase
+    {
+        // Bus ids are never freed, so the buses are only created once
+        private EventBus one;
+        private EventBus ten;
+
+        @Override
+        public String getName()
+        {
+            return "eventbench";
+        }
+
+        @Override
+        public String getUsage(ICommandSender sender)
+        {
+            return "/eventbench [iterations]";
+        }
+
+        @Override
+        public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+        {
+            int iterations = args.length > 0 ? parseInt(args[0], 1000, 100000000) : 1000000;
+
+            try
+            {
+                BenchListener target = new BenchListener();
+                Method method = BenchListener.class.getMethod("onBench", BenchEvent.class);
+                ASMEventHandler handler = new ASMEventHandler(target, method, null, false);
+                IEventListener wrapper = (IEventListener)handler.createWrapper(method).getConstructor(Object.class).newInstance(target);
+                if (one == null)
+                {
+                    one = newBus(1);
+                    ten = newBus(10);
+                }
+                BenchEvent event = new BenchEvent();
+
+                // The first round warms up the JIT and is not reported
+                for (int round = 0; round < 2; ++round)
+                {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        MinecraftForge.EVENT_BUS.post(new UnheardEvent());
+                    }
+                    long post = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        if (MinecraftForge.EVENT_BUS.hasListeners(UnheardEvent.class))
+                        {
+                            MinecraftForge.EVENT_BUS.post(new UnheardEvent());
+                        }
+                    }
+                    long check = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        handler.invoke(event);
+                    }
+                    long lambda = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        wrapper.invoke(event);
+                    }
+                    long asm = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        method.invoke(target, event);
+                    }
+                    long reflection = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        one.post(event);
+                    }
+                    long postOne = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        ten.post(event);
+                    }
+                    long postTen = System.nanoTime() - start;
+
+                    if (round > 0)
+                    {
+                        double n = iterations;
+                        sender.sendMessage(new TextComponentString(String.format("No listeners: post %.1f ns, hasListeners %.1f ns", post / n, check / n)));
+                        sender.sendMessage(new TextComponentString(String.format("One handler: ASMEventHandler %.1f ns, ASM wrapper %.1f ns, reflection %.1f ns", lambda / n, asm / n, reflection / n)));
+                        sender.sendMessage(new TextComponentString(String.format("Post: 1 listener %.1f ns, 10 listeners %.1f ns (%d calls)", postOne / n, postTen / n, event.value)));
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                throw new CommandException("Benchmark failed: " + e);
+            }
+        }
+
+        private static EventBus newBus(int listeners)
+        {
+            // Registering needs an active mod, which is not set while commands run
+            Loader loader = Loader.instance();
+            ModContainer old = loader.activeModContainer();
+            loader.setActiveModContainer(loader.getIndexedModList().get(MODID));
+            EventBus bus = new EventBus();
+
+            for (int i = 0; i < listeners; ++i)
+            {
+                bus.register(new BenchListener());
+            }
+
+            loader.setActiveModContainer(old);
+            return bus;
+        }
+    }
+}
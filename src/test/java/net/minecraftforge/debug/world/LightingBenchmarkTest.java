@@ -0,0 +1,180 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.debug.world;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.init.Blocks;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraftforge.common.ForgeModContainer;
+import net.minecraftforge.common.util.LightUpdateQueue;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+
+/**
+ * Compares mass block placement with a light check after every block against the batched light updates.
+ * Use /lightbench [size] [rounds] to fill a cube of size blocks above the sender with stone and glowstone, once
+ * per mode, and print the time taken. The light around the cube after the batched updates is compared with the light
+ * after the per block checks, and the number of positions that differ is printed too. The cube is cleared afterwards.
+ */
+@Mod(modid = LightingBenchmarkTest.MODID, name = "Lighting Benchmark", version = "1.0", acceptableRemoteVersions = "*")
+public class LightingBenchmarkTest
+{
+    public static final String MODID = "lightingbenchmarktest";
+
+    private static final boolean ENABLE = false;
+
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event)
+    {
+        if (ENABLE)
+        {
+            event.registerServerCommand(new LightBenchCommand());
+        }
+    }
+
+    private static class LightBenchCommand extends CommandBase
+    {
+        /** Light spreads up to 15 blocks out of the cube */
+        private static final int MARGIN = 15;
+
+        @Override
+        public String getName()
+        {
+            return "lightbench";
+        }
+
+        @Override
+        public String getUsage(ICommandSender sender)
+        {
+            return "/lightbench [size] [rounds]";
+        }
+
+        @Override
+        public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+        {
+            int size = args.length > 0 ? parseInt(args[0], 1, 64) : 16;
+            int rounds = args.length > 1 ? parseInt(args[1], 1, 100) : 5;
+            World world = sender.getEntityWorld();
+            BlockPos origin = sender.getPosition().add(-size / 2, 4, -size / 2);
+            boolean batched = ForgeModContainer.batchedLighting;
+
+            try
+            {
+                long perBlock = 0;
+                long batch = 0;
+                int mismatches = 0;
+
+                for (int i = 0; i < rounds; ++i)
+                {
+                    ForgeModContainer.batchedLighting = false;
+                    perBlock += fill(world, origin, size, false);
+                    int[] expected = readLight(world, origin, size);
+                    clear(world, origin, size);
+                    ForgeModContainer.batchedLighting = true;
+                    batch += fill(world, origin, size, true);
+                    mismatches += countMismatches(expected, readLight(world, origin, size));
+                    clear(world, origin, size);
+                }
+
+                LightUpdateQueue queue = world.getLightUpdateQueue();
+                sender.sendMessage(new TextComponentString(String.format("Placed %d blocks %d times: per block checks %.2f ms, batched %.2f ms (%d light checks, %d changes in total)",
+                        size * size * size, rounds, perBlock / 1.0E6D / rounds, batch / 1.0E6D / rounds, queue == null ? 0 : queue.getCheckedCount(),
+                        queue == null ? 0 : queue.getChangedCount())));
+                sender.sendMessage(new TextComponentString(String.format("%d positions have a different light level after the batched updates", mismatches)));
+            }
+            finally
+            {
+                ForgeModContainer.batchedLighting = batched;
+            }
+        }
+
+        /**
+         * @return the nanoseconds it took to place the blocks and update the light
+         */
+        private static long fill(World world, BlockPos origin, int size, boolean batched)
+        {
+            long start = System.nanoTime();
+
+            for (BlockPos pos : BlockPos.getAllInBoxMutable(origin, origin.add(size - 1, size - 1, size - 1)))
+            {
+                IBlockState state = (pos.getX() + pos.getY() + pos.getZ()) % 7 == 0 ? Blocks.GLOWSTONE.getDefaultState() : Blocks.STONE.getDefaultState();
+                world.setBlockState(pos, state, 2);
+            }
+
+            if (batched)
+            {
+                world.processLightUpdates();
+            }
+
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * @return the block and sky light of the cube and the {@value #MARGIN} blocks around it
+         */
+        private static int[] readLight(World world, BlockPos origin, int size)
+        {
+            BlockPos from = origin.add(-MARGIN, -MARGIN, -MARGIN);
+            BlockPos to = origin.add(size - 1 + MARGIN, size - 1 + MARGIN, size - 1 + MARGIN);
+            int side = size + 2 * MARGIN;
+            int[] light = new int[side * side * side * 2];
+            int i = 0;
+
+            for (BlockPos pos : BlockPos.getAllInBoxMutable(from, to))
+            {
+                light[i++] = world.getLightFor(EnumSkyBlock.BLOCK, pos);
+                light[i++] = world.getLightFor(EnumSkyBlock.SKY, pos);
+            }
+
+            return light;
+        }
+
+        private static int countMismatches(int[] expected, int[] actual)
+        {
+            int mismatches = 0;
+
+            for (int i = 0; i < expected.length; ++i)
+            {
+                if (expected[i] != actual[i])
+                {
+                    ++mismatches;
+                }
+            }
+
+            return mismatches;
+        }
+
+        private static void clear(World world, BlockPos origin, int size)
+        {
+            for (BlockPos pos : BlockPos.getAllInBoxMutable(origin, origin.add(size - 1, size - 1, size - 1)))
+            {
+                world.setBlockToAir(pos);
+            }
+
+            world.processLightUpdates();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.fml.common.eventhandler;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ASMEventHandler#createLambda is package-private, so this lives next to it instead of in net.minecraftforge.test.
+ */
+public class EventBusTest
+{
+    @Test
+    public void testHandlersAreBoundAsLambdas() throws Exception
+    {
+        PrioritySubscriber subscriber = new PrioritySubscriber();
+        for (Method method : PrioritySubscriber.class.getMethods())
+        {
+            if (method.isAnnotationPresent(SubscribeEvent.class))
+            {
+                Assert.assertNotNull("Could not bind " + method, ASMEventHandler.createLambda(subscriber, method));
+            }
+        }
+
+        Method method = StaticSubscriber.class.getMethod("onEvent", TestEvent.class);
+        IEventListener listener = ASMEventHandler.createLambda(StaticSubscriber.class, method);
+        Assert.assertNotNull("Could not bind " + method, listener);
+        StaticSubscriber.calls = 0;
+        listener.invoke(new TestEvent());
+        Assert.assertEquals(1, StaticSubscriber.calls);
+    }
+
+    @Test
+    public void testPriorityOrder()
+    {
+        EventBus bus = new EventBus();
+        PrioritySubscriber subscriber = new PrioritySubscriber();
+        bus.register(subscriber);
+
+        Assert.assertFalse(bus.post(new TestEvent()));
+        Assert.assertEquals(Arrays.asList(EventPriority.HIGHEST, EventPriority.HIGH, EventPriority.NORMAL, EventPriority.LOW, EventPriority.LOWEST), subscriber.calls);
+    }
+
+    @Test
+    public void testReceiveCanceled()
+    {
+        EventBus bus = new EventBus();
+        CancelSubscriber subscriber = new CancelSubscriber();
+        bus.register(subscriber);
+
+        TestEvent event = new TestEvent();
+        Assert.assertTrue(bus.post(event));
+        Assert.assertTrue(event.isCanceled());
+        Assert.assertEquals(Arrays.asList("cancel", "receiveCanceled"), subscriber.calls);
+    }
+
+    @Test
+    public void testGenericFilter()
+    {
+        EventBus bus = new EventBus();
+        GenericSubscriber subscriber = new GenericSubscriber();
+        bus.register(subscriber);
+
+        bus.post(new TestGenericEvent<String>(String.class));
+        bus.post(new TestGenericEvent<Integer>(Integer.class));
+        Assert.assertEquals(Arrays.asList("string", "any", "any"), subscriber.calls);
+    }
+
+    @Test
+    public void testHasListenersAfterRegisterAndUnregister()
+    {
+        EventBus bus = new EventBus();
+        Assert.assertFalse(bus.hasListeners(TestEvent.class));
+        Assert.assertFalse(bus.hasListeners(ChildEvent.class));
+
+        PrioritySubscriber subscriber = new PrioritySubscriber();
+        bus.register(subscriber);
+        Assert.assertTrue(bus.hasListeners(TestEvent.class));
+        Assert.assertTrue("Listeners of the super type receive the event", bus.hasListeners(ChildEvent.class));
+        Assert.assertFalse("Another bus has its own listeners", new EventBus().hasListeners(TestEvent.class));
+
+        bus.unregister(subscriber);
+        Assert.assertFalse(bus.hasListeners(TestEvent.class));
+        Assert.assertFalse(bus.hasListeners(ChildEvent.class));
+
+        bus.register(subscriber);
+        Assert.assertTrue(bus.hasListeners(TestEvent.class));
+        bus.shutdown();
+        Assert.assertFalse(bus.hasListeners(TestEvent.class));
+    }
+
+    @Test
+    public void testHasListenersWithoutDefaultConstructor()
+    {
+        Assert.assertTrue("Events that can not be created are assumed to have listeners", new EventBus().hasListeners(ArgumentEvent.class));
+    }
+
+    /*
+     * The tests run without EventSubscriptionTransformer, so the events below declare the listener list, setup() and
+     * isCancelable() that it would add.
+     */
+
+    @Cancelable
+    public static class TestEvent extends Event
+    {
+        private static ListenerList LISTENER_LIST;
+
+        @Override
+        protected void setup()
+        {
+            super.setup();
+            if (LISTENER_LIST == null)
+            {
+                LISTENER_LIST = new ListenerList(super.getListenerList());
+            }
+        }
+
+        @Override
+        public ListenerList getListenerList()
+        {
+            return LISTENER_LIST;
+        }
+
+        @Override
+        public boolean isCancelable()
+        {
+            return true;
+        }
+    }
+
+    public static class ChildEvent extends TestEvent
+    {
+        private static ListenerList LISTENER_LIST;
+
+        @Override
+        protected void setup()
+        {
+            super.setup();
+            if (LISTENER_LIST == null)
+            {
+                LISTENER_LIST = new ListenerList(super.getListenerList());
+            }
+        }
+
+        @Override
+        public ListenerList getListenerList()
+        {
+            return LISTENER_LIST;
+        }
+    }
+
+    public static class ArgumentEvent extends Event
+    {
+        public ArgumentEvent(String argument)
+        {
+        }
+    }
+
+    public static class TestGenericEvent<T> extends GenericEvent<T>
+    {
+        private static ListenerList LISTENER_LIST;
+
+        public TestGenericEvent()
+        {
+            super(null);
+        }
+
+        public TestGenericEvent(Class<T> type)
+        {
+            super(type);
+        }
+
+        @Override
+        protected void setup()
+        {
+            super.setup();
+            if (LISTENER_LIST == null)
+            {
+                LISTENER_LIST = new ListenerList(super.getListenerList());
+            }
+        }
+
+        @Override
+        public ListenerList getListenerList()
+        {
+            return LISTENER_LIST;
+        }
+    }
+
+    public static class PrioritySubscriber
+    {
+        private final List<EventPriority> calls = new ArrayList<EventPriority>();
+
+        @SubscribeEvent(priority = EventPriority.LOW)
+        public void onLow(TestEvent event)
+        {
+            calls.add(EventPriority.LOW);
+        }
+
+        @SubscribeEvent(priority = EventPriority.HIGHEST)
+        public void onHighest(TestEvent event)
+        {
+            calls.add(EventPriority.HIGHEST);
+        }
+
+        @SubscribeEvent
+        public void onNormal(TestEvent event)
+        {
+            calls.add(EventPriority.NORMAL);
+        }
+
+        @SubscribeEvent(priority = EventPriority.LOWEST)
+        public void onLowest(TestEvent event)
+        {
+            calls.add(EventPriority.LOWEST);
+        }
+
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void onHigh(TestEvent event)
+        {
+            calls.add(EventPriority.HIGH);
+        }
+    }
+
+    public static class CancelSubscriber
+    {
+        private final List<String> calls = new ArrayList<String>();
+
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void cancel(TestEvent event)
+        {
+            calls.add("cancel");
+            event.setCanceled(true);
+        }
+
+        @SubscribeEvent
+        public void skipped(TestEvent event)
+        {
+            calls.add("skipped");
+        }
+
+        @SubscribeEvent(priority = EventPriority.LOW, receiveCanceled = true)
+        public void receiveCanceled(TestEvent event)
+        {
+            calls.add("receiveCanceled");
+        }
+    }
+
+    public static class GenericSubscriber
+    {
+        private final List<String> calls = new ArrayList<String>();
+
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void onString(TestGenericEvent<String> event)
+        {
+            calls.add("string");
+        }
+
+        @SubscribeEvent
+        @SuppressWarnings("rawtypes")
+        public void onAny(TestGenericEvent event)
+        {
+            calls.add("any");
+        }
+    }
+
+    public static class StaticSubscriber
+    {
+        private static int calls;
+
+        @SubscribeEvent
+        public static void onEvent(TestEvent event)
+        {
+            ++calls;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.server.command;
+
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The spiral and the chunks of a region are package-private, so this lives next to them instead of in net.minecraftforge.test.
+ */
+public class ParallelChunkGenWorkerTest
+{
+    private static final BlockPos[] STARTS = { BlockPos.ORIGIN, new BlockPos(37, 0, -5), new BlockPos(-32, 0, 31), new BlockPos(-1000, 0, 2000) };
+    private static final int[] TOTALS = { 1, 2, 8, 9, 10, 24, 25, 26, 100, 1000, 4097 };
+
+    @Test
+    public void testSpiralIndexMatchesQueue()
+    {
+        for (BlockPos start : STARTS)
+        {
+            for (int total : TOTALS)
+            {
+                Queue<BlockPos> queue = new ChunkGenWorker(null, start, total, 0, -1).buildQueue();
+                Assert.assertEquals(total, queue.size());
+                long index = 0;
+
+                for (BlockPos pos : queue)
+                {
+                    Assert.assertEquals("Position of " + pos + " in the spiral around " + start, index++, ParallelChunkGenWorker.spiralIndex(pos.getX() - start.getX(), pos.getZ() - start.getZ()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRegionsCoverQueue()
+    {
+        for (BlockPos start : STARTS)
+        {
+            for (int total : TOTALS)
+            {
+                Set<ChunkPos> expected = new HashSet<ChunkPos>();
+
+                for (BlockPos pos : new ChunkGenWorker(null, start, total, 0, -1).buildQueue())
+                {
+                    expected.add(new ChunkPos(pos.getX(), pos.getZ()));
+                }
+
+                ParallelChunkGenWorker worker = new ParallelChunkGenWorker(null, start, total, 0, -1, 2);
+                Set<ChunkPos> actual = new HashSet<ChunkPos>();
+
+                for (ChunkPos region : worker.regions)
+                {
+                    for (long target : worker.getTargets(region))
+                    {
+                        ChunkPos pos = new ChunkPos((int)target, (int)(target >>> 32));
+                        Assert.assertEquals(region, new ChunkPos(pos.x >> 5, pos.z >> 5));
+                        Assert.assertTrue("Chunk " + pos + " is in more than one region", actual.add(pos));
+                    }
+                }
+
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraftforge.common.util.ChunkGrid;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ChunkGrid}, including the range query {@link net.minecraft.entity.EntityTracker} uses to find the entries
+ * around a player.
+ */
+public class ChunkGridTest
+{
+    @Test
+    public void testCollectMatchesScan()
+    {
+        Random random = new Random(42);
+        ChunkGrid<Integer> grid = new ChunkGrid<>();
+        List<long[]> cells = new ArrayList<>();
+        // The grid compares values by identity, so every value is boxed once
+        Integer[] values = new Integer[5000];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            int x = random.nextInt(200) - 100;
+            int z = random.nextInt(200) - 100;
+            values[i] = Integer.valueOf(i);
+            grid.add(values[i], ChunkGrid.key(x, z));
+            cells.add(new long[] { x, z });
+        }
+
+        for (int i = 0; i < 2000; i++)
+        {
+            long[] cell = cells.get(i);
+            int x = random.nextInt(200) - 100;
+            int z = random.nextInt(200) - 100;
+            grid.move(values[i], ChunkGrid.key((int)cell[0], (int)cell[1]), ChunkGrid.key(x, z));
+            cell[0] = x;
+            cell[1] = z;
+        }
+
+        for (int i = 4000; i < 5000; i++)
+        {
+            long[] cell = cells.get(i);
+            Assert.assertTrue(grid.remove(values[i], ChunkGrid.key((int)cell[0], (int)cell[1])));
+            cell[0] = Integer.MAX_VALUE;
+        }
+
+        Assert.assertEquals(4000, grid.size());
+
+        for (int round = 0; round < 200; round++)
+        {
+            int minX = random.nextInt(220) - 110;
+            int minZ = random.nextInt(220) - 110;
+            int maxX = minX + random.nextInt(round < 100 ? 10 : 300);
+            int maxZ = minZ + random.nextInt(round < 100 ? 10 : 300);
+            Set<Integer> found = new HashSet<>();
+            grid.collect(minX, minZ, maxX, maxZ, found);
+            Set<Integer> expected = new HashSet<>();
+
+            for (int i = 0; i < cells.size(); i++)
+            {
+                long[] cell = cells.get(i);
+                if (cell[0] >= minX && cell[0] <= maxX && cell[1] >= minZ && cell[1] <= maxZ)
+                {
+                    expected.add(i);
+                }
+            }
+
+            Assert.assertEquals(expected, found);
+        }
+
+        Assert.assertEquals(ChunkGrid.key(-3, 7), ChunkGrid.key(ChunkGrid.getX(ChunkGrid.key(-3, 7)), ChunkGrid.getZ(ChunkGrid.key(-3, 7))));
+    }
+
+    @Test
+    public void testCollectAroundMatchesScan()
+    {
+        Random random = new Random(42);
+        ChunkGrid<Integer> grid = new ChunkGrid<>();
+        int[][] cells = new int[3000][];
+        Integer[] values = new Integer[cells.length];
+
+        for (int i = 0; i < cells.length; i++)
+        {
+            cells[i] = new int[] { random.nextInt(100) - 50, random.nextInt(100) - 50 };
+            values[i] = Integer.valueOf(i);
+            grid.add(values[i], ChunkGrid.key(cells[i][0], cells[i][1]));
+        }
+
+        for (int round = 0; round < 500; round++)
+        {
+            double x = random.nextDouble() * 1600 - 800;
+            double z = random.nextDouble() * 1600 - 800;
+            int range = 16 + random.nextInt(150);
+            // Mostly a player that walked a bit, sometimes one that teleported
+            int previousX = round % 4 == 0 ? random.nextInt(100) - 50 : ((int)Math.floor(x) >> 4) + random.nextInt(5) - 2;
+            int previousZ = round % 4 == 0 ? random.nextInt(100) - 50 : ((int)Math.floor(z) >> 4) + random.nextInt(5) - 2;
+            List<Integer> found = new ArrayList<>();
+            grid.collectAround(x, z, range, ChunkGrid.key(previousX, previousZ), found);
+            Set<Integer> unique = new HashSet<>(found);
+            Assert.assertEquals("A value was collected twice", found.size(), unique.size());
+
+            int minX = (int)Math.floor(x - range) >> 4;
+            int minZ = (int)Math.floor(z - range) >> 4;
+            int maxX = (int)Math.floor(x + range) >> 4;
+            int maxZ = (int)Math.floor(z + range) >> 4;
+            int radius = (range >> 4) + 1;
+
+            for (int i = 0; i < cells.length; i++)
+            {
+                int cellX = cells[i][0];
+                int cellZ = cells[i][1];
+                boolean near = cellX >= minX && cellX <= maxX && cellZ >= minZ && cellZ <= maxZ;
+                boolean nearPrevious = Math.abs(cellX - previousX) <= radius && Math.abs(cellZ - previousZ) <= radius;
+                boolean between = cellX >= Math.min(minX, previousX - radius) && cellX <= Math.max(maxX, previousX + radius) &&
+                        cellZ >= Math.min(minZ, previousZ - radius) && cellZ <= Math.max(maxZ, previousZ + radius);
+
+                if (near || nearPrevious)
+                {
+                    Assert.assertTrue("Missed value in chunk " + cellX + ", " + cellZ, unique.contains(i));
+                }
+                else if (!between)
+                {
+                    Assert.assertFalse("Collected value far away in chunk " + cellX + ", " + cellZ, unique.contains(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.minecraftforge.common.util.ChunkPriorityQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChunkPriorityQueueTest
+{
+    @Test
+    public void testPollsInPriorityOrder()
+    {
+        ChunkPriorityQueue<int[]> queue = new ChunkPriorityQueue<int[]>();
+        queue.setView(0, 0, 0.0F);
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            int x = random.nextInt(65) - 32;
+            int z = random.nextInt(65) - 32;
+            queue.add(new int[] {x, z}, x, z);
+        }
+
+        int last = Integer.MIN_VALUE;
+
+        while (!queue.isEmpty())
+        {
+            int[] pos = queue.poll();
+            int priority = queue.getPriority(pos[0], pos[1]);
+            Assert.assertTrue("Polled out of order", priority >= last);
+            last = priority;
+        }
+
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void testNearbyThenAhead()
+    {
+        ChunkPriorityQueue<String> queue = new ChunkPriorityQueue<String>();
+        // A yaw of 0 looks towards positive z
+        queue.setView(10, 10, 0.0F);
+        queue.add("behind", 10, 5);
+        queue.add("ahead", 10, 15);
+        queue.add("side", 15, 10);
+        queue.add("next", 11, 9);
+        queue.add("center", 10, 10);
+
+        Assert.assertEquals("center", queue.poll());
+        Assert.assertEquals("next", queue.poll());
+        Assert.assertEquals("ahead", queue.poll());
+        Assert.assertEquals("side", queue.poll());
+        Assert.assertEquals("behind", queue.poll());
+    }
+
+    @Test
+    public void testSetViewReorders()
+    {
+        ChunkPriorityQueue<String> queue = new ChunkPriorityQueue<String>();
+        queue.setView(0, 0, 0.0F);
+        queue.add("south", 0, 8);
+        queue.add("north", 0, -8);
+        Assert.assertFalse("Turning a little keeps the order", queue.setView(0, 0, 10.0F));
+        Assert.assertEquals("south", queue.peek());
+
+        Assert.assertTrue(queue.setView(0, 0, 180.0F));
+        Assert.assertEquals("north", queue.peek());
+
+        Assert.assertTrue(queue.setView(0, -20, 0.0F));
+        Assert.assertEquals("north", queue.peek());
+    }
+
+    @Test
+    public void testRemoveIf()
+    {
+        ChunkPriorityQueue<Integer> queue = new ChunkPriorityQueue<Integer>();
+        queue.setView(0, 0, 90.0F);
+
+        for (int i = 0; i < 100; i++)
+        {
+            queue.add(i, i - 50, 50 - i);
+        }
+
+        Assert.assertEquals(50, queue.removeIf(i -> i % 2 == 0));
+        Assert.assertEquals(50, queue.size());
+        List<Integer> polled = new ArrayList<Integer>();
+        Integer value;
+
+        while ((value = queue.poll()) != null)
+        {
+            Assert.assertTrue(value % 2 == 1);
+            polled.add(value);
+        }
+
+        Assert.assertEquals(50, polled.size());
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.List;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.inventory.Container;
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.util.NonNullList;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.World;
+import net.minecraftforge.common.crafting.CraftingRecipeIndex;
+import net.minecraftforge.common.crafting.IShapedRecipe;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.registry.ForgeTestRunner;
+import net.minecraftforge.registries.IForgeRegistryEntry;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks that the recipe index finds the same recipe as checking every registered recipe in turn, the way
+ * CraftingManager did before.
+ */
+@RunWith(ForgeTestRunner.class)
+public class CraftingRecipeIndexTest
+{
+    @BeforeClass
+    public static void setup()
+    {
+        Loader.instance();
+        Bootstrap.register();
+    }
+
+    @Test
+    public void testRecipeGridsMatchLinearScan()
+    {
+        CraftingRecipeIndex index = CraftingRecipeIndex.get();
+        int matched = 0;
+
+        for (IRecipe recipe : CraftingManager.REGISTRY)
+        {
+            InventoryCrafting grid = fill(recipe);
+
+            if (grid != null)
+            {
+                IRecipe expected = scan(CraftingManager.REGISTRY, grid);
+                Assert.assertSame("Different recipe for the grid of " + recipe.getRegistryName(), expected, index.findMatchingRecipe(grid, null));
+                // Again through the remembered last match
+                Assert.assertSame(expected, index.findMatchingRecipe(grid, null));
+                matched += expected != null ? 1 : 0;
+            }
+        }
+
+        Assert.assertTrue("Hardly any recipe grid was filled", matched > 100);
+    }
+
+    @Test
+    public void testRandomGridsMatchLinearScan()
+    {
+        CraftingRecipeIndex index = CraftingRecipeIndex.get();
+        List<IRecipe> recipes = Lists.newArrayList(CraftingManager.REGISTRY);
+        List<Item> items = Lists.newArrayList(Item.REGISTRY);
+        Random random = new Random(42);
+
+        for (int round = 0; round < 5000; round++)
+        {
+            InventoryCrafting grid = fill(recipes.get(random.nextInt(recipes.size())));
+
+            if (grid == null)
+            {
+                grid = grid();
+            }
+
+            // Change, add or remove a few stacks, so most grids are near misses
+            for (int i = random.nextInt(3); i > 0; i--)
+            {
+                grid.setInventorySlotContents(random.nextInt(9), random.nextBoolean() ? ItemStack.EMPTY : new ItemStack(items.get(random.nextInt(items.size()))));
+            }
+
+            Assert.assertSame(scan(CraftingManager.REGISTRY, grid), index.findMatchingRecipe(grid, null));
+        }
+    }
+
+    @Test
+    public void testSubclassesAreNotIndexed()
+    {
+        NonNullList<Ingredient> ingredients = NonNullList.from(Ingredient.EMPTY, Ingredient.fromItem(Items.STICK), Ingredient.fromItem(Items.COAL));
+        ShapelessRecipes plain = new ShapelessRecipes("", new ItemStack(Items.ARROW), ingredients);
+        // Ignores its ingredients and matches a single piece of flint
+        ShapelessRecipes custom = new ShapelessRecipes("", new ItemStack(Items.ARROW), ingredients)
+        {
+            @Override
+            public boolean matches(InventoryCrafting inv, World worldIn)
+            {
+                return inv.getStackInSlot(0).getItem() == Items.FLINT;
+            }
+        };
+        Assert.assertTrue(plain.isIndexable());
+        Assert.assertFalse(custom.isIndexable());
+
+        CraftingRecipeIndex index = new CraftingRecipeIndex(Lists.<IRecipe>newArrayList(plain, custom));
+        InventoryCrafting grid = grid();
+        grid.setInventorySlotContents(0, new ItemStack(Items.FLINT));
+        Assert.assertSame(custom, index.findMatchingRecipe(grid, null));
+    }
+
+    @Test
+    public void testLastMatchRechecksStatefulRecipes()
+    {
+        ToggleRecipe toggle = new ToggleRecipe();
+        ShapelessRecipes plain = new ShapelessRecipes("", new ItemStack(Items.ARROW), NonNullList.from(Ingredient.EMPTY, Ingredient.fromItem(Items.FLINT)));
+        CraftingRecipeIndex index = new CraftingRecipeIndex(Lists.<IRecipe>newArrayList(toggle, plain));
+        InventoryCrafting grid = grid();
+        grid.setInventorySlotContents(0, new ItemStack(Items.FLINT));
+
+        Assert.assertSame(plain, index.findMatchingRecipe(grid, null));
+        // The grid is the same, but the earlier recipe matches now
+        toggle.enabled = true;
+        Assert.assertSame(toggle, index.findMatchingRecipe(grid, null));
+        toggle.enabled = false;
+        Assert.assertSame(plain, index.findMatchingRecipe(grid, null));
+
+        // Stack sizes don't matter to the plain recipe, the last match is still right
+        grid.getStackInSlot(0).setCount(5);
+        Assert.assertSame(plain, index.findMatchingRecipe(grid, null));
+    }
+
+    @Nullable
+    private static IRecipe scan(Iterable<IRecipe> recipes, InventoryCrafting grid)
+    {
+        for (IRecipe recipe : recipes)
+        {
+            if (recipe.matches(grid, null))
+            {
+                return recipe;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a grid holding a stack of every ingredient of the recipe, or null if one of them has no stacks
+     */
+    @Nullable
+    private static InventoryCrafting fill(IRecipe recipe)
+    {
+        NonNullList<Ingredient> ingredients = recipe.getIngredients();
+        int width = recipe instanceof IShapedRecipe ? ((IShapedRecipe)recipe).getRecipeWidth() : 3;
+
+        if (ingredients.isEmpty() || ingredients.size() > 9 || width > 3)
+        {
+            return null;
+        }
+
+        InventoryCrafting grid = grid();
+
+        for (int i = 0; i < ingredients.size(); i++)
+        {
+            Ingredient ingredient = ingredients.get(i);
+
+            if (ingredient != Ingredient.EMPTY)
+            {
+                ItemStack[] stacks = ingredient.getMatchingStacks();
+
+                if (stacks.length == 0)
+                {
+                    return null;
+                }
+
+                grid.setInventorySlotContents(i / width * 3 + i % width, stacks[0].copy());
+            }
+        }
+
+        return grid;
+    }
+
+    private static InventoryCrafting grid()
+    {
+        return new InventoryCrafting(new TestContainer(), 3, 3);
+    }
+
+    private static class TestContainer extends Container
+    {
+        @Override
+        public boolean canInteractWith(EntityPlayer playerIn)
+        {
+            return true;
+        }
+
+        @Override
+        public org.bukkit.inventory.InventoryView getBukkitView()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Matches any grid while enabled, like a recipe that depends on the player or the world.
+     */
+    private static class ToggleRecipe extends IForgeRegistryEntry.Impl<IRecipe> implements IRecipe
+    {
+        private boolean enabled;
+
+        @Override
+        public boolean matches(InventoryCrafting inv, World worldIn)
+        {
+            return this.enabled;
+        }
+
+        @Override
+        public ItemStack getCraftingResult(InventoryCrafting inv)
+        {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public boolean canFit(int width, int height)
+        {
+            return true;
+        }
+
+        @Override
+        public ItemStack getRecipeOutput()
+        {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public org.bukkit.inventory.Recipe toBukkitRecipe()
+        {
+            return null;
+        }
+
+        @Override
+        public void setKey(ResourceLocation key)
+        {
+        }
+    }
+}
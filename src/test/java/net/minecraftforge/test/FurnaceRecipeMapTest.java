@@ -0,0 +1,166 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.FurnaceRecipes;
+import net.minecraftforge.common.crafting.FurnaceRecipeMap;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.registry.ForgeTestRunner;
+import net.minecraftforge.oredict.OreDictionary;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks that the smelting lookups find the same value as checking every key in turn, the way FurnaceRecipes did before.
+ */
+@RunWith(ForgeTestRunner.class)
+public class FurnaceRecipeMapTest
+{
+    @BeforeClass
+    public static void setup()
+    {
+        Loader.instance();
+        Bootstrap.register();
+    }
+
+    @Test
+    public void testSmeltingMatchesLinearScan()
+    {
+        FurnaceRecipes recipes = FurnaceRecipes.instance();
+        int matched = 0;
+
+        for (Item item : Item.REGISTRY)
+        {
+            for (int meta = 0; meta < 16; meta++)
+            {
+                ItemStack stack = new ItemStack(item, 1, meta);
+                ItemStack expected = scan(recipes.customRecipes, stack);
+                expected = expected != null ? expected : scan(recipes.getSmeltingList(), stack);
+
+                Assert.assertSame(expected != null ? expected : ItemStack.EMPTY, recipes.getSmeltingResult(stack));
+                matched += expected != null ? 1 : 0;
+            }
+        }
+
+        Assert.assertTrue("Hardly any smelting recipe was found", matched > 30);
+    }
+
+    @Test
+    public void testChangesMatchLinearScan()
+    {
+        FurnaceRecipeMap<Integer> map = new FurnaceRecipeMap<Integer>();
+        Item[] items = { Items.COAL, Items.DYE, Items.FISH };
+        List<ItemStack> keys = Lists.newArrayList();
+        Random random = new Random(42);
+
+        for (int round = 0; round < 2000; round++)
+        {
+            int action = random.nextInt(10);
+
+            if (action < 5 || map.isEmpty())
+            {
+                int meta = random.nextInt(5);
+                ItemStack key = new ItemStack(items[random.nextInt(items.length)], 1, meta == 4 ? OreDictionary.WILDCARD_VALUE : meta);
+                keys.add(key);
+                map.put(key, round);
+            }
+            else if (action < 7)
+            {
+                // Replacing a value keeps the position of the key
+                map.put(keys.get(random.nextInt(keys.size())), round);
+            }
+            else if (action < 8)
+            {
+                map.remove(keys.get(random.nextInt(keys.size())));
+            }
+            else if (action < 9)
+            {
+                Iterator<Map.Entry<ItemStack, Integer>> iterator = map.entrySet().iterator();
+
+                for (int i = random.nextInt(map.size()); i >= 0; i--)
+                {
+                    iterator.next();
+                }
+
+                iterator.remove();
+            }
+            else if (random.nextInt(20) == 0)
+            {
+                map.clear();
+            }
+            else
+            {
+                map.keySet().remove(keys.get(random.nextInt(keys.size())));
+            }
+
+            for (Item item : items)
+            {
+                for (int meta = 0; meta < 5; meta++)
+                {
+                    ItemStack stack = new ItemStack(item, 1, meta);
+                    Assert.assertEquals(scan(map, stack), map.findMatch(stack));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFirstKeyWins()
+    {
+        FurnaceRecipeMap<String> map = new FurnaceRecipeMap<String>();
+        ItemStack wildcard = new ItemStack(Items.DYE, 1, OreDictionary.WILDCARD_VALUE);
+        map.put(wildcard, "wildcard");
+        map.put(new ItemStack(Items.DYE, 1, 4), "lapis");
+
+        Assert.assertEquals("wildcard", map.findMatch(new ItemStack(Items.DYE, 1, 4)));
+        map.remove(wildcard);
+        Assert.assertEquals("lapis", map.findMatch(new ItemStack(Items.DYE, 1, 4)));
+        Assert.assertNull(map.findMatch(new ItemStack(Items.DYE, 1, 3)));
+    }
+
+    @Nullable
+    private static <V> V scan(Map<ItemStack, V> map, ItemStack stack)
+    {
+        for (Map.Entry<ItemStack, V> entry : map.entrySet())
+        {
+            ItemStack key = entry.getKey();
+
+            if (key.getItem() == stack.getItem() && (key.getMetadata() == OreDictionary.WILDCARD_VALUE || key.getMetadata() == stack.getMetadata()))
+            {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
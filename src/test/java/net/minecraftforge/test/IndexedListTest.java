@@ -0,0 +1,177 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraftforge.common.util.IndexedList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexedListTest
+{
+    private static final int ENTITIES = 20000;
+    private static final int DESPAWNS_PER_TICK = 500;
+
+    @Test
+    public void testIterationVisitsEveryElementOnce()
+    {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 500; round++)
+        {
+            IndexedList<Integer> list = new IndexedList<>();
+            int initial = random.nextInt(64);
+            int next = 0;
+            while (next < initial)
+            {
+                list.add(next++);
+            }
+
+            Set<Integer> visited = new HashSet<>();
+            Set<Integer> removed = new HashSet<>();
+            list.beginIteration();
+            Integer element;
+            while ((element = list.advance()) != null)
+            {
+                Assert.assertTrue("Element was visited twice", visited.add(element));
+                for (int i = random.nextInt(3); i > 0 && !list.isEmpty(); i--)
+                {
+                    if (random.nextInt(4) == 0)
+                    {
+                        list.add(next++);
+                    }
+                    else
+                    {
+                        Integer victim = list.get(random.nextInt(list.size()));
+                        list.remove(victim);
+                        removed.add(victim);
+                    }
+                }
+                assertIndexed(list);
+            }
+
+            for (int i = 0; i < initial; i++)
+            {
+                Assert.assertTrue("Element was skipped", visited.contains(i) || removed.contains(i));
+            }
+        }
+    }
+
+    @Test
+    public void testIteratorRemove()
+    {
+        IndexedList<Integer> list = new IndexedList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            list.add(i);
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        Iterator<Integer> iterator = list.iterator();
+        while (iterator.hasNext())
+        {
+            Integer element = iterator.next();
+            Assert.assertTrue("Iterator returned an element twice", seen.add(element));
+            if (element % 3 == 0)
+            {
+                iterator.remove();
+            }
+        }
+
+        Assert.assertEquals("Iterator missed elements", 100, seen.size());
+        Assert.assertEquals(66, list.size());
+        assertIndexed(list);
+    }
+
+    @Test
+    public void testNoDuplicates()
+    {
+        IndexedList<String> list = new IndexedList<>();
+        Assert.assertTrue(list.add("a"));
+        Assert.assertFalse(list.add("a"));
+        Assert.assertEquals(1, list.size());
+        Assert.assertTrue(list.remove("a"));
+        Assert.assertFalse(list.contains("a"));
+        Assert.assertEquals(-1, list.indexOf("a"));
+    }
+
+    /**
+     * Despawns {@value #DESPAWNS_PER_TICK} of {@value #ENTITIES} entities per tick the way World#updateEntities does
+     * and checks the list ends up with the same elements as an ArrayList. Removal does not keep the order, so only the
+     * contents are compared.
+     */
+    @Test
+    public void testMassDespawnMatchesArrayList()
+    {
+        Random random = new Random(1);
+        List<Integer> expected = new ArrayList<>();
+        IndexedList<Integer> list = new IndexedList<>();
+        int next = 0;
+
+        for (int tick = 0; tick < 20; tick++)
+        {
+            while (expected.size() < ENTITIES)
+            {
+                expected.add(next);
+                list.add(next++);
+            }
+
+            List<Integer> unloaded = new ArrayList<>();
+            List<Integer> killed = new ArrayList<>();
+            for (int i = 0; i < DESPAWNS_PER_TICK; i++)
+            {
+                Integer entity = expected.get(random.nextInt(expected.size()));
+                if (!unloaded.contains(entity) && !killed.contains(entity))
+                {
+                    (i % 2 == 0 ? unloaded : killed).add(entity);
+                }
+            }
+
+            expected.removeAll(unloaded);
+            Assert.assertTrue(list.removeAll(unloaded)); // World#updateEntities, unloadedEntityList
+            for (Integer entity : killed)
+            {
+                expected.remove(expected.indexOf(entity));
+                list.remove(list.indexOf(entity)); // World#removeEntityDangerously
+            }
+
+            Assert.assertEquals(expected.size(), list.size());
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(list));
+            for (Integer entity : unloaded)
+            {
+                Assert.assertFalse("Unloaded entity is still in the list", list.contains(entity));
+            }
+            assertIndexed(list);
+        }
+    }
+
+    private static void assertIndexed(IndexedList<Integer> list)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            Assert.assertEquals("Stored index is out of date", i, list.indexOf(list.get(i)));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import net.minecraft.network.play.server.SPacketTimeUpdate;
+import net.minecraftforge.common.ForgeModContainer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NetworkFlushTest
+{
+    @Test
+    public void testPacketsOfTheTickWaitForTheFlush()
+    {
+        TickNetworkManager manager = new TickNetworkManager();
+        EmbeddedChannel channel = open(manager);
+        Packet<?> first = new SPacketTimeUpdate(1L, 1L, true);
+        Packet<?> second = new SPacketTimeUpdate(2L, 2L, true);
+
+        manager.sendPacket(first);
+        manager.sendPacket(second);
+        Assert.assertNull("A packet of the tick was flushed before the end of the tick", channel.readOutbound());
+
+        manager.flushPackets();
+        Assert.assertSame(first, channel.readOutbound());
+        Assert.assertSame(second, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testPacketsOutsideTheTickAreFlushedRightAway()
+    {
+        TickNetworkManager manager = new TickNetworkManager();
+        manager.insideTick = false;
+        EmbeddedChannel channel = open(manager);
+        Packet<?> packet = new SPacketTimeUpdate(1L, 1L, true);
+
+        manager.sendPacket(packet);
+        Assert.assertSame(packet, channel.readOutbound());
+    }
+
+    @Test
+    public void testSendOutsideTheTickKeepsTheOrder()
+    {
+        TickNetworkManager manager = new TickNetworkManager();
+        EmbeddedChannel channel = open(manager);
+        Packet<?> tick = new SPacketTimeUpdate(1L, 1L, true);
+        Packet<?> async = new SPacketTimeUpdate(2L, 2L, true);
+
+        manager.sendPacket(tick);
+        manager.insideTick = false;
+        manager.sendPacket(async);
+        Assert.assertSame("The packet written earlier in the tick must go out first", tick, channel.readOutbound());
+        Assert.assertSame(async, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testKeepAliveIsFlushedRightAway()
+    {
+        TickNetworkManager manager = new TickNetworkManager();
+        EmbeddedChannel channel = open(manager);
+        Packet<?> tick = new SPacketTimeUpdate(1L, 1L, true);
+        Packet<?> keepAlive = new SPacketKeepAlive(42L);
+
+        manager.sendPacket(tick);
+        manager.sendPacket(keepAlive);
+        Assert.assertSame(tick, channel.readOutbound());
+        Assert.assertSame(keepAlive, channel.readOutbound());
+    }
+
+    @Test
+    public void testConsolidationDisabled()
+    {
+        boolean consolidation = ForgeModContainer.networkFlushConsolidation;
+        ForgeModContainer.networkFlushConsolidation = false;
+
+        try
+        {
+            TickNetworkManager manager = new TickNetworkManager();
+            EmbeddedChannel channel = open(manager);
+            Packet<?> packet = new SPacketTimeUpdate(1L, 1L, true);
+
+            manager.sendPacket(packet);
+            Assert.assertSame(packet, channel.readOutbound());
+        }
+        finally
+        {
+            ForgeModContainer.networkFlushConsolidation = consolidation;
+        }
+    }
+
+    private static EmbeddedChannel open(NetworkManager manager)
+    {
+        EmbeddedChannel channel = new EmbeddedChannel(manager);
+        manager.setConnectionState(EnumConnectionState.PLAY);
+        return channel;
+    }
+
+    /**
+     * A server connection that is told whether its packets are sent during the server tick, which has no server here.
+     */
+    private static class TickNetworkManager extends NetworkManager
+    {
+        private boolean insideTick = true;
+
+        private TickNetworkManager()
+        {
+            super(EnumPacketDirection.SERVERBOUND);
+        }
+
+        @Override
+        protected boolean isInsideServerTick()
+        {
+            return this.insideTick;
+        }
+    }
+}
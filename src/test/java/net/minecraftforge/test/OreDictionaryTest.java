@@ -0,0 +1,136 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.registry.ForgeTestRunner;
+import net.minecraftforge.oredict.OreDictionary;
+import net.minecraftforge.oredict.OreIngredient;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks the precomputed ore ids against scanning the registered ores, the way getOreIDs and OreIngredient did before.
+ */
+@RunWith(ForgeTestRunner.class)
+public class OreDictionaryTest
+{
+    @BeforeClass
+    public static void setup()
+    {
+        Loader.instance();
+        Bootstrap.register();
+    }
+
+    @Test
+    public void testOreIDsMatchLinearScan()
+    {
+        checkAllItems();
+
+        // Registering afterwards updates the precomputed ids, for a wildcard before and after an exact metadata
+        OreDictionary.registerOre("testOreDictionaryExact", new ItemStack(Items.DYE, 1, 4));
+        OreDictionary.registerOre("testOreDictionaryWildcard", new ItemStack(Items.DYE, 1, OreDictionary.WILDCARD_VALUE));
+        OreDictionary.registerOre("testOreDictionaryExact", new ItemStack(Items.COAL, 1, 1));
+        checkAllItems();
+
+        OreDictionary.rebakeMap();
+        checkAllItems();
+    }
+
+    private static void checkAllItems()
+    {
+        String[] names = OreDictionary.getOreNames();
+        OreIngredient[] ingredients = new OreIngredient[names.length];
+        int matched = 0;
+
+        for (int i = 0; i < names.length; i++)
+        {
+            ingredients[i] = new OreIngredient(names[i]);
+        }
+
+        for (Item item : Item.REGISTRY)
+        {
+            for (int meta = 0; meta < 16; meta++)
+            {
+                ItemStack stack = new ItemStack(item, 1, meta);
+
+                if (stack.isEmpty())
+                {
+                    continue;
+                }
+
+                int[] expected = scan(names, stack);
+                int[] actual = OreDictionary.getOreIDs(stack);
+                Arrays.sort(actual);
+                Assert.assertArrayEquals("Ore ids of " + stack, expected, actual);
+                Assert.assertTrue(OreDictionary.isKeyedByMetadata(stack));
+
+                for (OreIngredient ingredient : ingredients)
+                {
+                    boolean listed = false;
+
+                    for (ItemStack ore : OreDictionary.getOres(OreDictionary.getOreName(ingredient.getOreId())))
+                    {
+                        listed |= OreDictionary.itemMatches(ore, stack, false);
+                    }
+
+                    Assert.assertEquals(listed, ingredient.apply(stack));
+                    Assert.assertEquals(listed, OreDictionary.hasOreID(stack, ingredient.getOreId()));
+                }
+
+                matched += expected.length;
+            }
+        }
+
+        Assert.assertTrue("Hardly any ore was found", matched > 100);
+    }
+
+    /**
+     * @return the sorted ids of the ores registered for the item of the stack and its damage or the wildcard
+     */
+    private static int[] scan(String[] names, ItemStack stack)
+    {
+        IntArrayList ids = new IntArrayList();
+
+        for (String name : names)
+        {
+            for (ItemStack ore : OreDictionary.getOres(name))
+            {
+                if (ore.getItem() == stack.getItem() && (ore.getItemDamage() == OreDictionary.WILDCARD_VALUE || ore.getItemDamage() == stack.getItemDamage()))
+                {
+                    ids.add(OreDictionary.getOreID(name));
+                    break;
+                }
+            }
+        }
+
+        int[] ret = ids.toIntArray();
+        Arrays.sort(ret);
+        return ret;
+    }
+}
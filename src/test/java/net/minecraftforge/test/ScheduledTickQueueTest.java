@@ -0,0 +1,201 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2018.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package net.minecraftforge.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraftforge.common.util.ScheduledTickQueue;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.registry.ForgeTestRunner;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks the ScheduledTickQueue against the TreeSet vanilla WorldServer kept the pending block updates in.
+ */
+@RunWith(ForgeTestRunner.class)
+public class ScheduledTickQueueTest
+{
+    private static Block[] blocks;
+
+    @BeforeClass
+    public static void setup()
+    {
+        Loader.instance();
+        Bootstrap.register();
+        blocks = new Block[] { Blocks.STONE, Blocks.REDSTONE_WIRE, Blocks.WATER };
+    }
+
+    @Test
+    public void testDrainOrderMatchesTreeSet()
+    {
+        Random random = new Random(42);
+        ScheduledTickQueue queue = new ScheduledTickQueue();
+        // Vanilla kept a HashSet for the duplicate check and a TreeSet for the order
+        Set<NextTickListEntry> scheduled = new HashSet<>();
+        TreeSet<NextTickListEntry> reference = new TreeSet<>();
+
+        for (long time = 0; time < 200; time++)
+        {
+            for (int i = random.nextInt(50); i > 0; i--)
+            {
+                NextTickListEntry entry = randomEntry(random, time);
+                boolean added = scheduled.add(entry);
+                if (added)
+                {
+                    reference.add(entry);
+                }
+                Assert.assertEquals("Duplicate check differs", added, queue.add(entry));
+            }
+
+            if (random.nextInt(4) == 0 && !reference.isEmpty())
+            {
+                NextTickListEntry victim = reference.pollLast();
+                scheduled.remove(victim);
+                Assert.assertTrue(queue.remove(victim));
+                Assert.assertFalse(queue.contains(victim));
+            }
+
+            int limit = 1 + random.nextInt(40);
+            List<NextTickListEntry> drained = new ArrayList<>();
+            int count = queue.drain(time, false, limit, drained);
+            List<NextTickListEntry> expected = expectedDrain(reference, time, limit);
+            scheduled.removeAll(expected);
+            Assert.assertEquals(expected, drained);
+            Assert.assertEquals(drained.size(), count);
+            Assert.assertEquals(reference.size(), queue.size());
+        }
+
+        List<NextTickListEntry> rest = new ArrayList<>();
+        queue.drain(0, true, Integer.MAX_VALUE, rest);
+        Assert.assertEquals(new ArrayList<>(reference), rest);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPriorityWithinTick()
+    {
+        ScheduledTickQueue queue = new ScheduledTickQueue();
+        NextTickListEntry late = entry(new BlockPos(0, 64, 0), blocks[0], 10, 1);
+        NextTickListEntry first = entry(new BlockPos(1, 64, 0), blocks[0], 10, -1);
+        NextTickListEntry second = entry(new BlockPos(2, 64, 0), blocks[0], 10, 0);
+        NextTickListEntry third = entry(new BlockPos(3, 64, 0), blocks[0], 10, 0);
+        queue.add(late);
+        queue.add(first);
+        queue.add(second);
+        queue.add(third);
+
+        List<NextTickListEntry> drained = new ArrayList<>();
+        Assert.assertEquals(0, queue.drain(9, false, 100, drained));
+        queue.drain(10, false, 100, drained);
+        Assert.assertEquals("Priority, then scheduling order", Arrays.asList(first, second, third, late), drained);
+    }
+
+    @Test
+    public void testEntriesWithinMatchesScan()
+    {
+        Random random = new Random(7);
+        ScheduledTickQueue queue = new ScheduledTickQueue();
+        TreeSet<NextTickListEntry> reference = new TreeSet<>();
+
+        for (int i = 0; i < 2000; i++)
+        {
+            NextTickListEntry entry = randomEntry(random, 0);
+            if (queue.add(entry))
+            {
+                reference.add(entry);
+            }
+        }
+
+        for (int round = 0; round < 200; round++)
+        {
+            int x = random.nextInt(400) - 200;
+            int z = random.nextInt(400) - 200;
+            // Both small boxes that are looked up chunk by chunk and boxes bigger than the index
+            int size = random.nextBoolean() ? 16 + random.nextInt(32) : 2000;
+            StructureBoundingBox box = new StructureBoundingBox(x, 0, z, x + size, 256, z + size);
+            boolean remove = random.nextInt(3) == 0;
+
+            List<NextTickListEntry> expected = new ArrayList<>();
+            for (NextTickListEntry entry : reference)
+            {
+                BlockPos pos = entry.position;
+                if (pos.getX() >= box.minX && pos.getX() < box.maxX && pos.getZ() >= box.minZ && pos.getZ() < box.maxZ)
+                {
+                    expected.add(entry);
+                }
+            }
+
+            List<NextTickListEntry> found = queue.getEntriesWithin(box, remove);
+            Assert.assertEquals(expected, found == null ? new ArrayList<NextTickListEntry>() : found);
+
+            if (remove)
+            {
+                reference.removeAll(expected);
+                Assert.assertEquals(reference.size(), queue.size());
+            }
+        }
+    }
+
+    private static List<NextTickListEntry> expectedDrain(TreeSet<NextTickListEntry> reference, long time, int limit)
+    {
+        List<NextTickListEntry> list = new ArrayList<>();
+        Iterator<NextTickListEntry> iterator = reference.iterator();
+        while (list.size() < limit && iterator.hasNext())
+        {
+            NextTickListEntry entry = iterator.next();
+            if (entry.scheduledTime > time)
+            {
+                break;
+            }
+            iterator.remove();
+            list.add(entry);
+        }
+        return list;
+    }
+
+    private static NextTickListEntry randomEntry(Random random, long time)
+    {
+        BlockPos pos = new BlockPos(random.nextInt(200) - 100, random.nextInt(4), random.nextInt(200) - 100);
+        return entry(pos, blocks[random.nextInt(blocks.length)], time + random.nextInt(20), random.nextInt(8) == 0 ? random.nextInt(3) - 1 : 0);
+    }
+
+    private static NextTickListEntry entry(BlockPos pos, Block block, long time, int priority)
+    {
+        NextTickListEntry entry = new NextTickListEntry(pos, block);
+        entry.setScheduledTime(time);
+        entry.setPriority(priority);
+        return entry;
+    }
+}
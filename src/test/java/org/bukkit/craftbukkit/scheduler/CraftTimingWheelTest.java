@@ -0,0 +1,139 @@
+package org.bukkit.craftbukkit.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The wheel and its tasks are package-private, so this lives next to them instead of in net.minecraftforge.test.
+ */
+public class CraftTimingWheelTest {
+
+    @Test
+    public void testTasksRunExactlyWhenDue() {
+        // Start right before level 0, level 1 and level 2 wrap around, and somewhere arbitrary
+        for (final long start : new long[] { 0L, 61L, (1L << 12) - 5, (1L << 18) - 2, 1234567891L }) {
+            final Random random = new Random(start);
+            final CraftTimingWheel wheel = new CraftTimingWheel(start);
+            final List<CraftTask> pending = new ArrayList<CraftTask>();
+            long tick = start;
+
+            for (int round = 0; round < 300; round++) {
+                for (int i = random.nextInt(20); i > 0; i--) {
+                    final CraftTask task = task(tick + randomDelay(random));
+                    Assert.assertTrue(wheel.add(task));
+                    pending.add(task);
+                }
+
+                final long to = tick + 1 + (random.nextInt(4) == 0 ? random.nextInt(5000) : random.nextInt(70));
+                final List<CraftTask> due = new ArrayList<CraftTask>();
+                wheel.advance(to, due);
+                assertDue(pending, tick, to, due);
+                tick = to;
+                Assert.assertEquals(pending.size(), wheel.size());
+            }
+        }
+    }
+
+    @Test
+    public void testOverflowIsCascaded() {
+        final CraftTimingWheel wheel = new CraftTimingWheel(10L);
+        final CraftTask far = task(10L + (1L << 24) + 100);
+        Assert.assertTrue(wheel.add(far));
+
+        final List<CraftTask> due = new ArrayList<CraftTask>();
+        wheel.advance(far.getNextRun() - 1, due);
+        Assert.assertTrue("Ran before it was due", due.isEmpty());
+        wheel.advance(far.getNextRun(), due);
+        Assert.assertEquals(1, due.size());
+        Assert.assertSame(far, due.get(0));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancellation() {
+        final Random random = new Random(3);
+        final CraftTimingWheel wheel = new CraftTimingWheel(0L);
+        final List<CraftTask> pending = new ArrayList<CraftTask>();
+        final Set<CraftTask> cancelled = new HashSet<CraftTask>();
+
+        for (int i = 0; i < 2000; i++) {
+            final CraftTask task = task(1 + randomDelay(random));
+            wheel.add(task);
+            pending.add(task);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            final CraftTask task = pending.remove(random.nextInt(pending.size()));
+            Assert.assertTrue(wheel.remove(task));
+            Assert.assertFalse("Removed twice", wheel.remove(task));
+            cancelled.add(task);
+        }
+        Assert.assertEquals(pending.size(), wheel.size());
+
+        final List<CraftTask> due = new ArrayList<CraftTask>();
+        wheel.advance(1L << 25, due);
+        Assert.assertEquals(pending.size(), due.size());
+        for (final CraftTask task : due) {
+            Assert.assertFalse("Cancelled task ran", cancelled.contains(task));
+        }
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDueTasksAreRejectedAndClear() {
+        final CraftTimingWheel wheel = new CraftTimingWheel(100L);
+        Assert.assertFalse(wheel.add(task(100L)));
+        Assert.assertFalse(wheel.add(task(50L)));
+        Assert.assertEquals(0, wheel.size());
+
+        final CraftTask near = task(101L);
+        final CraftTask far = task(100L + (1L << 30));
+        wheel.add(near);
+        wheel.add(far);
+        wheel.clear();
+        Assert.assertEquals(0, wheel.size());
+        Assert.assertFalse(wheel.remove(near));
+        Assert.assertFalse(wheel.remove(far));
+        // Cleared tasks can be scheduled again
+        Assert.assertTrue(wheel.add(near));
+        Assert.assertEquals(1, wheel.size());
+    }
+
+    private static long randomDelay(final Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return 1 + random.nextInt(64);
+            case 1:
+                return 1 + random.nextInt(4096);
+            case 2:
+                return 1 + random.nextInt(1 << 18);
+            default:
+                return 1 + random.nextInt(1 << 25);
+        }
+    }
+
+    private static void assertDue(final List<CraftTask> pending, final long from, final long to, final List<CraftTask> due) {
+        final Set<CraftTask> expected = new HashSet<CraftTask>();
+        for (final CraftTask task : pending) {
+            if (task.getNextRun() <= to) {
+                Assert.assertTrue("Task was missed", task.getNextRun() > from);
+                expected.add(task);
+            }
+        }
+        Assert.assertEquals("A task came out twice", due.size(), new HashSet<CraftTask>(due).size());
+        Assert.assertEquals(expected, new HashSet<CraftTask>(due));
+        pending.removeAll(expected);
+    }
+
+    private static CraftTask task(final long nextRun) {
+        final CraftTask task = new CraftTask();
+        task.setNextRun(nextRun);
+        return task;
+    }
+}